@@ -2,11 +2,15 @@ package jp.rouh.mahjong.app;
 
 import jp.rouh.mahjong.table.Game;
 
+import java.util.List;
+
 public class Application{
     public static void main(String[] args){
-        new Game(new User(new ConsoleViewer()),
+        // --fast: 通知の出力を自家の手番ごとにまとめて書き出します
+        boolean fast = List.of(args).contains("--fast");
+        new Game(new User(new ConsoleViewer(fast)),
                 new Bot("Anna"),
                 new Bot("Gina"),
-                new Bot("Mina"));
+                new Bot("Mina")).start();
     }
 }
@@ -15,10 +15,88 @@ import jp.rouh.mahjong.tile.Wind;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * 標準入出力で対局を行うビュー。
+ *
+ * <p>通知ごとの出力や問い合わせのプロンプトは一つの文字列にまとめてから一度に書き出されます。
+ * 高速モードでは通知の出力を自家の手番ごとにまとめ, 問い合わせのプロンプトと共に一度に書き出します。
+ * 局の開始と終了の際にも書き出すため, 低速な回線越しの端末でも書き出しの回数が抑えられます。
+ * 問い合わせの前には, まとめた出力が必ず書き出されます。
+ * <p>標準入力は全てのインスタンスで共有される一つのリーダーから読み込まれるため,
+ * 問い合わせをまたいで先行入力された行が失われることはありません。
+ * @author Rouh
+ * @version 1.0
+ */
 public class ConsoleViewer implements TableStrategy{
+    private static final String TILE_LEGEND = String.join("\n",
+            "",
+            "_＿__＿__＿__＿__＿__＿__＿__＿__＿__＿__＿__＿__＿__ _＿__",
+            "|一 |一 |③ |③ |④ |④ |⑤ |⑤ |Ⅴ |Ⅵ |Ⅶ |Ⅶ |Ⅷ | |Ⅷ |",
+            "|萬 |萬 |筒 |筒 |筒 |筒 |筒 |赤 |索 |索 |索 |索 |索 | |索 |",
+            "+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ +ー-+",
+            " 　1　 2　 3　 4　 5　 6　 7　 8　 9　10　11　12　13　  14 ",
+            "",
+            "",
+            "|一 |二 |三 |四 |五 |六 |七 |八 |九 |",
+            "|萬 |萬 |萬 |萬 |萬 |萬 |萬 |萬 |萬 |",
+            "",
+            "|東 |南 |西 |北 |　 |發 |中 |",
+            "|　 |　 |　 |　 |　 |　 |　 |",
+            "",
+            "|Ⅰ |Ⅱ |Ⅲ |Ⅳ |Ⅴ |Ⅵ |Ⅶ |Ⅷ |Ⅸ |",
+            "|索 |索 |索 |索 |索 |索 |索 |索 |索 |",
+            "",
+            "|① |② |③ |④ |⑤ |⑥ |⑦ |⑧ |⑨ |",
+            "|筒 |筒 |筒 |筒 |筒 |筒 |筒 |筒 |筒 |");
+    /** 高速モードでまとめる出力の上限(文字数) */
+    private static final int FAST_BUFFER_LIMIT = 8192;
+    private final BufferedReader in;
+    private final Writer out;
+    private final boolean fast;
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * 標準入出力を用いるビューを生成します。
+     */
+    public ConsoleViewer(){
+        this(false);
+    }
+
+    /**
+     * 標準入出力を用いるビューを生成します。
+     * @param fast true  通知の出力を自家の手番ごとにまとめる場合
+     *             false 通知ごとに出力する場合
+     */
+    public ConsoleViewer(boolean fast){
+        this(StandardInput.READER, new OutputStreamWriter(System.out, Charset.defaultCharset()), fast);
+    }
+
+    /**
+     * 指定した入出力を用いるビューを生成します。
+     * @param in 入力
+     * @param out 出力
+     * @param fast true  通知の出力を自家の手番ごとにまとめる場合
+     *             false 通知ごとに出力する場合
+     */
+    ConsoleViewer(BufferedReader in, Writer out, boolean fast){
+        this.in = in;
+        this.out = out;
+        this.fast = fast;
+    }
+
+    /**
+     * 共有される標準入力のリーダーを遅延生成するクラス。
+     */
+    private static final class StandardInput{
+        private static final BufferedReader READER = new BufferedReader(new InputStreamReader(System.in));
+    }
 
     @Override
     public void handRevealed(Side side, List<Tile> handTiles){
@@ -54,19 +132,18 @@ public class ConsoleViewer implements TableStrategy{
     }
     @Override
     public TurnAction askTurnAction(TurnPhaseContext context){
-        System.out.println(context.getTiles());
-        var choices = new StringBuilder();
-        if(context.canDeclareWin()) choices.append("[W:ツモ]");
-        if(context.canDeclareDraw()) choices.append("[D:九種九牌]");
-        if(context.canDeclareReady()) choices.append("[Rxx:立直]");
-        if(context.canDeclareQuad()) choices.append("[Qxx:カン]");
-        choices.append("[xx:打牌]");
-        System.out.println(choices);
+        var prompt = new StringBuilder();
+        prompt.append(context.getTiles()).append('\n');
+        if(context.canDeclareWin()) prompt.append("[W:ツモ]");
+        if(context.canDeclareDraw()) prompt.append("[D:九種九牌]");
+        if(context.canDeclareReady()) prompt.append("[Rxx:立直]");
+        if(context.canDeclareQuad()) prompt.append("[Qxx:カン]");
+        prompt.append("[xx:打牌]\n");
+        prompt.append("入力:");
         while(true){
-            System.out.print("入力:");
-            var br = new BufferedReader(new InputStreamReader(System.in));
+            var input = readLine(prompt);
+            prompt.setLength(0);
             try{
-                var input = br.readLine().trim();
                 if(input.toUpperCase().equals("W")){
                     if(context.canDeclareWin()){
                         return TurnAction.ofWin();
@@ -98,29 +175,26 @@ public class ConsoleViewer implements TableStrategy{
                         return TurnAction.ofDiscard(context.getTiles().get(index));
                     }
                 }
-                System.out.println("コマンド入力エラー");
+                prompt.append("コマンド入力エラー\n入力:");
             }catch(IndexOutOfBoundsException | NumberFormatException e){
-                System.out.println("数値入力エラー");
-            }catch(IOException e){
-                throw new RuntimeException(e);
+                prompt.append("数値入力エラー\n入力:");
             }
         }
     }
     @Override
     public CallAction askCallAction(CallPhaseContext context){
-        System.out.println(context.getTiles()+" "+List.of(context.getCallTile()));
-        var choices = new StringBuilder();
-        if(context.canCallWin()) choices.append("[W:ロン]");
-        if(context.canCallQuad()) choices.append("[Q:カン]");
-        if(context.canCallTriple()) choices.append("[T:ポン]");
-        if(context.canCallStraight()) choices.append("[S :チー]");
-        choices.append("[X:パス]");
-        System.out.println(choices);
+        var prompt = new StringBuilder();
+        prompt.append(context.getTiles()).append(' ').append(List.of(context.getCallTile())).append('\n');
+        if(context.canCallWin()) prompt.append("[W:ロン]");
+        if(context.canCallQuad()) prompt.append("[Q:カン]");
+        if(context.canCallTriple()) prompt.append("[T:ポン]");
+        if(context.canCallStraight()) prompt.append("[S :チー]");
+        prompt.append("[X:パス]\n");
+        prompt.append("入力:");
         while(true){
-            System.out.print("入力:");
-            var br = new BufferedReader(new InputStreamReader(System.in));
+            var input = readLine(prompt);
+            prompt.setLength(0);
             try{
-                var input = br.readLine();
                 if(input.toUpperCase().equals("W")){
                     if(context.canCallWin()){
                         return CallAction.ofWin();
@@ -129,6 +203,8 @@ public class ConsoleViewer implements TableStrategy{
                     if(context.canCallQuad()){
                         return CallAction.ofQuad(context.getTiles().stream().filter(context::canCallQuad).collect(Collectors.toList()));
                     }
+                }else if(input.toUpperCase().equals("X")){
+                    return CallAction.ofPass();
                 }
 //                }else if(input.toUpperCase().startsWith("T")){
 //
@@ -138,51 +214,24 @@ public class ConsoleViewer implements TableStrategy{
 //                }
 
 
-                System.out.println("コマンド入力エラー");
+                prompt.append("コマンド入力エラー\n入力:");
             }catch(NumberFormatException | IndexOutOfBoundsException e){
-                System.out.println("数値入力エラー");
-            }catch(IOException e){
-                throw new RuntimeException(e);
+                prompt.append("数値入力エラー\n入力:");
             }
         }
     }
     @Override
     public void seatUpdated(Side side, Wind wind, String name, int score){
-        System.out.println(side+": ["+wind+"]"+name+" ("+score+")");
+        println(side+": ["+wind+"]"+name+" ("+score+")");
     }
     @Override
     public void diceRolled(Side side, int dice1, int dice2){
-        System.out.println(side+": サイコロ: "+dice1+" "+dice2);
+        println(side+": サイコロ: "+dice1+" "+dice2);
     }
     @Override
     public void roundStarted(Wind wind, int count, int streak, int deposit){
-        System.out.println();
-        System.out.println("_＿__＿__＿__＿__＿__＿__＿__＿__＿__＿__＿__＿__＿__ _＿__");
-        System.out.println("|一 |一 |③ |③ |④ |④ |⑤ |⑤ |Ⅴ |Ⅵ |Ⅶ |Ⅶ |Ⅷ | |Ⅷ |");
-        System.out.println("|萬 |萬 |筒 |筒 |筒 |筒 |筒 |赤 |索 |索 |索 |索 |索 | |索 |");
-        System.out.println("+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ー-+ +ー-+");
-        System.out.println(" 　1　 2　 3　 4　 5　 6　 7　 8　 9　10　11　12　13　  14 ");
-        System.out.println();
-
-
-        System.out.println();
-        System.out.println("|一 |二 |三 |四 |五 |六 |七 |八 |九 |");
-        System.out.println("|萬 |萬 |萬 |萬 |萬 |萬 |萬 |萬 |萬 |");
-
-        System.out.println();
-        System.out.println("|東 |南 |西 |北 |　 |發 |中 |");
-        System.out.println("|　 |　 |　 |　 |　 |　 |　 |");
-
-        System.out.println();
-        System.out.println("|Ⅰ |Ⅱ |Ⅲ |Ⅳ |Ⅴ |Ⅵ |Ⅶ |Ⅷ |Ⅸ |");
-        System.out.println("|索 |索 |索 |索 |索 |索 |索 |索 |索 |");
-
-        System.out.println();
-        System.out.println("|① |② |③ |④ |⑤ |⑥ |⑦ |⑧ |⑨ |");
-        System.out.println("|筒 |筒 |筒 |筒 |筒 |筒 |筒 |筒 |筒 |");
-
-
-
+        println(TILE_LEGEND);
+        flushRound();
     }
     @Override
     public void wallGenerated(){
@@ -193,15 +242,15 @@ public class ConsoleViewer implements TableStrategy{
     }
     @Override
     public void wallTileRevealed(Side side, int column, int floor, Tile tile){
-        System.out.println("ドラ表示牌: "+tile);
+        println("ドラ表示牌: "+tile);
     }
     @Override
     public void tileDrawn(Side side){
-        System.out.println(side+"牌をツモりました");
+        println(side+"牌をツモりました");
     }
     @Override
     public void tileDrawn(Tile tile){
-        System.out.println(Side.SELF+"牌をツモりました: "+tile);
+        println(Side.SELF+"牌をツモりました: "+tile);
     }
     @Override
     public void handUpdated(Side side, int count){
@@ -209,20 +258,77 @@ public class ConsoleViewer implements TableStrategy{
     }
     @Override
     public void handUpdated(List<Tile> handTiles){
-        System.out.println(handTiles);
+        println(handTiles.toString());
     }
     @Override
     public void tileDiscarded(Side side, Tile tile){
-        System.out.println(side+": 打 "+tile);
+        println(side+": 打 "+tile);
     }
     @Override
     public void tileDiscardedAsReady(Side side, Tile tile){
-        System.out.println(side+": 打 "+tile+"(立直宣言牌)");
+        println(side+": 打 "+tile+"(立直宣言牌)");
     }
     @Override
     public void roundSettled(String expression){
+        flushRound();
+    }
 
+    /**
+     * 一行の出力を追加します。
+     *
+     * <p>高速モードでない場合はすぐに出力します。
+     * 高速モードの場合もまとめた出力が{@value #FAST_BUFFER_LIMIT}文字を超えた場合は出力します。
+     * @param line 出力する行
+     */
+    private void println(String line){
+        buffer.append(line).append('\n');
+        if(!fast || buffer.length()>FAST_BUFFER_LIMIT){
+            flush();
+        }
     }
 
+    /**
+     * 高速モードの場合, 局の区切りまでにまとめた出力を出力します。
+     */
+    private void flushRound(){
+        if(fast){
+            flush();
+        }
+    }
 
+    /**
+     * まとめた出力を一度に書き出します。
+     * @throws UncheckedIOException 出力に失敗した場合
+     */
+    private void flush(){
+        if(buffer.length()==0) return;
+        try{
+            out.append(buffer);
+            out.flush();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        buffer.setLength(0);
+    }
+
+    /**
+     * まとめた出力とプロンプトを書き出した後, 入力を一行読み込みます。
+     * @param prompt プロンプト
+     * @throws UncheckedIOException 入力に失敗した場合
+     * @throws IllegalStateException 入力が終端に達した場合
+     * @return 前後の空白を除いた入力
+     */
+    private String readLine(CharSequence prompt){
+        buffer.append(prompt);
+        flush();
+        try{
+            var line = in.readLine();
+            if(line==null){
+                throw new IllegalStateException("no more input");
+            }
+            return line.trim();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
 }
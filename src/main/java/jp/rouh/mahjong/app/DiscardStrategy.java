@@ -0,0 +1,369 @@
+package jp.rouh.mahjong.app;
+
+import jp.rouh.mahjong.score.HandEfficiency;
+import jp.rouh.mahjong.score.HandShanten;
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 向聴数と受け入れ枚数に基づいて打牌を選択するテーブル戦略。
+ *
+ * <p>打牌候補ごとに打牌後の向聴数と受け入れ枚数を{@link HandEfficiency}で計算し,
+ * 向聴数が最小, 受け入れ枚数が最大となる牌を打牌します。
+ * 同じ評価の牌が複数ある場合は字牌, 么九牌, 中張牌の順に打牌し, 赤ドラ牌は残します。
+ * <p>和了と九種九牌は可能であれば常に宣言します。
+ * 立直は受け入れ枚数が残っている場合に宣言します。
+ * 槓は向聴数を悪化させない場合に宣言します。
+ * ポンとチーは役が確定する役牌のポン, もしくは役牌の副露後や断么九の範囲の鳴きで,
+ * 鳴いた後の向聴数が鳴く前より進む場合にのみ行います。大明槓は行いません。
+ * <p>見えていない牌の枚数は, 自家の手牌と通知された河, 自家を含む副露, ドラ表示牌から数えます。
+ * @author Rouh
+ * @version 1.0
+ */
+final class DiscardStrategy implements TableStrategy{
+    private static final int SIZE = 34;
+    private final HandEfficiency efficiency = new HandEfficiency();
+    private final int[] visible = new int[SIZE];
+    private final int[] remaining = new int[SIZE];
+    private final int[] counts = new int[SIZE];
+    private final Tile[] lastDiscards = new Tile[Side.values().length];
+    private final List<Tile> work = new ArrayList<>(14);
+    private Wind roundWind;
+    private Wind seatWind;
+    private boolean opened;
+    private boolean yakuMeld;
+    private boolean simpleMelds = true;
+    private List<Tile> pendingMeld;
+    private int pendingHandSize;
+    private int turnCount;
+
+    @Override
+    public TurnAction askTurnAction(TurnPhaseContext context){
+        var tiles = context.getTiles();
+        turnCount++;
+        confirmPendingMeld(tiles.size());
+        if(context.canDeclareWin()) return TurnAction.ofWin();
+        if(context.canDeclareDraw()) return TurnAction.ofDraw();
+        updateRemaining(tiles);
+        efficiency.evaluate(tiles, remaining);
+        Tile best = null;
+        for(var tile:tiles){
+            if(!context.canDiscard(tile)) continue;
+            if(best==null || compare(tile, best)<0) best = tile;
+        }
+        int bestShanten = efficiency.shantenAfter(best);
+        if(context.canDeclareQuad()){
+            countTiles(tiles);
+            for(var tile:tiles){
+                if(context.canDeclareSelfQuad(tile) && selfQuadShantenOf(tile)<=bestShanten){
+                    return TurnAction.ofSelfQuad(tile);
+                }
+                if(context.canDeclareAddQuad(tile) && efficiency.shantenAfter(tile)<=bestShanten){
+                    return TurnAction.ofAddQuad(tile);
+                }
+            }
+        }
+        if(context.canDeclareReady() && context.canDeclareReady(best) && efficiency.effectiveCountAfter(best)>0){
+            return TurnAction.ofReady(best);
+        }
+        return TurnAction.ofDiscard(best);
+    }
+
+    /**
+     * 打牌候補を比較します。
+     * @return 負の値 前者を優先して打牌する場合
+     *         正の値 後者を優先して打牌する場合
+     */
+    private int compare(Tile tile, Tile other){
+        int shanten = efficiency.shantenAfter(tile);
+        int otherShanten = efficiency.shantenAfter(other);
+        if(shanten!=otherShanten) return Integer.compare(shanten, otherShanten);
+        int effective = efficiency.effectiveCountAfter(tile);
+        int otherEffective = efficiency.effectiveCountAfter(other);
+        if(effective!=otherEffective) return Integer.compare(otherEffective, effective);
+        return Integer.compare(valueOf(tile), valueOf(other));
+    }
+
+    /**
+     * 打牌の優先度が同じ場合に手牌に残す価値を評価します。
+     */
+    private int valueOf(Tile tile){
+        int value = tile.isHonor()? (isValuedHonor(tile)? 1:0):tile.isTerminal()? 2:
+                tile.suitNumber()==2 || tile.suitNumber()==8? 3:4;
+        if(tile.isPrisedRed()) value += 5;
+        if(opened && !yakuMeld && tile.isOrphan()) value -= 5;
+        return value;
+    }
+
+    private void countTiles(List<Tile> tiles){
+        for(int i = 0; i<SIZE; i++){
+            counts[i] = 0;
+        }
+        for(int i = 0; i<tiles.size(); i++){
+            counts[tiles.get(i).tileNumber()]++;
+        }
+    }
+
+    /**
+     * 暗槓した後の手牌の向聴数を計算します。
+     *
+     * <p>{@link #countTiles}で数えた手牌の枚数を一時的に書き換えて計算します。
+     */
+    private int selfQuadShantenOf(Tile quadTile){
+        int number = quadTile.tileNumber();
+        int count = counts[number];
+        counts[number] = 0;
+        int shanten = HandShanten.shantenOf(counts);
+        counts[number] = count;
+        return shanten;
+    }
+
+    @Override
+    public CallAction askCallAction(CallPhaseContext context){
+        pendingMeld = null;
+        if(context.canCallWin()) return CallAction.ofWin();
+        if(!context.canCallTriple() && !context.canCallStraight()) return CallAction.ofPass();
+        var tiles = context.getTiles();
+        var callTile = context.getCallTile();
+        boolean valuedTriple = isValuedHonor(callTile);
+        boolean simples = simpleMelds && !callTile.isOrphan() && countOrphans(tiles)<=1;
+        if(!valuedTriple && !yakuMeld && !simples) return CallAction.ofPass();
+        updateRemaining(tiles);
+        List<Tile> bestBase = null;
+        boolean bestTriple = false;
+        int bestShanten = HandShanten.shantenOf(tiles);
+        for(int i = 0; i<tiles.size(); i++){
+            for(int j = i + 1; j<tiles.size(); j++){
+                var first = tiles.get(i);
+                var second = tiles.get(j);
+                boolean triple = context.canCallTriple() && context.canCallTriple(first, second);
+                boolean straight = context.canCallStraight() && context.canCallStraight(first, second)
+                        && (yakuMeld || simples);
+                if(!triple && !straight) continue;
+                int after = shantenAfterCall(tiles, i, j);
+                if(after<bestShanten){
+                    bestShanten = after;
+                    bestBase = List.of(first, second);
+                    bestTriple = triple;
+                }
+            }
+        }
+        if(bestBase==null) return CallAction.ofPass();
+        pendingMeld = List.of(bestBase.get(0), bestBase.get(1), callTile);
+        pendingHandSize = tiles.size() - 2;
+        return bestTriple? CallAction.ofTriple(bestBase):CallAction.ofStraight(bestBase);
+    }
+
+    /**
+     * 手牌から二枚を除いて副露し, 最良の打牌をした後の向聴数を計算します。
+     */
+    private int shantenAfterCall(List<Tile> tiles, int first, int second){
+        work.clear();
+        for(int i = 0; i<tiles.size(); i++){
+            if(i!=first && i!=second) work.add(tiles.get(i));
+        }
+        efficiency.evaluate(work, remaining);
+        int shanten = Integer.MAX_VALUE;
+        for(var tile:work){
+            shanten = Math.min(shanten, efficiency.shantenAfter(tile));
+        }
+        return shanten;
+    }
+
+    /**
+     * 直前の鳴きが成立したかどうかをターン時の手牌の長さから判定し, 副露の状態を更新します。
+     */
+    private void confirmPendingMeld(int handSize){
+        if(pendingMeld!=null && handSize==pendingHandSize){
+            opened = true;
+            boolean triple = pendingMeld.get(0).equalsIgnoreRed(pendingMeld.get(1));
+            if(triple && isValuedHonor(pendingMeld.get(2))) yakuMeld = true;
+            for(var tile:pendingMeld){
+                if(tile.isOrphan()) simpleMelds = false;
+            }
+        }
+        pendingMeld = null;
+    }
+
+    private boolean isValuedHonor(Tile tile){
+        return tile.isDragon() || tile.isWind() && (roundWind!=null && tile==roundWind.toTile()
+                || seatWind!=null && tile==seatWind.toTile());
+    }
+
+    private static int countOrphans(List<Tile> tiles){
+        int count = 0;
+        for(var tile:tiles){
+            if(tile.isOrphan()) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 手牌と通知された情報から, 牌番号ごとの見えていない牌の枚数を計算します。
+     *
+     * <p>返される配列は内部の作業領域であり, 次の呼び出しまでの間のみ有効です。
+     * @param handTiles 手牌
+     * @return 牌番号ごとの見えていない牌の枚数(長さ34)
+     */
+    int[] remainingOf(List<Tile> handTiles){
+        updateRemaining(handTiles);
+        return remaining;
+    }
+
+    /**
+     * 局の開始からのターン数を取得します。
+     * @return ターン数
+     */
+    int getTurnCount(){
+        return turnCount;
+    }
+
+    private void updateRemaining(List<Tile> handTiles){
+        for(int i = 0; i<SIZE; i++){
+            remaining[i] = 4 - visible[i];
+        }
+        for(int i = 0; i<handTiles.size(); i++){
+            remaining[handTiles.get(i).tileNumber()]--;
+        }
+        for(int i = 0; i<SIZE; i++){
+            if(remaining[i]<0) remaining[i] = 0;
+        }
+    }
+
+    private void reveal(Tile tile){
+        visible[tile.tileNumber()]++;
+    }
+
+    private void clear(){
+        for(int i = 0; i<SIZE; i++){
+            visible[i] = 0;
+        }
+        for(int i = 0; i<lastDiscards.length; i++){
+            lastDiscards[i] = null;
+        }
+        opened = false;
+        yakuMeld = false;
+        simpleMelds = true;
+        pendingMeld = null;
+        turnCount = 0;
+    }
+
+    @Override
+    public void roundStarted(Wind wind, int count, int streak, int deposit){
+        roundWind = wind;
+        clear();
+    }
+
+    @Override
+    public void wallGenerated(){
+        clear();
+    }
+
+    @Override
+    public void seatUpdated(Side side, Wind wind, String name, int score){
+        if(side==Side.SELF) seatWind = wind;
+    }
+
+    @Override
+    public void wallTileRevealed(Side side, int column, int floor, Tile tile){
+        reveal(tile);
+    }
+
+    @Override
+    public void tileDiscarded(Side side, Tile tile){
+        lastDiscards[side.ordinal()] = tile;
+        reveal(tile);
+    }
+
+    @Override
+    public void tileDiscardedAsReady(Side side, Tile tile){
+        tileDiscarded(side, tile);
+    }
+
+    @Override
+    public void riverTileTaken(Side side){
+        var tile = lastDiscards[side.ordinal()];
+        if(tile!=null) visible[tile.tileNumber()]--;
+    }
+
+    @Override
+    public void tiltMeldAdded(Side side, Side tilt, List<Tile> tiles){
+        // 自家の副露牌も手牌から除かれるため, 他家と同様に数えます
+        tiles.forEach(this::reveal);
+    }
+
+    @Override
+    public void selfQuadAdded(Side side, List<Tile> tiles){
+        tiles.forEach(this::reveal);
+    }
+
+    @Override
+    public void meldTileAdded(Side side, int index, Tile added){
+        reveal(added);
+    }
+
+    @Override
+    public void handRevealed(Side side, List<Tile> handTiles){
+
+    }
+
+    @Override
+    public void handRevealed(Side side, List<Tile> handTiles, Tile drawnTile){
+
+    }
+
+    @Override
+    public void readyBoneAdded(Side side){
+
+    }
+
+    @Override
+    public void declared(Side side, Declaration declaration){
+
+    }
+
+    @Override
+    public void diceRolled(Side side, int dice1, int dice2){
+
+    }
+
+    @Override
+    public void wallTileTaken(Side side, int column, int floor){
+
+    }
+
+    @Override
+    public void tileDrawn(Side side){
+
+    }
+
+    @Override
+    public void tileDrawn(Tile tile){
+
+    }
+
+    @Override
+    public void handUpdated(Side side, int count){
+
+    }
+
+    @Override
+    public void handUpdated(List<Tile> handTiles){
+
+    }
+
+    @Override
+    public void roundSettled(String expression){
+
+    }
+}
@@ -0,0 +1,384 @@
+package jp.rouh.mahjong.app;
+
+import jp.rouh.mahjong.score.HandEfficiency;
+import jp.rouh.mahjong.score.HandShanten;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Tile;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 打牌候補ごとに局の残りを模擬して和了率の高い打牌を選択するテーブル戦略。
+ *
+ * <p>ターン時の行動は, まず{@link DiscardStrategy}に問い合わせます。
+ * 和了, 九種九牌, 槓の宣言はそのまま採用し, 打牌の場合のみ
+ * 打牌後の向聴数が最小となる打牌候補を対象に模擬対局(プレイアウト)を行います。
+ * 鳴きの判断と通知の処理は{@link DiscardStrategy}に委譲します。
+ * <p>プレイアウトでは, 見えていない牌(自家の手牌と通知された河, 副露, ドラ表示牌以外の牌)から
+ * 無作為に牌を引くことで, 見えている情報と矛盾しない山と他家の打牌を標本化します。
+ * 他家は自摸した牌をそのまま打牌するものとし, 自家は自摸のたびに
+ * {@link HandEfficiency}で向聴数が最小となる牌を打牌します。
+ * 自家が自摸和了もしくは他家の打牌で栄和した場合を和了とし, 打牌候補ごとの和了率を比較します。
+ * 役の有無, フリテン, 他家の和了は考慮しません。
+ * 残りの自摸の回数は, 見えていない牌の枚数とターン数から推定します。
+ * <p>プレイアウトは{@link ForkJoinPool}上でプールの並列度の数に分割して並列に実行され,
+ * 打牌候補ごとの上限回数に達するか, 判断ごとの持ち時間を超えた時点で打ち切られます。
+ * プレイアウト中の手牌の評価はスレッドごとに保持した作業領域で行うため, オブジェクトを生成しません。
+ * <p>{@link #getPlayoutsPerSecond()}で, 判断に要した時間あたりのプレイアウト回数を取得できます。
+ * このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+final class MonteCarloStrategy extends TableStrategyAdaptor{
+    private static final int SIZE = 34;
+    private static final int LIVE_WALL_SIZE = 70;
+    private static final int HIDDEN_SIZE = 3*13 + 13;
+    private static final int BATCH_SIZE = 4;
+    private static final double SIGNIFICANCE = 2.0;
+    private static final int[] DISCARD_ORDER = discardOrder();
+    private static final ThreadLocal<Playout> PLAYOUTS = ThreadLocal.withInitial(Playout::new);
+    private final DiscardStrategy strategy;
+    private final ForkJoinPool pool;
+    private final long budgetNanos;
+    private final int playoutLimit;
+    private final HandEfficiency efficiency = new HandEfficiency();
+    private long playoutCount;
+    private long playoutNanos;
+    private int decisionCount;
+
+    /**
+     * 共通プールを用い, 判断ごとの持ち時間を20ミリ秒, 打牌候補ごとの上限回数を1000回とする戦略を生成します。
+     */
+    MonteCarloStrategy(){
+        this(ForkJoinPool.commonPool(), 20, TimeUnit.MILLISECONDS, 1000);
+    }
+
+    /**
+     * 戦略を生成します。
+     * @param pool プレイアウトを実行するプール
+     * @param budget 判断ごとの持ち時間
+     * @param unit 持ち時間の単位
+     * @param playoutLimit 打牌候補ごとのプレイアウトの上限回数(1..)
+     */
+    MonteCarloStrategy(ForkJoinPool pool, long budget, TimeUnit unit, int playoutLimit){
+        this(new DiscardStrategy(), pool, budget, unit, playoutLimit);
+    }
+
+    /**
+     * 判断の基礎とする戦略を指定して戦略を生成します。
+     *
+     * <p>見えていない牌の枚数は, 通知を委譲した基礎の戦略が数えた枚数を用います。
+     * @param strategy 判断の基礎とする戦略
+     * @param pool プレイアウトを実行するプール
+     * @param budget 判断ごとの持ち時間
+     * @param unit 持ち時間の単位
+     * @param playoutLimit 打牌候補ごとのプレイアウトの上限回数(1..)
+     */
+    MonteCarloStrategy(DiscardStrategy strategy, ForkJoinPool pool, long budget, TimeUnit unit, int playoutLimit){
+        super(strategy);
+        if(playoutLimit<1){
+            throw new IllegalArgumentException("invalid playout limit: "+playoutLimit);
+        }
+        this.strategy = strategy;
+        this.pool = pool;
+        this.budgetNanos = unit.toNanos(budget);
+        this.playoutLimit = playoutLimit;
+    }
+
+    @Override
+    public TurnAction askTurnAction(TurnPhaseContext context){
+        var action = strategy.askTurnAction(context);
+        if(action.isSelfDrawWinDeclaration() || action.isNineTilesDrawDeclaration() || action.isQuadDeclaration()){
+            return action;
+        }
+        var tiles = context.getTiles();
+        var remaining = strategy.remainingOf(tiles);
+        efficiency.evaluate(tiles, remaining);
+        var candidates = candidatesOf(context, tiles);
+        if(candidates.length<=1) return action;
+        var decision = new Decision(tiles, candidates, remaining, drawCountOf(remaining));
+        long start = System.nanoTime();
+        decision.deadline = start + budgetNanos;
+        int slices = pool.getParallelism();
+        decision.quota = (playoutLimit + slices - 1)/slices;
+        pool.invoke(new PlayoutTask(decision, 0, slices));
+        playoutNanos += System.nanoTime() - start;
+        decisionCount++;
+        var chosen = action.getSelectedTile();
+        int chosenIndex = -1;
+        for(int i = 0; i<candidates.length; i++){
+            playoutCount += decision.runs.get(i);
+            if(candidates[i].equalsIgnoreRed(chosen)) chosenIndex = i;
+        }
+        int bestIndex = chosenIndex;
+        for(int i = 0; i<candidates.length; i++){
+            if(bestIndex==-1 || decision.rateOf(i)>decision.rateOf(bestIndex)) bestIndex = i;
+        }
+        if(bestIndex==chosenIndex || !decision.isSignificant(bestIndex, chosenIndex)) return action;
+        var best = candidates[bestIndex];
+        if(action.isReadyDeclaration() && context.canDeclareReady(best)){
+            return TurnAction.ofReady(best);
+        }
+        return TurnAction.ofDiscard(best);
+    }
+
+    /**
+     * 打牌後の向聴数が最小となる打牌候補を牌の種類ごとに一枚ずつ列挙します。
+     * 赤ドラ牌とそれ以外の牌が両方ある場合は, 赤ドラ牌以外の牌を候補とします。
+     */
+    private Tile[] candidatesOf(TurnPhaseContext context, List<Tile> tiles){
+        int minShanten = Integer.MAX_VALUE;
+        for(var tile:tiles){
+            if(context.canDiscard(tile)) minShanten = Math.min(minShanten, efficiency.shantenAfter(tile));
+        }
+        var found = new Tile[SIZE];
+        int count = 0;
+        for(var tile:tiles){
+            if(!context.canDiscard(tile) || efficiency.shantenAfter(tile)!=minShanten) continue;
+            var current = found[tile.tileNumber()];
+            if(current==null) count++;
+            if(current==null || current.isPrisedRed()) found[tile.tileNumber()] = tile;
+        }
+        var candidates = new Tile[count];
+        int index = 0;
+        for(var tile:found){
+            if(tile!=null) candidates[index++] = tile;
+        }
+        return candidates;
+    }
+
+    /**
+     * 残りの自摸の回数を推定します。
+     *
+     * <p>見えていない牌のうち, 他家の手牌と王牌を除いた枚数を山の残り枚数とみなし,
+     * ターン数から求めた山の残り枚数との小さい方を四人で等分します。
+     */
+    private int drawCountOf(int[] remaining){
+        int unseen = 0;
+        for(var count:remaining){
+            unseen += count;
+        }
+        int wall = Math.min(unseen - HIDDEN_SIZE, LIVE_WALL_SIZE - 4*strategy.getTurnCount());
+        return Math.max(1, wall/4);
+    }
+
+    /**
+     * これまでに実行したプレイアウトの総数を取得します。
+     * @return プレイアウトの総数
+     */
+    long getPlayoutCount(){
+        return playoutCount;
+    }
+
+    /**
+     * これまでにプレイアウトを行った判断の回数を取得します。
+     * @return 判断の回数
+     */
+    int getDecisionCount(){
+        return decisionCount;
+    }
+
+    /**
+     * プレイアウトに要した時間あたりのプレイアウト回数を取得します。
+     * @return 一秒あたりのプレイアウト回数, プレイアウトを実行していない場合は0
+     */
+    double getPlayoutsPerSecond(){
+        return playoutNanos==0? 0:playoutCount*1e9/playoutNanos;
+    }
+
+    private static int[] discardOrder(){
+        // 評価が同じ場合は字牌, 么九牌, 二八牌, 中張牌の順に打牌します
+        var order = new int[SIZE];
+        int index = 0;
+        for(int number = 27; number<SIZE; number++){
+            order[index++] = number;
+        }
+        for(int rank:new int[]{0, 8, 1, 7, 2, 6, 3, 5, 4}){
+            for(int suit = 0; suit<3; suit++){
+                order[index++] = suit*9 + rank;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * 一回の判断で全てのプレイアウトが共有する状態。
+     */
+    private static final class Decision{
+        private final int[][] hands;
+        private final int[] shanten;
+        private final long[] waits;
+        private final int[] remaining = new int[SIZE];
+        private final int drawCount;
+        private final AtomicLongArray wins;
+        private final AtomicLongArray runs;
+        private long deadline;
+        private int quota;
+
+        private Decision(List<Tile> tiles, Tile[] candidates, int[] remaining, int drawCount){
+            this.hands = new int[candidates.length][];
+            this.shanten = new int[candidates.length];
+            this.waits = new long[candidates.length];
+            this.drawCount = drawCount;
+            this.wins = new AtomicLongArray(candidates.length);
+            this.runs = new AtomicLongArray(candidates.length);
+            System.arraycopy(remaining, 0, this.remaining, 0, SIZE);
+            for(int i = 0; i<candidates.length; i++){
+                var hand = HandShanten.countsOf(tiles);
+                hand[candidates[i].tileNumber()]--;
+                hands[i] = hand;
+                shanten[i] = HandShanten.shantenOf(hand);
+                waits[i] = shanten[i]==0? waitsOf(hand):0;
+            }
+        }
+
+        private double rateOf(int index){
+            long count = runs.get(index);
+            return count==0? 0:(double)wins.get(index)/count;
+        }
+
+        /**
+         * 打牌候補の和了率が基準の打牌候補の和了率を有意に上回るか検査します。
+         *
+         * <p>和了率の差が, 二つの打牌候補を合わせた和了率から求めた差の標準誤差の
+         * {@code SIGNIFICANCE}倍を超える場合に有意とみなします。
+         */
+        private boolean isSignificant(int index, int baseIndex){
+            if(baseIndex==-1) return true;
+            long count = runs.get(index);
+            long baseCount = runs.get(baseIndex);
+            if(count==0 || baseCount==0) return false;
+            double pooled = (double)(wins.get(index) + wins.get(baseIndex))/(count + baseCount);
+            double error = Math.sqrt(pooled*(1 - pooled)*(1.0/count + 1.0/baseCount));
+            return rateOf(index) - rateOf(baseIndex)>SIGNIFICANCE*error;
+        }
+    }
+
+    /**
+     * 担当する分割の範囲を二分して並列にプレイアウトを実行するタスク。
+     *
+     * <p>分割ごとに, 全ての打牌候補について{@code BATCH_SIZE}回ずつ順にプレイアウトを行い,
+     * 打牌候補ごとに{@code quota}回に達するか持ち時間を超えるまで繰り返します。
+     * 打牌候補を巡回して実行するため, 持ち時間で打ち切られた場合も打牌候補ごとの回数は偏りません。
+     */
+    private static final class PlayoutTask extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        private final Decision decision;
+        private final int from;
+        private final int to;
+
+        private PlayoutTask(Decision decision, int from, int to){
+            this.decision = decision;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from>1){
+                int middle = (from + to)>>>1;
+                invokeAll(new PlayoutTask(decision, from, middle), new PlayoutTask(decision, middle, to));
+                return;
+            }
+            var playout = PLAYOUTS.get();
+            var random = ThreadLocalRandom.current();
+            int candidateCount = decision.hands.length;
+            int runs = 0;
+            while(runs<decision.quota && System.nanoTime()<decision.deadline){
+                int batch = Math.min(BATCH_SIZE, decision.quota - runs);
+                for(int candidate = 0; candidate<candidateCount; candidate++){
+                    int wins = 0;
+                    for(int i = 0; i<batch; i++){
+                        if(playout.run(decision, candidate, random)) wins++;
+                    }
+                    decision.wins.addAndGet(candidate, wins);
+                    decision.runs.addAndGet(candidate, batch);
+                }
+                runs += batch;
+            }
+        }
+    }
+
+    /**
+     * スレッドごとに保持するプレイアウトの作業領域。
+     */
+    private static final class Playout{
+        private final HandEfficiency efficiency = new HandEfficiency();
+        private final int[] counts = new int[SIZE];
+        private final int[] wall = new int[4*SIZE];
+
+        /**
+         * 打牌候補を打牌した後の局の残りを一回模擬します。
+         * @return true 和了した場合
+         *         false 和了しなかった場合
+         */
+        private boolean run(Decision decision, int candidate, ThreadLocalRandom random){
+            System.arraycopy(decision.hands[candidate], 0, counts, 0, SIZE);
+            int wallSize = 0;
+            for(int number = 0; number<SIZE; number++){
+                for(int i = 0; i<decision.remaining[number]; i++){
+                    wall[wallSize++] = number;
+                }
+            }
+            int shanten = decision.shanten[candidate];
+            long waits = decision.waits[candidate];
+            for(int draw = 0; draw<decision.drawCount; draw++){
+                for(int other = 0; other<3; other++){
+                    if(wallSize==0) return false;
+                    int discarded = take(random, wallSize--);
+                    if(shanten==0 && (waits>>>discarded & 1)!=0) return true;
+                }
+                if(wallSize==0) return false;
+                int drawn = take(random, wallSize--);
+                if(shanten==0 && (waits>>>drawn & 1)!=0) return true;
+                counts[drawn]++;
+                efficiency.evaluateShanten(counts);
+                int discard = drawn;
+                int minShanten = efficiency.shantenAfter(drawn);
+                for(var number:DISCARD_ORDER){
+                    if(efficiency.shantenAfter(number)<minShanten){
+                        minShanten = efficiency.shantenAfter(number);
+                        discard = number;
+                    }
+                }
+                counts[discard]--;
+                if(discard!=drawn || minShanten!=shanten){
+                    shanten = minShanten;
+                    waits = shanten==0? waitsOf(counts):0;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 山の末尾までの範囲から無作為に一枚を選び, 末尾の牌と入れ替えて取り出します。
+         */
+        private int take(ThreadLocalRandom random, int wallSize){
+            int index = random.nextInt(wallSize);
+            int tile = wall[index];
+            wall[index] = wall[wallSize - 1];
+            return tile;
+        }
+    }
+
+    /**
+     * 聴牌している手牌(3n+1枚)の待ち牌を牌番号のビット集合として取得します。
+     */
+    private static long waitsOf(int[] counts){
+        long waits = 0;
+        for(int number = 0; number<SIZE; number++){
+            if(counts[number]>=4) continue;
+            counts[number]++;
+            if(HandShanten.shantenOf(counts)==-1) waits |= 1L<<number;
+            counts[number]--;
+        }
+        return waits;
+    }
+}
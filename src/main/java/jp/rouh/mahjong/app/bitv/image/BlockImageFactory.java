@@ -1,13 +1,10 @@
 package jp.rouh.mahjong.app.bitv.image;
 
 import jp.rouh.mahjong.app.bitv.table.Direction;
+import jp.rouh.mahjong.tile.Tile;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.net.URISyntaxException;
-import java.nio.file.Paths;
 
 /**
  * 麻雀牌の画像を生成するユーティリティクラス。
@@ -35,14 +32,14 @@ final class BlockImageFactory{
     /**
      * 表向きの牌の画像を生成します。
      *
-     * <p>表向きの画像として, リソースから読み込んだ牌の画像と側面のベタ塗り画像を結合した
+     * <p>表向きの画像として, アトラスから取得した牌の画像と側面のベタ塗り画像を結合した
      * 画像を生成します。
      * @param d 牌の向き
-     * @param tileCode 牌コード
+     * @param t 牌
      * @return 牌の画像
      */
-    static BufferedImage createFaceUpBlockImage(Direction d, String tileCode){
-        var faceImage = ImageFunctions.rotate(readTileFaceImage(tileCode), d);
+    static BufferedImage createFaceUpBlockImage(Direction d, Tile t){
+        var faceImage = ImageFunctions.rotate(TileFaceAtlas.faceOf(t), d);
         var edgeImage = drawEdgeImage(d.isSideways());
         return ImageFunctions.concat(faceImage, ImageFunctions.adaptUpperLine(edgeImage));
     }
@@ -75,13 +72,13 @@ final class BlockImageFactory{
     /**
      * 手前向きに立てられた牌の画像を生成します。
      *
-     * <p>上側面のベタ塗り画像とリソースから読み込んだ牌の画像を結合して画像を生成します。
-     * @param tileCode 牌コード
+     * <p>上側面のベタ塗り画像とアトラスから取得した牌の画像を結合して画像を生成します。
+     * @param t 牌
      * @return 牌の画像
      */
-    static BufferedImage createHandBlockImage(String tileCode){
+    static BufferedImage createHandBlockImage(Tile t){
         var edgeImage = ImageFunctions.upSideDown(drawEdgeImage(false));
-        var faceImage = readTileFaceImage(tileCode);
+        var faceImage = TileFaceAtlas.faceOf(t);
         return ImageFunctions.concat(ImageFunctions.adaptLowerLine(edgeImage), faceImage);
     }
 
@@ -90,15 +87,9 @@ final class BlockImageFactory{
      * @param tileCode 牌コード
      * @return 牌画像
      */
-    private static BufferedImage readTileFaceImage(String tileCode){
-        try{
-            // this will read src/main/resources/img/tiles/*.jpg
-            var filePath = "/img/tiles/" + tileCode + ".jpg";
-            var resourceUri = BlockImageFactory.class.getResource(filePath).toURI();
-            return ImageIO.read(Paths.get(resourceUri).toFile());
-        }catch(IOException|URISyntaxException e){
-            throw new RuntimeException(e);
-        }
+    static BufferedImage readTileFaceImage(String tileCode){
+        // this will read src/main/resources/img/tiles/*.jpg
+        return ImageFunctions.readResource("/img/tiles/" + tileCode + ".jpg");
     }
 
     /**
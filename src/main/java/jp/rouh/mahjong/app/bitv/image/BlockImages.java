@@ -2,56 +2,55 @@ package jp.rouh.mahjong.app.bitv.image;
 
 import jp.rouh.mahjong.app.bitv.table.Direction;
 import jp.rouh.mahjong.tile.Tile;
-import jp.rouh.mahjong.tile.Tiles;
 
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
 
 import static jp.rouh.mahjong.app.bitv.image.BlockImageFactory.*;
 
 /**
  * 牌の画像を供給するユーティリティクラス。
  *
- * <p>このクラスがロードされたタイミングで描画処理を実行し,
- * 生成した画像をキャッシュとして保持します。
+ * <p>画像は向きと牌の組ごとに最初に要求されたタイミングで描画され,
+ * 以降はキャッシュから返されます。
+ * 牌の表面画像は{@link TileFaceAtlas}に一度だけ読み込まれ, 全ての表向きの画像で共有されます。
+ * 複数のスレッドから同時に要求された場合, 同じ画像が重複して描画されることがありますが,
+ * キャッシュに格納されるのは最初に格納された一枚のみです。
  * @author Rouh
  * @version 1.0
  */
 public final class BlockImages{
-    private static final Map<Direction, Map<Tile, BufferedImage>> FACE_UP_IMAGES;
-    private static final Map<Direction, BufferedImage> FACE_DOWN_IMAGES;
-    private static final Map<Tile, BufferedImage> PLAYER_HAND_IMAGES;
-    private static final Map<Direction, BufferedImage> OPPONENT_HAND_IMAGES;
-    static{
-        var faceUpImages = new HashMap<Direction, Map<Tile, BufferedImage>>();
-        var faceDownImages = new HashMap<Direction, BufferedImage>();
-        var playerHandImages = new HashMap<Tile, BufferedImage>();
-        var opponentHandImages = new HashMap<Direction, BufferedImage>();
-        for(Direction d: Direction.values()){
-            faceDownImages.put(d, createFaceDownBlockImage(d));
-            faceUpImages.put(d, new HashMap<>());
-            for(Tile t: Tiles.values()){
-                faceUpImages.get(d).put(t, createFaceUpBlockImage(d, t.toString()));
-            }
-        }
-        for(Tile t: Tiles.values()){
-            playerHandImages.put(t, createHandBlockImage(t.toString()));
-        }
-        for(Direction d: List.of(Direction.LEFT, Direction.BOTTOM, Direction.RIGHT)){
-            opponentHandImages.put(d, createHandBlockImage(d));
-        }
-        FACE_UP_IMAGES = faceUpImages;
-        FACE_DOWN_IMAGES = faceDownImages;
-        PLAYER_HAND_IMAGES = playerHandImages;
-        OPPONENT_HAND_IMAGES = opponentHandImages;
-    }
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Tile[] TILES = Tile.values();
+    private static final AtomicReferenceArray<BufferedImage> FACE_UP_IMAGES =
+            new AtomicReferenceArray<>(DIRECTIONS.length*TILES.length);
+    private static final AtomicReferenceArray<BufferedImage> FACE_DOWN_IMAGES =
+            new AtomicReferenceArray<>(DIRECTIONS.length);
+    private static final AtomicReferenceArray<BufferedImage> PLAYER_HAND_IMAGES =
+            new AtomicReferenceArray<>(TILES.length);
+    private static final AtomicReferenceArray<BufferedImage> OPPONENT_HAND_IMAGES =
+            new AtomicReferenceArray<>(DIRECTIONS.length);
     private BlockImages(){
         throw new AssertionError("no instance for you!");
     }
 
+    /**
+     * キャッシュから画像を取得し, 存在しない場合は描画してキャッシュに格納します。
+     * @param cache キャッシュ
+     * @param index キャッシュ上の位置
+     * @param factory 位置から画像を描画する関数
+     * @return 画像
+     */
+    private static BufferedImage cached(AtomicReferenceArray<BufferedImage> cache, int index,
+                                        IntFunction<BufferedImage> factory){
+        var image = cache.get(index);
+        if(image!=null) return image;
+        image = factory.apply(index);
+        return cache.compareAndSet(index, null, image)? image:cache.get(index);
+    }
+
     /**
      * 表向きに倒された牌の画像を取得します。
      *
@@ -61,7 +60,8 @@ public final class BlockImages{
      * @return 牌の画像
      */
     public static BufferedImage ofFaceUp(Direction d, Tile t){
-        return FACE_UP_IMAGES.get(d).get(t);
+        return cached(FACE_UP_IMAGES, d.ordinal()*TILES.length + t.ordinal(),
+                index->createFaceUpBlockImage(DIRECTIONS[index/TILES.length], TILES[index%TILES.length]));
     }
 
     /**
@@ -72,7 +72,7 @@ public final class BlockImages{
      * @return 牌の画像
      */
     public static BufferedImage ofFaceDown(Direction d){
-        return FACE_DOWN_IMAGES.get(d);
+        return cached(FACE_DOWN_IMAGES, d.ordinal(), index->createFaceDownBlockImage(DIRECTIONS[index]));
     }
 
     /**
@@ -83,7 +83,7 @@ public final class BlockImages{
      * @return 牌の画像
      */
     public static BufferedImage ofPlayerHand(Tile t){
-        return PLAYER_HAND_IMAGES.get(t);
+        return cached(PLAYER_HAND_IMAGES, t.ordinal(), index->createHandBlockImage(TILES[index]));
     }
 
     /**
@@ -98,6 +98,6 @@ public final class BlockImages{
      */
     public static BufferedImage ofOpponentHand(Direction d){
         if(d==Direction.TOP) throw new NoSuchElementException("you must select opponent side");
-        return OPPONENT_HAND_IMAGES.get(d);
+        return cached(OPPONENT_HAND_IMAGES, d.ordinal(), index->createHandBlockImage(DIRECTIONS[index]));
     }
 }
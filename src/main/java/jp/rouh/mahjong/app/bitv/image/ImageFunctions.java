@@ -2,10 +2,13 @@ package jp.rouh.mahjong.app.bitv.image;
 
 import jp.rouh.mahjong.app.bitv.table.Direction;
 
+import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * 画像処理ユーティリティクラス。
@@ -13,6 +16,27 @@ import java.awt.image.BufferedImage;
  * @version 1.0
  */
 final class ImageFunctions{
+    private ImageFunctions(){
+        throw new AssertionError("no instance for you!");
+    }
+
+    /**
+     * クラスパス上のリソースから画像を読み込みます。
+     *
+     * <p>リソースはストリームとして読み込むため, jarファイルに格納されている場合も読み込めます。
+     * @param path リソースのパス
+     * @throws UncheckedIOException リソースが存在しない場合, もしくは読み込みに失敗した場合
+     * @return 画像
+     */
+    static BufferedImage readResource(String path){
+        try(var in = ImageFunctions.class.getResourceAsStream(path)){
+            if(in==null) throw new IOException("resource not found: "+path);
+            return ImageIO.read(in);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * 画像の指定した位置に横線を描画します。
      * @param sourceImage 対象画像
@@ -0,0 +1,147 @@
+package jp.rouh.mahjong.app.bitv.image;
+
+import jp.rouh.mahjong.tile.Tile;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.stream.IntStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 全ての牌の表面画像を一枚にまとめた画像(アトラス)を保持するユーティリティクラス。
+ *
+ * <p>アトラスは最初に牌の表面画像が要求されたタイミングで一度だけ読み込まれます。
+ * 牌の表面画像は牌の順序で{@value #COLUMNS}列ずつ並べて配置され,
+ * {@link #faceOf}はアトラスの領域を共有する部分画像を返します。
+ * <p>ビルド時に{@link TileFaceAtlasWriter}で作成されたアトラスのファイル{@value #ATLAS_PATH}が
+ * クラスパス上に存在する場合はそれを読み込みます。
+ * 存在しない場合は, 牌ごとの表面画像を並列に読み込んでアトラスを作成します。
+ * <p>アトラスのファイルは, 幅と高さに続けて全画素のARGB値を{@code int}として並べ,
+ * Deflate形式で圧縮したものです。画像形式の復号を必要としないため, 起動時に高速に読み込めます。
+ * @author Rouh
+ * @version 1.0
+ */
+final class TileFaceAtlas{
+    /** 牌の表面画像の幅 */
+    static final int FACE_WIDTH = 20;
+    /** 牌の表面画像の高さ */
+    static final int FACE_HEIGHT = 30;
+    /** アトラスの列数 */
+    static final int COLUMNS = 10;
+    /** ビルド時に作成されるアトラス画像のリソースのパス */
+    static final String ATLAS_PATH = "/img/tiles/atlas.bin";
+    private static final Tile[] TILES = Tile.values();
+    private TileFaceAtlas(){
+        throw new AssertionError("no instance for you!");
+    }
+
+    /**
+     * 遅延初期化のためのホルダークラス。
+     */
+    private static final class Holder{
+        private static final BufferedImage ATLAS = load();
+        private static final BufferedImage[] FACES = split(ATLAS);
+    }
+
+    /**
+     * 牌の表面画像を取得します。
+     *
+     * <p>返される画像はアトラスと画素を共有するため, 編集してはいけません。
+     * @param t 牌
+     * @return 牌の表面画像
+     */
+    static BufferedImage faceOf(Tile t){
+        return Holder.FACES[t.ordinal()];
+    }
+
+    /**
+     * アトラス全体の画像を取得します。
+     * @return アトラス
+     */
+    static BufferedImage atlas(){
+        return Holder.ATLAS;
+    }
+
+    private static BufferedImage load(){
+        var prerendered = readPrerendered();
+        return prerendered!=null? prerendered:render();
+    }
+
+    /**
+     * ビルド時に作成されたアトラスのファイルを読み込みます。
+     * @return アトラス, ファイルが存在しないかアトラスの大きさが一致しない場合はnull
+     */
+    private static BufferedImage readPrerendered(){
+        try(var in = TileFaceAtlas.class.getResourceAsStream(ATLAS_PATH)){
+            if(in==null) return null;
+            var data = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in)));
+            int width = data.readInt();
+            int height = data.readInt();
+            if(width!=atlasWidth() || height!=atlasHeight()) return null;
+            var pixels = new int[width*height];
+            for(int i = 0; i<pixels.length; i++){
+                pixels[i] = data.readInt();
+            }
+            var atlas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            atlas.setRGB(0, 0, width, height, pixels, 0, width);
+            return atlas;
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * アトラスをファイルの形式で書き出します。
+     * @param atlas アトラス
+     * @param out 出力先
+     * @throws IOException 書き出しに失敗した場合
+     */
+    static void write(BufferedImage atlas, OutputStream out) throws IOException{
+        var deflater = new DeflaterOutputStream(out);
+        var data = new DataOutputStream(new BufferedOutputStream(deflater));
+        int width = atlas.getWidth();
+        int height = atlas.getHeight();
+        data.writeInt(width);
+        data.writeInt(height);
+        for(var pixel:atlas.getRGB(0, 0, width, height, null, 0, width)){
+            data.writeInt(pixel);
+        }
+        data.flush();
+        deflater.finish();
+    }
+
+    /**
+     * 牌ごとの表面画像をリソースから並列に読み込み, アトラスを作成します。
+     * @return アトラス
+     */
+    static BufferedImage render(){
+        var faces = new BufferedImage[TILES.length];
+        IntStream.range(0, TILES.length).parallel()
+                .forEach(index->faces[index] = BlockImageFactory.readTileFaceImage(TILES[index].toString()));
+        var atlas = new BufferedImage(atlasWidth(), atlasHeight(), BufferedImage.TYPE_INT_ARGB);
+        var g = atlas.getGraphics();
+        for(int index = 0; index<TILES.length; index++){
+            g.drawImage(faces[index], index%COLUMNS*FACE_WIDTH, index/COLUMNS*FACE_HEIGHT, null);
+        }
+        g.dispose();
+        return atlas;
+    }
+
+    private static int atlasWidth(){
+        return COLUMNS*FACE_WIDTH;
+    }
+
+    private static int atlasHeight(){
+        return (TILES.length + COLUMNS - 1)/COLUMNS*FACE_HEIGHT;
+    }
+
+    private static BufferedImage[] split(BufferedImage atlas){
+        var faces = new BufferedImage[TILES.length];
+        for(int index = 0; index<TILES.length; index++){
+            faces[index] = atlas.getSubimage(index%COLUMNS*FACE_WIDTH, index/COLUMNS*FACE_HEIGHT,
+                    FACE_WIDTH, FACE_HEIGHT);
+        }
+        return faces;
+    }
+}
@@ -0,0 +1,30 @@
+package jp.rouh.mahjong.app.bitv.image;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 牌の表面画像のアトラスをファイルに書き出すクラス。
+ *
+ * <p>ビルド時に実行され, 引数に指定したリソースのディレクトリの下に
+ * {@link TileFaceAtlas#ATLAS_PATH}のパスでアトラスのファイルを書き出します。
+ * @author Rouh
+ * @version 1.0
+ */
+public final class TileFaceAtlasWriter{
+    private TileFaceAtlasWriter(){
+        throw new AssertionError("no instance for you!");
+    }
+
+    public static void main(String[] args) throws IOException{
+        if(args.length!=1){
+            throw new IllegalArgumentException("usage: TileFaceAtlasWriter <resource directory>");
+        }
+        var file = Path.of(args[0], TileFaceAtlas.ATLAS_PATH.substring(1));
+        Files.createDirectories(file.getParent());
+        try(var out = Files.newOutputStream(file)){
+            TileFaceAtlas.write(TileFaceAtlas.render(), out);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package jp.rouh.mahjong.app.bitv.table;
 
+import jp.rouh.mahjong.app.bitv.image.BlockImages;
+import jp.rouh.mahjong.app.bitv.image.TableImages;
 import jp.rouh.mahjong.table.Declaration;
 import jp.rouh.mahjong.tile.Tile;
 import jp.rouh.mahjong.tile.Wind;
@@ -7,11 +9,20 @@ import jp.rouh.mahjong.tile.Wind;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.List;
 
 /**
  * 麻雀卓を描画するパネルクラス。
  *
+ * <p>牌と立直棒は{@link TableCanvas}の図形として裏画面に描画され,
+ * 更新はフレームごとにまとめて変更された領域のみ再描画されます。
+ * プレイヤー情報などの文字列はラベルとしてその上に配置されます。
+ * <p>宣言の表示は一定時間後にタイマーによって消去されるため, 表示のために呼び出し元を待機させることはありません。
+ * 画面に表示されていない間は, 宣言の表示は次の宣言で置き換えられるまで残ります。
+ * <p>このクラスのメソッドはイベントディスパッチスレッド上で呼び出す必要があります。
+ * 対局のスレッドから呼び出す場合は{@link SwingTableViewerBridge}を経由します。
+ *
  * @author Rouh
  * @version 1.0
  */
@@ -31,6 +42,27 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
     /** 面子と面子の間の幅 */
     private static final int MELD_MARGIN = BLOCK_WIDTH/2;
 
+    /** 牌を描画するキャンバスの高さ */
+    private static final int CANVAS_LAYER = Integer.MIN_VALUE;
+
+    /** 局情報のスロット */
+    private static final int SLOT_OF_ROUND_INFO = TableSlot.of(TableSlot.ROUND_INFO, 0);
+
+    /** 積み棒の数のスロット */
+    private static final int SLOT_OF_STREAK_COUNT = TableSlot.of(TableSlot.ROUND_INFO, 1);
+
+    /** 供託の数のスロット */
+    private static final int SLOT_OF_CARRY_OVER_COUNT = TableSlot.of(TableSlot.ROUND_INFO, 2);
+
+    /** 宣言を表示する時間(ミリ秒) */
+    private static final int DECLARATION_MILLIS = 2000;
+
+    /** 牌を描画するキャンバス */
+    private final TableCanvas canvas = new TableCanvas(TABLE_WIDTH, TABLE_HEIGHT);
+
+    /** 宣言の表示を消去するタイマー */
+    private final Timer[] declarationTimers = new Timer[4];
+
     /** 次の捨て牌位置 */
     private int[] nextRiverIndexes;
 
@@ -55,6 +87,14 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
     public BlockImageTableViewer(){
         setSize(TABLE_WIDTH, TABLE_HEIGHT);
         setBorder(new LineBorder(Color.BLACK));
+        add(canvas);
+        setLayer(canvas, CANVAS_LAYER);
+        for(var d:Direction.values()){
+            int slot = slotOfPlayerMessage(d);
+            var timer = new Timer(DECLARATION_MILLIS, event->removeSlotIfPresent(slot));
+            timer.setRepeats(false);
+            declarationTimers[d.ordinal()] = timer;
+        }
         initializeVariables();
     }
 
@@ -72,16 +112,15 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
 
     /**
      * 牌を指定された場所に描画します。
-     * @param label 牌ラベル
-     * @param x x座標
-     * @param y y座標
+     * @param image 牌画像
+     * @param point {@link TablePoints}の形式で格納した中心の座標
      * @param z 高さ
-     * @param name 登録名
+     * @param slot スロット
      */
-    private void putBlock(BlockLabel label, int x, int y, int z, String name){
-        label.setLocationCentered(x, y);
-        addNamed(label, name);
-        setLayer(label, z*TABLE_HEIGHT + y);
+    private void putBlock(BufferedImage image, int point, int z, int slot){
+        int x = TablePoints.xOf(point);
+        int y = TablePoints.yOf(point);
+        canvas.putSprite(slot, image, x - image.getWidth()/2, y - image.getHeight()/2, z*TABLE_HEIGHT + y, true);
     }
 
     /**
@@ -91,23 +130,7 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
      */
     @Override
     public void clear(){
-        for(var d:Direction.values()){
-            removeByNameIfPresent(getNameOfReadyBone(d));
-            for(int index = 0; index<nextRiverIndexes[d.ordinal()]; index++){
-                removeByName(getNameOfRiverTile(d, index));
-            }
-            for(int index = 0; index<17; index++){
-                for(int floor = 0; floor<2; floor++){
-                    removeByNameIfPresent(getNameOfWallTile(d, index, floor));
-                }
-            }
-            removeHandTiles(d);
-            for(int meldIndex = 0; meldIndex<nextMeldIndexes[d.ordinal()]; meldIndex++){
-                for(int tileIndex = 0; tileIndex<4; tileIndex++){
-                    removeByNameIfPresent(getNameOfMeldTile(d, meldIndex, tileIndex));
-                }
-            }
-        }
+        canvas.removeAllSprites();
         initializeVariables();
     }
 
@@ -130,15 +153,16 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
         label.setSize(new Dimension(80, 40));
         var point = TablePoints.ofPlayerMessage(d);
         label.setLocationCentered(point.x, point.y);
-        addNamed(label, getNameOfPlayerMessage(d));
+        addToSlot(label, slotOfPlayerMessage(d));
         setLayer(label, 2000);
-//        sleep();
-//        removeByName(getNameOfPlayerMessage(d));
+        if(isDisplayable()){
+            declarationTimers[d.ordinal()].restart();
+        }
     }
 
     @Override
     public void updateRoundInfo(Wind w, int count){
-        removeByNameIfPresent("round-info");
+        removeSlotIfPresent(SLOT_OF_ROUND_INFO);
         var label = new TableLabel();
         var text = w.toString() + List.of("一", "二", "三", "四").get(count - 1) + "局";
         label.setText(text);
@@ -146,78 +170,75 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
         label.setSize(new Dimension(40, 20));
         label.setLocationCentered(point.x, point.y - 10);
         label.setHorizontalAlignment(SwingConstants.CENTER);
-        addNamed(label, "round-info");
+        addToSlot(label, SLOT_OF_ROUND_INFO);
     }
 
     @Override
     public void updateStreakCount(int streak){
-        removeByNameIfPresent("round-info-streak");
+        removeSlotIfPresent(SLOT_OF_STREAK_COUNT);
         var label = new TableLabel();
         label.setText(Integer.toString(streak));
         var point = TablePoints.CENTER;
         label.setSize(new Dimension(20, 20));
         label.setLocationCentered(point.x - 10, point.y + 10);
         label.setHorizontalAlignment(SwingConstants.CENTER);
-        addNamed(label, "round-info-streak");
+        addToSlot(label, SLOT_OF_STREAK_COUNT);
     }
 
     @Override
     public void updateCarryOverCount(int carryOver){
-        removeByNameIfPresent("round-info-carryover");
+        removeSlotIfPresent(SLOT_OF_CARRY_OVER_COUNT);
         var label = new TableLabel();
         label.setText(Integer.toString(carryOver));
         var point = TablePoints.CENTER;
         label.setSize(new Dimension(20, 20));
         label.setLocationCentered(point.x + 10, point.y + 10);
         label.setHorizontalAlignment(SwingConstants.CENTER);
-        addNamed(label, "round-info-carryover");
+        addToSlot(label, SLOT_OF_CARRY_OVER_COUNT);
     }
 
     @Override
     public void updatePlayerWind(Direction d, Wind wind){
-        removeByNameIfPresent(getNameOfPlayerWind(d));
+        removeSlotIfPresent(slotOfPlayerWind(d));
         var label = TableLabels.ofPlayerWind(d, wind);
         var point = TablePoints.ofPlayerWind(d);
         label.setLocationCentered(point.x, point.y);
-        addNamed(label, getNameOfPlayerWind(d));
+        addToSlot(label, slotOfPlayerWind(d));
     }
 
     @Override
     public void updatePlayerScore(Direction d, int score){
-        removeByNameIfPresent(getNameOfPlayerScore(d));
+        removeSlotIfPresent(slotOfPlayerScore(d));
         var label = TableLabels.ofPlayerScore(d, score);
         var point = TablePoints.ofPlayerScore(d);
         label.setLocationCentered(point.x, point.y);
-        addNamed(label, getNameOfPlayerScore(d));
+        addToSlot(label, slotOfPlayerScore(d));
     }
 
     @Override
     public void updatePlayerName(Direction d, String name){
-        removeByNameIfPresent(getNameOfPlayerName(d));
+        removeSlotIfPresent(slotOfPlayerName(d));
         var label = TableLabels.ofPlayerName(d, name);
         var point = TablePoints.ofPlayerName(d);
         label.setLocationCentered(point.x, point.y);
-        addNamed(label, getNameOfPlayerName(d));
+        addToSlot(label, slotOfPlayerName(d));
     }
 
     @Override
     public void putReadyBone(Direction d){
-        var label = TableLabels.ofReadyBar(d);
+        var image = TableImages.ofReadyBar(d);
         var point = TablePoints.ofReadyBar(d);
-        label.setLocationCentered(point.x, point.y);
-        addNamed(label, getNameOfReadyBone(d));
+        canvas.putSprite(slotOfReadyBone(d), image,
+                point.x - image.getWidth()/2, point.y - image.getHeight()/2, 0, true);
     }
 
     @Override
     public void appendRiverTile(Direction d, Tile tile){
         int riverIndex = nextRiverIndexes[d.ordinal()];
         int readyIndex = readyRiverIndexes[d.ordinal()];
-        var point = readyIndex==-1?
-                TablePoints.ofRiverBlock(d, riverIndex):
-                TablePoints.ofRiverBlock(d, riverIndex, readyIndex);
-        var block = BlockLabel.ofFaceUp(d.reversed(), tile);
-        var name = getNameOfRiverTile(d, riverIndex);
-        putBlock(block, point.x, point.y, 0, name);
+        int point = TablePoints.ofRiverBlock(d, riverIndex, readyIndex);
+        var block = BlockImages.ofFaceUp(d.reversed(), tile);
+        putBlock(block, point, 0, slotOfRiverTile(d, riverIndex));
         nextRiverIndexes[d.ordinal()]++;
     }
 
@@ -230,21 +251,19 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
     @Override
     public void removeLastRiverTile(Direction d){
         assert nextRiverIndexes[d.ordinal()]>0;
-        removeByName(getNameOfRiverTile(d, nextRiverIndexes[d.ordinal()] - 1));
+        canvas.removeSprite(slotOfRiverTile(d, nextRiverIndexes[d.ordinal()] - 1));
     }
 
     private void putWallTile(Direction d, int index, int floor){
-        var point = TablePoints.ofWallBlock(d, index, floor);
-        var block  = BlockLabel.ofFaceDown(d);
-        var name = getNameOfWallTile(d, index, floor);
-        putBlock(block, point.x, point.y, floor, name);
+        int point = TablePoints.ofWallBlock(d, index, floor);
+        var block  = BlockImages.ofFaceDown(d);
+        putBlock(block, point, floor, slotOfWallTile(d, index, floor));
     }
 
     private void putWallTileFaceUp(Direction d, int index, int floor, Tile tile){
-        var point = TablePoints.ofWallBlock(d, index, floor);
-        var block = BlockLabel.ofFaceUp(d, tile);
-        var name = getNameOfWallTile(d, index, floor);
-        putBlock(block, point.x, point.y, floor, name);
+        int point = TablePoints.ofWallBlock(d, index, floor);
+        var block = BlockImages.ofFaceUp(d, tile);
+        putBlock(block, point, floor, slotOfWallTile(d, index, floor));
     }
 
     @Override
@@ -260,44 +279,44 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
 
     @Override
     public void revealWallTile(Direction d, int index, int floor, Tile tile){
-        removeByName(getNameOfWallTile(d, index, floor));
+        canvas.removeSprite(slotOfWallTile(d, index, floor));
         putWallTileFaceUp(d, index, floor, tile);
     }
 
     @Override
     public void removeWallTile(Direction d, int index, int floor){
-        removeByName(getNameOfWallTile(d, index, floor));
+        canvas.removeSprite(slotOfWallTile(d, index, floor));
     }
 
     private void appendHandTile(Tile t, int index, boolean margin){
         var d = Direction.BOTTOM;
-        var point = TablePoints.ofHandBlock(d, index, margin);
-        var block = BlockLabel.ofPlayerHand(t);
-        putBlock(block, point.x, point.y, 0, getNameOfHandTile(d, index));
+        int point = TablePoints.ofHandBlock(d, index, margin);
+        var block = BlockImages.ofPlayerHand(t);
+        putBlock(block, point, 0, slotOfHandTile(d, index));
     }
 
     private void appendHandTile(Direction d, int index, boolean margin){
         assert d==Direction.BOTTOM;
-        var point = TablePoints.ofHandBlock(d, index, margin);
-        var block = BlockLabel.ofOpponentHand(d.isSideways()?d:d.reversed());
-        putBlock(block, point.x, point.y, 0, getNameOfHandTile(d, index));
+        int point = TablePoints.ofHandBlock(d, index, margin);
+        var block = BlockImages.ofOpponentHand(d.isSideways()?d:d.reversed());
+        putBlock(block, point, 0, slotOfHandTile(d, index));
     }
 
     private void appendHandTileFaceUp(Direction d, int index, Tile t, boolean margin){
-        var point = TablePoints.ofHandBlock(d, index, margin);
-        var block = BlockLabel.ofFaceUp(d, t);
-        putBlock(block, point.x, point.y, 0, getNameOfHandTile(d, index));
+        int point = TablePoints.ofHandBlock(d, index, margin);
+        var block = BlockImages.ofFaceUp(d, t);
+        putBlock(block, point, 0, slotOfHandTile(d, index));
     }
 
     private void appendHandTileFaceDown(Direction d, int index){
-        var point = TablePoints.ofHandBlock(d, index, false);
-        var block = BlockLabel.ofFaceDown(d);
-        putBlock(block, point.x, point.y, 0, getNameOfHandTile(d, index));
+        int point = TablePoints.ofHandBlock(d, index, false);
+        var block = BlockImages.ofFaceDown(d);
+        putBlock(block, point, 0, slotOfHandTile(d, index));
     }
 
     private void removeHandTiles(Direction d){
         for(int i = 0; i<14; i++){
-            removeByNameIfPresent(getNameOfHandTile(d, i));
+            canvas.removeSpriteIfPresent(slotOfHandTile(d, i));
         }
     }
 
@@ -339,28 +358,28 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
         }
     }
 
-    private void putMeldTile(Direction d, Tile tile, int offset, String name){
-        var point = TablePoints.ofMeldBlock(d, offset, false, false);
-        var block = BlockLabel.ofFaceUp(d.reversed(), tile);
-        putBlock(block, point.x, point.y, 0, name);
+    private void putMeldTile(Direction d, Tile tile, int offset, int slot){
+        int point = TablePoints.ofMeldBlock(d, offset, false, false);
+        var block = BlockImages.ofFaceUp(d.reversed(), tile);
+        putBlock(block, point, 0, slot);
     }
 
-    private void putMeldTileFaceDown(Direction d, int offset, String name){
-        var point = TablePoints.ofMeldBlock(d, offset, false, false);
-        var block = BlockLabel.ofFaceDown(d.reversed());
-        putBlock(block, point.x, point.y, 0, name);
+    private void putMeldTileFaceDown(Direction d, int offset, int slot){
+        int point = TablePoints.ofMeldBlock(d, offset, false, false);
+        var block = BlockImages.ofFaceDown(d.reversed());
+        putBlock(block, point, 0, slot);
     }
 
-    private void putMeldTileRotated(Direction d, Tile tile, Direction rotated, int offset, String name){
-        var point = TablePoints.ofMeldBlock(d, offset, true, false);
-        var block = BlockLabel.ofFaceUp(rotated.reversed(), tile);
-        putBlock(block, point.x, point.y, 0, name);
+    private void putMeldTileRotated(Direction d, Tile tile, Direction rotated, int offset, int slot){
+        int point = TablePoints.ofMeldBlock(d, offset, true, false);
+        var block = BlockImages.ofFaceUp(rotated.reversed(), tile);
+        putBlock(block, point, 0, slot);
     }
 
-    private void putMeldTileAdded(Direction d, Tile tile, Direction rotated, int offset, String name){
-        var point = TablePoints.ofMeldBlock(d, offset, true, true);
-        var block = BlockLabel.ofFaceUp(rotated.reversed(), tile);
-        putBlock(block, point.x, point.y, 0, name);
+    private void putMeldTileAdded(Direction d, Tile tile, Direction rotated, int offset, int slot){
+        int point = TablePoints.ofMeldBlock(d, offset, true, true);
+        var block = BlockImages.ofFaceUp(rotated.reversed(), tile);
+        putBlock(block, point, 0, slot);
     }
 
     /**
@@ -375,14 +394,14 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
         assert tiles.size()==3 || tiles.size()==4;
         var rotation = rotateToLeft? d.turnLeft():d.turnRight();
         for(int index = tiles.size() - 1; index>=0; index--){
-            var name = getNameOfMeldTile(d, nextMeldIndexes[d.ordinal()], index);
+            var slot = slotOfMeldTile(d, nextMeldIndexes[d.ordinal()], index);
             if(index==tiltIndex){
-                putMeldTileRotated(d, tiles.get(index), rotation, totalMeldOffsets[d.ordinal()], name);
+                putMeldTileRotated(d, tiles.get(index), rotation, totalMeldOffsets[d.ordinal()], slot);
                 additionalTileOffsets[d.ordinal()][nextMeldIndexes[d.ordinal()]] = totalMeldOffsets[d.ordinal()];
                 additionalTileRotation[d.ordinal()][nextMeldIndexes[d.ordinal()]] = rotation;
                 totalMeldOffsets[d.ordinal()] += BLOCK_HEIGHT;
             }else{
-                putMeldTile(d, tiles.get(index), totalMeldOffsets[d.ordinal()], name);
+                putMeldTile(d, tiles.get(index), totalMeldOffsets[d.ordinal()], slot);
                 totalMeldOffsets[d.ordinal()] += BLOCK_WIDTH;
             }
         }
@@ -412,19 +431,19 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
     public void addTileToMeld(Direction d, int meldIndex, Tile t){
         int offset = additionalTileOffsets[d.ordinal()][meldIndex];
         var rotation = additionalTileRotation[d.ordinal()][meldIndex];
-        var name = getNameOfMeldTile(d, meldIndex, 3);
-        putMeldTileAdded(d, t, rotation, offset, name);
+        var slot = slotOfMeldTile(d, meldIndex, 3);
+        putMeldTileAdded(d, t, rotation, offset, slot);
     }
 
     @Override
     public void appendSelfQuad(Direction d, List<Tile> tiles){
         if(tiles.size()>4) throw new IllegalArgumentException("illegal size: "+tiles);
         for(int index = 3; index>=0; index--){
-            var name = getNameOfMeldTile(d, nextMeldIndexes[d.ordinal()], index);
+            var slot = slotOfMeldTile(d, nextMeldIndexes[d.ordinal()], index);
             if(index==0 || index==3){
-                putMeldTileFaceDown(d, totalMeldOffsets[d.ordinal()], name);
+                putMeldTileFaceDown(d, totalMeldOffsets[d.ordinal()], slot);
             }else{
-                putMeldTile(d, tiles.get(index), totalMeldOffsets[d.ordinal()], name);
+                putMeldTile(d, tiles.get(index), totalMeldOffsets[d.ordinal()], slot);
             }
             totalMeldOffsets[d.ordinal()] += BLOCK_WIDTH;
         }
@@ -432,47 +451,39 @@ public class BlockImageTableViewer extends RegisteredPane implements TableViewer
         totalMeldOffsets[d.ordinal()] += MELD_MARGIN;
     }
 
-    private static void sleep(){
-        try{
-            Thread.sleep(2000);
-        }catch(InterruptedException e){
-            e.printStackTrace();
-        }
-    }
-
-    private static String getNameOfHandTile(Direction d, int index){
-        return "hand("+d+"-"+index+")";
+    private static int slotOfHandTile(Direction d, int index){
+        return TableSlot.of(TableSlot.HAND, d, index);
     }
 
-    private static String getNameOfMeldTile(Direction d, int meldIndex, int tileIndex){
-        return "meld("+d+"-"+meldIndex+")-"+tileIndex;
+    private static int slotOfMeldTile(Direction d, int meldIndex, int tileIndex){
+        return TableSlot.of(TableSlot.MELD, d, meldIndex*4 + tileIndex);
     }
 
-    private static String getNameOfWallTile(Direction d, int column, int floor){
-        return "wall-"+d.ordinal()*34+column*2+floor;
+    private static int slotOfWallTile(Direction d, int column, int floor){
+        return TableSlot.of(TableSlot.WALL, d, column*2 + floor);
     }
 
-    private static String getNameOfRiverTile(Direction d, int index){
-        return "river("+d+")-"+index;
+    private static int slotOfRiverTile(Direction d, int index){
+        return TableSlot.of(TableSlot.RIVER, d, index);
     }
 
-    private static String getNameOfReadyBone(Direction d){
-        return "bone("+d+")";
+    private static int slotOfReadyBone(Direction d){
+        return TableSlot.of(TableSlot.READY_BONE, d, 0);
     }
 
-    private static String getNameOfPlayerMessage(Direction d){
-        return "message("+d+")";
+    private static int slotOfPlayerMessage(Direction d){
+        return TableSlot.of(TableSlot.MESSAGE, d, 0);
     }
 
-    private static String getNameOfPlayerWind(Direction d){
-        return "wind("+d+")";
+    private static int slotOfPlayerWind(Direction d){
+        return TableSlot.of(TableSlot.WIND, d, 0);
     }
 
-    private static String getNameOfPlayerScore(Direction d){
-        return "score("+d+")";
+    private static int slotOfPlayerScore(Direction d){
+        return TableSlot.of(TableSlot.SCORE, d, 0);
     }
 
-    private static String getNameOfPlayerName(Direction d){
-        return "name("+d+")";
+    private static int slotOfPlayerName(Direction d){
+        return TableSlot.of(TableSlot.NAME, d, 0);
     }
 }
@@ -0,0 +1,261 @@
+package jp.rouh.mahjong.app.bitv.table;
+
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 対局のスレッドからの描画操作をイベントディスパッチスレッドに受け渡すビュー。
+ *
+ * <p>このクラスのメソッドは描画操作を固定長のキューに格納するのみで, すぐに呼び出し元に戻ります。
+ * キューに格納された操作はイベントディスパッチスレッド上で, 格納された順に委譲先のビューに適用されます。
+ * 適用は{@link SwingUtilities#invokeLater}で予約された一回の処理で最大{@value #BATCH_SIZE}件ずつまとめて行われ,
+ * 未適用の操作が残っている間は常に一つの処理のみが予約されます。
+ * 一回の処理で適用しきれなかった操作は, 他の画面イベントを挟んで次の処理で適用されます。
+ * <p>キューが満杯になるのはイベントディスパッチスレッドが長時間停止した場合のみであり,
+ * その場合に限り, メモリの使用量を抑えるため呼び出し元は空きができるまで待機します。
+ * ただしイベントディスパッチスレッドからの呼び出しは待機すると空きができないため,
+ * キューに格納された操作を全て適用した後, その場で操作を適用します。
+ * <p>引数の牌のリストは呼び出し時に複製されるため, 呼び出し元は呼び出し後にリストを変更できます。
+ * 委譲先の処理で発生した例外はイベントディスパッチスレッドの
+ * {@link Thread.UncaughtExceptionHandler}に渡され, 後続の操作の適用は継続されます。
+ * @author Rouh
+ * @version 1.0
+ */
+public class SwingTableViewerBridge implements TableViewer{
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int BATCH_SIZE = 256;
+    private final TableViewer viewer;
+    private final BlockingQueue<Consumer<TableViewer>> queue;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final List<Consumer<TableViewer>> batch = new ArrayList<>(BATCH_SIZE);
+    private final Runnable drain = this::drain;
+
+    /**
+     * 既定の容量のキューで描画操作を受け渡すインスタンスを生成します。
+     * @param viewer 委譲先のビュー
+     */
+    public SwingTableViewerBridge(TableViewer viewer){
+        this(viewer, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 指定した容量のキューで描画操作を受け渡すインスタンスを生成します。
+     * @param viewer 委譲先のビュー
+     * @param capacity キューの容量
+     * @throws IllegalArgumentException 容量が正でない場合
+     */
+    public SwingTableViewerBridge(TableViewer viewer, int capacity){
+        if(capacity<=0){
+            throw new IllegalArgumentException("invalid capacity: "+capacity);
+        }
+        this.viewer = viewer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 描画操作をキューに格納し, 必要に応じて適用の処理を予約します。
+     *
+     * <p>キューが満杯の場合, イベントディスパッチスレッドからの呼び出しであれば
+     * キューに格納された操作を順に適用した後に操作を適用し, それ以外のスレッドからの呼び出しであれば
+     * キューに空きができるまで待機します。
+     * @param operation 描画操作
+     * @throws IllegalStateException キューの空きを待機中に割り込みが発生した場合
+     */
+    private void submit(Consumer<TableViewer> operation){
+        if(!queue.offer(operation)){
+            if(SwingUtilities.isEventDispatchThread()){
+                Consumer<TableViewer> queued;
+                while((queued = queue.poll())!=null){
+                    apply(queued);
+                }
+                apply(operation);
+                return;
+            }
+            try{
+                queue.put(operation);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for viewer queue", e);
+            }
+        }
+        if(drainScheduled.compareAndSet(false, true)){
+            SwingUtilities.invokeLater(drain);
+        }
+    }
+
+    /**
+     * キューに格納された描画操作をまとめて委譲先のビューに適用します。
+     */
+    private void drain(){
+        // 読み出し前に予約を解除し, 読み出し後に格納された操作が取り残されないようにします
+        drainScheduled.set(false);
+        queue.drainTo(batch, BATCH_SIZE);
+        for(var operation:batch){
+            apply(operation);
+        }
+        batch.clear();
+        if(!queue.isEmpty() && drainScheduled.compareAndSet(false, true)){
+            SwingUtilities.invokeLater(drain);
+        }
+    }
+
+    /**
+     * 描画操作を委譲先のビューに適用します。
+     */
+    private void apply(Consumer<TableViewer> operation){
+        try{
+            operation.accept(viewer);
+        }catch(RuntimeException e){
+            var thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * 適用されていない描画操作の数を取得します。
+     * @return 適用されていない描画操作の数
+     */
+    public int getPendingCount(){
+        return queue.size();
+    }
+
+    @Override
+    public void clear(){
+        submit(TableViewer::clear);
+    }
+
+    @Override
+    public void showRoundInformation(Wind w, int count, int streak){
+        submit(v->v.showRoundInformation(w, count, streak));
+    }
+
+    @Override
+    public void showDeclaration(Direction d, Declaration dec){
+        submit(v->v.showDeclaration(d, dec));
+    }
+
+    @Override
+    public void updateRoundInfo(Wind w, int count){
+        submit(v->v.updateRoundInfo(w, count));
+    }
+
+    @Override
+    public void updateStreakCount(int streak){
+        submit(v->v.updateStreakCount(streak));
+    }
+
+    @Override
+    public void updateCarryOverCount(int carryOver){
+        submit(v->v.updateCarryOverCount(carryOver));
+    }
+
+    @Override
+    public void updatePlayerWind(Direction d, Wind wind){
+        submit(v->v.updatePlayerWind(d, wind));
+    }
+
+    @Override
+    public void updatePlayerScore(Direction d, int score){
+        submit(v->v.updatePlayerScore(d, score));
+    }
+
+    @Override
+    public void updatePlayerName(Direction d, String name){
+        submit(v->v.updatePlayerName(d, name));
+    }
+
+    @Override
+    public void putReadyBone(Direction d){
+        submit(v->v.putReadyBone(d));
+    }
+
+    @Override
+    public void appendRiverTile(Direction d, Tile t){
+        submit(v->v.appendRiverTile(d, t));
+    }
+
+    @Override
+    public void appendRiverTileRotated(Direction d, Tile t){
+        submit(v->v.appendRiverTileRotated(d, t));
+    }
+
+    @Override
+    public void removeLastRiverTile(Direction d){
+        submit(v->v.removeLastRiverTile(d));
+    }
+
+    @Override
+    public void putAllWallTiles(){
+        submit(TableViewer::putAllWallTiles);
+    }
+
+    @Override
+    public void removeWallTile(Direction d, int index, int floor){
+        submit(v->v.removeWallTile(d, index, floor));
+    }
+
+    @Override
+    public void revealWallTile(Direction d, int index, int floor, Tile t){
+        submit(v->v.revealWallTile(d, index, floor, t));
+    }
+
+    @Override
+    public void updateHandTiles(List<Tile> tiles, boolean isolation){
+        var copied = List.copyOf(tiles);
+        submit(v->v.updateHandTiles(copied, isolation));
+    }
+
+    @Override
+    public void updateHandTiles(Direction d, int size, boolean isolation){
+        submit(v->v.updateHandTiles(d, size, isolation));
+    }
+
+    @Override
+    public void updateHandTilesFaceUp(Direction d, List<Tile> tiles, boolean isolation){
+        var copied = List.copyOf(tiles);
+        submit(v->v.updateHandTilesFaceUp(d, copied, isolation));
+    }
+
+    @Override
+    public void updateHandTilesFaceDown(Direction d, int size){
+        submit(v->v.updateHandTilesFaceDown(d, size));
+    }
+
+    @Override
+    public void appendLeftTiltMeld(Direction d, List<Tile> tiles){
+        var copied = List.copyOf(tiles);
+        submit(v->v.appendLeftTiltMeld(d, copied));
+    }
+
+    @Override
+    public void appendMiddleTiltMeld(Direction d, List<Tile> tiles){
+        var copied = List.copyOf(tiles);
+        submit(v->v.appendMiddleTiltMeld(d, copied));
+    }
+
+    @Override
+    public void appendRightTiltMeld(Direction d, List<Tile> tiles){
+        var copied = List.copyOf(tiles);
+        submit(v->v.appendRightTiltMeld(d, copied));
+    }
+
+    @Override
+    public void addTileToMeld(Direction d, int meldIndex, Tile t){
+        submit(v->v.addTileToMeld(d, meldIndex, t));
+    }
+
+    @Override
+    public void appendSelfQuad(Direction d, List<Tile> tiles){
+        var copied = List.copyOf(tiles);
+        submit(v->v.appendSelfQuad(d, copied));
+    }
+}
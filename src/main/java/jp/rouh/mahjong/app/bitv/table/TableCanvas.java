@@ -0,0 +1,229 @@
+package jp.rouh.mahjong.app.bitv.table;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 麻雀卓上の画像を裏画面に描画し, 変更された領域のみを再描画するコンポーネント。
+ *
+ * <p>牌などの画像は{@link TableSlot}で表されるスロットごとの図形(スプライト)として
+ * スロットを添字とする配列に登録され,
+ * 登録や削除のたびにコンポーネントを追加削除する代わりに, 変更された領域を記録します。
+ * 記録された領域は一フレーム({@value #FRAME_MILLIS}ミリ秒)の間まとめられ,
+ * フレームの終わりに領域内の図形のみを裏画面に描画し直したうえで, その領域の再描画を要求します。
+ * 重なり合う領域は一つに統合され, 領域の数が{@value #MAX_DIRTY_REGIONS}を超えた場合は
+ * 全ての領域を囲む一つの領域として扱います。
+ * <p>裏画面は背景色で塗りつぶした不透明な画像で, 画面への転写は単純な複写で行われます。
+ * 背景色が設定されていない場合は親コンポーネントの背景色を使用します。
+ * <p>図形は高さの昇順, 同じ高さの場合は登録順に描画されます。
+ * このクラスのメソッドはイベントディスパッチスレッド上で呼び出す必要があります。
+ * ただし画面に表示されていない(表示可能でない)間は再描画の予約を行わず,
+ * 記録された領域は次の描画の際に裏画面に反映されるため,
+ * 画面外の画像への描画に用いる場合は単一のスレッドに閉じて利用できます。
+ * @author Rouh
+ * @version 1.0
+ */
+class TableCanvas extends JComponent{
+    /** 一フレームの長さ(ミリ秒) */
+    private static final int FRAME_MILLIS = 16;
+    /** 個別に記録する変更領域の最大数 */
+    private static final int MAX_DIRTY_REGIONS = 8;
+    private static final Comparator<Sprite> DRAWING_ORDER =
+            Comparator.<Sprite>comparingInt(sprite->sprite.layer).thenComparingLong(sprite->sprite.sequence);
+    private final Sprite[] sprites = new Sprite[TableSlot.CAPACITY];
+    private final List<Rectangle> dirtyRegions = new ArrayList<>(MAX_DIRTY_REGIONS);
+    private final Timer frameTimer = new Timer(FRAME_MILLIS, event->flush());
+    private final BufferedImage buffer;
+    private Sprite[] drawingOrder = new Sprite[0];
+    private int spriteCount;
+    private boolean reordered;
+    private long nextSequence;
+
+    /**
+     * 指定した大きさのコンポーネントを生成します。
+     * @param width 幅
+     * @param height 高さ
+     */
+    TableCanvas(int width, int height){
+        setSize(width, height);
+        setOpaque(true);
+        buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        frameTimer.setRepeats(false);
+        markDirty(new Rectangle(0, 0, width, height));
+    }
+
+    /**
+     * スロットに図形を登録します。
+     *
+     * <p>既にスロットに図形が登録されている場合は, その図形を削除した後登録を行います。
+     * @param slot スロット
+     * @param image 画像
+     * @param x 左上のx座標
+     * @param y 左上のy座標
+     * @param layer 高さ
+     * @param bordered 画像の周囲に枠線を描画する場合はtrue
+     */
+    void putSprite(int slot, BufferedImage image, int x, int y, int layer, boolean bordered){
+        var sprite = new Sprite(image, x, y, layer, bordered, nextSequence++);
+        var replaced = sprites[slot];
+        sprites[slot] = sprite;
+        if(replaced!=null){
+            markDirty(replaced.bounds);
+        }else{
+            spriteCount++;
+        }
+        markDirty(sprite.bounds);
+        reordered = true;
+    }
+
+    /**
+     * 指定したスロットに登録された図形を削除します。
+     * @param slot スロット
+     * @throws NoSuchElementException 図形が見つからない場合
+     */
+    void removeSprite(int slot){
+        if(!removeSpriteIfPresent(slot)){
+            throw new NoSuchElementException("no sprite in slot: "+slot);
+        }
+    }
+
+    /**
+     * 指定したスロットに図形が登録されている場合, その図形を削除します。
+     * @param slot スロット
+     * @return true 図形を削除した場合
+     *         false 図形が登録されていなかった場合
+     */
+    boolean removeSpriteIfPresent(int slot){
+        var removed = sprites[slot];
+        if(removed==null) return false;
+        sprites[slot] = null;
+        spriteCount--;
+        markDirty(removed.bounds);
+        reordered = true;
+        return true;
+    }
+
+    /**
+     * 全ての図形を削除します。
+     */
+    void removeAllSprites(){
+        if(spriteCount==0) return;
+        Arrays.fill(sprites, null);
+        spriteCount = 0;
+        reordered = true;
+        dirtyRegions.clear();
+        markDirty(new Rectangle(0, 0, getWidth(), getHeight()));
+    }
+
+    /**
+     * 変更された領域を記録し, 表示可能な場合はフレームの終わりに再描画されるよう予約します。
+     */
+    private void markDirty(Rectangle region){
+        var merged = new Rectangle(region);
+        for(int i = dirtyRegions.size() - 1; i>=0; i--){
+            if(dirtyRegions.get(i).intersects(merged)){
+                merged.add(dirtyRegions.remove(i));
+            }
+        }
+        dirtyRegions.add(merged);
+        if(dirtyRegions.size()>MAX_DIRTY_REGIONS){
+            var union = dirtyRegions.get(0);
+            for(var dirtyRegion:dirtyRegions){
+                union.add(dirtyRegion);
+            }
+            dirtyRegions.clear();
+            dirtyRegions.add(union);
+        }
+        if(isDisplayable() && !frameTimer.isRunning()){
+            frameTimer.start();
+        }
+    }
+
+    /**
+     * 記録された領域を裏画面に描画し直し, 画面への再描画を要求します。
+     */
+    void flush(){
+        for(var dirtyRegion:dirtyRegions){
+            repaint(dirtyRegion);
+        }
+        render();
+    }
+
+    /**
+     * 記録された領域を裏画面に描画し直します。
+     */
+    private void render(){
+        if(dirtyRegions.isEmpty()) return;
+        if(reordered){
+            if(drawingOrder.length<spriteCount) drawingOrder = new Sprite[sprites.length];
+            int size = 0;
+            for(var sprite:sprites){
+                if(sprite!=null) drawingOrder[size++] = sprite;
+            }
+            Arrays.fill(drawingOrder, size, drawingOrder.length, null);
+            Arrays.sort(drawingOrder, 0, size, DRAWING_ORDER);
+            reordered = false;
+        }
+        var background = isBackgroundSet() || getParent()!=null? getBackground():UIManager.getColor("Panel.background");
+        var g = buffer.createGraphics();
+        for(var dirtyRegion:dirtyRegions){
+            g.setClip(dirtyRegion);
+            g.setColor(background);
+            g.fillRect(dirtyRegion.x, dirtyRegion.y, dirtyRegion.width, dirtyRegion.height);
+            for(var sprite:drawingOrder){
+                if(sprite==null) break;
+                if(sprite.bounds.intersects(dirtyRegion)){
+                    sprite.draw(g);
+                }
+            }
+        }
+        g.dispose();
+        dirtyRegions.clear();
+    }
+
+    @Override
+    public void setBackground(Color background){
+        super.setBackground(background);
+        markDirty(new Rectangle(0, 0, getWidth(), getHeight()));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g){
+        // フレームの途中で再描画された場合は, 記録済みの領域をその場で描画し直します
+        render();
+        g.drawImage(buffer, 0, 0, null);
+    }
+
+    /**
+     * スロットに登録される図形。
+     */
+    private static final class Sprite{
+        private final BufferedImage image;
+        private final Rectangle bounds;
+        private final int layer;
+        private final boolean bordered;
+        private final long sequence;
+
+        private Sprite(BufferedImage image, int x, int y, int layer, boolean bordered, long sequence){
+            this.image = image;
+            this.bounds = new Rectangle(x, y, image.getWidth(), image.getHeight());
+            this.layer = layer;
+            this.bordered = bordered;
+            this.sequence = sequence;
+        }
+
+        private void draw(Graphics2D g){
+            g.drawImage(image, bounds.x, bounds.y, null);
+            if(bordered){
+                g.setColor(Color.BLACK);
+                g.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+            }
+        }
+    }
+}
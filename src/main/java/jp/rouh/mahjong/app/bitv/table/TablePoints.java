@@ -4,53 +4,201 @@ import java.awt.*;
 
 /**
  * 麻雀卓上の牌の座標を取得するユーティリティクラス。
+ *
+ * <p>山牌, 河の牌, 手牌の座標は固定のため, クラスの読み込み時に全ての位置の座標を計算し,
+ * 座標表として保持します。これらの牌の座標を取得するメソッドは座標表を参照するのみで,
+ * オブジェクトを生成しません。副露面子の座標も同様に方向ごとの基準点から計算されます。
+ * <p>牌の座標はx座標とy座標を一つの{@code int}値に格納した形式で返されます。
+ * 各座標は{@link #xOf}および{@link #yOf}で取り出します。
  * @author Rouh
  * @version 1.0
  */
 final class TablePoints{
     public static final Point CENTER = new Point(580/2, 580/2);
+
+    /** 山の列の数 */
+    private static final int WALL_COLUMNS = 17;
+
+    /** 山の段の数 */
+    private static final int WALL_FLOORS = 2;
+
+    /** 河の一行あたりの牌の数 */
+    private static final int RIVER_COLUMNS = 6;
+
+    /** 座標表に格納する河の牌の数 */
+    private static final int RIVER_SLOTS = 24;
+
+    /** 手牌の牌の数 */
+    private static final int HAND_SLOTS = 14;
+
+    /** 山牌の座標表(方向, 列, 段) */
+    private static final int[] WALL_BLOCKS = new int[4*WALL_COLUMNS*WALL_FLOORS];
+
+    /** 河の牌の座標表(方向, 位置, 立直宣言牌との関係) */
+    private static final int[] RIVER_BLOCKS = new int[4*RIVER_SLOTS*3];
+
+    /** 手牌の座標表(方向, 位置, 離すかどうか) */
+    private static final int[] HAND_BLOCKS = new int[4*HAND_SLOTS*2];
+
+    /** 副露面子の基準点の座標表(方向, 横向きかどうか, 加槓牌かどうか) */
+    private static final int[] MELD_BLOCKS = new int[4*2*2];
+
+    /** 立直宣言牌との関係: 通常 */
+    private static final int RIVER_PLAIN = 0;
+
+    /** 立直宣言牌との関係: 立直宣言牌 */
+    private static final int RIVER_ROTATED = 1;
+
+    /** 立直宣言牌との関係: 立直宣言牌より後の同じ行の牌 */
+    private static final int RIVER_TRANSLATED = 2;
+
+    static{
+        for(var dir:Direction.values()){
+            int d = dir.ordinal();
+            for(int col = 0; col<WALL_COLUMNS; col++){
+                for(int floor = 0; floor<WALL_FLOORS; floor++){
+                    WALL_BLOCKS[(d*WALL_COLUMNS + col)*WALL_FLOORS + floor] = computeWallBlock(dir, col, floor);
+                }
+            }
+            for(int index = 0; index<RIVER_SLOTS; index++){
+                int row = index/RIVER_COLUMNS;
+                int col = index%RIVER_COLUMNS;
+                int base = (d*RIVER_SLOTS + index)*3;
+                RIVER_BLOCKS[base + RIVER_PLAIN] = computeRiverBlock(dir, row, col, false, false);
+                RIVER_BLOCKS[base + RIVER_ROTATED] = computeRiverBlock(dir, row, col, true, false);
+                RIVER_BLOCKS[base + RIVER_TRANSLATED] = computeRiverBlock(dir, row, col, false, true);
+            }
+            for(int index = 0; index<HAND_SLOTS; index++){
+                HAND_BLOCKS[(d*HAND_SLOTS + index)*2] = computeHandBlock(dir, index, false);
+                HAND_BLOCKS[(d*HAND_SLOTS + index)*2 + 1] = computeHandBlock(dir, index, true);
+            }
+            for(int rotated = 0; rotated<2; rotated++){
+                for(int added = 0; added<2; added++){
+                    MELD_BLOCKS[(d*2 + rotated)*2 + added] = computeMeldBlock(dir, rotated==1, added==1);
+                }
+            }
+        }
+    }
+
     private TablePoints(){
         throw new AssertionError("no instance for you!");
     }
 
+    /**
+     * x座標とy座標を一つの値に格納します。
+     * @param x x座標
+     * @param y y座標
+     * @return 格納した値
+     */
+    private static int pack(int x, int y){
+        return x<<16 | (y & 0xFFFF);
+    }
+
+    /**
+     * 格納した値からx座標を取り出します。
+     * @param point 格納した値
+     * @return x座標
+     */
+    static int xOf(int point){
+        return point>>16;
+    }
+
+    /**
+     * 格納した値からy座標を取り出します。
+     * @param point 格納した値
+     * @return y座標
+     */
+    static int yOf(int point){
+        return (short)point;
+    }
+
+    /**
+     * 手牌の中心の座標を取得します。
+     * @param dir 方向
+     * @param index 手牌の位置(0..13)
+     * @param isolated 自摸牌として離して配置する場合true
+     * @return 格納した座標
+     */
+    static int ofHandBlock(Direction dir, int index, boolean isolated){
+        return HAND_BLOCKS[(dir.ordinal()*HAND_SLOTS + index)*2 + (isolated? 1:0)];
+    }
 
-    static Point ofHandBlock(Direction dir, int index, boolean isolated){
+    /**
+     * 河の牌の中心の座標を取得します。
+     * @param dir 方向
+     * @param index 捨て牌の位置(0..)
+     * @return 格納した座標
+     */
+    static int ofRiverBlock(Direction dir, int index){
+        return ofRiverBlock(dir, index, -1);
+    }
+
+    /**
+     * 副露面子の牌の中心の座標を取得します。
+     * @param dir 方向
+     * @param offset 副露面子の端からの距離
+     * @param rotated 横向きの牌の場合true
+     * @param added 加槓牌の場合true
+     * @return 格納した座標
+     */
+    static int ofMeldBlock(Direction dir, int offset, boolean rotated, boolean added){
+        int d = dir.ordinal();
+        int base = MELD_BLOCKS[(d*2 + (rotated? 1:0))*2 + (added? 1:0)];
+        var right = dir.turnRight();
+        return pack(xOf(base) + dxOf(right)*offset, yOf(base) + dyOf(right)*offset);
+    }
+
+    /**
+     * 立直宣言牌を考慮して河の牌の中心の座標を取得します。
+     *
+     * <p>座標表の範囲を超える位置の場合は, その都度計算します。
+     * @param dir 方向
+     * @param index 捨て牌の位置(0..)
+     * @param readyIndex 立直宣言牌の位置(立直していない場合-1)
+     * @return 格納した座標
+     */
+    static int ofRiverBlock(Direction dir, int index, int readyIndex){
+        int row = index/RIVER_COLUMNS;
+        boolean readyRotation = index==readyIndex;
+        boolean readyTranslation = readyIndex!=-1 && row==readyIndex/RIVER_COLUMNS && readyIndex<index;
+        if(index>=RIVER_SLOTS){
+            return computeRiverBlock(dir, row, index%RIVER_COLUMNS, readyRotation, readyTranslation);
+        }
+        int kind = readyRotation? RIVER_ROTATED:readyTranslation? RIVER_TRANSLATED:RIVER_PLAIN;
+        return RIVER_BLOCKS[(dir.ordinal()*RIVER_SLOTS + index)*3 + kind];
+    }
+
+    /**
+     * 山牌の中心の座標を取得します。
+     * @param dir 方向
+     * @param col 列(0..16)
+     * @param floor 段(0..1)
+     * @return 格納した座標
+     */
+    static int ofWallBlock(Direction dir, int col, int floor){
+        return WALL_BLOCKS[(dir.ordinal()*WALL_COLUMNS + col)*WALL_FLOORS + floor];
+    }
+
+    private static int computeHandBlock(Direction dir, int index, boolean isolated){
         return PointWalker.from(CENTER, dir)
                 .goStraight(260)
                 .goRight(220)
                 .goLeft(index*20)
                 .goLeft(isolated? 10:0)
-                .get();
-    }
-
-    static Point ofRiverBlock(Direction dir, int index){
-        return ofRiverBlock(dir, index, -1);
+                .pack();
     }
 
-    static Point ofMeldBlock(Direction dir, int offset, boolean rotated, boolean added){
+    private static int computeMeldBlock(Direction dir, boolean rotated, boolean added){
         return PointWalker.from(CENTER, dir)
                 .goStraight(260)
                 .goStraight(rotated? 5:0)
                 .goStraight(added? -20:0)
                 .goLeft(230)
-                .goRight(offset)
                 .goRight(rotated? 5:0)
-                .get();
-    }
-
-    static Point ofRiverBlock(Direction dir, int index, int readyIndex){
-        int row = index/6;
-        int col = index%6;
-        if(readyIndex==-1){
-            return ofRiverBlock(dir, row, col, false, false);
-        }
-        int readyRow = readyIndex/6;
-        boolean readyRotation = index==readyIndex;
-        boolean readyTranslation = row==readyRow && readyIndex<index;
-        return ofRiverBlock(dir, row, col, readyRotation, readyTranslation);
+                .pack();
     }
 
-    private static Point ofRiverBlock(Direction dir, int row, int col, boolean rr, boolean rt){
+    private static int computeRiverBlock(Direction dir, int row, int col, boolean rr, boolean rt){
         return PointWalker.from(CENTER, dir)
                 .goStraight(75)
                 .goStraight(row*30)
@@ -58,16 +206,25 @@ final class TablePoints{
                 .goRight(50)
                 .goLeft(col*20)
                 .goLeft(rr? 5:0)
-                .goLeft(rt? 10:0).get();
+                .goLeft(rt? 10:0)
+                .pack();
     }
 
-    static Point ofWallBlock(Direction dir, int col, int floor){
+    private static int computeWallBlock(Direction dir, int col, int floor){
         return PointWalker.from(CENTER, dir)
                 .goStraight(205)
                 .goRight(160)
                 .goLeft(col*20)
                 .translate(Direction.TOP, floor*10)
-                .get();
+                .pack();
+    }
+
+    private static int dxOf(Direction d){
+        return d==Direction.RIGHT? 1:d==Direction.LEFT? -1:0;
+    }
+
+    private static int dyOf(Direction d){
+        return d==Direction.BOTTOM? 1:d==Direction.TOP? -1:0;
     }
 
     static Point ofReadyBar(Direction dir){
@@ -148,6 +305,9 @@ final class TablePoints{
         private Point get(){
             return new Point(x, y);
         }
+        private int pack(){
+            return TablePoints.pack(x, y);
+        }
         private static PointWalker from(Point p, Direction d){
             return new PointWalker(p, d);
         }
@@ -0,0 +1,78 @@
+package jp.rouh.mahjong.app.bitv.table;
+
+/**
+ * 麻雀卓上の描画要素の登録位置(スロット)を整数で表すユーティリティクラス。
+ *
+ * <p>スロットは描画要素の種類(区画), 方向, 区画内の位置を一つの整数に詰めたもので,
+ * 0以上{@link #CAPACITY}未満の値をとります。
+ * 文字列の生成やハッシュ計算を行わずに, 配列の添字として描画要素を登録できます。
+ * <table>
+ * <tr><th>ビット</th><th>内容</th></tr>
+ * <tr><td>0..5</td><td>区画内の位置(0..63)</td></tr>
+ * <tr><td>6..7</td><td>方向の序数</td></tr>
+ * <tr><td>8..</td><td>区画</td></tr>
+ * </table>
+ * @author Rouh
+ * @version 1.0
+ */
+final class TableSlot{
+    /** 手牌 */
+    static final int HAND = 0;
+    /** 副露牌 */
+    static final int MELD = 1;
+    /** 山牌 */
+    static final int WALL = 2;
+    /** 河の牌 */
+    static final int RIVER = 3;
+    /** 立直棒 */
+    static final int READY_BONE = 4;
+    /** 宣言の表示 */
+    static final int MESSAGE = 5;
+    /** 自風の表示 */
+    static final int WIND = 6;
+    /** 点数の表示 */
+    static final int SCORE = 7;
+    /** プレイヤー名の表示 */
+    static final int NAME = 8;
+    /** 局情報の表示 */
+    static final int ROUND_INFO = 9;
+    private static final int ZONE_COUNT = 10;
+    private static final int INDEX_BITS = 6;
+    private static final int DIRECTION_BITS = 2;
+    /** 区画内の位置の上限(この値を含まない) */
+    static final int MAX_INDEX = 1<<INDEX_BITS;
+    /** スロットの上限(この値を含まない) */
+    static final int CAPACITY = ZONE_COUNT<<(INDEX_BITS + DIRECTION_BITS);
+    private TableSlot(){
+        throw new AssertionError("no instance for you!");
+    }
+
+    /**
+     * 方向ごとに配置される描画要素のスロットを取得します。
+     * @param zone 区画
+     * @param d 方向
+     * @param index 区画内の位置(0..63)
+     * @throws IllegalArgumentException 区画内の位置が範囲外の場合
+     * @return スロット
+     */
+    static int of(int zone, Direction d, int index){
+        if(index<0 || index>=MAX_INDEX){
+            throw new IllegalArgumentException("index out of range: "+index);
+        }
+        return zone<<(INDEX_BITS + DIRECTION_BITS) | d.ordinal()<<INDEX_BITS | index;
+    }
+
+    /**
+     * 方向を持たない描画要素のスロットを取得します。
+     * @param zone 区画
+     * @param index 区画内の位置(0..63)
+     * @throws IllegalArgumentException 区画内の位置が範囲外の場合
+     * @return スロット
+     */
+    static int of(int zone, int index){
+        if(index<0 || index>=MAX_INDEX){
+            throw new IllegalArgumentException("index out of range: "+index);
+        }
+        return zone<<(INDEX_BITS + DIRECTION_BITS) | index;
+    }
+}
@@ -0,0 +1,178 @@
+package jp.rouh.mahjong.app.bitv.table;
+
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 麻雀卓上の変化の通知を{@link TableViewer}の描画操作に変換するアダプタクラス。
+ *
+ * <p>通知の相対位置は{@link Direction#of(Side)}により描画上の向きに変換されます。
+ * 山牌の生成の通知で卓上の牌を全て取り除き, 新たに山牌を並べます。
+ * ツモの通知では直前に通知された手牌の長さを元に, 自摸牌を離して手牌を描画します。
+ * <p>自家の手牌は牌が見える通知({@link #tileDrawn(Tile)}, {@link #handUpdated(List)})
+ * でのみ描画され, 自家を対象とした牌の見えない通知は無視されます。
+ * サイコロと精算の通知は描画に影響しません。
+ * @author Rouh
+ * @version 1.0
+ */
+public class TableViewerAdaptor implements TableObserver{
+    private final TableViewer viewer;
+    private final int[] handSizes = new int[4];
+    private List<Tile> handTiles = List.of();
+
+    /**
+     * 通知を描画するビューを指定してインスタンスを生成します。
+     * @param viewer ビュー
+     */
+    public TableViewerAdaptor(TableViewer viewer){
+        this.viewer = viewer;
+    }
+
+    @Override
+    public void seatUpdated(Side side, Wind wind, String name, int score){
+        var d = Direction.of(side);
+        viewer.updatePlayerWind(d, wind);
+        viewer.updatePlayerName(d, name);
+        viewer.updatePlayerScore(d, score);
+    }
+
+    @Override
+    public void roundStarted(Wind wind, int count, int streak, int deposit){
+        viewer.updateRoundInfo(wind, count);
+        viewer.updateStreakCount(streak);
+        viewer.updateCarryOverCount(deposit);
+    }
+
+    @Override
+    public void roundSettled(String expression){
+
+    }
+
+    @Override
+    public void diceRolled(Side side, int dice1, int dice2){
+
+    }
+
+    @Override
+    public void wallGenerated(){
+        viewer.clear();
+        viewer.putAllWallTiles();
+        handTiles = List.of();
+        for(int i = 0; i<handSizes.length; i++){
+            handSizes[i] = 0;
+        }
+    }
+
+    @Override
+    public void wallTileTaken(Side side, int column, int floor){
+        viewer.removeWallTile(Direction.of(side), column, floor);
+    }
+
+    @Override
+    public void wallTileRevealed(Side side, int column, int floor, Tile tile){
+        viewer.revealWallTile(Direction.of(side), column, floor, tile);
+    }
+
+    @Override
+    public void tileDrawn(Side side){
+        if(side==Side.SELF) return;
+        var d = Direction.of(side);
+        viewer.updateHandTiles(d, ++handSizes[d.ordinal()], true);
+    }
+
+    @Override
+    public void tileDrawn(Tile tile){
+        var drawnTiles = new ArrayList<Tile>(handTiles.size() + 1);
+        drawnTiles.addAll(handTiles);
+        drawnTiles.add(tile);
+        handTiles = drawnTiles;
+        handSizes[Direction.BOTTOM.ordinal()] = drawnTiles.size();
+        viewer.updateHandTiles(drawnTiles, true);
+    }
+
+    @Override
+    public void handUpdated(Side side, int size){
+        if(side==Side.SELF) return;
+        var d = Direction.of(side);
+        handSizes[d.ordinal()] = size;
+        viewer.updateHandTiles(d, size, false);
+    }
+
+    @Override
+    public void handUpdated(List<Tile> handTiles){
+        this.handTiles = handTiles;
+        handSizes[Direction.BOTTOM.ordinal()] = handTiles.size();
+        viewer.updateHandTiles(handTiles, false);
+    }
+
+    @Override
+    public void handRevealed(Side side, List<Tile> handTiles){
+        viewer.updateHandTilesFaceUp(Direction.of(side), handTiles, false);
+    }
+
+    @Override
+    public void handRevealed(Side side, List<Tile> handTiles, Tile drawnTile){
+        var revealedTiles = new ArrayList<Tile>(handTiles.size() + 1);
+        revealedTiles.addAll(handTiles);
+        revealedTiles.add(drawnTile);
+        viewer.updateHandTilesFaceUp(Direction.of(side), revealedTiles, true);
+    }
+
+    @Override
+    public void tileDiscarded(Side side, Tile tile){
+        viewer.appendRiverTile(Direction.of(side), tile);
+    }
+
+    @Override
+    public void tileDiscardedAsReady(Side side, Tile tile){
+        viewer.appendRiverTileRotated(Direction.of(side), tile);
+    }
+
+    @Override
+    public void riverTileTaken(Side side){
+        viewer.removeLastRiverTile(Direction.of(side));
+    }
+
+    @Override
+    public void tiltMeldAdded(Side side, Side tilt, List<Tile> tiles){
+        var d = Direction.of(side);
+        switch(tilt){
+            case LEFT:
+                viewer.appendLeftTiltMeld(d, tiles);
+                return;
+            case ACROSS:
+                viewer.appendMiddleTiltMeld(d, tiles);
+                return;
+            case RIGHT:
+                viewer.appendRightTiltMeld(d, tiles);
+                return;
+        }
+        throw new IllegalArgumentException("illegal tilt side: "+tilt);
+    }
+
+    @Override
+    public void selfQuadAdded(Side side, List<Tile> tiles){
+        viewer.appendSelfQuad(Direction.of(side), tiles);
+    }
+
+    @Override
+    public void meldTileAdded(Side side, int index, Tile added){
+        viewer.addTileToMeld(Direction.of(side), index, added);
+    }
+
+    @Override
+    public void readyBoneAdded(Side side){
+        viewer.putReadyBone(Direction.of(side));
+    }
+
+    @Override
+    public void declared(Side side, Declaration declaration){
+        viewer.showDeclaration(Direction.of(side), declaration);
+    }
+}
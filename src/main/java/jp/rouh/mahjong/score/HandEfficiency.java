@@ -0,0 +1,378 @@
+package jp.rouh.mahjong.score;
+
+import jp.rouh.mahjong.tile.Tile;
+
+import java.util.List;
+
+/**
+ * 手牌の打牌候補ごとの向聴数と受け入れ枚数を計算するクラス。
+ *
+ * <p>打牌後の手牌の向聴数と, 向聴数を進める牌(有効牌)の残り枚数の合計を
+ * 牌の種類(34種)ごとに算出します。赤ドラ牌は対応する通常の牌と同一視されます。
+ * <p>向聴数は{@link HandShanten}の色ごとの表を用いて計算します。
+ * 一枚の牌の増減は一色の表のみを変化させるため,
+ * 他の色を組み合わせた表を事前に作成しておき, 変化した色の表とのみ組み合わせます。
+ * 面子手の向聴数に関与しない孤立した牌の自摸は, 七対子形と国士無双形の向聴数の差分のみを評価します。
+ * 受け入れ枚数の計算では向聴数が進むかどうかのみが必要なため, 他の色を組み合わせた表から
+ * 向聴数が進むために必要な自摸した色の表の値の下限を求め, 自摸ごとには下限との比較のみを行います。
+ * <p>作業領域を保持して再利用するため, 計算中にオブジェクトを生成しません。
+ * このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+public final class HandEfficiency{
+    private static final int SIZE = 34;
+    private static final int[] POWERS = {1, 5, 25, 125, 625, 3125, 15625, 78125, 390625};
+    private static final boolean[] ORPHAN = new boolean[SIZE];
+    static{
+        for(int number:new int[]{0, 8, 9, 17, 18, 26, 27, 28, 29, 30, 31, 32, 33}){
+            ORPHAN[number] = true;
+        }
+    }
+    private final int[] counts = new int[SIZE];
+    private final int[] keys = new int[3];
+    private final long[] tables = new long[4];
+    private final long[] others = new long[4];
+    private final int[] shanten = new int[SIZE];
+    private final int[] effective = new int[SIZE];
+    private final long[] drawTables = new long[SIZE];
+    private final boolean[] drawTableLoaded = new boolean[SIZE];
+    private final long[] thresholds = new long[4];
+    private final long[] sameSuitThresholds = new long[4];
+    private int othersMeldShanten;
+    private int openMeldCount;
+    private int handSize;
+
+    /**
+     * 手牌(3n+2枚)を打牌候補ごとに評価します。
+     *
+     * <p>手牌に含まれる牌の種類ごとに, その牌を打牌した後の向聴数と受け入れ枚数を計算します。
+     * 受け入れ枚数は打牌後の向聴数が最小となる打牌候補についてのみ計算し, それ以外の打牌候補は0とします。
+     * 結果は{@link #shantenAfter}および{@link #effectiveCountAfter}で取得できます。
+     * @param handTiles 手牌
+     * @param remaining 牌番号ごとの見えていない牌の枚数(長さ34)
+     * @throws IllegalArgumentException 手牌の長さが3n+2でない場合
+     */
+    public void evaluate(List<Tile> handTiles, int[] remaining){
+        load(handTiles);
+        evaluateLoaded(remaining);
+    }
+
+    /**
+     * 牌番号ごとの枚数の配列で表された手牌(3n+2枚)を打牌候補ごとに評価します。
+     *
+     * <p>打牌後の向聴数のみを計算し, 受け入れ枚数は計算しません(全て0とします)。
+     * 結果は{@link #shantenAfter(int)}で取得できます。
+     * @param handCounts 牌番号ごとの枚数の配列(長さ34)
+     * @throws IllegalArgumentException 手牌の長さが3n+2でない場合
+     */
+    public void evaluateShanten(int[] handCounts){
+        int size = 0;
+        for(int i = 0; i<SIZE; i++){
+            counts[i] = handCounts[i];
+            size += handCounts[i];
+        }
+        loaded(size);
+        evaluateLoaded(null);
+    }
+
+    private void evaluateLoaded(int[] remaining){
+        if(handSize%3!=2){
+            throw new IllegalArgumentException("invalid hand size: "+handSize);
+        }
+        for(int suit = 0; suit<4; suit++){
+            tables[suit] = tableOf(suit);
+        }
+        combineOthers();
+        boolean closed = openMeldCount==0;
+        int pairs = closed? pairCount():0;
+        int kinds = closed? kindCount():0;
+        int orphanKinds = closed? orphanKindCount():0;
+        int orphanPairs = closed? orphanPairCount():0;
+        int minShanten = Integer.MAX_VALUE;
+        for(int number = 0; number<SIZE; number++){
+            effective[number] = 0;
+            int count = counts[number];
+            if(count==0){
+                shanten[number] = Integer.MAX_VALUE;
+                continue;
+            }
+            int suit = number/9;
+            add(number, -1);
+            int after = HandShanten.meldHandShantenOf(others[suit], tableOf(suit), openMeldCount);
+            add(number, 1);
+            if(closed){
+                after = Math.min(after, sevenPairsShantenOf(pairs - (count==2? 1:0), kinds - (count==1? 1:0)));
+                if(ORPHAN[number]){
+                    after = Math.min(after, thirteenOrphansShantenOf(orphanKinds - (count==1? 1:0),
+                            orphanPairs - (count==2? 1:0)>0));
+                }else{
+                    after = Math.min(after, thirteenOrphansShantenOf(orphanKinds, orphanPairs>0));
+                }
+            }
+            shanten[number] = after;
+            minShanten = Math.min(minShanten, after);
+        }
+        if(remaining==null) return;
+        for(int number = 0; number<SIZE; number++){
+            drawTableLoaded[number] = false;
+        }
+        for(int suit = 0; suit<4; suit++){
+            sameSuitThresholds[suit] = -1;
+        }
+        // 受け入れ枚数の計算は重いため, 向聴数が最小となる打牌候補に限定します
+        int previousSuit = -1;
+        long previousTable = -1;
+        for(int number = 0; number<SIZE; number++){
+            if(shanten[number]!=minShanten) continue;
+            int suit = number/9;
+            long table = tables[suit];
+            add(number, -1);
+            tables[suit] = tableOf(suit);
+            // 孤立した字牌のように打牌後の表が直前の打牌候補と同一となる場合は, 他の色の組み合わせを再利用します
+            boolean sameTables = suit==previousSuit && tables[suit]==previousTable;
+            effective[number] = effectiveCountOfLoaded(minShanten, remaining, suit, sameTables);
+            previousSuit = suit;
+            previousTable = tables[suit];
+            tables[suit] = table;
+            add(number, 1);
+        }
+    }
+
+    /**
+     * 直前に評価した手牌から指定した牌を打牌した後の向聴数を取得します。
+     * @param discard 打牌
+     * @return 向聴数, 手牌に含まれない牌の場合は{@link Integer#MAX_VALUE}
+     */
+    public int shantenAfter(Tile discard){
+        return shanten[discard.tileNumber()];
+    }
+
+    /**
+     * 直前に評価した手牌から指定した牌番号の牌を打牌した後の向聴数を取得します。
+     * @param tileNumber 打牌の牌番号(0..33)
+     * @return 向聴数, 手牌に含まれない牌の場合は{@link Integer#MAX_VALUE}
+     */
+    public int shantenAfter(int tileNumber){
+        return shanten[tileNumber];
+    }
+
+    /**
+     * 直前に評価した手牌から指定した牌を打牌した後の受け入れ枚数を取得します。
+     * @param discard 打牌
+     * @return 受け入れ枚数, 手牌に含まれない牌もしくは向聴数が最小とならない牌の場合は0
+     */
+    public int effectiveCountAfter(Tile discard){
+        return effective[discard.tileNumber()];
+    }
+
+    /**
+     * 手牌(3n+1枚)の受け入れ枚数を計算します。
+     * @param handTiles 手牌
+     * @param remaining 牌番号ごとの見えていない牌の枚数(長さ34)
+     * @throws IllegalArgumentException 手牌の長さが3n+1でない場合
+     * @return 受け入れ枚数
+     */
+    public int effectiveCountOf(List<Tile> handTiles, int[] remaining){
+        load(handTiles);
+        if(handSize%3!=1){
+            throw new IllegalArgumentException("invalid hand size: "+handSize);
+        }
+        for(int suit = 0; suit<4; suit++){
+            tables[suit] = tableOf(suit);
+        }
+        return effectiveCountOfLoaded(shantenOfLoaded(), remaining, -1, false);
+    }
+
+    private void load(List<Tile> handTiles){
+        for(int i = 0; i<SIZE; i++){
+            counts[i] = 0;
+        }
+        for(int i = 0; i<handTiles.size(); i++){
+            counts[handTiles.get(i).tileNumber()]++;
+        }
+        loaded(handTiles.size());
+    }
+
+    private void loaded(int size){
+        for(int suit = 0; suit<3; suit++){
+            keys[suit] = HandShanten.suitKeyOf(counts, suit*9);
+        }
+        handSize = size;
+        openMeldCount = (14 - handSize)/3;
+    }
+
+    private long tableOf(int suit){
+        return suit==3? HandShanten.honorTableOf(counts):HandShanten.suitTableOf(keys[suit], counts, suit*9);
+    }
+
+    /**
+     * 牌の枚数を増減させ, 牌姿の値を更新します。
+     */
+    private void add(int number, int delta){
+        counts[number] += delta;
+        if(number<27){
+            keys[number/9] += delta*POWERS[number%9];
+        }
+    }
+
+    private int shantenOfLoaded(){
+        int shanten = HandShanten.meldHandShantenOf(HandShanten.combine(tables[0], tables[1]),
+                HandShanten.combine(tables[2], tables[3]), openMeldCount);
+        if(openMeldCount==0){
+            shanten = Math.min(shanten, sevenPairsShantenOf(pairCount(), kindCount()));
+            shanten = Math.min(shanten, thirteenOrphansShantenOf(orphanKindCount(), orphanPairCount()>0));
+        }
+        return shanten;
+    }
+
+    /**
+     * 読み込み済みの手牌(3n+1枚)の受け入れ枚数を計算します。
+     * @param shanten 手牌の向聴数
+     * @param remaining 牌番号ごとの見えていない牌の枚数(長さ34)
+     * @param discardSuit 打牌候補の色, 打牌候補の評価でない場合は-1
+     * @param sameTables 直前の呼び出しと色ごとの表が同一の場合
+     */
+    private int effectiveCountOfLoaded(int shanten, int[] remaining, int discardSuit, boolean sameTables){
+        if(!sameTables){
+            othersMeldShanten = combineOthers();
+        }
+        int meldShanten = othersMeldShanten;
+        boolean closed = openMeldCount==0;
+        int pairs = closed? pairCount():0;
+        int kinds = closed? kindCount():0;
+        int orphanKinds = closed? orphanKindCount():0;
+        boolean orphanPair = closed && orphanPairCount()>0;
+        int total = 0;
+        for(int suit = 0; suit<4; suit++){
+            // 打牌候補と同じ色の自摸では他の色の表が打牌候補によらず同一となるため, 評価の間で共有します
+            if(suit==discardSuit){
+                thresholds[suit] = sameSuitThresholds[suit];
+            }else if(!sameTables){
+                thresholds[suit] = -1;
+            }
+        }
+        for(int number = 0; number<SIZE; number++){
+            int left = remaining[number];
+            if(left<=0 || counts[number]>=4) continue;
+            int suit = number/9;
+            int after = meldShanten;
+            if(closed){
+                int count = counts[number];
+                after = Math.min(after, sevenPairsShantenOf(pairs + (count==1? 1:0), kinds + (count==0? 1:0)));
+                if(ORPHAN[number]){
+                    after = Math.min(after, thirteenOrphansShantenOf(orphanKinds + (count==0? 1:0), orphanPair || count==1));
+                }else{
+                    after = Math.min(after, thirteenOrphansShantenOf(orphanKinds, orphanPair));
+                }
+            }
+            if(after<shanten){
+                total += left;
+                continue;
+            }
+            // 向聴数が進むかどうかのみを判定するため, 組み合わせの探索は色ごとに一度のみ行います
+            if(isConnected(number)){
+                if(thresholds[suit]==-1){
+                    thresholds[suit] = HandShanten.thresholdsOf(others[suit], openMeldCount, shanten);
+                    if(suit==discardSuit) sameSuitThresholds[suit] = thresholds[suit];
+                }
+                if(HandShanten.reachesBelow(drawTableOf(number, suit!=discardSuit && discardSuit>=0), thresholds[suit])){
+                    total += left;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 牌を自摸した後の, その牌の色の表を取得します。
+     *
+     * <p>打牌候補と異なる色の表は打牌候補によらず同一となるため,
+     * 一回の評価の間は最初に作成した表を再利用します。
+     * @param number 自摸する牌の牌番号
+     * @param reusable 作成済みの表を再利用できる場合
+     */
+    private long drawTableOf(int number, boolean reusable){
+        if(reusable && drawTableLoaded[number]) return drawTables[number];
+        add(number, 1);
+        long table = tableOf(number/9);
+        add(number, -1);
+        if(reusable){
+            drawTables[number] = table;
+            drawTableLoaded[number] = true;
+        }
+        return table;
+    }
+
+    /**
+     * 色ごとに, 他の色の表を組み合わせた表を作成します。
+     * @return 面子手の向聴数
+     */
+    private int combineOthers(){
+        long manzuPinzu = HandShanten.combine(tables[0], tables[1]);
+        long sozuHonors = HandShanten.combine(tables[2], tables[3]);
+        others[0] = HandShanten.combine(tables[1], sozuHonors);
+        others[1] = HandShanten.combine(tables[0], sozuHonors);
+        others[2] = HandShanten.combine(manzuPinzu, tables[3]);
+        others[3] = HandShanten.combine(manzuPinzu, tables[2]);
+        return HandShanten.meldHandShantenOf(manzuPinzu, sozuHonors, openMeldCount);
+    }
+
+    /**
+     * 牌が面子手の向聴数に関与し得るか検査します。
+     *
+     * <p>同じ牌もしくは同色で距離2以内の牌を手牌に含まない牌は,
+     * 自摸しても孤立牌となるため面子手の向聴数を変化させません。
+     */
+    private boolean isConnected(int number){
+        if(counts[number]>0) return true;
+        if(number>=27) return false;
+        int rank = number%9;
+        int lower = number - Math.min(rank, 2);
+        int upper = number + Math.min(8 - rank, 2);
+        for(int i = lower; i<=upper; i++){
+            if(counts[i]>0) return true;
+        }
+        return false;
+    }
+
+    private int pairCount(){
+        int pairs = 0;
+        for(var count:counts){
+            if(count>=2) pairs++;
+        }
+        return pairs;
+    }
+
+    private int kindCount(){
+        int kinds = 0;
+        for(var count:counts){
+            if(count>=1) kinds++;
+        }
+        return kinds;
+    }
+
+    private int orphanKindCount(){
+        int kinds = 0;
+        for(int i = 0; i<SIZE; i++){
+            if(ORPHAN[i] && counts[i]>=1) kinds++;
+        }
+        return kinds;
+    }
+
+    private int orphanPairCount(){
+        int pairs = 0;
+        for(int i = 0; i<SIZE; i++){
+            if(ORPHAN[i] && counts[i]>=2) pairs++;
+        }
+        return pairs;
+    }
+
+    private static int sevenPairsShantenOf(int pairs, int kinds){
+        return 6 - pairs + Math.max(0, 7 - kinds);
+    }
+
+    private static int thirteenOrphansShantenOf(int kinds, boolean pair){
+        return 13 - kinds - (pair? 1:0);
+    }
+}
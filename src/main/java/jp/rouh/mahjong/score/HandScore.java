@@ -48,11 +48,11 @@ public class HandScore implements Comparable<HandScore>{
      * @param point 符
      * @param handTypes 役のリスト
      * @param dealer 親かどうか
-     * @throws IllegalArgumentException 符が10の位で切り上げられていない場合
+     * @throws IllegalArgumentException 符が10の位で切り上げられていない場合(七対子の25符を除く)
      *                                  符が20未満の場合
      */
     private HandScore(int point, List<HandType> handTypes, boolean dealer){
-        if(point%10!=0 || point<20){
+        if((point%10!=0 && point!=25) || point<20){
             throw new IllegalArgumentException("invalid point: "+point);
         }
         this.point = point;
@@ -180,6 +180,7 @@ public class HandScore implements Comparable<HandScore>{
         if(doubles>=8) return 4000;
         if(doubles>=6) return 3000;
         if(doubles>=5) return 2000;
+        if(doubles==0) return 0;
         return Math.min(2000, point*(int)Math.pow(2, doubles + 2));
     }
 
@@ -9,6 +9,7 @@ import java.util.*;
 import static java.util.Collections.reverseOrder;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.toUnmodifiableSet;
 
 /**
  * 手牌パターンの分析により手牌の立直/和了の判定を補助するユーティリティクラス。
@@ -98,8 +99,8 @@ public final class HandSections{
             this(OperableList.of(integers));
         }
         private HandSection(OperableList<Integer> values){
-            values.sort(reverseOrder());
-            this.values = values;
+            // 引数のリストは呼び出し元で変更されうるため, 複製して保持します
+            this.values = new OperableList<>(values).sorted(reverseOrder());
         }
         private List<Integer> getValues(){
             return values;
@@ -168,12 +169,15 @@ public final class HandSections{
             pattern3n2.addAll(new HandSection(two).children());
             two.add(3);
         }
+        // 複数スレッドから参照されるため, 不変のコレクションとして保持します
         PATTERN_3N1 = pattern3n1.stream()
                 .map(HandSection::getValues)
-                .collect(toSet());
+                .map(List::copyOf)
+                .collect(toUnmodifiableSet());
         PATTERN_3N2 = pattern3n2.stream()
                 .map(HandSection::getValues)
-                .collect(toSet());
+                .map(List::copyOf)
+                .collect(toUnmodifiableSet());
     }
 
     /**
@@ -221,7 +225,7 @@ public final class HandSections{
 
     private static List<List<Tile>> sectioned(List<Tile> tiles){
         return new OperableList<>(tiles).sorted()
-                .separateByDiff(Tiles::isNeighbour);
+                .separateByDiff((left, right)->!Tiles.isNeighbour(left, right));
     }
 
     /**
@@ -0,0 +1,446 @@
+package jp.rouh.mahjong.score;
+
+import jp.rouh.mahjong.tile.Tile;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 手牌の向聴数を計算するユーティリティクラス。
+ *
+ * <p>向聴数は手牌を牌の種類(34種)ごとの枚数の配列に変換し,
+ * 面子/塔子/雀頭の取り方を全て探索することで算出します。
+ * 赤ドラ牌は対応する通常の牌と同一視されます。
+ * <p>向聴数は聴牌で0, 和了形で-1となります。
+ * 面子手に加え, 七対子形および国士無双形の向聴数も考慮され,
+ * それらのうち最も小さい値が手牌の向聴数となります。
+ * <p>この計算は{@link HandTiles#winningTilesOf}などの和了判定処理と比べ
+ * 非常に軽量なため, 聴牌していない手牌を事前に除外する用途にも利用します。
+ * @author Rouh
+ * @version 1.0
+ */
+public final class HandShanten{
+    private HandShanten(){
+        throw new AssertionError("no instance");
+    }
+
+    /** 表の組の数(雀頭の有無2通り*面子数5通り) */
+    private static final int TABLE_SIZE = 10;
+
+    /** 表のビット長 */
+    private static final int TABLE_BITS = TABLE_SIZE*4;
+
+    /** 表のマスク */
+    private static final long TABLE_MASK = (1L<<TABLE_BITS) - 1;
+
+    /** 表の全ての組の最下位ビット */
+    private static final long ALL_ENTRIES = 0x1111111111L;
+
+    /** 表の雀頭のない組の最下位ビット */
+    private static final long HEADLESS_ENTRIES = 0x11111L;
+
+    /** 表の組の位置ごとの雀頭の有無 */
+    private static final int[] HEADS = {0, 0, 0, 0, 0, 1, 1, 1, 1, 1};
+
+    /** 表の組の位置ごとの面子数 */
+    private static final int[] MELDS = {0, 1, 2, 3, 4, 0, 1, 2, 3, 4};
+
+    /** キャッシュのエントリ数の対数 */
+    private static final int CACHE_BITS = 19;
+
+    /** キャッシュのエントリ数 */
+    private static final int CACHE_SIZE = 1<<CACHE_BITS;
+
+    /** キャッシュの探索の最大回数 */
+    private static final int MAX_PROBES = 16;
+
+    /** 一色の牌姿ごとの探索結果のキャッシュ */
+    private static final AtomicLongArray SUIT_CACHE = new AtomicLongArray(CACHE_SIZE);
+
+    /** 么九牌の牌番号 */
+    private static final int[] ORPHAN_NUMBERS = {0, 8, 9, 17, 18, 26, 27, 28, 29, 30, 31, 32, 33};
+
+    /**
+     * 牌のリストを牌番号ごとの枚数の配列に変換します。
+     * @param tiles 牌のリスト
+     * @return 牌番号ごとの枚数の配列(長さ34)
+     */
+    public static int[] countsOf(List<Tile> tiles){
+        var counts = new int[34];
+        for(var tile:tiles){
+            counts[tile.tileNumber()]++;
+        }
+        return counts;
+    }
+
+    /**
+     * 手牌の向聴数を計算します。
+     *
+     * <p>手牌の長さから副露数を算出します。
+     * 手牌の長さは3n+1(聴牌判定)もしくは3n+2(和了判定)である必要があります。
+     * @param handTiles 手牌
+     * @return 向聴数(-1..6)
+     */
+    public static int shantenOf(List<Tile> handTiles){
+        return shantenOf(countsOf(handTiles));
+    }
+
+    /**
+     * 牌番号ごとの枚数の配列で表された手牌の向聴数を計算します。
+     *
+     * <p>計算中に配列の要素を一時的に書き換えますが,
+     * 処理の終了時には元の状態に戻されます。
+     * @param counts 牌番号ごとの枚数の配列(長さ34)
+     * @return 向聴数(-1..6)
+     */
+    public static int shantenOf(int[] counts){
+        int size = 0;
+        for(var count:counts){
+            size += count;
+        }
+        int openMeldCount = (14 - size)/3;
+        int shanten = meldHandShantenOf(counts, openMeldCount);
+        if(openMeldCount==0){
+            shanten = Math.min(shanten, sevenPairsShantenOf(counts));
+            shanten = Math.min(shanten, thirteenOrphansShantenOf(counts));
+        }
+        return shanten;
+    }
+
+    /**
+     * 七対子形の向聴数を計算します。
+     * @param counts 牌番号ごとの枚数の配列(長さ34)
+     * @return 向聴数(-1..6)
+     */
+    private static int sevenPairsShantenOf(int[] counts){
+        int pairs = 0;
+        int kinds = 0;
+        for(var count:counts){
+            if(count>=1) kinds++;
+            if(count>=2) pairs++;
+        }
+        return 6 - pairs + Math.max(0, 7 - kinds);
+    }
+
+    /**
+     * 国士無双形の向聴数を計算します。
+     * @param counts 牌番号ごとの枚数の配列(長さ34)
+     * @return 向聴数(-1..13)
+     */
+    private static int thirteenOrphansShantenOf(int[] counts){
+        int kinds = 0;
+        boolean pair = false;
+        for(var number:ORPHAN_NUMBERS){
+            if(counts[number]>=1) kinds++;
+            if(counts[number]>=2) pair = true;
+        }
+        return 13 - kinds - (pair? 1:0);
+    }
+
+    /**
+     * 面子手の向聴数を計算します。
+     *
+     * <p>色ごとに面子/塔子/雀頭の取り方を独立に探索し,
+     * 面子数と雀頭の有無ごとの最大の塔子数を求めた後, それらを組み合わせます。
+     * 色をまたいで探索しないことで, 探索の組み合わせ爆発を回避します。
+     * @param counts 牌番号ごとの枚数の配列(長さ34)
+     * @param openMeldCount 副露数
+     * @return 向聴数(-1..8)
+     */
+    private static int meldHandShantenOf(int[] counts, int openMeldCount){
+        long manzu = suitTableOf(counts, 0);
+        long pinzu = suitTableOf(counts, 9);
+        long sozu = suitTableOf(counts, 18);
+        long honors = honorTableOf(counts);
+        return meldHandShantenOf(combine(manzu, pinzu), combine(sozu, honors), openMeldCount);
+    }
+
+    /**
+     * 二つの表を組み合わせた場合の面子手の向聴数を計算します。
+     *
+     * <p>二つの表は全ての色(字牌を含む)を重複なく網羅している必要があります。
+     * @param first 表
+     * @param second 表
+     * @param openMeldCount 副露数
+     * @return 向聴数(-1..8)
+     */
+    static int meldHandShantenOf(long first, long second, int openMeldCount){
+        int minShanten = 8;
+        for(long i = entriesOf(first); i!=0; i &= i - 1){
+            int firstIndex = Long.numberOfTrailingZeros(i)>>>2;
+            int firstPartials = ((int)(first>>>(firstIndex*4)) & 0xF) - 1;
+            int firstHead = HEADS[firstIndex];
+            int firstMelds = MELDS[firstIndex] + openMeldCount;
+            long candidates = entriesOf(second) & (firstHead==0? ALL_ENTRIES:HEADLESS_ENTRIES);
+            for(long j = candidates; j!=0; j &= j - 1){
+                int secondIndex = Long.numberOfTrailingZeros(j)>>>2;
+                int totalMelds = firstMelds + MELDS[secondIndex];
+                if(totalMelds>4) continue;
+                int partials = firstPartials + ((int)(second>>>(secondIndex*4)) & 0xF) - 1;
+                int usablePartials = Math.min(partials, 4 - totalMelds);
+                minShanten = Math.min(minShanten, 8 - totalMelds*2 - usablePartials - firstHead - HEADS[secondIndex]);
+            }
+        }
+        return minShanten;
+    }
+
+    /**
+     * 表と組み合わせた場合に面子手の向聴数が指定した値を下回るための, もう一方の表の値の下限を計算します。
+     *
+     * <p>もう一方の表の組ごとに, その組の値(最大の塔子数に1を加えた値)が下限以上であれば
+     * 組み合わせた向聴数が指定した値を下回ります。一色の牌の増減による向聴数の変化を
+     * {@link #reachesBelow}で組み合わせの探索をせずに判定するために利用します。
+     * @param first 表
+     * @param openMeldCount 副露数
+     * @param shanten 向聴数
+     * @return 組ごとの値の下限を4ビットずつ詰めたもの, 値が0の組は下回ることがないことを表します
+     */
+    static long thresholdsOf(long first, int openMeldCount, int shanten){
+        long thresholds = 0;
+        for(int secondIndex = 0; secondIndex<TABLE_SIZE; secondIndex++){
+            int minimum = 0;
+            for(long i = entriesOf(first) & (HEADS[secondIndex]==0? ALL_ENTRIES:HEADLESS_ENTRIES); i!=0; i &= i - 1){
+                int firstIndex = Long.numberOfTrailingZeros(i)>>>2;
+                int totalMelds = MELDS[firstIndex] + MELDS[secondIndex] + openMeldCount;
+                if(totalMelds>4) continue;
+                // 向聴数が指定した値を下回るには塔子数がこの値を超える必要があります
+                int required = 8 - totalMelds*2 - HEADS[firstIndex] - HEADS[secondIndex] - shanten;
+                if(required>=4 - totalMelds) continue;
+                int firstPartials = ((int)(first>>>(firstIndex*4)) & 0xF) - 1;
+                int value = Math.max(0, required + 1 - firstPartials) + 1;
+                if(minimum==0 || value<minimum) minimum = value;
+            }
+            thresholds |= (long)minimum<<(secondIndex*4);
+        }
+        return thresholds;
+    }
+
+    /**
+     * 表と{@link #thresholdsOf}で計算した下限を比較し, 面子手の向聴数が指定した値を下回るか検査します。
+     * @param second 表
+     * @param thresholds 組み合わせる表の組ごとの値の下限
+     * @return true  向聴数が指定した値を下回る場合
+     *         false 向聴数が指定した値を下回らない場合
+     */
+    static boolean reachesBelow(long second, long thresholds){
+        for(long j = entriesOf(second) & entriesOf(thresholds); j!=0; j &= j - 1){
+            int shift = Long.numberOfTrailingZeros(j);
+            if((second>>>shift & 0xF)>=(thresholds>>>shift & 0xF)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 二つの表を組み合わせた表を作成します。
+     *
+     * <p>表は雀頭の有無と面子数の組ごとに, 最大の塔子数に1を加えた値を4ビットずつ詰めたものです。
+     * 値が0の組は取り得ないことを表します。組の位置は雀頭の有無*5+面子数です。
+     * @param first 表
+     * @param second 表
+     * @return 組み合わせた表
+     */
+    static long combine(long first, long second){
+        long combined = 0;
+        for(long i = entriesOf(first); i!=0; i &= i - 1){
+            int firstIndex = Long.numberOfTrailingZeros(i)>>>2;
+            int firstValue = (int)(first>>>(firstIndex*4)) & 0xF;
+            long candidates = entriesOf(second) & (HEADS[firstIndex]==0? ALL_ENTRIES:HEADLESS_ENTRIES);
+            for(long j = candidates; j!=0; j &= j - 1){
+                int secondIndex = Long.numberOfTrailingZeros(j)>>>2;
+                int melds = MELDS[firstIndex] + MELDS[secondIndex];
+                if(melds>4) continue;
+                int shift = (firstIndex + secondIndex)*4;
+                int value = Math.min(firstValue + ((int)(second>>>(secondIndex*4)) & 0xF) - 1, 0xF);
+                if(value>((int)(combined>>>shift) & 0xF)){
+                    combined = combined & ~(0xFL<<shift) | (long)value<<shift;
+                }
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * 表のうち値を持つ組の位置の最下位ビットを立てたマスクを取得します。
+     */
+    private static long entriesOf(long table){
+        return (table | table>>>1 | table>>>2 | table>>>3) & ALL_ENTRIES;
+    }
+
+    /**
+     * 一色の面子数と雀頭の有無ごとの最大の塔子数の表を取得します。
+     *
+     * <p>一色の牌姿は各牌0..4枚の9桁の5進数で表現でき, その種類は有限であるため,
+     * 探索結果を牌姿ごとにキャッシュして再利用します。
+     * キャッシュは牌姿と表を一つの整数値に詰めたエントリの開番地法のハッシュ表で,
+     * 参照時にオブジェクトを生成せず, 複数スレッドから同時に参照されても安全です。
+     * 表が混み合っている場合はキャッシュせずに探索します。
+     * @param counts 牌番号ごとの枚数の配列(長さ34)
+     * @param offset 色の先頭の牌番号
+     * @return 表({@link #combine}を参照)
+     */
+    static long suitTableOf(int[] counts, int offset){
+        return suitTableOf(suitKeyOf(counts, offset), counts, offset);
+    }
+
+    /**
+     * 一色の牌姿を表す5進数の値を計算します。
+     *
+     * <p>牌姿の値は, 一色の牌の位置rankの枚数に5のrank乗を掛けた値の合計です。
+     * @param counts 牌番号ごとの枚数の配列(長さ34)
+     * @param offset 色の先頭の牌番号
+     * @return 牌姿の値
+     */
+    static int suitKeyOf(int[] counts, int offset){
+        int key = 0;
+        for(int rank = 8; rank>=0; rank--){
+            key = key*5 + counts[offset + rank];
+        }
+        return key;
+    }
+
+    /**
+     * 牌姿の値を指定して一色の表を取得します。
+     * @param key {@link #suitKeyOf}で計算した牌姿の値
+     * @param counts 牌番号ごとの枚数の配列(長さ34)
+     * @param offset 色の先頭の牌番号
+     * @return 表({@link #combine}を参照)
+     */
+    static long suitTableOf(int key, int[] counts, int offset){
+        long tag = (long)(key + 1)<<TABLE_BITS;
+        int index = (key*0x9E3779B1)>>>(32 - CACHE_BITS);
+        for(int probe = 0; probe<MAX_PROBES; probe++){
+            int slot = (index + probe) & (CACHE_SIZE - 1);
+            long entry = SUIT_CACHE.get(slot);
+            if(entry==0){
+                long table = searchSuit(counts, offset);
+                SUIT_CACHE.compareAndSet(slot, 0, tag | table);
+                return table;
+            }
+            if((entry & ~TABLE_MASK)==tag){
+                return entry & TABLE_MASK;
+            }
+        }
+        return searchSuit(counts, offset);
+    }
+
+    private static long searchSuit(int[] counts, int offset){
+        var search = new SuitSearch(counts, offset);
+        search.scan(0);
+        long packed = 0;
+        for(int head = 0; head<2; head++){
+            for(int melds = 0; melds<5; melds++){
+                packed |= (long)(search.bestPartials[head][melds] + 1)<<((head*5 + melds)*4);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * 字牌の面子数と雀頭の有無ごとの最大の塔子数の表を作成します。
+     *
+     * <p>字牌は順子および両面/嵌張塔子を構成しないため, 探索は不要です。
+     * @param counts 牌番号ごとの枚数の配列(長さ34)
+     * @return 表({@link #combine}を参照)
+     */
+    static long honorTableOf(int[] counts){
+        int triples = 0;
+        int pairs = 0;
+        for(int i = 27; i<34; i++){
+            if(counts[i]>=3) triples++;
+            else if(counts[i]==2) pairs++;
+        }
+        long packed = 0;
+        // 刻子を崩して対子とみなす場合も考慮します
+        for(int melds = 0; melds<=Math.min(triples, 4); melds++){
+            int partials = pairs + triples - melds;
+            packed |= (long)(partials + 1)<<(melds*4);
+            if(partials>0){
+                packed |= (long)partials<<((5 + melds)*4);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * 一色の面子と塔子の取り方を深さ優先で探索するクラス。
+     */
+    private static final class SuitSearch{
+        private final int[] counts;
+        private final int offset;
+        private final int[][] bestPartials = new int[2][5];
+        private int melds = 0;
+        private int partials = 0;
+        private int head = 0;
+        private SuitSearch(int[] counts, int offset){
+            this.counts = counts;
+            this.offset = offset;
+            for(var row:bestPartials) Arrays.fill(row, -1);
+        }
+        private void scan(int rank){
+            while(rank<9 && counts[offset + rank]==0) rank++;
+            if(rank==9){
+                if(melds<5 && bestPartials[head][melds]<partials){
+                    bestPartials[head][melds] = partials;
+                }
+                return;
+            }
+            int index = offset + rank;
+            if(counts[index]>=3){
+                counts[index] -= 3;
+                melds++;
+                scan(rank);
+                melds--;
+                counts[index] += 3;
+            }
+            if(rank<7 && counts[index + 1]>0 && counts[index + 2]>0){
+                counts[index]--;
+                counts[index + 1]--;
+                counts[index + 2]--;
+                melds++;
+                scan(rank);
+                melds--;
+                counts[index]++;
+                counts[index + 1]++;
+                counts[index + 2]++;
+            }
+            if(head==0 && counts[index]>=2){
+                counts[index] -= 2;
+                head = 1;
+                scan(rank);
+                head = 0;
+                counts[index] += 2;
+            }
+            if(counts[index]>=2){
+                counts[index] -= 2;
+                partials++;
+                scan(rank);
+                partials--;
+                counts[index] += 2;
+            }
+            if(rank<8 && counts[index + 1]>0){
+                counts[index]--;
+                counts[index + 1]--;
+                partials++;
+                scan(rank);
+                partials--;
+                counts[index]++;
+                counts[index + 1]++;
+            }
+            if(rank<7 && counts[index + 2]>0){
+                counts[index]--;
+                counts[index + 2]--;
+                partials++;
+                scan(rank);
+                partials--;
+                counts[index]++;
+                counts[index + 2]++;
+            }
+            // 残りの牌を孤立牌とみなして次の牌へ進みます
+            int count = counts[index];
+            counts[index] = 0;
+            scan(rank + 1);
+            counts[index] = count;
+        }
+    }
+}
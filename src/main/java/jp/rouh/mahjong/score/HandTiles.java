@@ -106,6 +106,8 @@ public final class HandTiles{
     public static Set<Tile> readyTilesOf(List<Tile> handTiles, Tile drawnTile){
         validateHandTiles(handTiles);
         var completedHandTiles = new OperableList<>(handTiles).added(drawnTile).sorted();
+        // 一向聴以上の手牌はどの牌を打牌しても聴牌にならないため, 探索を省略します
+        if(HandShanten.shantenOf(completedHandTiles)>0) return emptySet();
         var readyTiles = new HashSet<Tile>();
         for(var readyTile:Set.copyOf(completedHandTiles)){
             var readyHandTiles = new OperableList<>(completedHandTiles).removed(readyTile);
@@ -128,6 +130,7 @@ public final class HandTiles{
      */
     public static boolean isHandReady(List<Tile> handTiles){
         validateHandTiles(handTiles);
+        if(HandShanten.shantenOf(handTiles)>0) return false;
         if(!thirteenOrphansWinningTilesOf(handTiles).isEmpty()) return true;
         if(!sevenPairsWinningTilesOf(handTiles).isEmpty()) return true;
         if(!HandSections.matchReady(handTiles)) return false;
@@ -165,6 +168,7 @@ public final class HandTiles{
      */
     public static Set<Tile> winningTilesOf(List<Tile> handTiles){
         validateHandTiles(handTiles);
+        if(HandShanten.shantenOf(handTiles)>0) return emptySet();
         var winningTiles = new HashSet<Tile>();
         winningTiles.addAll(sevenPairsWinningTilesOf(handTiles));
         winningTiles.addAll(thirteenOrphansWinningTilesOf(handTiles));
@@ -219,7 +223,7 @@ public final class HandTiles{
     private static boolean isMeldHandCompleted(List<Tile> handTiles, Tile winningTile){
         var completedHandTiles = new OperableList<>(handTiles).added(winningTile);
         for(var headTiles:extractPairs(completedHandTiles)){
-            var tail = new OperableList<>(handTiles).removedEach(headTiles);
+            var tail = new OperableList<>(completedHandTiles).removedEach(headTiles);
             if(!arrange(tail).isEmpty()) return true;
         }
         return false;
@@ -258,7 +262,7 @@ public final class HandTiles{
         var hands = new HashSet<List<List<Tile>>>();
         var completedHandTiles = new OperableList<>(handTiles).added(winningTile);
         for(var headTiles:extractPairs(completedHandTiles)){
-            var tail = new OperableList<>(handTiles).removedEach(headTiles);
+            var tail = new OperableList<>(completedHandTiles).removedEach(headTiles);
             for(var melds: arrange(tail)){
                 var hand = new ArrayList<List<Tile>>();
                 hand.add(headTiles);
@@ -545,7 +549,7 @@ public final class HandTiles{
         var tilesOperable = OperableList.copyOf(handTiles);
         return straightBasesOf(discardedTile).stream()
                 .filter(tilesOperable::containsWhole)
-                .filter(base->!waitingTilesOf(base).containsAll(handTiles)) //全手牌喰い替え牌の事前防止
+                .filter(base->!waitingTilesOf(base).containsAll(OperableList.copyOf(handTiles).removedEach(base))) //全手牌喰い替え牌の事前防止
                 .collect(toSet());
     }
 
@@ -570,10 +574,11 @@ public final class HandTiles{
     private static Set<List<Tile>> straightBasesOf(Tile discardedTile){
         if(discardedTile.isHonor()) return emptySet();
         var bases = new HashSet<List<Tile>>();
+        // 打牌自身は搭子に含めず, 打牌の前後の牌から順に最大2枚を取得します
         var previousTiles = Stream.iterate(discardedTile, Tile::hasPrevious, Tile::previous)
-                .limit(2).collect(toList());
+                .limit(2).map(Tile::previous).collect(toList());
         var nextTiles = Stream.iterate(discardedTile, Tile::hasNext, Tile::next)
-                .limit(2).collect(toList());
+                .limit(2).map(Tile::next).collect(toList());
         if(previousTiles.size()>=2){
             bases.add(previousTiles);
             bases.add(previousTiles.stream().map(Tiles::redTileOf).collect(toList()));
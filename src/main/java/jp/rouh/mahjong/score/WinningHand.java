@@ -38,7 +38,7 @@ public class WinningHand{
         if(!HandTiles.isCompleted(handTiles, winningTile)){
             throw new IllegalArgumentException("non completed hand tiles");
         }
-        this.handTiles = OperableList.copyOf(handTiles).added(winningTile).sorted().toUnmodifiable();
+        this.handTiles = OperableList.copyOf(handTiles).sorted().toUnmodifiable();
         this.openMelds = List.copyOf(openMelds);
         this.winningTile = winningTile;
         this.selfDraw = selfDraw;
@@ -62,7 +62,14 @@ public class WinningHand{
         for(var pattern: HandTiles.arrange(handTiles, winningTile)){
             var head = new Head(pattern.get(0));
             var tailPattern = pattern.subList(1, pattern.size());
+            if(head.contains(winningTile)){
+                var melds = tailPattern.stream().map(Meld::makeHandMeld).collect(toList());
+                melds.addAll(openMelds);
+                hands.add(new MeldHand(head, melds, Wait.SINGLE_HEAD));
+            }
             for(var meldTiles:tailPattern){
+                // 和了牌を含む面子のみ和了面子の候補となります
+                if(meldTiles.stream().noneMatch(winningTile::equalsIgnoreRed)) continue;
                 var melds = OperableList.copyOf(tailPattern).removed(meldTiles)
                         .stream().map(Meld::makeHandMeld).collect(toList());
                 var winningMeld = selfDraw? Meld.makeHandMeld(meldTiles):Meld.makeClaimedHandMeld(meldTiles);
@@ -91,7 +98,7 @@ public class WinningHand{
      * @return 門前手牌の可変リスト
      */
     public List<Tile> getCompletedHandTiles(){
-        return new OperableList<>(handTiles).added(winningTile);
+        return new OperableList<>(handTiles).added(winningTile).sorted();
     }
 
     /**
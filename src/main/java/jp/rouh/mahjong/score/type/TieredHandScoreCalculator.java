@@ -10,6 +10,8 @@ import static java.util.Comparator.comparing;
 /**
  * 手牌点数計算機能の実装クラス。
  *
+ * <p>このクラスは状態を持たないため, 複数のスレッドから同時に利用しても安全です。
+ *
  * @see EnvironmentalHandType
  * @see EnvironmentalLimitHandType
  * @see OverallHandType
@@ -96,7 +98,7 @@ public class TieredHandScoreCalculator implements HandScoreCalculator{
         if(Stream.of(OverallHandType.values()).anyMatch(type->type.define(feature, context))) return true;
         if(Stream.of(OverallLimitHandType.values()).anyMatch(type->type.define(feature, context))) return true;
         try{
-            return hand.format().parallelStream().anyMatch(formattedHand->
+            return hand.format().stream().anyMatch(formattedHand->
                     Stream.of(MeldHandType.values()).anyMatch(type->
                             type.define(formattedHand, feature, context)));
         }catch(HandFormatException e){
@@ -0,0 +1,64 @@
+package jp.rouh.mahjong.table;
+
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * 行動の問い合わせに非同期に応答するテーブル戦略のインターフェース。
+ *
+ * <p>{@link TableStrategy}の問い合わせは応答が決まるまで呼び出し元のスレッドを占有します。
+ * このインターフェースの問い合わせは直ちに{@link CompletionStage}を返し,
+ * 応答が決まった時点でそれを完了させます。ネットワーク越しのプレイヤーや
+ * 人間のプレイヤーの入力を待つ間もスレッドを占有しないため,
+ * 多数の卓を少数のスレッドで進行させることができます。
+ * <p>問い合わせの結果は任意のスレッドで完了させて構いません。
+ * 例外的に完了させた場合, 局の進行は中断されます。
+ * @see jp.rouh.mahjong.table.round.FieldRound#startAsync
+ * @author Rouh
+ * @version 1.0
+ */
+public interface AsyncTableStrategy extends TableObserver{
+
+    /**
+     * ターン時の行動を問い合わせます。
+     * @param context ターン時の行動の選択肢
+     * @return ターン時の行動の完了段階
+     */
+    CompletionStage<TurnAction> askTurnAction(TurnPhaseContext context);
+
+    /**
+     * 鳴きの問い合わせに対する行動を問い合わせます。
+     * @param context 鳴きの行動の選択肢
+     * @return 鳴きの行動の完了段階
+     */
+    CompletionStage<CallAction> askCallAction(CallPhaseContext context);
+
+    /**
+     * 同期的なテーブル戦略を非同期のテーブル戦略に変換します。
+     *
+     * <p>問い合わせは呼び出し元のスレッドで実行され, 完了済みの段階が返されます。
+     * 即座に応答するボットなどに適しています。
+     * @param strategy 同期的なテーブル戦略
+     * @return 非同期のテーブル戦略
+     */
+    static AsyncTableStrategy of(TableStrategy strategy){
+        return new AsyncTableStrategyAdaptor(strategy, null);
+    }
+
+    /**
+     * 同期的なテーブル戦略を, 指定した実行器で問い合わせを実行する非同期のテーブル戦略に変換します。
+     *
+     * <p>標準入力を待つビューなど, 応答までスレッドを占有する戦略に適しています。
+     * @param strategy 同期的なテーブル戦略
+     * @param executor 問い合わせを実行する実行器
+     * @return 非同期のテーブル戦略
+     */
+    static AsyncTableStrategy of(TableStrategy strategy, Executor executor){
+        return new AsyncTableStrategyAdaptor(strategy, executor);
+    }
+}
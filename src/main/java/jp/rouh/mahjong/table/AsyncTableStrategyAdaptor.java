@@ -0,0 +1,140 @@
+package jp.rouh.mahjong.table;
+
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * 同期的なテーブル戦略を非同期のテーブル戦略として扱うアダプタクラス。
+ *
+ * <p>通知はそのまま委譲先に転送します。
+ * 問い合わせは実行器が指定されていればその実行器で, 指定されていなければ
+ * 呼び出し元のスレッドで委譲先に転送します。
+ * 委譲先の問い合わせが例外を送出した場合, 返される段階は例外的に完了します。
+ * @see AsyncTableStrategy#of
+ * @author Rouh
+ * @version 1.0
+ */
+class AsyncTableStrategyAdaptor implements AsyncTableStrategy{
+    private final TableStrategy strategy;
+    private final Executor executor;
+    AsyncTableStrategyAdaptor(TableStrategy strategy, Executor executor){
+        this.strategy = strategy;
+        this.executor = executor;
+    }
+    @Override
+    public CompletionStage<TurnAction> askTurnAction(TurnPhaseContext context){
+        if(executor==null){
+            try{
+                return CompletableFuture.completedFuture(strategy.askTurnAction(context));
+            }catch(RuntimeException e){
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(()->strategy.askTurnAction(context), executor);
+    }
+    @Override
+    public CompletionStage<CallAction> askCallAction(CallPhaseContext context){
+        if(executor==null){
+            try{
+                return CompletableFuture.completedFuture(strategy.askCallAction(context));
+            }catch(RuntimeException e){
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(()->strategy.askCallAction(context), executor);
+    }
+    @Override
+    public void seatUpdated(Side side, Wind wind, String name, int score){
+        strategy.seatUpdated(side, wind, name, score);
+    }
+    @Override
+    public void roundStarted(Wind wind, int count, int streak, int deposit){
+        strategy.roundStarted(wind, count, streak, deposit);
+    }
+    @Override
+    public void roundSettled(String expression){
+        strategy.roundSettled(expression);
+    }
+    @Override
+    public void diceRolled(Side side, int dice1, int dice2){
+        strategy.diceRolled(side, dice1, dice2);
+    }
+    @Override
+    public void wallGenerated(){
+        strategy.wallGenerated();
+    }
+    @Override
+    public void wallTileTaken(Side side, int column, int floor){
+        strategy.wallTileTaken(side, column, floor);
+    }
+    @Override
+    public void wallTileRevealed(Side side, int column, int floor, Tile tile){
+        strategy.wallTileRevealed(side, column, floor, tile);
+    }
+    @Override
+    public void tileDrawn(Side side){
+        strategy.tileDrawn(side);
+    }
+    @Override
+    public void tileDrawn(Tile tile){
+        strategy.tileDrawn(tile);
+    }
+    @Override
+    public void handUpdated(Side side, int size){
+        strategy.handUpdated(side, size);
+    }
+    @Override
+    public void handUpdated(List<Tile> handTiles){
+        strategy.handUpdated(handTiles);
+    }
+    @Override
+    public void handRevealed(Side side, List<Tile> handTiles){
+        strategy.handRevealed(side, handTiles);
+    }
+    @Override
+    public void handRevealed(Side side, List<Tile> handTiles, Tile drawnTile){
+        strategy.handRevealed(side, handTiles, drawnTile);
+    }
+    @Override
+    public void tileDiscarded(Side side, Tile tile){
+        strategy.tileDiscarded(side, tile);
+    }
+    @Override
+    public void tileDiscardedAsReady(Side side, Tile tile){
+        strategy.tileDiscardedAsReady(side, tile);
+    }
+    @Override
+    public void riverTileTaken(Side side){
+        strategy.riverTileTaken(side);
+    }
+    @Override
+    public void tiltMeldAdded(Side side, Side tilt, List<Tile> tiles){
+        strategy.tiltMeldAdded(side, tilt, tiles);
+    }
+    @Override
+    public void selfQuadAdded(Side side, List<Tile> tiles){
+        strategy.selfQuadAdded(side, tiles);
+    }
+    @Override
+    public void meldTileAdded(Side side, int index, Tile added){
+        strategy.meldTileAdded(side, index, added);
+    }
+    @Override
+    public void readyBoneAdded(Side side){
+        strategy.readyBoneAdded(side);
+    }
+    @Override
+    public void declared(Side side, Declaration declaration){
+        strategy.declared(side, declaration);
+    }
+}
@@ -0,0 +1,40 @@
+package jp.rouh.mahjong.table;
+
+/**
+ * 通知の配送が購読者の処理に追いつかない場合の振る舞いを表す列挙型。
+ *
+ * <p>通知バスは購読者ごとに固定長のバッファを持ち,
+ * バッファが満杯になった場合の振る舞いをこの列挙型で指定します。
+ * @see TableEventBus
+ * @author Rouh
+ * @version 1.0
+ */
+public enum BackpressurePolicy{
+
+    /**
+     * バッファに空きができるまで通知元を待機させます。
+     *
+     * <p>全ての通知が配送されますが, 購読者の処理が遅い場合は
+     * 対局の進行も遅くなります。
+     */
+    BLOCK,
+
+    /**
+     * 最も古い未配送の通知を破棄して新しい通知を格納します。
+     *
+     * <p>通知元が待機することはありませんが, 購読者は通知を取りこぼす可能性があります。
+     * 破棄された通知の数は{@link TableEventBus.Subscription#getDroppedCount}で取得できます。
+     */
+    DROP_OLDEST,
+
+    /**
+     * 同一の状態を上書きする通知をまとめて, 最新のもののみを配送します。
+     *
+     * <p>バッファが満杯の間, プレイヤー情報や手牌の長さといった状態の通知は
+     * バッファの外で種別ごとに最新のもののみが保持され, 通知元は待機しません。
+     * 保持された状態の通知は, バッファに空きができた時点で配送されます。
+     * 差分の通知は破棄されず, 保持された状態の通知を配送し終えるまで
+     * {@link #BLOCK}と同様に通知元を待機させます。
+     */
+    COALESCE
+}
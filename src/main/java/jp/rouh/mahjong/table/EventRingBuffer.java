@@ -0,0 +1,245 @@
+package jp.rouh.mahjong.table;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 通知イベントを通知元から購読者へ受け渡す固定長のリングバッファ。
+ *
+ * <p>書き込みは単一のスレッド(通知元), 読み出しは単一のスレッド(購読者)から
+ * 行われることを前提とし, ロックを用いずに受け渡しを行います。
+ * 各要素には書き込み時の通し番号を併記し, 読み出し側は要素の前後で
+ * 通し番号を照合することで, 読み出し中に上書きされた要素を検出します。
+ * <p>バッファが満杯の場合の振る舞いは{@link BackpressurePolicy}に従います。
+ * {@link BackpressurePolicy#COALESCE}の場合, バッファが満杯の間に書き込まれた状態の通知は
+ * リングの外の種別ごとの待機枠に最新のもののみが保持されます。
+ * 待機枠の通知は, 通知元が次に書き込む際に空きがあればリングに移され,
+ * リングが空になった時点で読み出し側が直接取り出します。
+ * <p>待機は{@link LockSupport#park}によって行い, 相手側の書き込みもしくは読み出しの直後に再開されます。
+ * @author Rouh
+ * @version 1.0
+ */
+final class EventRingBuffer{
+    private static final long WRITING = -1;
+    private final BackpressurePolicy policy;
+    private final int mask;
+    private final AtomicReferenceArray<TableEvent> events;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<TableEvent> pending;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread waitingConsumer;
+    private volatile Thread waitingProducer;
+    private volatile boolean closed;
+
+    /**
+     * リングバッファのコンストラクタ。
+     * @param capacity 容量(2の冪乗に切り上げられます)
+     * @param policy 満杯時の振る舞い
+     * @throws IllegalArgumentException 容量が正でない場合
+     */
+    EventRingBuffer(int capacity, BackpressurePolicy policy){
+        if(capacity<=0 || capacity>(1<<30)){
+            throw new IllegalArgumentException("invalid capacity: "+capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if(size<capacity) size <<= 1;
+        this.policy = policy;
+        this.mask = size - 1;
+        this.events = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.pending = policy==BackpressurePolicy.COALESCE?
+                new AtomicReferenceArray<>(TableEvent.COALESCE_KEY_COUNT):null;
+        for(int i = 0; i<size; i++){
+            sequences.set(i, WRITING);
+        }
+    }
+
+    /**
+     * 通知イベントを書き込みます。
+     *
+     * <p>このメソッドは通知元のスレッドからのみ呼び出されます。
+     * バッファが閉じられている場合, 通知イベントは破棄されます。
+     * @param event 通知イベント
+     */
+    void offer(TableEvent event){
+        switch(policy){
+            case BLOCK:
+                awaitSpace();
+                write(event);
+                return;
+            case DROP_OLDEST:
+                write(event);
+                return;
+            case COALESCE:
+                offerCoalescing(event);
+                return;
+        }
+        throw new AssertionError("implementation error");
+    }
+
+    /**
+     * 状態の通知をまとめながら通知イベントを書き込みます。
+     *
+     * <p>待機枠に通知が残っている間もしくはリングが満杯の間は, 状態の通知を待機枠に上書きして
+     * 直ちに戻ります。差分の通知は, 待機枠の通知を全てリングに移した後に書き込むため,
+     * それまで通知元を待機させます。これにより, 差分の通知より前に発行された状態の通知が
+     * 差分の通知より後に配送されることはありません。
+     * @param event 通知イベント
+     */
+    private void offerCoalescing(TableEvent event){
+        flushPending();
+        int key = event.coalesceKey();
+        if(key!=TableEvent.NO_COALESCE_KEY && (hasPending() || isFull())){
+            if(pending.getAndSet(key, event)!=null){
+                dropped.incrementAndGet();
+            }
+            signalConsumer();
+            return;
+        }
+        while(!closed && hasPending()){
+            awaitSpace();
+            flushPending();
+        }
+        awaitSpace();
+        write(event);
+    }
+
+    /**
+     * リングに空きがある限り, 待機枠の通知を種別の順にリングへ移します。
+     */
+    private void flushPending(){
+        for(int key = 0; key<TableEvent.COALESCE_KEY_COUNT; key++){
+            if(isFull()) return;
+            var event = pending.getAndSet(key, null);
+            if(event!=null) write(event);
+        }
+    }
+
+    private boolean hasPending(){
+        if(pending==null) return false;
+        for(int key = 0; key<TableEvent.COALESCE_KEY_COUNT; key++){
+            if(pending.get(key)!=null) return true;
+        }
+        return false;
+    }
+
+    private boolean isFull(){
+        return published.get() - consumed.get()>mask;
+    }
+
+    /**
+     * リングに空きができるまで通知元のスレッドを待機させます。
+     */
+    private void awaitSpace(){
+        while(!closed && isFull()){
+            waitingProducer = Thread.currentThread();
+            if(!closed && isFull()){
+                LockSupport.park(this);
+            }
+            waitingProducer = null;
+        }
+    }
+
+    private void write(TableEvent event){
+        if(closed) return;
+        long sequence = published.get();
+        int index = (int)sequence & mask;
+        sequences.set(index, WRITING);
+        events.set(index, event);
+        sequences.set(index, sequence);
+        published.set(sequence + 1);
+        signalConsumer();
+    }
+
+    private void signalConsumer(){
+        var consumer = waitingConsumer;
+        if(consumer!=null) LockSupport.unpark(consumer);
+    }
+
+    /**
+     * 未配送の通知イベントを最大件数まで読み出します。
+     *
+     * <p>このメソッドは購読者のスレッドからのみ呼び出されます。
+     * 読み出し前もしくは読み出し中に上書きされた通知イベントは破棄された数として計上し,
+     * 残存する最も古い通知イベントから読み出しを再開します。
+     * リングを読み切った場合は, 待機枠に残っている通知も読み出します。
+     * @param batch 読み出し先のリスト
+     * @param limit 最大件数
+     * @return 読み出した件数
+     */
+    int drainTo(List<TableEvent> batch, int limit){
+        int start = batch.size();
+        long cursor = consumed.get();
+        while(batch.size() - start<limit){
+            long head = published.get();
+            if(cursor==head) break;
+            if(head - cursor>mask + 1){
+                dropped.addAndGet(head - cursor - mask - 1);
+                cursor = head - mask - 1;
+            }
+            int index = (int)cursor & mask;
+            long before = sequences.get(index);
+            var event = events.get(index);
+            long after = sequences.get(index);
+            if(before!=cursor || after!=cursor){
+                // 読み出し中に追い越されたため, 通し番号を取り直して再試行します
+                continue;
+            }
+            batch.add(event);
+            cursor++;
+        }
+        consumed.set(cursor);
+        var producer = waitingProducer;
+        if(producer!=null) LockSupport.unpark(producer);
+        if(pending!=null && cursor==published.get()){
+            for(int key = 0; key<TableEvent.COALESCE_KEY_COUNT && batch.size() - start<limit; key++){
+                var event = pending.getAndSet(key, null);
+                if(event!=null) batch.add(event);
+            }
+        }
+        return batch.size() - start;
+    }
+
+    /**
+     * 通知イベントが書き込まれるまで購読者のスレッドを待機させます。
+     *
+     * <p>バッファが閉じられた場合も再開します。
+     */
+    void awaitEvents(){
+        waitingConsumer = Thread.currentThread();
+        if(isEmpty() && !closed){
+            LockSupport.park(this);
+        }
+        waitingConsumer = null;
+    }
+
+    /**
+     * バッファを閉じます。
+     *
+     * <p>以降の書き込みは破棄され, 待機中のスレッドは再開されます。
+     */
+    void close(){
+        closed = true;
+        var consumer = waitingConsumer;
+        if(consumer!=null) LockSupport.unpark(consumer);
+        var producer = waitingProducer;
+        if(producer!=null) LockSupport.unpark(producer);
+    }
+
+    boolean isClosed(){
+        return closed;
+    }
+
+    boolean isEmpty(){
+        return consumed.get()==published.get() && !hasPending();
+    }
+
+    long getDroppedCount(){
+        return dropped.get();
+    }
+}
@@ -1,14 +1,39 @@
 package jp.rouh.mahjong.table;
 
+import jp.rouh.mahjong.table.round.FieldRound;
+import jp.rouh.mahjong.table.round.GameProgress;
 import jp.rouh.mahjong.tile.Side;
 import jp.rouh.mahjong.tile.Wind;
 
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
+/**
+ * 半荘戦の対局を表すクラス。
+ *
+ * <p>対局は東一局から南四局まで{@link FieldRound}を用いて進行します。
+ * 南四局の終了時, もしくはいずれかのプレイヤーの得点が0点を下回った時点で対局は終了します。
+ * 延長戦は行いません。局の進行は{@link GameProgress}が管理します。
+ * <p>対局の生成と開始は分離されています。{@link #start}で終局まで進行させるほか,
+ * {@link #playRound}で一局ずつ進行させることができます。
+ * 一局ずつ進行させることで, 複数の対局を少数のスレッドで交互に進行させることができます。
+ * <p>このクラスはスレッドセーフではありません。
+ * 対局の操作は同時に一つのスレッドから行う必要があります。
+ * @see TableServer
+ * @author Rouh
+ * @version 1.0
+ */
 public class Game implements GameMaster{
+    private static final int INITIAL_SCORE = 25000;
     private final Map<Wind, GamePlayer> gamePlayers;
-    private final Wind initialDealerOrderWind;
+    private final List<TableSpectator> spectators = new CopyOnWriteArrayList<>();
+    private GameProgress progress;
+    private Executor callExecutor;
 
     /**
      * コンストラクタ
@@ -23,8 +48,9 @@ public class Game implements GameMaster{
         gamePlayers.put(Wind.SOUTH, new GamePlayer(p2, Wind.SOUTH, this));
         gamePlayers.put(Wind.WEST, new GamePlayer(p3, Wind.WEST, this));
         gamePlayers.put(Wind.NORTH, new GamePlayer(p4, Wind.NORTH, this));
-        initialDealerOrderWind = decideInitialDealer();
-        start();
+        for(var gamePlayer:gamePlayers.values()){
+            gamePlayer.applyScore(INITIAL_SCORE);
+        }
     }
 
     /**
@@ -43,29 +69,109 @@ public class Game implements GameMaster{
         return initialDealerOrderWind;
     }
 
-    private void start(){
+    /**
+     * 観戦者を登録します。
+     *
+     * <p>観戦者は任意のスレッドから登録でき, 次の局の開始時から各局に登録されます。
+     * @param spectator 観戦者
+     */
+    public void addSpectator(TableSpectator spectator){
+        spectators.add(spectator);
+    }
+
+    /**
+     * 各局の鳴きの問い合わせを実行する実行器を設定します。
+     *
+     * <p>設定しない場合は, 局を進行させているスレッドで順に問い合わせます。
+     * 実行器のスレッドの数は呼び出し元が管理します。
+     * @param executor 実行器, 局を進行させているスレッドで順に問い合わせる場合はnull
+     * @see FieldRound#setCallExecutor
+     */
+    public void setCallExecutor(Executor executor){
+        this.callExecutor = executor;
+    }
+
+    /**
+     * 対局を開始し, 終局まで進行させます。
+     * @throws IllegalStateException 対局が既に終了している場合
+     */
+    public void start(){
+        if(isFinished()){
+            throw new IllegalStateException("game already finished");
+        }
+        while(!isFinished()){
+            playRound();
+        }
+    }
+
+    /**
+     * 次の局を一局進行させます。
+     *
+     * <p>初回の呼び出し時には親決めを実施します。
+     * @throws IllegalStateException 対局が既に終了している場合
+     */
+    public void playRound(){
+        if(isFinished()){
+            throw new IllegalStateException("game already finished");
+        }
+        if(progress==null){
+            progress = new GameProgress(decideInitialDealer());
+        }
+        var roundWind = progress.getRoundWind();
+        var roundCount = progress.getRoundCount();
+        var streakCount = progress.getStreakCount();
+        var depositCount = progress.getDepositCount();
         for(var wind:Wind.values()){
-            playerAtOrder(wind).roundStarted(Wind.EAST, 1, 0, 0);
+            playerAtOrder(wind).roundStarted(roundWind, roundCount, streakCount, depositCount);
         }
-//        Round round = new FieldRound(Wind.EAST, 1, 0, 0);
-//        for(var side:Side.values()){
-//            round.join(Wind.EAST, playerAtOrder(side.of(initialDealerOrderWind)));
-//        }
+        var round = new FieldRound(roundWind, roundCount, streakCount, depositCount);
+        round.setCallExecutor(callExecutor);
+        progress.seat(round, gamePlayers.values());
+        spectators.forEach(round::addSpectator);
+        progress.advance(round.start(), gamePlayers.values());
+    }
 
+    /**
+     * 対局が終了したかどうか検査します。
+     * @return true  対局が終了した場合
+     *         false 対局が終了していない場合
+     */
+    public boolean isFinished(){
+        return progress!=null && progress.isFinished();
+    }
+
+    /**
+     * 対局中に実施した局の数を取得します。
+     * @return 局の数
+     */
+    public int getPlayedRoundCount(){
+        return progress==null? 0:progress.getPlayedRoundCount();
+    }
+
+    /**
+     * 指定した方角に着席したプレイヤーの得点を取得します。
+     * @param orderWind 席方向
+     * @return 得点
+     */
+    public int getScore(Wind orderWind){
+        return playerAtOrder(orderWind).getScore();
     }
 
     /**
      * プレイヤー全員にプレイヤーの状態変更を通知します。
      */
     private void notifySeatUpdated(Wind dealerOrderWind){
+        var seats = new EnumMap<Wind, Consumer<TableEvent>>(Wind.class);
+        for(var orderWind:Wind.values()){
+            var seatWind = orderWind.from(dealerOrderWind).of(Wind.EAST);
+            seats.put(seatWind, PerspectiveProjector.dispatcherOf(playerAtOrder(orderWind)));
+        }
+        var projector = new PerspectiveProjector(seats, event->{});
+        var publisher = TableEvent.recorder(projector::project);
         for(var orderWind:Wind.values()){
             var gamePlayer = playerAtOrder(orderWind);
             var seatWind = orderWind.from(dealerOrderWind).of(Wind.EAST);
-            var name = gamePlayer.getName();
-            var score = gamePlayer.getScore();
-            for(var otherWind:Wind.values()){
-                playerAtOrder(otherWind).seatUpdated(seatWind.from(otherWind), seatWind, name, score);
-            }
+            publisher.seatUpdated(seatWind.from(Wind.EAST), seatWind, gamePlayer.getName(), gamePlayer.getScore());
         }
     }
 
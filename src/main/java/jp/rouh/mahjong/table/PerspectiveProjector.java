@@ -0,0 +1,141 @@
+package jp.rouh.mahjong.table;
+
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 卓全体から見た通知を, 各席から見た通知に射影して配送するクラス。
+ *
+ * <p>射影元の通知は, プレイヤーの位置を東家から見た相対位置({@code wind.from(Wind.EAST)})で表します。
+ * 射影元の一件の通知から, 四人のプレイヤーと観戦者のそれぞれに対する通知を生成して配送します。
+ * 相対位置の変換は, 観測者の自風と射影元の相対位置による4×4の表をクラスの読み込み時に求めておき,
+ * 表を引くことで行います。
+ * <p>射影した通知は内容が同一であれば共有されます。相対位置を持たない通知は射影元の通知がそのまま全員に配送され,
+ * 相対位置を持つ通知も相対位置ごとに一度だけ生成されます。観戦者は東家と同じ位置から卓を見るため,
+ * 観戦者への通知は東家への通知と共有されます。牌のリストや文字列などの相対位置以外の項目は,
+ * 全ての射影した通知で射影元と共有されます。
+ * <p>ツモ牌と手牌の通知は, その持ち主のみに射影元の通知が配送され, 他のプレイヤーと観戦者には
+ * ツモの通知と手牌の長さの通知に置き換えて配送されます。
+ * <p>このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+public final class PerspectiveProjector{
+    private static final Wind[] WINDS = Wind.values();
+
+    /** 観測者の自風と射影元の相対位置から, 観測者に対する相対位置を引く表 */
+    private static final Side[][] SIDES = new Side[4][4];
+
+    static{
+        for(var subject:WINDS){
+            for(var target:WINDS){
+                SIDES[subject.ordinal()][target.ordinal()] = target.from(subject);
+            }
+        }
+    }
+
+    private final List<Consumer<TableEvent>> seats;
+    private final Consumer<TableEvent> spectator;
+    private final TableEvent[] views = new TableEvent[4];
+
+    /**
+     * 射影した通知の配送先を指定して生成します。
+     * @param seats 自風ごとのプレイヤーへの配送先
+     * @param spectator 観戦者への配送先
+     * @throws IllegalArgumentException 全ての自風の配送先が指定されていない場合
+     */
+    public PerspectiveProjector(Map<Wind, ? extends Consumer<TableEvent>> seats, Consumer<TableEvent> spectator){
+        var seatList = new ArrayList<Consumer<TableEvent>>(WINDS.length);
+        for(var wind:WINDS){
+            var seat = seats.get(wind);
+            if(seat==null){
+                throw new IllegalArgumentException("no consumer for seat: "+wind);
+            }
+            seatList.add(seat);
+        }
+        this.seats = List.copyOf(seatList);
+        this.spectator = spectator;
+    }
+
+    /**
+     * 観測者に通知を配送する配送先を生成します。
+     * @param observer 観測者
+     * @return 配送先
+     */
+    public static Consumer<TableEvent> dispatcherOf(TableObserver observer){
+        return event->event.dispatchTo(observer);
+    }
+
+    /**
+     * 観測者に対するプレイヤーの相対位置を取得します。
+     * @param subject 観測者の自風
+     * @param target プレイヤーの自風
+     * @return 相対位置
+     */
+    public static Side sideOf(Wind subject, Wind target){
+        return SIDES[subject.ordinal()][target.ordinal()];
+    }
+
+    /**
+     * 全員に公開される通知を射影して配送します。
+     * @param event 東家から見た通知
+     * @throws IllegalArgumentException ツモ牌もしくは手牌の通知の場合
+     */
+    public void project(TableEvent event){
+        if(event.isPrivate()){
+            throw new IllegalArgumentException("owner required for private event: "+event.getType());
+        }
+        var side = event.getSide();
+        if(side==null){
+            for(int i = 0; i<WINDS.length; i++){
+                seats.get(i).accept(event);
+            }
+            spectator.accept(event);
+            return;
+        }
+        int target = side.ordinal();
+        for(var subject:WINDS){
+            var relative = SIDES[subject.ordinal()][target];
+            var view = views[relative.ordinal()];
+            if(view==null){
+                view = event.withSide(relative);
+                views[relative.ordinal()] = view;
+            }
+            seats.get(subject.ordinal()).accept(view);
+        }
+        spectator.accept(views[side.ordinal()]);
+        Arrays.fill(views, null);
+    }
+
+    /**
+     * プレイヤーのツモ牌もしくは手牌の通知を射影して配送します。
+     * @param owner 持ち主の自風
+     * @param event ツモ牌もしくは手牌の通知
+     * @throws IllegalArgumentException ツモ牌もしくは手牌の通知でない場合
+     */
+    public void project(Wind owner, TableEvent event){
+        if(!event.isPrivate()){
+            throw new IllegalArgumentException("not a private event: "+event.getType());
+        }
+        int target = owner.ordinal();
+        for(var subject:WINDS){
+            if(subject==owner){
+                seats.get(target).accept(event);
+                continue;
+            }
+            var relative = SIDES[subject.ordinal()][target];
+            var view = event.masked(relative);
+            views[relative.ordinal()] = view;
+            seats.get(subject.ordinal()).accept(view);
+        }
+        var view = views[SIDES[Wind.EAST.ordinal()][target].ordinal()];
+        spectator.accept(view!=null? view:event.masked(Side.SELF));
+        Arrays.fill(views, null);
+    }
+}
@@ -0,0 +1,371 @@
+package jp.rouh.mahjong.table;
+
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 卓上の変化の通知{@link TableObserver}の呼び出し一回分を表すクラス。
+ *
+ * <p>このクラスは観測者のメソッド呼び出しを値として保持し,
+ * 別スレッドへの受け渡しや記録に利用します。
+ * インスタンスは不変であり, 複数のスレッドから共有しても安全です。
+ * <p>通知の種類ごとに利用する項目は{@link Type}の各定数の説明の通りです。
+ * 利用しない項目は{@code null}または0となります。
+ * 整数の引数は通知メソッドの引数順に{@link #getValue(int)}で取得します。
+ * @see TableEventBus
+ * @author Rouh
+ * @version 1.0
+ */
+public final class TableEvent{
+
+    /**
+     * 通知の種類。
+     *
+     * <p>各定数は{@link TableObserver}のメソッドに一対一で対応します。
+     */
+    public enum Type{
+        /** {@link TableObserver#seatUpdated}: side, wind, text(名前), value0(得点) */
+        SEAT_UPDATED,
+        /** {@link TableObserver#roundStarted}: wind, value0(局数), value1(本場), value2(供託) */
+        ROUND_STARTED,
+        /** {@link TableObserver#roundSettled}: text(結果表現) */
+        ROUND_SETTLED,
+        /** {@link TableObserver#diceRolled}: side, value0, value1(出目) */
+        DICE_ROLLED,
+        /** {@link TableObserver#wallGenerated}: 項目なし */
+        WALL_GENERATED,
+        /** {@link TableObserver#wallTileTaken}: side, value0(列), value1(段) */
+        WALL_TILE_TAKEN,
+        /** {@link TableObserver#wallTileRevealed}: side, value0(列), value1(段), tile */
+        WALL_TILE_REVEALED,
+        /** {@link TableObserver#tileDrawn(Side)}: side */
+        TILE_DRAWN,
+        /** {@link TableObserver#tileDrawn(Tile)}: tile */
+        SELF_TILE_DRAWN,
+        /** {@link TableObserver#handUpdated(Side, int)}: side, value0(手牌の長さ) */
+        HAND_UPDATED,
+        /** {@link TableObserver#handUpdated(List)}: tiles */
+        SELF_HAND_UPDATED,
+        /** {@link TableObserver#handRevealed(Side, List)}: side, tiles */
+        HAND_REVEALED,
+        /** {@link TableObserver#handRevealed(Side, List, Tile)}: side, tiles, tile(ツモ牌) */
+        HAND_REVEALED_WITH_DRAWN,
+        /** {@link TableObserver#tileDiscarded}: side, tile */
+        TILE_DISCARDED,
+        /** {@link TableObserver#tileDiscardedAsReady}: side, tile */
+        TILE_DISCARDED_AS_READY,
+        /** {@link TableObserver#riverTileTaken}: side */
+        RIVER_TILE_TAKEN,
+        /** {@link TableObserver#tiltMeldAdded}: side, tilt, tiles */
+        TILT_MELD_ADDED,
+        /** {@link TableObserver#selfQuadAdded}: side, tiles */
+        SELF_QUAD_ADDED,
+        /** {@link TableObserver#meldTileAdded}: side, value0(刻子の位置), tile */
+        MELD_TILE_ADDED,
+        /** {@link TableObserver#readyBoneAdded}: side */
+        READY_BONE_ADDED,
+        /** {@link TableObserver#declared}: side, declaration */
+        DECLARED
+    }
+
+    /** 同種の後続の通知で上書き可能な通知が存在しないことを表すキー */
+    static final int NO_COALESCE_KEY = -1;
+
+    /** 同種の後続の通知で上書き可能な通知を識別するキーの数 */
+    static final int COALESCE_KEY_COUNT = 9;
+
+    private final Type type;
+    private final Side side;
+    private final Wind wind;
+    private final Side tilt;
+    private final Tile tile;
+    private final List<Tile> tiles;
+    private final String text;
+    private final Declaration declaration;
+    private final int value0;
+    private final int value1;
+    private final int value2;
+
+    private TableEvent(Type type, Side side, Wind wind, Side tilt, Tile tile, List<Tile> tiles,
+                       String text, Declaration declaration, int value0, int value1, int value2){
+        this.type = type;
+        this.side = side;
+        this.wind = wind;
+        this.tilt = tilt;
+        this.tile = tile;
+        this.tiles = tiles==null? null:List.copyOf(tiles);
+        this.text = text;
+        this.declaration = declaration;
+        this.value0 = value0;
+        this.value1 = value1;
+        this.value2 = value2;
+    }
+
+    private TableEvent(Type type, Side side){
+        this(type, side, null, null, null, null, null, null, 0, 0, 0);
+    }
+
+    private TableEvent(Type type, Side side, Tile tile){
+        this(type, side, null, null, tile, null, null, null, 0, 0, 0);
+    }
+
+    private TableEvent(Type type, Side side, List<Tile> tiles){
+        this(type, side, null, null, null, tiles, null, null, 0, 0, 0);
+    }
+
+    public Type getType(){
+        return type;
+    }
+
+    public Side getSide(){
+        return side;
+    }
+
+    public Wind getWind(){
+        return wind;
+    }
+
+    public Side getTilt(){
+        return tilt;
+    }
+
+    public Tile getTile(){
+        return tile;
+    }
+
+    public List<Tile> getTiles(){
+        return tiles;
+    }
+
+    public String getText(){
+        return text;
+    }
+
+    public Declaration getDeclaration(){
+        return declaration;
+    }
+
+    /**
+     * 整数の引数を取得します。
+     * @param index 引数の位置(0..2)
+     * @throws IndexOutOfBoundsException 位置が範囲外の場合
+     * @return 整数の引数
+     */
+    public int getValue(int index){
+        switch(index){
+            case 0: return value0;
+            case 1: return value1;
+            case 2: return value2;
+        }
+        throw new IndexOutOfBoundsException("index: "+index);
+    }
+
+    /**
+     * 自家のみが知り得る通知かどうか検査します。
+     * @return true  自家のツモ牌もしくは手牌の通知の場合
+     *         false 他家にも公開される通知の場合
+     */
+    boolean isPrivate(){
+        return type==Type.SELF_TILE_DRAWN || type==Type.SELF_HAND_UPDATED;
+    }
+
+    /**
+     * 相対位置を置き換えた通知を返します。
+     *
+     * <p>相対位置以外の項目はこの通知と共有されます。
+     * 相対位置が同一の場合はこの通知自身を返します。
+     * @param side 相対位置
+     * @return 通知
+     */
+    TableEvent withSide(Side side){
+        if(side==this.side) return this;
+        return new TableEvent(type, side, wind, tilt, tile, tiles, text, declaration, value0, value1, value2);
+    }
+
+    /**
+     * 自家のみが知り得る通知を, 他家に公開される通知に置き換えて返します。
+     *
+     * <p>ツモ牌の通知はツモの通知に, 手牌の通知は手牌の長さの通知に置き換えられます。
+     * @param side 通知を受け取る観測者に対する, 自家の相対位置
+     * @throws IllegalStateException 自家のみが知り得る通知でない場合
+     * @return 通知
+     */
+    TableEvent masked(Side side){
+        switch(type){
+            case SELF_TILE_DRAWN: return new TableEvent(Type.TILE_DRAWN, side);
+            case SELF_HAND_UPDATED:
+                return new TableEvent(Type.HAND_UPDATED, side, null, null, null, null, null, null, tiles.size(), 0, 0);
+        }
+        throw new IllegalStateException("not a private event: "+type);
+    }
+
+    /**
+     * この通知を観測者に配送します。
+     * @param observer 観測者
+     */
+    public void dispatchTo(TableObserver observer){
+        switch(type){
+            case SEAT_UPDATED: observer.seatUpdated(side, wind, text, value0); return;
+            case ROUND_STARTED: observer.roundStarted(wind, value0, value1, value2); return;
+            case ROUND_SETTLED: observer.roundSettled(text); return;
+            case DICE_ROLLED: observer.diceRolled(side, value0, value1); return;
+            case WALL_GENERATED: observer.wallGenerated(); return;
+            case WALL_TILE_TAKEN: observer.wallTileTaken(side, value0, value1); return;
+            case WALL_TILE_REVEALED: observer.wallTileRevealed(side, value0, value1, tile); return;
+            case TILE_DRAWN: observer.tileDrawn(side); return;
+            case SELF_TILE_DRAWN: observer.tileDrawn(tile); return;
+            case HAND_UPDATED: observer.handUpdated(side, value0); return;
+            case SELF_HAND_UPDATED: observer.handUpdated(tiles); return;
+            case HAND_REVEALED: observer.handRevealed(side, tiles); return;
+            case HAND_REVEALED_WITH_DRAWN: observer.handRevealed(side, tiles, tile); return;
+            case TILE_DISCARDED: observer.tileDiscarded(side, tile); return;
+            case TILE_DISCARDED_AS_READY: observer.tileDiscardedAsReady(side, tile); return;
+            case RIVER_TILE_TAKEN: observer.riverTileTaken(side); return;
+            case TILT_MELD_ADDED: observer.tiltMeldAdded(side, tilt, tiles); return;
+            case SELF_QUAD_ADDED: observer.selfQuadAdded(side, tiles); return;
+            case MELD_TILE_ADDED: observer.meldTileAdded(side, value0, tile); return;
+            case READY_BONE_ADDED: observer.readyBoneAdded(side); return;
+            case DECLARED: observer.declared(side, declaration); return;
+        }
+        throw new AssertionError("implementation error");
+    }
+
+    /**
+     * 後続の同種の通知によって上書き可能な通知であれば, その同種を識別するキーを返します。
+     *
+     * <p>プレイヤー情報や手牌の長さといった状態の通知は, 最新の通知のみを
+     * 配送すれば観測者の状態が一致するため, 上書きが可能です。
+     * 河や副露の追加のような差分の通知は上書きできません。
+     * @return 上書き可能な場合は0以上のキー, 不可能な場合は{@link #NO_COALESCE_KEY}
+     */
+    int coalesceKey(){
+        switch(type){
+            case SEAT_UPDATED: return side.ordinal();
+            case HAND_UPDATED: return 4 + side.ordinal();
+            case SELF_HAND_UPDATED: return 8;
+            default: return NO_COALESCE_KEY;
+        }
+    }
+
+    @Override
+    public String toString(){
+        var sb = new StringBuilder(type.name());
+        if(side!=null) sb.append(" side=").append(side.name());
+        if(wind!=null) sb.append(" wind=").append(wind.name());
+        if(tilt!=null) sb.append(" tilt=").append(tilt.name());
+        if(tile!=null) sb.append(" tile=").append(tile.name());
+        if(tiles!=null) sb.append(" tiles=").append(tiles);
+        if(text!=null) sb.append(" text=").append(text);
+        if(declaration!=null) sb.append(" declaration=").append(declaration.name());
+        if(value0!=0 || value1!=0 || value2!=0) sb.append(" values=[").append(value0).append(", ")
+                .append(value1).append(", ").append(value2).append("]");
+        return sb.toString();
+    }
+
+    /**
+     * 観測者への通知を通知イベントに変換して, 転送先に渡す観測者を生成します。
+     * @param sink 通知イベントの転送先
+     * @return 観測者
+     */
+    public static TableObserver recorder(Consumer<TableEvent> sink){
+        return new Recorder(sink);
+    }
+
+    /**
+     * 観測者への通知を通知イベントに変換するクラス。
+     */
+    private static final class Recorder implements TableObserver{
+        private final Consumer<TableEvent> sink;
+        private Recorder(Consumer<TableEvent> sink){
+            this.sink = sink;
+        }
+        @Override
+        public void seatUpdated(Side side, Wind wind, String name, int score){
+            sink.accept(new TableEvent(Type.SEAT_UPDATED, side, wind, null, null, null, name, null, score, 0, 0));
+        }
+        @Override
+        public void roundStarted(Wind wind, int count, int streak, int deposit){
+            sink.accept(new TableEvent(Type.ROUND_STARTED, null, wind, null, null, null, null, null, count, streak, deposit));
+        }
+        @Override
+        public void roundSettled(String expression){
+            sink.accept(new TableEvent(Type.ROUND_SETTLED, null, null, null, null, null, expression, null, 0, 0, 0));
+        }
+        @Override
+        public void diceRolled(Side side, int dice1, int dice2){
+            sink.accept(new TableEvent(Type.DICE_ROLLED, side, null, null, null, null, null, null, dice1, dice2, 0));
+        }
+        @Override
+        public void wallGenerated(){
+            sink.accept(new TableEvent(Type.WALL_GENERATED, null));
+        }
+        @Override
+        public void wallTileTaken(Side side, int column, int floor){
+            sink.accept(new TableEvent(Type.WALL_TILE_TAKEN, side, null, null, null, null, null, null, column, floor, 0));
+        }
+        @Override
+        public void wallTileRevealed(Side side, int column, int floor, Tile tile){
+            sink.accept(new TableEvent(Type.WALL_TILE_REVEALED, side, null, null, tile, null, null, null, column, floor, 0));
+        }
+        @Override
+        public void tileDrawn(Side side){
+            sink.accept(new TableEvent(Type.TILE_DRAWN, side));
+        }
+        @Override
+        public void tileDrawn(Tile tile){
+            sink.accept(new TableEvent(Type.SELF_TILE_DRAWN, null, tile));
+        }
+        @Override
+        public void handUpdated(Side side, int size){
+            sink.accept(new TableEvent(Type.HAND_UPDATED, side, null, null, null, null, null, null, size, 0, 0));
+        }
+        @Override
+        public void handUpdated(List<Tile> handTiles){
+            sink.accept(new TableEvent(Type.SELF_HAND_UPDATED, null, handTiles));
+        }
+        @Override
+        public void handRevealed(Side side, List<Tile> handTiles){
+            sink.accept(new TableEvent(Type.HAND_REVEALED, side, handTiles));
+        }
+        @Override
+        public void handRevealed(Side side, List<Tile> handTiles, Tile drawnTile){
+            sink.accept(new TableEvent(Type.HAND_REVEALED_WITH_DRAWN, side, null, null, drawnTile, handTiles, null, null, 0, 0, 0));
+        }
+        @Override
+        public void tileDiscarded(Side side, Tile tile){
+            sink.accept(new TableEvent(Type.TILE_DISCARDED, side, tile));
+        }
+        @Override
+        public void tileDiscardedAsReady(Side side, Tile tile){
+            sink.accept(new TableEvent(Type.TILE_DISCARDED_AS_READY, side, tile));
+        }
+        @Override
+        public void riverTileTaken(Side side){
+            sink.accept(new TableEvent(Type.RIVER_TILE_TAKEN, side));
+        }
+        @Override
+        public void tiltMeldAdded(Side side, Side tilt, List<Tile> tiles){
+            sink.accept(new TableEvent(Type.TILT_MELD_ADDED, side, null, tilt, null, tiles, null, null, 0, 0, 0));
+        }
+        @Override
+        public void selfQuadAdded(Side side, List<Tile> tiles){
+            sink.accept(new TableEvent(Type.SELF_QUAD_ADDED, side, tiles));
+        }
+        @Override
+        public void meldTileAdded(Side side, int index, Tile added){
+            sink.accept(new TableEvent(Type.MELD_TILE_ADDED, side, null, null, added, null, null, null, index, 0, 0));
+        }
+        @Override
+        public void readyBoneAdded(Side side){
+            sink.accept(new TableEvent(Type.READY_BONE_ADDED, side));
+        }
+        @Override
+        public void declared(Side side, Declaration declaration){
+            sink.accept(new TableEvent(Type.DECLARED, side, null, null, null, null, null, declaration, 0, 0, 0));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package jp.rouh.mahjong.table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 卓上の変化の通知を複数の観測者へ非同期に配送する通知バス。
+ *
+ * <p>{@link #getPublisher}で取得した観測者に対する通知は{@link TableEvent}に変換され,
+ * 購読者ごとのリングバッファに格納されます。各購読者には専用の配送スレッドが割り当てられ,
+ * バッファから通知をまとめて読み出して購読者に配送します。
+ * これにより, 描画やネットワーク送信などの遅い観測者が対局の進行を妨げないようにします。
+ * <p>通知元は単一のスレッドであることを前提とします。
+ * 購読者への通知は常に同一の配送スレッドから, 通知された順に行われます。
+ * <p>購読者の処理で発生した例外は配送スレッドの{@link Thread.UncaughtExceptionHandler}に
+ * 渡され, 配送はそのまま継続されます。
+ * @author Rouh
+ * @version 1.0
+ */
+public class TableEventBus implements AutoCloseable{
+    private static final int BATCH_SIZE = 256;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final TableObserver publisher = TableEvent.recorder(this::publish);
+    private final int capacity;
+    private volatile boolean closed;
+
+    /**
+     * 通知バスのコンストラクタ。
+     * @param capacity 購読者ごとのバッファの容量
+     * @throws IllegalArgumentException 容量が正でない場合
+     */
+    public TableEventBus(int capacity){
+        if(capacity<=0){
+            throw new IllegalArgumentException("invalid capacity: "+capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * 観測者を購読者として登録します。
+     *
+     * <p>登録以降に発行された通知が配送されます。
+     * @param observer 観測者
+     * @param policy 配送が追いつかない場合の振る舞い
+     * @throws IllegalStateException 通知バスが既に閉じられている場合
+     * @return 購読
+     */
+    public Subscription subscribe(TableObserver observer, BackpressurePolicy policy){
+        if(closed){
+            throw new IllegalStateException("event bus already closed");
+        }
+        var subscription = new Subscription(observer, new EventRingBuffer(capacity, policy));
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * 通知元が通知を行うための観測者を取得します。
+     *
+     * <p>この観測者に対する通知は全ての購読者に配送されます。
+     * @return 観測者
+     */
+    public TableObserver getPublisher(){
+        return publisher;
+    }
+
+    /**
+     * 通知イベントを全ての購読者に発行します。
+     * @param event 通知イベント
+     */
+    public void publish(TableEvent event){
+        for(var subscription:subscriptions){
+            subscription.buffer.offer(event);
+        }
+    }
+
+    /**
+     * 通知バスを閉じます。
+     *
+     * <p>発行済みの通知を全て配送し終えるまで待機した後, 配送スレッドを終了します。
+     * 待機中に割り込みが発生した場合は, 配送の完了を待たずに割り込み状態を復元して戻ります。
+     * 配送スレッドはデーモンスレッドのため, 残りの通知の配送を続けます。
+     */
+    @Override
+    public void close(){
+        closed = true;
+        for(var subscription:subscriptions){
+            subscription.buffer.close();
+        }
+        try{
+            for(var subscription:subscriptions){
+                subscription.thread.join();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * 通知バスの購読を表すクラス。
+     * @author Rouh
+     * @version 1.0
+     */
+    public final class Subscription{
+        private final TableObserver observer;
+        private final EventRingBuffer buffer;
+        private final Thread thread;
+        private final LongAdder delivered = new LongAdder();
+        private volatile boolean cancelled;
+
+        private Subscription(TableObserver observer, EventRingBuffer buffer){
+            this.observer = observer;
+            this.buffer = buffer;
+            this.thread = new Thread(this::deliver, "table-event-bus-"+THREAD_COUNT.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        private void deliver(){
+            var batch = new ArrayList<TableEvent>(BATCH_SIZE);
+            while(!cancelled){
+                if(buffer.drainTo(batch, BATCH_SIZE)==0){
+                    if(buffer.isClosed() && buffer.isEmpty()) return;
+                    buffer.awaitEvents();
+                    continue;
+                }
+                for(var event:batch){
+                    if(cancelled) return;
+                    try{
+                        event.dispatchTo(observer);
+                        delivered.increment();
+                    }catch(RuntimeException e){
+                        var thread = Thread.currentThread();
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                    }
+                }
+                batch.clear();
+            }
+        }
+
+        /**
+         * 購読を解除します。
+         *
+         * <p>未配送の通知は破棄されます。配送中の通知がある場合,
+         * その配送が完了した時点で配送スレッドが終了します。
+         */
+        public void cancel(){
+            cancelled = true;
+            subscriptions.remove(this);
+            buffer.close();
+        }
+
+        /**
+         * 購読者に配送した通知の数を取得します。
+         * @return 配送した通知の数
+         */
+        public long getDeliveredCount(){
+            return delivered.sum();
+        }
+
+        /**
+         * 配送が追いつかずに破棄された通知の数を取得します。
+         *
+         * <p>{@link BackpressurePolicy#COALESCE}の場合は,
+         * 後続の通知により上書きされた通知の数となります。
+         * @return 破棄された通知の数
+         */
+        public long getDroppedCount(){
+            return buffer.getDroppedCount();
+        }
+
+        /**
+         * 購読が解除済みかどうか検査します。
+         * @return true  解除済みの場合
+         *         false 購読中の場合
+         */
+        public boolean isCancelled(){
+            return cancelled;
+        }
+    }
+}
@@ -12,6 +12,10 @@ public abstract class TableSideAdaptor implements TableSpectator{
 
     public abstract Wind getSubjectiveWind();
 
+    @Override
+    public void roundStarted(Wind wind, int count, int streak, int deposit){
+        strategy.roundStarted(wind, count, streak, deposit);
+    }
     @Override
     public void diceRolled(Wind wind, int dice1, int dice2){
         strategy.diceRolled(wind.from(getSubjectiveWind()), dice1, dice2);
@@ -3,12 +3,57 @@ package jp.rouh.mahjong.table;
 import jp.rouh.mahjong.tile.Tile;
 import jp.rouh.mahjong.tile.Wind;
 
+/**
+ * 観戦者に麻雀卓上の変化を通知するインターフェース。
+ *
+ * <p>観戦者は特定の席に座らないため, プレイヤーは相対位置ではなく自風で表されます。
+ * <p>局の進行に伴う全ての変化は{@link #tableEventPublished}に東家から見た通知イベントとして通知されます。
+ * 既定の実装は局の開始, 席の情報, サイコロの出目, 打牌のみを個別のメソッドに振り分けます。
+ * @see jp.rouh.mahjong.table.round.Round#addSpectator
+ * @author Rouh
+ * @version 1.0
+ */
 public interface TableSpectator{
 
+    /**
+     * 局が開始したことを通知します。
+     * @param wind 場風
+     * @param count 局数(1..4)
+     * @param streak 本場数(0..)
+     * @param deposit 供託数(0..)
+     */
+    void roundStarted(Wind wind, int count, int streak, int deposit);
+
     void diceRolled(Wind wind, int dice1, int dice2);
 
     void seatUpdated(Wind wind, String name, int score);
 
     void tileDiscarded(Wind wind, Tile tile);
 
+    /**
+     * 卓上の変化を通知イベントとして通知します。
+     *
+     * <p>通知イベントの相対位置は東家を自家とする位置です。
+     * ツモ牌と手牌は, 東家のものを含めてツモの通知と手牌の長さの通知として通知されます。
+     * <p>既定の実装は, 局の開始, 席の情報, サイコロの出目, 打牌(立直宣言牌を含む)の通知を
+     * 対応するメソッドに自風に変換して振り分け, その他の通知を無視します。
+     * @param event 東家から見た通知イベント
+     */
+    default void tableEventPublished(TableEvent event){
+        switch(event.getType()){
+            case ROUND_STARTED:
+                roundStarted(event.getWind(), event.getValue(0), event.getValue(1), event.getValue(2));
+                return;
+            case SEAT_UPDATED:
+                seatUpdated(event.getWind(), event.getText(), event.getValue(0));
+                return;
+            case DICE_ROLLED:
+                diceRolled(event.getSide().of(Wind.EAST), event.getValue(0), event.getValue(1));
+                return;
+            case TILE_DISCARDED:
+            case TILE_DISCARDED_AS_READY:
+                tileDiscarded(event.getSide().of(Wind.EAST), event.getTile());
+                return;
+        }
+    }
 }
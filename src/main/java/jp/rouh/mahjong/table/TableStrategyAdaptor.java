@@ -80,38 +80,38 @@ public abstract class TableStrategyAdaptor implements TableStrategy{
     }
     @Override
     public void roundSettled(String expression){
-
+        strategy.roundSettled(expression);
     }
     @Override
     public void handRevealed(Side side, List<Tile> handTiles){
-
+        strategy.handRevealed(side, handTiles);
     }
     @Override
     public void handRevealed(Side side, List<Tile> handTiles, Tile drawnTile){
-
+        strategy.handRevealed(side, handTiles, drawnTile);
     }
     @Override
     public void riverTileTaken(Side side){
-
+        strategy.riverTileTaken(side);
     }
     @Override
     public void tiltMeldAdded(Side side, Side tilt, List<Tile> tiles){
-
+        strategy.tiltMeldAdded(side, tilt, tiles);
     }
     @Override
     public void selfQuadAdded(Side side, List<Tile> tiles){
-
+        strategy.selfQuadAdded(side, tiles);
     }
     @Override
     public void meldTileAdded(Side side, int index, Tile added){
-
+        strategy.meldTileAdded(side, index, added);
     }
     @Override
     public void readyBoneAdded(Side side){
-
+        strategy.readyBoneAdded(side);
     }
     @Override
     public void declared(Side side, Declaration declaration){
-
+        strategy.declared(side, declaration);
     }
 }
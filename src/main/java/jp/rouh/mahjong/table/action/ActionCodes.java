@@ -0,0 +1,371 @@
+package jp.rouh.mahjong.table.action;
+
+import jp.rouh.mahjong.tile.Tile;
+
+import java.util.List;
+
+/**
+ * ターン時の行動と鳴きの行動を整数値で表す符号のユーティリティクラス。
+ *
+ * <p>符号の下位4ビットは行動の種別を表し, 続く6ビットずつに選択した牌の序数を最大3枚分格納します。
+ * 選択した牌の枚数は行動の種別から一意に決まります。
+ * 複数の牌を選択する行動では牌を序数の昇順に並べて格納するため,
+ * 同じ牌の組を選択する行動は選択の順序に依らず同一の符号になります。
+ * 赤ドラを含む組と含まない組は牌の序数が異なるため, 別の符号として区別されます。
+ * <p>種別の番号は局の記録の直列化形式と通信の形式で共通して用います。
+ * <ul>
+ *     <li>0..5: 九種九牌, ツモ, 加槓, 暗槓, 立直宣言, 打牌</li>
+ *     <li>8..12: パス, ロン, チー, ポン, 大明槓</li>
+ * </ul>
+ * <p>このクラスは行動の選択肢を符号の配列として列挙する機能も提供します。
+ * 列挙した符号は{@link #decodeTurnAction}および{@link #decodeCallAction}で行動に復号できます。
+ * @author Rouh
+ * @version 1.0
+ */
+public final class ActionCodes{
+    private ActionCodes(){
+        throw new AssertionError("no instance");
+    }
+
+    /** 九種九牌の種別 */
+    public static final int TURN_DRAW = 0;
+
+    /** ツモの種別 */
+    public static final int TURN_WIN = 1;
+
+    /** 加槓の種別 */
+    public static final int TURN_ADD_QUAD = 2;
+
+    /** 暗槓の種別 */
+    public static final int TURN_SELF_QUAD = 3;
+
+    /** 立直宣言の種別 */
+    public static final int TURN_READY = 4;
+
+    /** 打牌の種別 */
+    public static final int TURN_DISCARD = 5;
+
+    /** パスの種別 */
+    public static final int CALL_PASS = 8;
+
+    /** ロンの種別 */
+    public static final int CALL_WIN = 9;
+
+    /** チーの種別 */
+    public static final int CALL_STRAIGHT = 10;
+
+    /** ポンの種別 */
+    public static final int CALL_TRIPLE = 11;
+
+    /** 大明槓の種別 */
+    public static final int CALL_QUAD = 12;
+
+    /** ターン時の行動の選択肢の最大数 */
+    public static final int MAX_TURN_ACTIONS = 64;
+
+    /** 鳴きの行動の選択肢の最大数 */
+    public static final int MAX_CALL_ACTIONS = 16;
+
+    private static final int KIND_MASK = 0xF;
+    private static final int TILE_SHIFT = 4;
+    private static final int TILE_BITS = 6;
+    private static final int TILE_MASK = 0x3F;
+    private static final Tile[] TILES = Tile.values();
+    private static final int[] TILE_COUNTS = {0, 0, 1, 1, 1, 1, -1, -1, 0, 0, 2, 2, 3, -1, -1, -1};
+    private static final TurnAction[] TURN_ACTIONS = new TurnAction[(TURN_DISCARD + 1)<<TILE_BITS];
+    private static final CallAction PASS = CallAction.ofPass();
+    private static final CallAction WIN = CallAction.ofWin();
+    static{
+        // 牌を一枚以下選択するターン時の行動は不変のため, 復号の結果を共有します
+        TURN_ACTIONS[TURN_DRAW] = TurnAction.ofDraw();
+        TURN_ACTIONS[TURN_WIN] = TurnAction.ofWin();
+        for(var tile:TILES){
+            TURN_ACTIONS[TURN_ADD_QUAD<<TILE_BITS | tile.ordinal()] = TurnAction.ofAddQuad(tile);
+            TURN_ACTIONS[TURN_SELF_QUAD<<TILE_BITS | tile.ordinal()] = TurnAction.ofSelfQuad(tile);
+            TURN_ACTIONS[TURN_READY<<TILE_BITS | tile.ordinal()] = TurnAction.ofReady(tile);
+            TURN_ACTIONS[TURN_DISCARD<<TILE_BITS | tile.ordinal()] = TurnAction.ofDiscard(tile);
+        }
+    }
+
+    /**
+     * 符号の行動の種別を取得します。
+     * @param code 行動の符号
+     * @return 行動の種別
+     */
+    public static int kindOf(int code){
+        return code & KIND_MASK;
+    }
+
+    /**
+     * 符号がターン時の行動を表すか検査します。
+     * @param code 行動の符号
+     * @return true ターン時の行動の場合
+     *         false 鳴きの行動の場合
+     */
+    public static boolean isTurnAction(int code){
+        return kindOf(code)<CALL_PASS;
+    }
+
+    /**
+     * 符号の行動で選択する牌の枚数を取得します。
+     * @param code 行動の符号
+     * @throws IllegalArgumentException 行動の種別が不正な場合
+     * @return 選択する牌の枚数
+     */
+    public static int tileCountOf(int code){
+        int count = TILE_COUNTS[kindOf(code)];
+        if(count<0){
+            throw new IllegalArgumentException("unknown action code: "+code);
+        }
+        return count;
+    }
+
+    /**
+     * 符号の行動で選択した牌を取得します。
+     * @param code 行動の符号
+     * @param index 牌の位置(0..{@link #tileCountOf}-1)
+     * @return 選択した牌
+     */
+    public static Tile tileOf(int code, int index){
+        return TILES[code>>>(TILE_SHIFT + index*TILE_BITS) & TILE_MASK];
+    }
+
+    /**
+     * 種別と選択した牌から符号を作成します。
+     *
+     * <p>牌は序数の昇順に並べ替えて格納します。
+     * @param kind 行動の種別
+     * @param tiles 選択した牌
+     * @throws IllegalArgumentException 牌の枚数が種別と一致しない場合
+     * @return 行動の符号
+     */
+    public static int codeOf(int kind, Tile... tiles){
+        if(tileCountOf(kind)!=tiles.length){
+            throw new IllegalArgumentException("invalid tile count for kind "+kind+": "+tiles.length);
+        }
+        switch(tiles.length){
+            case 0: return kind;
+            case 1: return codeOf(kind, tiles[0].ordinal());
+            case 2: return codeOf(kind, tiles[0].ordinal(), tiles[1].ordinal());
+            default: return codeOf(kind, tiles[0].ordinal(), tiles[1].ordinal(), tiles[2].ordinal());
+        }
+    }
+
+    private static int codeOf(int kind, int tile){
+        return kind | tile<<TILE_SHIFT;
+    }
+
+    private static int codeOf(int kind, int first, int second){
+        int lower = Math.min(first, second);
+        int upper = Math.max(first, second);
+        return kind | lower<<TILE_SHIFT | upper<<(TILE_SHIFT + TILE_BITS);
+    }
+
+    private static int codeOf(int kind, int first, int second, int third){
+        int lower = Math.min(first, Math.min(second, third));
+        int upper = Math.max(first, Math.max(second, third));
+        int middle = first + second + third - lower - upper;
+        return kind | lower<<TILE_SHIFT | middle<<(TILE_SHIFT + TILE_BITS) | upper<<(TILE_SHIFT + TILE_BITS*2);
+    }
+
+    /**
+     * ターン時の行動を符号化します。
+     * @param action ターン時の行動
+     * @return 行動の符号
+     */
+    public static int encode(TurnAction action){
+        if(action.isNineTilesDrawDeclaration()) return TURN_DRAW;
+        if(action.isSelfDrawWinDeclaration()) return TURN_WIN;
+        int kind = action.isAddQuadDeclaration()? TURN_ADD_QUAD:
+                action.isSelfQuadDeclaration()? TURN_SELF_QUAD:
+                action.isReadyDeclaration()? TURN_READY:TURN_DISCARD;
+        return codeOf(kind, action.getSelectedTile().ordinal());
+    }
+
+    /**
+     * 鳴きの行動を符号化します。
+     * @param action 鳴きの行動
+     * @return 行動の符号
+     */
+    public static int encode(CallAction action){
+        if(action.isRiverGrabWinDeclaration()) return CALL_WIN;
+        if(!action.isMeldCallDeclaration()) return CALL_PASS;
+        var tiles = action.getSelectedTiles();
+        if(action.isQuadCallDeclaration()){
+            return codeOf(CALL_QUAD, tiles.get(0).ordinal(), tiles.get(1).ordinal(), tiles.get(2).ordinal());
+        }
+        int kind = action.isTripleCallDeclaration()? CALL_TRIPLE:CALL_STRAIGHT;
+        return codeOf(kind, tiles.get(0).ordinal(), tiles.get(1).ordinal());
+    }
+
+    /**
+     * 符号をターン時の行動に復号します。
+     *
+     * <p>同じ符号に対しては同一のインスタンスを返します。
+     * @param code 行動の符号
+     * @throws IllegalArgumentException 符号がターン時の行動を表さない場合
+     * @return ターン時の行動
+     */
+    public static TurnAction decodeTurnAction(int code){
+        int kind = kindOf(code);
+        int index = kind<=TURN_WIN? (code==kind? kind:-1):kind<=TURN_DISCARD && isSingleTile(code)? kind<<TILE_BITS | code>>>TILE_SHIFT:-1;
+        if(index<0 || index>=TURN_ACTIONS.length || TURN_ACTIONS[index]==null){
+            throw new IllegalArgumentException("invalid turn action code: "+code);
+        }
+        return TURN_ACTIONS[index];
+    }
+
+    /**
+     * 符号を鳴きの行動に復号します。
+     * @param code 行動の符号
+     * @throws IllegalArgumentException 符号が鳴きの行動を表さない場合
+     * @return 鳴きの行動
+     */
+    public static CallAction decodeCallAction(int code){
+        switch(kindOf(code)){
+            case CALL_PASS: return PASS;
+            case CALL_WIN: return WIN;
+            case CALL_STRAIGHT: return CallAction.ofStraight(List.of(tileAt(code, 0), tileAt(code, 1)));
+            case CALL_TRIPLE: return CallAction.ofTriple(List.of(tileAt(code, 0), tileAt(code, 1)));
+            case CALL_QUAD: return CallAction.ofQuad(List.of(tileAt(code, 0), tileAt(code, 1), tileAt(code, 2)));
+        }
+        throw new IllegalArgumentException("invalid call action code: "+code);
+    }
+
+    private static Tile tileAt(int code, int index){
+        int ordinal = code>>>(TILE_SHIFT + index*TILE_BITS) & TILE_MASK;
+        if(ordinal>=TILES.length){
+            throw new IllegalArgumentException("invalid tile in action code: "+code);
+        }
+        return TILES[ordinal];
+    }
+
+    /**
+     * ターン時の行動の選択肢を全て列挙します。
+     *
+     * <p>手牌中の牌の種類ごとに, 九種九牌, ツモ, 加槓, 暗槓, 立直宣言, 打牌の順に符号を格納します。
+     * 同じ符号は一度だけ格納します。
+     * @param context ターン時の行動の選択肢
+     * @param codes 符号の格納先, {@link #MAX_TURN_ACTIONS}以上の長さを持つ配列
+     * @return 格納した符号の数
+     */
+    public static int legalActionsOf(TurnPhaseContext context, int[] codes){
+        int count = 0;
+        if(context.canDeclareDraw()) codes[count++] = TURN_DRAW;
+        if(context.canDeclareWin()) codes[count++] = TURN_WIN;
+        boolean quad = context.canDeclareQuad();
+        boolean ready = context.canDeclareReady();
+        long visited = 0;
+        var tiles = context.getTiles();
+        for(int i = 0; i<tiles.size(); i++){
+            var tile = tiles.get(i);
+            long bit = 1L<<tile.ordinal();
+            if((visited & bit)!=0) continue;
+            visited |= bit;
+            int ordinal = tile.ordinal();
+            if(quad && context.canDeclareAddQuad(tile)) codes[count++] = codeOf(TURN_ADD_QUAD, ordinal);
+            if(quad && context.canDeclareSelfQuad(tile)) codes[count++] = codeOf(TURN_SELF_QUAD, ordinal);
+            if(ready && context.canDeclareReady(tile)) codes[count++] = codeOf(TURN_READY, ordinal);
+            if(context.canDiscard(tile)) codes[count++] = codeOf(TURN_DISCARD, ordinal);
+        }
+        return count;
+    }
+
+    /**
+     * 鳴きの行動の選択肢を全て列挙します。
+     *
+     * <p>パス, ロン, 大明槓, ポン, チーの順に符号を格納します。
+     * ポンとチーは手牌中の牌の組ごとに, 同じ符号を一度だけ格納します。
+     * @param context 鳴きの行動の選択肢
+     * @param codes 符号の格納先, {@link #MAX_CALL_ACTIONS}以上の長さを持つ配列
+     * @return 格納した符号の数
+     */
+    public static int legalActionsOf(CallPhaseContext context, int[] codes){
+        int count = 0;
+        codes[count++] = CALL_PASS;
+        if(context.canCallWin()) codes[count++] = CALL_WIN;
+        var tiles = context.getTiles();
+        if(context.canCallQuad()){
+            // 大明槓に使う牌は手牌中の同種牌3枚で一意に決まります
+            int quad = CALL_QUAD;
+            int size = 0;
+            for(int i = 0; i<tiles.size() && size<3; i++){
+                if(context.canCallQuad(tiles.get(i))) quad |= tiles.get(i).ordinal()<<(TILE_SHIFT + TILE_BITS*size++);
+            }
+            if(size==3) codes[count++] = codeOf(CALL_QUAD, tileOf(quad, 0), tileOf(quad, 1), tileOf(quad, 2));
+        }
+        boolean triple = context.canCallTriple();
+        boolean straight = context.canCallStraight();
+        if(!triple && !straight) return count;
+        int meldStart = count;
+        for(int i = 0; i<tiles.size(); i++){
+            var first = tiles.get(i);
+            boolean tripleBase = triple && context.canCallTriple(first);
+            boolean straightBase = straight && context.canCallStraight(first);
+            if(!tripleBase && !straightBase) continue;
+            for(int j = i + 1; j<tiles.size(); j++){
+                var second = tiles.get(j);
+                if(tripleBase && (context.canCallTriple(first, second) || context.canCallTriple(second, first))){
+                    count = addDistinct(codes, meldStart, count, codeOf(CALL_TRIPLE, first.ordinal(), second.ordinal()));
+                }
+                if(straightBase && (context.canCallStraight(first, second) || context.canCallStraight(second, first))){
+                    count = addDistinct(codes, meldStart, count, codeOf(CALL_STRAIGHT, first.ordinal(), second.ordinal()));
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int addDistinct(int[] codes, int from, int count, int code){
+        for(int i = from; i<count; i++){
+            if(codes[i]==code) return count;
+        }
+        codes[count] = code;
+        return count + 1;
+    }
+
+    /**
+     * 符号の行動がターン時の行動の選択肢に含まれるか検査します。
+     *
+     * <p>牌を選択する行動は, 選択した牌が手牌に含まれる場合のみ選択可能とみなします。
+     * この結果は{@link #legalActionsOf(TurnPhaseContext, int[])}で列挙される符号と一致します。
+     * @param context ターン時の行動の選択肢
+     * @param code 行動の符号
+     * @return true 選択可能な場合
+     *         false 選択できない場合
+     */
+    public static boolean isLegal(TurnPhaseContext context, int code){
+        int kind = kindOf(code);
+        if(kind==TURN_DRAW) return code==TURN_DRAW && context.canDeclareDraw();
+        if(kind==TURN_WIN) return code==TURN_WIN && context.canDeclareWin();
+        if(kind>TURN_DISCARD || !isSingleTile(code)) return false;
+        var tile = tileOf(code, 0);
+        if(!context.getTiles().contains(tile)) return false;
+        switch(kind){
+            case TURN_ADD_QUAD: return context.canDeclareQuad() && context.canDeclareAddQuad(tile);
+            case TURN_SELF_QUAD: return context.canDeclareQuad() && context.canDeclareSelfQuad(tile);
+            case TURN_READY: return context.canDeclareReady() && context.canDeclareReady(tile);
+            default: return context.canDiscard(tile);
+        }
+    }
+
+    private static boolean isSingleTile(int code){
+        return code>>>TILE_SHIFT<TILES.length;
+    }
+
+    /**
+     * 符号の行動が鳴きの行動の選択肢に含まれるか検査します。
+     * @param context 鳴きの行動の選択肢
+     * @param code 行動の符号
+     * @return true 選択可能な場合
+     *         false 選択できない場合
+     */
+    public static boolean isLegal(CallPhaseContext context, int code){
+        int[] codes = new int[MAX_CALL_ACTIONS];
+        int count = legalActionsOf(context, codes);
+        for(int i = 0; i<count; i++){
+            if(codes[i]==code) return true;
+        }
+        return false;
+    }
+}
@@ -29,11 +29,11 @@ public class CallPhaseContextContainer implements CallPhaseContext{
     }
     @Override
     public List<Tile> getTiles(){
-        return null;
+        return tiles;
     }
     @Override
     public Tile getCallTile(){
-        return null;
+        return callTile;
     }
     @Override
     public boolean canCallStraight(){
@@ -67,14 +67,14 @@ public class CallPhaseContextContainer implements CallPhaseContext{
     public boolean canCallStraight(Tile tile, Tile selected){
         return straightBases.stream()
                 .filter(target->target.contains(selected))
-                .anyMatch(target->new OperableList<>()
+                .anyMatch(target->new OperableList<>(target)
                         .removed(selected).contains(tile));
     }
     @Override
     public boolean canCallTriple(Tile tile, Tile selected){
-        return straightBases.stream()
+        return tripleBases.stream()
                 .filter(target->target.contains(selected))
-                .anyMatch(target->new OperableList<>()
+                .anyMatch(target->new OperableList<>(target)
                         .removed(selected).contains(tile));
     }
 
@@ -0,0 +1,242 @@
+package jp.rouh.mahjong.table.net;
+
+import jp.rouh.mahjong.table.action.ActionCodes;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.record.TableEventDecoder;
+import jp.rouh.mahjong.tile.Tile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static jp.rouh.mahjong.table.net.NetworkProtocol.*;
+
+/**
+ * {@link FrameEncoder}で符号化されたフレームの内容を復号するクラス。
+ *
+ * <p>通知レコードは{@link TableEventDecoder}として復号します。
+ * 問い合わせと応答は命令バイトと要求番号の読み出し後に, 種別ごとのメソッドで復号します。
+ * 問い合わせの選択肢は, 符号化時の問い合わせの結果を保持する読み取り専用の実装として復元されます。
+ * <p>不正な内容のフレームに対しては実行時例外が送出されます。
+ * <p>このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+final class FrameDecoder extends TableEventDecoder{
+    private static final Tile[] TILES = Tile.values();
+
+    /**
+     * 要求番号を読み出します。
+     * @param frame 命令バイトの直後に位置するフレーム
+     * @return 要求番号
+     */
+    int decodeRequestId(ByteBuffer frame){
+        return readVarInt(frame);
+    }
+
+    /**
+     * 接続の開始を復号します。
+     * @param frame 命令バイトの直後に位置するフレーム
+     * @return プレイヤー名
+     */
+    String decodeHello(ByteBuffer frame){
+        var bytes = new byte[readVarInt(frame)];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ターン時の問い合わせを復号します。
+     * @param frame 要求番号の直後に位置するフレーム
+     * @return ターン時の行動の選択肢
+     */
+    TurnPhaseContext decodeTurnPrompt(ByteBuffer frame){
+        readHand(frame);
+        var tiles = getTiles();
+        int flags = frame.get();
+        return new DecodedTurnPhaseContext(tiles, flags,
+                readVarLong(frame), readVarLong(frame), readVarLong(frame), readVarLong(frame));
+    }
+
+    /**
+     * 鳴きの問い合わせを復号します。
+     * @param frame 要求番号の直後に位置するフレーム
+     * @return 鳴きの行動の選択肢
+     */
+    CallPhaseContext decodeCallPrompt(ByteBuffer frame){
+        readHand(frame);
+        var tiles = getTiles();
+        var callTile = TILES[frame.get()];
+        int flags = frame.get();
+        var context = new DecodedCallPhaseContext(tiles, callTile, flags,
+                readVarLong(frame), readVarLong(frame), readVarLong(frame));
+        int count = frame.get() & 0xFF;
+        for(int i = 0; i<count; i++){
+            int packed = frame.get() & 0xFF;
+            int selected = frame.get();
+            int tile = packed & 0x3F;
+            if((packed & 0x40)!=0) context.triplePairs[tile] |= 1L<<selected;
+            if((packed & 0x80)!=0) context.straightPairs[tile] |= 1L<<selected;
+        }
+        return context;
+    }
+
+    /**
+     * ターン時の行動の応答を復号します。
+     * @param frame 要求番号の直後に位置するフレーム
+     * @throws IllegalArgumentException 行動の符号が不正な場合
+     * @return ターン時の行動
+     */
+    TurnAction decodeTurnReply(ByteBuffer frame){
+        return ActionCodes.decodeTurnAction(readVarInt(frame));
+    }
+
+    /**
+     * 鳴きの行動の応答を復号します。
+     * @param frame 要求番号の直後に位置するフレーム
+     * @throws IllegalArgumentException 行動の符号が不正な場合
+     * @return 鳴きの行動
+     */
+    CallAction decodeCallReply(ByteBuffer frame){
+        return ActionCodes.decodeCallAction(readVarInt(frame));
+    }
+
+    private static boolean contains(long mask, Tile tile){
+        return (mask & 1L<<tile.ordinal())!=0;
+    }
+
+    /**
+     * 復号したターン時の行動の選択肢のクラス。
+     */
+    private static final class DecodedTurnPhaseContext implements TurnPhaseContext{
+        private final List<Tile> tiles;
+        private final int flags;
+        private final long discardable;
+        private final long ready;
+        private final long addQuad;
+        private final long selfQuad;
+
+        private DecodedTurnPhaseContext(List<Tile> tiles, int flags,
+                                        long discardable, long ready, long addQuad, long selfQuad){
+            this.tiles = tiles;
+            this.flags = flags;
+            this.discardable = discardable;
+            this.ready = ready;
+            this.addQuad = addQuad;
+            this.selfQuad = selfQuad;
+        }
+        @Override
+        public List<Tile> getTiles(){
+            return tiles;
+        }
+        @Override
+        public boolean canDeclareWin(){
+            return (flags & 1)!=0;
+        }
+        @Override
+        public boolean canDeclareDraw(){
+            return (flags & 2)!=0;
+        }
+        @Override
+        public boolean canDeclareReady(){
+            return (flags & 4)!=0;
+        }
+        @Override
+        public boolean canDeclareQuad(){
+            return (flags & 8)!=0;
+        }
+        @Override
+        public boolean canDiscard(Tile tile){
+            return contains(discardable, tile);
+        }
+        @Override
+        public boolean canDeclareReady(Tile tile){
+            return contains(ready, tile);
+        }
+        @Override
+        public boolean canDeclareQuad(Tile tile){
+            return canDeclareAddQuad(tile) || canDeclareSelfQuad(tile);
+        }
+        @Override
+        public boolean canDeclareAddQuad(Tile tile){
+            return contains(addQuad, tile);
+        }
+        @Override
+        public boolean canDeclareSelfQuad(Tile tile){
+            return contains(selfQuad, tile);
+        }
+    }
+
+    /**
+     * 復号した鳴きの行動の選択肢のクラス。
+     *
+     * <p>二枚の牌を指定する問い合わせは, 牌ごとに組となる牌の集合をビットマスクで保持します。
+     */
+    private static final class DecodedCallPhaseContext implements CallPhaseContext{
+        private final List<Tile> tiles;
+        private final Tile callTile;
+        private final int flags;
+        private final long quad;
+        private final long triple;
+        private final long straight;
+        private final long[] triplePairs = new long[TILES.length];
+        private final long[] straightPairs = new long[TILES.length];
+
+        private DecodedCallPhaseContext(List<Tile> tiles, Tile callTile, int flags,
+                                        long quad, long triple, long straight){
+            this.tiles = tiles;
+            this.callTile = callTile;
+            this.flags = flags;
+            this.quad = quad;
+            this.triple = triple;
+            this.straight = straight;
+        }
+        @Override
+        public List<Tile> getTiles(){
+            return tiles;
+        }
+        @Override
+        public Tile getCallTile(){
+            return callTile;
+        }
+        @Override
+        public boolean canCallWin(){
+            return (flags & 1)!=0;
+        }
+        @Override
+        public boolean canCallQuad(){
+            return (flags & 2)!=0;
+        }
+        @Override
+        public boolean canCallTriple(){
+            return (flags & 4)!=0;
+        }
+        @Override
+        public boolean canCallStraight(){
+            return (flags & 8)!=0;
+        }
+        @Override
+        public boolean canCallStraight(Tile tile){
+            return contains(straight, tile);
+        }
+        @Override
+        public boolean canCallTriple(Tile tile){
+            return contains(triple, tile);
+        }
+        @Override
+        public boolean canCallQuad(Tile tile){
+            return contains(quad, tile);
+        }
+        @Override
+        public boolean canCallStraight(Tile tile, Tile selected){
+            return contains(straightPairs[tile.ordinal()], selected);
+        }
+        @Override
+        public boolean canCallTriple(Tile tile, Tile selected){
+            return contains(triplePairs[tile.ordinal()], selected);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package jp.rouh.mahjong.table.net;
+
+import jp.rouh.mahjong.table.action.ActionCodes;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.record.TableEventEncoder;
+import jp.rouh.mahjong.tile.Tile;
+
+import java.nio.ByteBuffer;
+
+import static jp.rouh.mahjong.table.net.NetworkProtocol.*;
+
+/**
+ * 通知と問い合わせ, 応答を{@link NetworkProtocol}のフレームに符号化するクラス。
+ *
+ * <p>フレームは内部の作業領域に一件ずつ符号化され, 符号化が終わるたびに
+ * {@link #frameEncoded}に渡されます。サブクラスはそれを送信用のバッファに複写します。
+ * 符号化の途中で例外が発生した場合, そのフレームは破棄されます。
+ * <p>自家の手牌の通知と問い合わせの手牌は, 共通の通番で直前の手牌との差分として符号化します。
+ * <p>このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+abstract class FrameEncoder extends TableEventEncoder{
+    private static final Tile[] TILES = Tile.values();
+
+    FrameEncoder(){
+        this(ByteBuffer.allocate(MAX_FRAME_SIZE));
+    }
+
+    /**
+     * 作業領域を指定して符号化器を生成します。
+     *
+     * <p>作業領域はフレームの符号化が終わるたびに再利用されるため,
+     * 同時に利用されない限り複数の符号化器で共有できます。
+     * @param buffer {@link NetworkProtocol#MAX_FRAME_SIZE}バイト以上の作業領域
+     */
+    FrameEncoder(ByteBuffer buffer){
+        super(buffer, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * フレームの符号化が終わった時点で呼び出されます。
+     * @param frame 位置がフレームの先頭, リミットがフレームの末尾のバッファ
+     */
+    abstract void frameEncoded(ByteBuffer frame);
+
+    @Override
+    protected void beforeRecord(){
+        var buffer = getBuffer();
+        buffer.clear();
+        buffer.putShort((short)0);
+    }
+
+    @Override
+    protected void afterRecord(){
+        var buffer = getBuffer();
+        buffer.putShort(0, (short)(buffer.position() - FRAME_HEADER_SIZE));
+        buffer.flip();
+        frameEncoded(buffer);
+    }
+
+    private void begin(int type){
+        beforeRecord();
+        getBuffer().put((byte)type);
+    }
+
+    /**
+     * 接続の開始を符号化します。
+     * @param name プレイヤー名
+     */
+    void encodeHello(String name){
+        begin(HELLO);
+        putText(name);
+        afterRecord();
+    }
+
+    /**
+     * ターン時の問い合わせを符号化します。
+     * @param requestId 要求番号
+     * @param context ターン時の行動の選択肢
+     */
+    void encodeTurnPrompt(int requestId, TurnPhaseContext context){
+        begin(TURN_PROMPT);
+        putVarInt(requestId);
+        putHand(context.getTiles());
+        getBuffer().put((byte)((context.canDeclareWin()? 1:0) | (context.canDeclareDraw()? 2:0)
+                | (context.canDeclareReady()? 4:0) | (context.canDeclareQuad()? 8:0)));
+        long discardable = 0;
+        long ready = 0;
+        long addQuad = 0;
+        long selfQuad = 0;
+        for(var tile:TILES){
+            long bit = 1L<<tile.ordinal();
+            if(context.canDiscard(tile)) discardable |= bit;
+            if(context.canDeclareReady(tile)) ready |= bit;
+            if(context.canDeclareAddQuad(tile)) addQuad |= bit;
+            if(context.canDeclareSelfQuad(tile)) selfQuad |= bit;
+        }
+        putVarLong(discardable);
+        putVarLong(ready);
+        putVarLong(addQuad);
+        putVarLong(selfQuad);
+        afterRecord();
+    }
+
+    /**
+     * 鳴きの問い合わせを符号化します。
+     *
+     * <p>二枚の牌を指定する問い合わせは, 手牌中の牌の組についてのみ符号化します。
+     * @param requestId 要求番号
+     * @param context 鳴きの行動の選択肢
+     */
+    void encodeCallPrompt(int requestId, CallPhaseContext context){
+        begin(CALL_PROMPT);
+        putVarInt(requestId);
+        var tiles = context.getTiles();
+        putHand(tiles);
+        putTile(context.getCallTile());
+        getBuffer().put((byte)((context.canCallWin()? 1:0) | (context.canCallQuad()? 2:0)
+                | (context.canCallTriple()? 4:0) | (context.canCallStraight()? 8:0)));
+        long quad = 0;
+        long triple = 0;
+        long straight = 0;
+        long inHand = 0;
+        for(var tile:TILES){
+            long bit = 1L<<tile.ordinal();
+            if(context.canCallQuad(tile)) quad |= bit;
+            if(context.canCallTriple(tile)) triple |= bit;
+            if(context.canCallStraight(tile)) straight |= bit;
+        }
+        for(var tile:tiles){
+            inHand |= 1L<<tile.ordinal();
+        }
+        putVarLong(quad);
+        putVarLong(triple);
+        putVarLong(straight);
+        var buffer = getBuffer();
+        int countPosition = buffer.position();
+        buffer.put((byte)0);
+        int count = 0;
+        if(context.canCallTriple() || context.canCallStraight()){
+            for(var tile:TILES){
+                if((inHand & (triple | straight) & 1L<<tile.ordinal())==0) continue;
+                for(var selected:TILES){
+                    if((inHand & 1L<<selected.ordinal())==0) continue;
+                    int flags = (context.canCallTriple(tile, selected)? 1:0)
+                            | (context.canCallStraight(tile, selected)? 2:0);
+                    if(flags!=0){
+                        buffer.put((byte)(flags<<6 | tile.ordinal()));
+                        putTile(selected);
+                        count++;
+                    }
+                }
+            }
+        }
+        buffer.put(countPosition, (byte)count);
+        afterRecord();
+    }
+
+    /**
+     * ターン時の行動の応答を符号化します。
+     * @param requestId 要求番号
+     * @param action ターン時の行動
+     */
+    void encodeTurnReply(int requestId, TurnAction action){
+        begin(TURN_REPLY);
+        putVarInt(requestId);
+        putVarInt(ActionCodes.encode(action));
+        afterRecord();
+    }
+
+    /**
+     * 鳴きの行動の応答を符号化します。
+     * @param requestId 要求番号
+     * @param action 鳴きの行動
+     */
+    void encodeCallReply(int requestId, CallAction action){
+        begin(CALL_REPLY);
+        putVarInt(requestId);
+        putVarInt(ActionCodes.encode(action));
+        afterRecord();
+    }
+}
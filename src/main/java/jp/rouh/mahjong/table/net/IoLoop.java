@@ -0,0 +1,117 @@
+package jp.rouh.mahjong.table.net;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一つの{@link Selector}で多数の接続の入出力を処理するスレッドのクラス。
+ *
+ * <p>各接続の読み出しと書き出しは, 接続が登録されたループのスレッドでのみ行います。
+ * 他のスレッドからの依頼は{@link #execute}で待ち行列に投入され, ループのスレッドで実行されます。
+ * 依頼の投入による{@link Selector#wakeup}の呼び出しは, ループが待機中の場合にのみ行います。
+ * @author Rouh
+ * @version 1.0
+ */
+final class IoLoop implements Runnable{
+    private final Selector selector;
+    private final Thread thread;
+    private final FrameDecoder decoder = new FrameDecoder();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean selecting = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    /**
+     * コンストラクタ。
+     * @param name スレッド名
+     * @throws IOException セレクタが開けない場合
+     */
+    IoLoop(String name) throws IOException{
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        thread.setDaemon(true);
+    }
+
+    void start(){
+        thread.start();
+    }
+
+    Selector getSelector(){
+        return selector;
+    }
+
+    /**
+     * このループのスレッドで復号に用いる復号器を取得します。
+     * @return 復号器
+     */
+    FrameDecoder getDecoder(){
+        return decoder;
+    }
+
+    /**
+     * 依頼をループのスレッドで実行します。
+     * @param task 依頼
+     */
+    void execute(Runnable task){
+        tasks.add(task);
+        if(selecting.getAndSet(false)){
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void run(){
+        try{
+            while(running){
+                selecting.set(true);
+                if(tasks.isEmpty()){
+                    selector.select();
+                }else{
+                    selector.selectNow();
+                }
+                selecting.set(false);
+                var keys = selector.selectedKeys();
+                for(var key:keys){
+                    ((Handler)key.attachment()).handle(key);
+                }
+                keys.clear();
+                Runnable task;
+                while((task = tasks.poll())!=null){
+                    task.run();
+                }
+            }
+        }catch(IOException | ClosedSelectorException e){
+            // セレクタが閉じられた場合は終了します
+        }
+    }
+
+    /**
+     * ループを停止します。
+     *
+     * <p>登録された接続はループの停止前に閉じる必要があります。
+     */
+    void stop(){
+        running = false;
+        try{
+            selector.close();
+        }catch(IOException e){
+            // 停止時の失敗は無視します
+        }
+    }
+
+    /**
+     * 選択されたキーを処理するインターフェース。
+     */
+    interface Handler{
+
+        /**
+         * 準備のできたキーを処理します。
+         * @param key 選択されたキー
+         */
+        void handle(SelectionKey key);
+    }
+}
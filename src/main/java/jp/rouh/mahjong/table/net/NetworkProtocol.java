@@ -0,0 +1,54 @@
+package jp.rouh.mahjong.table.net;
+
+import jp.rouh.mahjong.table.record.TableEventEncoder;
+
+/**
+ * 卓と遠隔のプレイヤーの間の通信の形式を定義するクラス。
+ *
+ * <p>通信はフレームの列で行います。各フレームは内容のバイト長(2バイト, 符号なし)に続き,
+ * 命令バイトで始まる内容を持ちます。
+ * <p>命令バイトの種別0..20は通知レコードを表し, 内容は牌譜ファイルの通知レコードと同一です。
+ * 種別24以降は以下の通りです。要求番号は可変長整数で, 応答は対応する問い合わせと同じ要求番号を持ちます。
+ * <ul>
+ *     <li>ターン時の問い合わせ: 要求番号, 手牌, フラグ(ツモ, 九種九牌, 立直, 槓),
+ *     打牌できる牌, 立直宣言牌, 加槓牌, 暗槓牌の牌の種類ごとのビットマスク</li>
+ *     <li>鳴きの問い合わせ: 要求番号, 手牌, 打牌, フラグ(ロン, 大明槓, ポン, チー),
+ *     大明槓, ポン, チーに使う牌の種類ごとのビットマスク, ポンとチーに使う牌の組の列</li>
+ *     <li>ターン時の行動の応答: 要求番号, 行動の符号</li>
+ *     <li>鳴きの行動の応答: 要求番号, 行動の符号</li>
+ *     <li>接続の開始: プレイヤー名</li>
+ * </ul>
+ * <p>問い合わせの手牌は通知レコードの自家の手牌の同期と同じ形式で, 自家の手牌の通知と共通の通番を持ちます。
+ * <p>ビットマスクは牌の序数の位置のビットを立てた可変長整数です。
+ * 牌の組の列は組の数(1バイト, 符号なし)に続き, 組ごとに
+ * 上位2ビットに種別(ポン, チー), 下位6ビットに牌の序数を詰めた1バイトと, 組となる牌を持ちます。
+ * <p>行動の符号は{@link jp.rouh.mahjong.table.action.ActionCodes}の符号を可変長整数で格納したものです。
+ * @author Rouh
+ * @version 1.0
+ */
+final class NetworkProtocol{
+    private NetworkProtocol(){
+        throw new AssertionError("no instance");
+    }
+
+    /** フレームの長さのバイト長 */
+    static final int FRAME_HEADER_SIZE = 2;
+
+    /** フレームの最大バイト長 */
+    static final int MAX_FRAME_SIZE = FRAME_HEADER_SIZE + TableEventEncoder.MAX_RECORD_SIZE;
+
+    /** ターン時の問い合わせの種別 */
+    static final int TURN_PROMPT = 24;
+
+    /** 鳴きの問い合わせの種別 */
+    static final int CALL_PROMPT = 25;
+
+    /** ターン時の行動の応答の種別 */
+    static final int TURN_REPLY = 26;
+
+    /** 鳴きの行動の応答の種別 */
+    static final int CALL_REPLY = 27;
+
+    /** 接続の開始の種別 */
+    static final int HELLO = 28;
+}
@@ -0,0 +1,330 @@
+package jp.rouh.mahjong.table.net;
+
+import jp.rouh.mahjong.table.AsyncTableStrategy;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Tile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static jp.rouh.mahjong.table.net.NetworkProtocol.*;
+
+/**
+ * {@link TableNetworkServer}に接続した遠隔のプレイヤーを表すテーブル戦略のクラス。
+ *
+ * <p>通知と問い合わせはフレームに符号化して送信用のバッファに追記され,
+ * 接続を担当する入出力スレッドがまとめて送信します。通知のたびに送信は行いません。
+ * 問い合わせは直ちに未完了の段階を返し, 遠隔のプレイヤーの応答を受信した時点で
+ * 入出力スレッドで段階を完了させます。応答を待つ間はいずれのスレッドも占有しません。
+ * <p>局への参加には, 通知の受け取り先として{@link #asTableStrategy}を,
+ * 問い合わせ先としてこのインスタンスを指定します。
+ * <pre>{@code
+ *     round.join(wind, new SimulationParticipant(remote.getName(), wind, score, remote.asTableStrategy()), remote);
+ * }</pre>
+ * <p>通知と問い合わせは同時に一つのスレッドから行う必要があります。
+ * 局の進行に伴う呼び出しはこの条件を満たすため, 一つの局にのみ参加させる限り同期は不要です。
+ * <p>接続が切断された場合, 応答待ちの問い合わせは{@link ClosedChannelException}で例外的に完了し,
+ * 以後の通知は破棄されます。送信が追いつかず送信用のバッファが溢れた場合も接続を切断します。
+ * @see TableNetworkClient
+ * @author Rouh
+ * @version 1.0
+ */
+public final class RemoteTableStrategy extends FrameEncoder implements AsyncTableStrategy, IoLoop.Handler{
+    private static final int OUTBOUND_BUFFER_SIZE = 1<<15;
+    private final TableNetworkServer server;
+    private final IoLoop loop;
+    private final SocketChannel channel;
+    private final ByteBuffer inbound = ByteBuffer.allocate(MAX_FRAME_SIZE);
+    private final ByteBuffer outbound = ByteBuffer.allocate(OUTBOUND_BUFFER_SIZE);
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<TurnAction>> turnRequests = new ConcurrentHashMap<>();
+    private final Map<Integer, CompletableFuture<CallAction>> callRequests = new ConcurrentHashMap<>();
+    private final TableStrategy blockingView = new BlockingView();
+    private SelectionKey key;
+    private String name;
+    private boolean flushScheduled = false;
+    private boolean closing = false;
+    private volatile boolean closed = false;
+
+    RemoteTableStrategy(TableNetworkServer server, IoLoop loop, SocketChannel channel){
+        this.server = server;
+        this.loop = loop;
+        this.channel = channel;
+    }
+
+    /**
+     * 入出力スレッドで接続をセレクタに登録します。
+     * @throws IOException 登録に失敗した場合
+     */
+    void register() throws IOException{
+        key = channel.register(loop.getSelector(), SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * プレイヤー名を取得します。
+     * @return 接続の開始時に通知されたプレイヤー名
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * 接続中かどうか検査します。
+     * @return true  接続中の場合
+     *         false 切断された場合
+     */
+    public boolean isOpen(){
+        return !closed;
+    }
+
+    /**
+     * 通知を遠隔のプレイヤーに転送し, 問い合わせの応答を待機するテーブル戦略を取得します。
+     *
+     * <p>返されるテーブル戦略の問い合わせは応答を受信するまで呼び出し元のスレッドを占有します。
+     * 入出力スレッドから呼び出してはいけません。
+     * @return テーブル戦略
+     */
+    public TableStrategy asTableStrategy(){
+        return blockingView;
+    }
+
+    @Override
+    public CompletionStage<TurnAction> askTurnAction(TurnPhaseContext context){
+        var future = new CompletableFuture<TurnAction>();
+        int requestId = nextRequestId.getAndIncrement();
+        turnRequests.put(requestId, future);
+        encodeTurnPrompt(requestId, context);
+        if(closed && turnRequests.remove(requestId)!=null){
+            future.completeExceptionally(new ClosedChannelException());
+        }
+        return future;
+    }
+
+    @Override
+    public CompletionStage<CallAction> askCallAction(CallPhaseContext context){
+        var future = new CompletableFuture<CallAction>();
+        int requestId = nextRequestId.getAndIncrement();
+        callRequests.put(requestId, future);
+        encodeCallPrompt(requestId, context);
+        if(closed && callRequests.remove(requestId)!=null){
+            future.completeExceptionally(new ClosedChannelException());
+        }
+        return future;
+    }
+
+    @Override
+    void frameEncoded(ByteBuffer frame){
+        boolean overflowed = false;
+        synchronized(outbound){
+            if(closed || closing){
+                return;
+            }
+            if(outbound.remaining()<frame.remaining()){
+                overflowed = true;
+            }else{
+                outbound.put(frame);
+                if(!flushScheduled){
+                    flushScheduled = true;
+                    loop.execute(this::flush);
+                }
+            }
+        }
+        if(overflowed){
+            abort(new IOException("outbound buffer overflow: "+name));
+        }
+    }
+
+    /**
+     * 入出力スレッドで送信用のバッファの内容を送信します。
+     *
+     * <p>送信しきれなかった場合は, 書き出し可能になった時点で再び送信します。
+     */
+    private void flush(){
+        synchronized(outbound){
+            flushScheduled = false;
+            if(closed){
+                return;
+            }
+            outbound.flip();
+            try{
+                server.bytesSent(channel.write(outbound));
+            }catch(IOException e){
+                outbound.compact();
+                abort(e);
+                return;
+            }
+            boolean drained = !outbound.hasRemaining();
+            outbound.compact();
+            if(drained && closing){
+                abort(null);
+                return;
+            }
+            key.interestOps(drained? SelectionKey.OP_READ:SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    @Override
+    public void handle(SelectionKey key){
+        try{
+            if(key.isWritable()){
+                flush();
+            }
+            if(key.isValid() && key.isReadable()){
+                read();
+            }
+        }catch(IOException | RuntimeException e){
+            abort(e);
+        }
+    }
+
+    private void read() throws IOException{
+        int read = channel.read(inbound);
+        if(read<0){
+            abort(null);
+            return;
+        }
+        server.bytesReceived(read);
+        inbound.flip();
+        while(inbound.remaining()>=FRAME_HEADER_SIZE){
+            int length = inbound.getShort(inbound.position()) & 0xFFFF;
+            if(length==0 || length>MAX_FRAME_SIZE - FRAME_HEADER_SIZE){
+                throw new IOException("invalid frame length: "+length);
+            }
+            if(inbound.remaining()<FRAME_HEADER_SIZE + length){
+                break;
+            }
+            int limit = inbound.limit();
+            int end = inbound.position() + FRAME_HEADER_SIZE + length;
+            inbound.position(inbound.position() + FRAME_HEADER_SIZE).limit(end);
+            received(inbound, loop.getDecoder());
+            inbound.limit(limit).position(end);
+        }
+        inbound.compact();
+    }
+
+    private void received(ByteBuffer frame, FrameDecoder decoder) throws IOException{
+        int type = frame.get() & 0xFF;
+        if(name==null){
+            if(type!=HELLO){
+                throw new IOException("hello expected: "+type);
+            }
+            name = decoder.decodeHello(frame);
+            server.connected(this);
+            return;
+        }
+        switch(type){
+            case TURN_REPLY:{
+                var future = turnRequests.remove(decoder.decodeRequestId(frame));
+                if(future==null){
+                    throw new IOException("unexpected turn reply");
+                }
+                future.complete(decoder.decodeTurnReply(frame));
+                return;
+            }
+            case CALL_REPLY:{
+                var future = callRequests.remove(decoder.decodeRequestId(frame));
+                if(future==null){
+                    throw new IOException("unexpected call reply");
+                }
+                future.complete(decoder.decodeCallReply(frame));
+                return;
+            }
+            default:
+                throw new IOException("unexpected frame type: "+type);
+        }
+    }
+
+    /**
+     * 送信用のバッファの内容を送信した後, 接続を閉じます。
+     *
+     * <p>応答待ちの問い合わせは{@link ClosedChannelException}で例外的に完了します。
+     */
+    public void close(){
+        synchronized(outbound){
+            if(closed || closing){
+                return;
+            }
+            closing = true;
+            if(!flushScheduled){
+                flushScheduled = true;
+                loop.execute(this::flush);
+            }
+        }
+    }
+
+    /**
+     * 直ちに接続を閉じます。
+     * @param cause 切断の原因, 相手からの切断の場合はnull
+     */
+    void abort(Throwable cause){
+        synchronized(outbound){
+            if(closed){
+                return;
+            }
+            closed = true;
+        }
+        try{
+            channel.close();
+        }catch(IOException e){
+            // 切断時の失敗は無視します
+        }
+        var exception = new ClosedChannelException();
+        if(cause!=null){
+            exception.initCause(cause);
+        }
+        for(var requestId:turnRequests.keySet()){
+            var future = turnRequests.remove(requestId);
+            if(future!=null) future.completeExceptionally(exception);
+        }
+        for(var requestId:callRequests.keySet()){
+            var future = callRequests.remove(requestId);
+            if(future!=null) future.completeExceptionally(exception);
+        }
+        server.disconnected(this);
+    }
+
+    /**
+     * 通知を転送し, 問い合わせの応答を待機するテーブル戦略のクラス。
+     *
+     * <p>符号化には外側のインスタンスと同じ作業領域と送信用のバッファを用います。
+     */
+    private final class BlockingView extends FrameEncoder implements TableStrategy{
+        private BlockingView(){
+            super(RemoteTableStrategy.this.getBuffer());
+        }
+
+        @Override
+        void frameEncoded(ByteBuffer frame){
+            RemoteTableStrategy.this.frameEncoded(frame);
+        }
+
+        @Override
+        public void handUpdated(List<Tile> handTiles){
+            // 手牌の差分の基準は接続ごとに一つのため, 問い合わせと同じ符号化器で符号化します
+            RemoteTableStrategy.this.handUpdated(handTiles);
+        }
+
+        @Override
+        public TurnAction askTurnAction(TurnPhaseContext context){
+            return RemoteTableStrategy.this.askTurnAction(context).toCompletableFuture().join();
+        }
+
+        @Override
+        public CallAction askCallAction(CallPhaseContext context){
+            return RemoteTableStrategy.this.askCallAction(context).toCompletableFuture().join();
+        }
+    }
+}
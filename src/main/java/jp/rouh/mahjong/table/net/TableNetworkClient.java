@@ -0,0 +1,223 @@
+package jp.rouh.mahjong.table.net;
+
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.record.TableEventDecoder;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static jp.rouh.mahjong.table.net.NetworkProtocol.*;
+
+/**
+ * {@link TableNetworkServer}に接続し, 手元のテーブル戦略を遠隔の卓に参加させるクラス。
+ *
+ * <p>受信した通知は手元のテーブル戦略に配送され, 問い合わせは手元のテーブル戦略に転送して
+ * その応答を送信します。受信は{@link AsynchronousSocketChannel}で行い,
+ * 通知の配送と問い合わせはチャネルグループのスレッドで行われます。
+ * 一つの接続の通知と問い合わせは受信した順に一つずつ行われるため,
+ * テーブル戦略に同期は不要です。
+ * <p>問い合わせの間は受信が止まるため, 人間のプレイヤーの入力を待つ戦略など,
+ * 応答に時間を要するテーブル戦略を用いる場合はチャネルグループのスレッド数に注意してください。
+ * @see RemoteTableStrategy
+ * @author Rouh
+ * @version 1.0
+ */
+public class TableNetworkClient implements AutoCloseable{
+    private static final int BUFFER_SIZE = MAX_FRAME_SIZE*2;
+    private final String name;
+    private final TableStrategy strategy;
+    private final AsynchronousSocketChannel channel;
+    private final ByteBuffer inbound = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer outbound = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer writing = ByteBuffer.allocate(BUFFER_SIZE);
+    private final FrameDecoder decoder = new FrameDecoder();
+    private final CompletableFuture<Void> closed = new CompletableFuture<>();
+    private final FrameEncoder encoder = new FrameEncoder(){
+        @Override
+        void frameEncoded(ByteBuffer frame){
+            send(frame);
+        }
+    };
+    private boolean writeInProgress = false;
+
+    /**
+     * コンストラクタ。
+     * @param name プレイヤー名
+     * @param strategy 手元のテーブル戦略
+     * @param group 受信と送信を行うチャネルグループ, 既定のグループを用いる場合はnull
+     * @throws IOException チャネルが開けない場合
+     */
+    public TableNetworkClient(String name, TableStrategy strategy, AsynchronousChannelGroup group) throws IOException{
+        this.name = name;
+        this.strategy = strategy;
+        this.channel = AsynchronousSocketChannel.open(group);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * サーバに接続し, 接続の開始を通知します。
+     * @param address サーバのアドレス
+     * @return 接続の開始を送信した時点で完了する段階
+     */
+    public CompletionStage<Void> connect(SocketAddress address){
+        var connected = new CompletableFuture<Void>();
+        channel.connect(address, null, new CompletionHandler<Void, Void>(){
+            @Override
+            public void completed(Void result, Void attachment){
+                encoder.encodeHello(name);
+                receive();
+                connected.complete(null);
+            }
+            @Override
+            public void failed(Throwable e, Void attachment){
+                close(e);
+                connected.completeExceptionally(e);
+            }
+        });
+        return connected;
+    }
+
+    /**
+     * 接続が閉じられた時点で完了する段階を取得します。
+     *
+     * <p>サーバから切断された場合は正常に, 通信の失敗やテーブル戦略の例外により
+     * 切断された場合はその例外で完了します。
+     * @return 切断の段階
+     */
+    public CompletionStage<Void> getClosed(){
+        return closed.minimalCompletionStage();
+    }
+
+    private void receive(){
+        channel.read(inbound, null, new CompletionHandler<Integer, Void>(){
+            @Override
+            public void completed(Integer read, Void attachment){
+                if(read<0){
+                    close(null);
+                    return;
+                }
+                try{
+                    inbound.flip();
+                    while(inbound.remaining()>=FRAME_HEADER_SIZE){
+                        int length = inbound.getShort(inbound.position()) & 0xFFFF;
+                        if(length==0 || length>MAX_FRAME_SIZE - FRAME_HEADER_SIZE){
+                            throw new IOException("invalid frame length: "+length);
+                        }
+                        if(inbound.remaining()<FRAME_HEADER_SIZE + length){
+                            break;
+                        }
+                        int limit = inbound.limit();
+                        int end = inbound.position() + FRAME_HEADER_SIZE + length;
+                        inbound.position(inbound.position() + FRAME_HEADER_SIZE).limit(end);
+                        received(inbound);
+                        inbound.limit(limit).position(end);
+                    }
+                    inbound.compact();
+                }catch(IOException | RuntimeException e){
+                    close(e);
+                    return;
+                }
+                receive();
+            }
+            @Override
+            public void failed(Throwable e, Void attachment){
+                close(e);
+            }
+        });
+    }
+
+    private void received(ByteBuffer frame) throws IOException{
+        int opcode = frame.get() & 0xFF;
+        if(TableEventDecoder.isEvent(opcode)){
+            decoder.decode(opcode, frame);
+            decoder.dispatchTo(strategy);
+            return;
+        }
+        switch(opcode){
+            case TURN_PROMPT:{
+                int requestId = decoder.decodeRequestId(frame);
+                encoder.encodeTurnReply(requestId, strategy.askTurnAction(decoder.decodeTurnPrompt(frame)));
+                return;
+            }
+            case CALL_PROMPT:{
+                int requestId = decoder.decodeRequestId(frame);
+                encoder.encodeCallReply(requestId, strategy.askCallAction(decoder.decodeCallPrompt(frame)));
+                return;
+            }
+            default:
+                throw new IOException("unexpected frame type: "+opcode);
+        }
+    }
+
+    private void send(ByteBuffer frame){
+        synchronized(outbound){
+            if(outbound.remaining()<frame.remaining()){
+                throw new IllegalStateException("outbound buffer overflow");
+            }
+            outbound.put(frame);
+            if(!writeInProgress){
+                writeInProgress = true;
+                write();
+            }
+        }
+    }
+
+    /**
+     * 送信用のバッファの内容を書き出し用のバッファに移して書き出しを開始します。
+     *
+     * <p>チャネルは同時に一つの書き出ししか受け付けないため,
+     * 書き出し中に追加されたフレームは書き出しの完了後にまとめて書き出します。
+     */
+    private void write(){
+        writing.clear();
+        outbound.flip();
+        writing.put(outbound).flip();
+        outbound.clear();
+        channel.write(writing, null, new CompletionHandler<Integer, Void>(){
+            @Override
+            public void completed(Integer written, Void attachment){
+                synchronized(outbound){
+                    if(writing.hasRemaining()){
+                        channel.write(writing, null, this);
+                    }else if(outbound.position()>0){
+                        write();
+                    }else{
+                        writeInProgress = false;
+                    }
+                }
+            }
+            @Override
+            public void failed(Throwable e, Void attachment){
+                close(e);
+            }
+        });
+    }
+
+    private void close(Throwable cause){
+        try{
+            channel.close();
+        }catch(IOException e){
+            // 切断時の失敗は無視します
+        }
+        if(cause==null){
+            closed.complete(null);
+        }else{
+            closed.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 接続を閉じます。
+     */
+    @Override
+    public void close(){
+        close(null);
+    }
+}
@@ -0,0 +1,161 @@
+package jp.rouh.mahjong.table.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 遠隔のプレイヤーの接続を受け付けるサーバのクラス。
+ *
+ * <p>接続は少数の入出力スレッドに振り分けられ, 各スレッドが一つの{@link java.nio.channels.Selector}で
+ * 担当する全ての接続の読み出しと書き出しを行います。接続ごとのスレッドは生成しないため,
+ * 数千の接続を数本のスレッドで扱うことができます。
+ * <p>接続したプレイヤーが接続の開始を通知した時点で, そのプレイヤーを表す
+ * {@link RemoteTableStrategy}が受付時の処理に渡されます。受付時の処理および
+ * 問い合わせの段階の完了に続く処理は入出力スレッドで実行されるため,
+ * 長時間の処理や待機を行ってはいけません。局を{@link jp.rouh.mahjong.table.round.FieldRound#startAsync}で
+ * 進行させる場合, 局の進行は応答を受信した入出力スレッドで行われます。
+ * @see TableNetworkClient
+ * @author Rouh
+ * @version 1.0
+ */
+public class TableNetworkServer implements AutoCloseable{
+    private final ServerSocketChannel serverChannel;
+    private final IoLoop[] loops;
+    private final Consumer<RemoteTableStrategy> handler;
+    private final Set<RemoteTableStrategy> connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder sentByteCount = new LongAdder();
+    private final LongAdder receivedByteCount = new LongAdder();
+    private int nextLoop = 0;
+
+    /**
+     * 指定したアドレスで接続の受付を開始します。
+     * @param address 待ち受けるアドレス, ポート番号が0の場合は空いているポートを利用します
+     * @param ioThreadCount 入出力スレッドの数(1..)
+     * @param handler 接続を開始したプレイヤーの受付時の処理
+     * @throws IllegalArgumentException 入出力スレッドの数が1未満の場合
+     * @throws IOException アドレスで待ち受けできない場合
+     */
+    public TableNetworkServer(InetSocketAddress address, int ioThreadCount,
+                              Consumer<RemoteTableStrategy> handler) throws IOException{
+        if(ioThreadCount<1){
+            throw new IllegalArgumentException("invalid io thread count: "+ioThreadCount);
+        }
+        this.handler = handler;
+        this.loops = new IoLoop[ioThreadCount];
+        this.serverChannel = ServerSocketChannel.open();
+        try{
+            for(int i = 0; i<ioThreadCount; i++){
+                loops[i] = new IoLoop("table-network-"+i);
+            }
+            serverChannel.bind(address, 1024);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(loops[0].getSelector(), SelectionKey.OP_ACCEPT, (IoLoop.Handler)key->accept());
+        }catch(IOException e){
+            close();
+            throw e;
+        }
+        for(var loop:loops){
+            loop.start();
+        }
+    }
+
+    private void accept(){
+        try{
+            SocketChannel channel;
+            while((channel = serverChannel.accept())!=null){
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                var loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1)%loops.length;
+                var connection = new RemoteTableStrategy(this, loop, channel);
+                connections.add(connection);
+                loop.execute(()->{
+                    try{
+                        connection.register();
+                    }catch(IOException e){
+                        connection.abort(e);
+                    }
+                });
+            }
+        }catch(IOException e){
+            // 受付に失敗した接続は破棄し, 受付を継続します
+        }
+    }
+
+    /**
+     * 待ち受けているアドレスを取得します。
+     * @throws IOException アドレスが取得できない場合
+     * @return アドレス
+     */
+    public InetSocketAddress getLocalAddress() throws IOException{
+        return (InetSocketAddress)serverChannel.getLocalAddress();
+    }
+
+    /**
+     * 接続中のプレイヤーの数を取得します。
+     *
+     * <p>接続の開始を通知していない接続を含みます。
+     * @return 接続の数
+     */
+    public int getConnectionCount(){
+        return connections.size();
+    }
+
+    /**
+     * 全ての接続で送信したバイト数を取得します。
+     * @return 送信したバイト数
+     */
+    public long getSentByteCount(){
+        return sentByteCount.sum();
+    }
+
+    /**
+     * 全ての接続で受信したバイト数を取得します。
+     * @return 受信したバイト数
+     */
+    public long getReceivedByteCount(){
+        return receivedByteCount.sum();
+    }
+
+    void connected(RemoteTableStrategy connection){
+        handler.accept(connection);
+    }
+
+    void disconnected(RemoteTableStrategy connection){
+        connections.remove(connection);
+    }
+
+    void bytesSent(int count){
+        sentByteCount.add(count);
+    }
+
+    void bytesReceived(int count){
+        receivedByteCount.add(count);
+    }
+
+    /**
+     * 受付を停止し, 全ての接続を直ちに閉じます。
+     */
+    @Override
+    public void close(){
+        try{
+            serverChannel.close();
+        }catch(IOException e){
+            // 停止時の失敗は無視します
+        }
+        for(var connection:connections){
+            connection.abort(null);
+        }
+        for(var loop:loops){
+            if(loop!=null) loop.stop();
+        }
+    }
+}
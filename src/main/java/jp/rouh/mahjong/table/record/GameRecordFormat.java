@@ -0,0 +1,101 @@
+package jp.rouh.mahjong.table.record;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 牌譜ファイルの形式を定義するクラス。
+ *
+ * <p>牌譜ファイルは先頭のヘッダ(マジックナンバー4バイト, 版数1バイト)に続き,
+ * 対局ごとのレコードを連続して格納します。
+ * 対局は開始レコードで始まり, 通知レコードの並びを経て終了レコードで終わります。
+ * <p>各レコードの先頭1バイトは命令バイトで, 下位5ビットが種別,
+ * 続く2ビットが相対位置(もしくは風)を表します。
+ * 種別0..20は{@link jp.rouh.mahjong.table.TableEvent.Type}の序数に対応し,
+ * 21は自家の手牌の同期, 30は対局開始, 31は対局終了を表します。
+ * <p>命令バイトに続く内容は種別ごとに以下の通りです。
+ * <ul>
+ *     <li>牌は序数を6ビットで表し, 単独の牌は1バイトで格納します。</li>
+ *     <li>牌のリストは長さ(可変長整数)に続き, 牌を6ビットずつ詰めて格納します。</li>
+ *     <li>局数や本場などの計数は可変長整数(7ビットずつ, 上位ビットが継続フラグ)で格納します。</li>
+ *     <li>点数はジグザグ符号化した可変長整数で格納します。</li>
+ *     <li>文字列はバイト長(可変長整数)に続きUTF-8で格納します。</li>
+ * </ul>
+ * <p>自家の手牌の同期は, 手牌の更新ごとに増加する6ビットの通番と差分フラグを詰めた1バイトに続き,
+ * キーフレームの場合は手牌の全体を牌のリストとして格納します。
+ * 差分の場合は除く牌と加える牌の数(4ビットずつ)の1バイトに続き, 直前の手牌から除く牌の位置(5ビット)の列と,
+ * 更新後の手牌に加える牌の位置(5ビット)と牌(6ビット)の組の列を詰めて格納します。
+ * 差分は直前の通番の手牌を受け取った読み出し側でのみ復元できます。
+ * <p>対局開始レコードは対局の内容のバイト長(4バイト固定)と対局番号(可変長整数)を持ち,
+ * 読み出し側は対局の内容を読まずに次の対局まで移動できます。
+ * @author Rouh
+ * @version 1.0
+ */
+final class GameRecordFormat{
+    private GameRecordFormat(){
+        throw new AssertionError("no instance");
+    }
+
+    /** マジックナンバー("RMGR") */
+    static final int MAGIC = 0x524D4752;
+
+    /** 形式の版数 */
+    static final byte VERSION = 2;
+
+    /** ファイルヘッダのバイト長 */
+    static final int HEADER_SIZE = 5;
+
+    /** 自家の手牌の同期の種別 */
+    static final int HAND_SYNC = 21;
+
+    /** 自家の手牌の同期の通番のマスク */
+    static final int HAND_SEQUENCE_MASK = 0x3F;
+
+    /** 対局開始の種別 */
+    static final int GAME_START = 30;
+
+    /** 対局終了の種別 */
+    static final int GAME_END = 31;
+
+    /** 命令バイトの種別のマスク */
+    static final int TYPE_MASK = 0x1F;
+
+    /** 命令バイトの相対位置のシフト量 */
+    static final int SIDE_SHIFT = 5;
+
+    /** 文字列の最大バイト長 */
+    static final int MAX_TEXT_BYTES = 4096;
+
+    /** 牌のリストの最大の長さ */
+    static final int MAX_TILES = 32;
+
+    /** 1レコードの最大バイト長 */
+    static final int MAX_RECORD_SIZE = 1 + 5 + 5 + MAX_TEXT_BYTES + 5 + 5 + 5 + 2 + (MAX_TILES*6 + 7)/8;
+
+    static int opcode(int type, int side){
+        return type | side<<SIDE_SHIFT;
+    }
+
+    static void putVarInt(ByteBuffer buffer, int value){
+        while((value & ~0x7F)!=0){
+            buffer.put((byte)(value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value){
+        while((value & ~0x7FL)!=0){
+            buffer.put((byte)(value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    static int zigZag(int value){
+        return value<<1 ^ value>>31;
+    }
+
+    static int unZigZag(int value){
+        return value>>>1 ^ -(value & 1);
+    }
+}
@@ -0,0 +1,293 @@
+package jp.rouh.mahjong.table.record;
+
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static jp.rouh.mahjong.table.record.GameRecordFormat.*;
+
+/**
+ * 牌譜ファイルを読み出すクラス。
+ *
+ * <p>ファイルはメモリにマップして読み出します。
+ * 読み出しはカーソル形式で, {@link #nextGame}で次の対局へ,
+ * {@link #nextEvent}で対局中の次の通知へ移動し,
+ * 現在の通知の内容を各アクセサで取得します。
+ * 通知の内容は{@link TableEventDecoder}により読み出し器の内部の領域に展開されるため,
+ * 通知ごとのオブジェクトの生成は発生しません。
+ * 文字列や牌のリストをオブジェクトとして取得するメソッドのみ, 呼び出し時に生成を行います。
+ * <pre>{@code
+ *     try(var reader = new GameRecordReader(path)){
+ *         while(reader.nextGame()){
+ *             while(reader.nextEvent()){
+ *                 if(reader.getType()==TableEvent.Type.TILE_DISCARDED){
+ *                     counts[reader.getTile().ordinal()]++;
+ *                 }
+ *             }
+ *         }
+ *     }
+ * }</pre>
+ * <p>{@link #nextGame}は現在の対局の残りの通知を読まずに読み飛ばします。
+ * <p>このクラスはスレッドセーフではありません。
+ * @see GameRecordWriter
+ * @author Rouh
+ * @version 1.0
+ */
+public class GameRecordReader implements AutoCloseable{
+    private static final long WINDOW_SIZE = 1L<<26;
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long gameEnd = -1;
+    private long gameId;
+    private final TableEventDecoder event = new TableEventDecoder();
+
+    /**
+     * 牌譜ファイルを開きます。
+     * @param path ファイルのパス
+     * @throws IOException ファイルが開けない場合, 牌譜ファイルの形式でない場合
+     */
+    public GameRecordReader(Path path) throws IOException{
+        this.channel = FileChannel.open(path, READ);
+        this.fileSize = channel.size();
+        try{
+            map(0);
+            if(fileSize<HEADER_SIZE || window.getInt()!=MAGIC){
+                throw new IOException("not a game record file: "+path);
+            }
+            byte version = window.get();
+            if(version<1 || version>VERSION){
+                throw new IOException("unsupported game record version: "+version);
+            }
+        }catch(IOException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 指定した位置からファイルをマップします。
+     * @param position ファイル上の位置
+     * @throws IOException マップに失敗した場合
+     */
+    private void map(long position) throws IOException{
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+    }
+
+    private long position(){
+        return windowStart + window.position();
+    }
+
+    /**
+     * 現在位置から1レコード分がマップされた領域に収まるよう, 必要に応じて再マップします。
+     */
+    private void ensureRecord(){
+        if(window.remaining()<MAX_RECORD_SIZE && windowStart + window.limit()<fileSize){
+            seek(position());
+        }
+    }
+
+    private void seek(long position){
+        if(position<windowStart || position + MAX_RECORD_SIZE>windowStart + window.limit()
+                && windowStart + window.limit()<fileSize){
+            try{
+                map(position);
+            }catch(IOException e){
+                throw new IllegalStateException("failed to map game record", e);
+            }
+        }else{
+            window.position((int)(position - windowStart));
+        }
+    }
+
+    /**
+     * 次の対局へ移動します。
+     *
+     * <p>現在の対局に未読の通知が残っている場合, それらは読み飛ばされます。
+     * @throws IllegalStateException ファイルの形式が不正な場合
+     * @return true  次の対局が存在する場合
+     *         false ファイルの終端に達した場合
+     */
+    public boolean nextGame(){
+        if(gameEnd>=0){
+            seek(gameEnd);
+            gameEnd = -1;
+        }
+        if(position()>=fileSize){
+            return false;
+        }
+        ensureRecord();
+        int opcode = window.get() & 0xFF;
+        if((opcode & TYPE_MASK)!=GAME_START){
+            throw new IllegalStateException("broken game record: game start expected at "+(position() - 1));
+        }
+        int length = window.getInt();
+        gameEnd = position() + length;
+        gameId = TableEventDecoder.readVarLong(window);
+        event.clear();
+        return true;
+    }
+
+    /**
+     * 現在の対局の次の通知へ移動します。
+     * @throws IllegalStateException 対局に移動していない場合, ファイルの形式が不正な場合
+     * @return true  次の通知が存在する場合
+     *         false 対局の終端に達した場合
+     */
+    public boolean nextEvent(){
+        if(gameEnd<0){
+            throw new IllegalStateException("no current game");
+        }
+        ensureRecord();
+        int opcode = window.get() & 0xFF;
+        int code = opcode & TYPE_MASK;
+        if(code==GAME_END){
+            event.clear();
+            return false;
+        }
+        if(!TableEventDecoder.isEvent(opcode)){
+            throw new IllegalStateException("broken game record: unknown opcode "+opcode);
+        }
+        event.decode(opcode, window);
+        return true;
+    }
+
+    /**
+     * 現在の対局の対局番号を取得します。
+     * @return 対局番号
+     */
+    public long getGameId(){
+        return gameId;
+    }
+
+    /**
+     * 現在の通知の種別を取得します。
+     * @throws NoSuchElementException 通知に移動していない場合
+     * @return 通知の種別
+     */
+    public TableEvent.Type getType(){
+        return event.getType();
+    }
+
+    /**
+     * 現在の通知の相対位置を取得します。
+     * @return 相対位置
+     */
+    public Side getSide(){
+        return event.getSide();
+    }
+
+    /**
+     * 現在の通知の風を取得します。
+     *
+     * <p>{@link TableEvent.Type#SEAT_UPDATED}および{@link TableEvent.Type#ROUND_STARTED}でのみ有効です。
+     * @return 風
+     */
+    public Wind getWind(){
+        return event.getWind();
+    }
+
+    /**
+     * 現在の通知の副露の横向きの牌の相対位置を取得します。
+     *
+     * <p>{@link TableEvent.Type#TILT_MELD_ADDED}でのみ有効です。
+     * @return 相対位置
+     */
+    public Side getTilt(){
+        return event.getTilt();
+    }
+
+    /**
+     * 現在の通知の牌を取得します。
+     * @return 牌
+     */
+    public Tile getTile(){
+        return event.getTile();
+    }
+
+    /**
+     * 現在の通知の整数の引数を取得します。
+     * @param index 引数の位置(0..2)
+     * @return 整数の引数
+     * @see TableEvent#getValue
+     */
+    public int getValue(int index){
+        return event.getValue(index);
+    }
+
+    /**
+     * 現在の通知の牌のリストの長さを取得します。
+     * @return 牌のリストの長さ
+     */
+    public int getTileCount(){
+        return event.getTileCount();
+    }
+
+    /**
+     * 現在の通知の牌のリストの要素を取得します。
+     * @param index 牌のリストの位置
+     * @throws IndexOutOfBoundsException 位置が範囲外の場合
+     * @return 牌
+     */
+    public Tile getTile(int index){
+        return event.getTile(index);
+    }
+
+    /**
+     * 現在の通知の牌のリストを取得します。
+     *
+     * <p>このメソッドは呼び出しごとに新たなリストを生成します。
+     * @return 牌のリスト
+     */
+    public List<Tile> getTiles(){
+        return event.getTiles();
+    }
+
+    /**
+     * 現在の通知の文字列を取得します。
+     *
+     * <p>このメソッドは呼び出しごとに新たな文字列を生成します。
+     * @return 文字列
+     */
+    public String getText(){
+        return event.getText();
+    }
+
+    /**
+     * 現在の通知の宣言を取得します。
+     *
+     * <p>{@link TableEvent.Type#DECLARED}でのみ有効です。
+     * @return 宣言
+     */
+    public Declaration getDeclaration(){
+        return event.getDeclaration();
+    }
+
+    /**
+     * 現在の通知を観測者に配送します。
+     * @param observer 観測者
+     */
+    public void dispatchTo(TableObserver observer){
+        event.dispatchTo(observer);
+    }
+
+    @Override
+    public void close() throws IOException{
+        window = null;
+        event.clear();
+        channel.close();
+    }
+}
@@ -0,0 +1,188 @@
+package jp.rouh.mahjong.table.record;
+
+import jp.rouh.mahjong.table.TableEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static jp.rouh.mahjong.table.record.GameRecordFormat.*;
+
+/**
+ * 卓上の変化の通知を牌譜ファイルに書き込むクラス。
+ *
+ * <p>このクラスは観測者として局に登録でき, 通知を受け取るたびに
+ * {@link TableEventEncoder}により符号化してバッファに追記します。
+ * 自家の手牌は差分として書き込み, 各対局の最初の手牌はキーフレームとして書き込みます。
+ * バッファが一杯になった時点でまとめてファイルに書き出すため,
+ * 通知ごとのシステムコールや一時オブジェクトの生成は発生しません。
+ * <p>通知は{@link #startGame}と{@link #endGame}の間で行う必要があります。
+ * 対局の内容のバイト長は対局終了時に開始レコードへ書き戻されます。
+ * <p>このクラスはスレッドセーフではありません。
+ * 複数の対局を並行して記録する場合は, 対局ごとにファイルを分けてください。
+ * 入出力エラーは{@link UncheckedIOException}として送出されます。
+ * @see GameRecordReader
+ * @author Rouh
+ * @version 1.0
+ */
+public class GameRecordWriter extends TableEventEncoder implements AutoCloseable{
+    private static final int BUFFER_SIZE = 1<<16;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final ByteBuffer patch = ByteBuffer.allocate(4);
+    private long flushedSize = 0;
+    private long lengthPosition = -1;
+    private long gameCount = 0;
+
+    /**
+     * 牌譜ファイルを新規に作成し, 書き込みを開始します。
+     *
+     * <p>既にファイルが存在する場合は内容が破棄されます。
+     * @param path ファイルのパス
+     * @throws IOException ファイルが作成できない場合
+     */
+    public GameRecordWriter(Path path) throws IOException{
+        this(FileChannel.open(path, CREATE, TRUNCATE_EXISTING, WRITE));
+    }
+
+    /**
+     * ファイルチャネルに対して書き込みを開始します。
+     *
+     * <p>チャネルの現在位置にファイルヘッダを書き込みます。
+     * チャネルはこの書き込み器を閉じる際に合わせて閉じられます。
+     * @param channel 書き込み先のファイルチャネル
+     * @throws IOException チャネルの位置が取得できない場合
+     */
+    public GameRecordWriter(FileChannel channel) throws IOException{
+        this(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+    }
+
+    private GameRecordWriter(FileChannel channel, ByteBuffer buffer) throws IOException{
+        super(buffer, DEFAULT_KEYFRAME_INTERVAL);
+        this.buffer = buffer;
+        this.channel = channel;
+        this.flushedSize = channel.position();
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+    }
+
+    /**
+     * 対局の記録を開始します。
+     * @param gameId 対局番号
+     * @throws IllegalStateException 前の対局の記録が終了していない場合
+     */
+    public void startGame(long gameId){
+        if(lengthPosition>=0){
+            throw new IllegalStateException("previous game not ended");
+        }
+        reserve();
+        buffer.put((byte)opcode(GAME_START, 0));
+        lengthPosition = flushedSize + buffer.position();
+        buffer.putInt(0);
+        putVarLong(gameId);
+        requestKeyframe();
+    }
+
+    /**
+     * 対局の記録を終了します。
+     *
+     * <p>対局の内容のバイト長を開始レコードに書き戻します。
+     * @throws IllegalStateException 対局の記録が開始されていない場合
+     */
+    public void endGame(){
+        if(lengthPosition<0){
+            throw new IllegalStateException("game not started");
+        }
+        reserve();
+        long length = flushedSize + buffer.position() + 1 - lengthPosition - 4;
+        if(length>Integer.MAX_VALUE){
+            throw new IllegalStateException("game record too large: "+length);
+        }
+        buffer.put((byte)opcode(GAME_END, 0));
+        if(lengthPosition>=flushedSize){
+            buffer.putInt((int)(lengthPosition - flushedSize), (int)length);
+        }else{
+            patch.clear();
+            patch.putInt((int)length).flip();
+            try{
+                while(patch.hasRemaining()){
+                    channel.write(patch, lengthPosition + patch.position());
+                }
+            }catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+        lengthPosition = -1;
+        gameCount++;
+    }
+
+    /**
+     * 記録を終了した対局の数を取得します。
+     * @return 対局の数
+     */
+    public long getGameCount(){
+        return gameCount;
+    }
+
+    /**
+     * 通知イベントを書き込みます。
+     * @param event 通知イベント
+     */
+    public void write(TableEvent event){
+        encode(event);
+    }
+
+    /**
+     * バッファの内容をファイルに書き出します。
+     */
+    public void flush(){
+        buffer.flip();
+        try{
+            while(buffer.hasRemaining()){
+                flushedSize += channel.write(buffer);
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * バッファの内容を書き出してファイルを閉じます。
+     * @throws IllegalStateException 対局の記録が終了していない場合
+     * @throws IOException ファイルが閉じられない場合
+     */
+    @Override
+    public void close() throws IOException{
+        try{
+            if(lengthPosition>=0){
+                throw new IllegalStateException("game not ended");
+            }
+            flush();
+        }finally{
+            channel.close();
+        }
+    }
+
+    /**
+     * 1レコード分の空きをバッファに確保します。
+     */
+    private void reserve(){
+        if(buffer.remaining()<MAX_RECORD_SIZE){
+            flush();
+        }
+    }
+
+    @Override
+    protected void beforeRecord(){
+        if(lengthPosition<0){
+            throw new IllegalStateException("game not started");
+        }
+        reserve();
+    }
+}
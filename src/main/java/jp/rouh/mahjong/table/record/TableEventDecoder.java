@@ -0,0 +1,440 @@
+package jp.rouh.mahjong.table.record;
+
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static jp.rouh.mahjong.table.record.GameRecordFormat.*;
+
+/**
+ * {@link TableEventEncoder}で符号化された通知レコードを復号するクラス。
+ *
+ * <p>{@link #decode}で読み出した通知の内容は復号器の内部の領域に展開され,
+ * 各アクセサで取得します。次の通知を復号するまで内容は保持されます。
+ * 通知ごとのオブジェクトの生成は発生しません。
+ * 文字列や牌のリストをオブジェクトとして取得するメソッドのみ, 呼び出し時に生成を行います。
+ * <p>自家の手牌の同期は, 保持している直前の手牌に差分を適用して
+ * {@link TableEvent.Type#SELF_HAND_UPDATED}として復号します。
+ * 差分を復号するには, 同じ符号化器が符号化した直前の通番の手牌を復号している必要があります。
+ * <p>文字列は復号元のバッファ上の位置として保持されるため,
+ * 文字列を取得するまで復号元のバッファの内容を変更してはいけません。
+ * <p>このクラスはスレッドセーフではありません。
+ * @see TableEventEncoder
+ * @see GameRecordReader
+ * @author Rouh
+ * @version 1.0
+ */
+public class TableEventDecoder{
+    private static final TableEvent.Type[] TYPES = TableEvent.Type.values();
+    private static final Side[] SIDES = Side.values();
+    private static final Wind[] WINDS = Wind.values();
+    private static final Tile[] TILES = Tile.values();
+    private static final Declaration[] DECLARATIONS = Declaration.values();
+    private ByteBuffer source;
+    private TableEvent.Type type;
+    private int side;
+    private int wind;
+    private int tilt;
+    private int tile;
+    private int declaration;
+    private final int[] values = new int[3];
+    private final int[] tiles = new int[MAX_TILES];
+    private int tileCount;
+    private int textPosition;
+    private int textLength;
+    private final int[] hand = new int[MAX_TILES];
+    private final int[] addedIndices = new int[MAX_TILES];
+    private final int[] addedTiles = new int[MAX_TILES];
+    private int handSize = -1;
+    private int handSequence;
+
+    /**
+     * 命令バイトが通知レコードを表すかどうか検査します。
+     * @param opcode 命令バイト(0..255)
+     * @return true  通知レコードの場合
+     *         false 通知レコード以外の場合
+     */
+    public static boolean isEvent(int opcode){
+        int type = opcode & TYPE_MASK;
+        return type<TYPES.length || type==HAND_SYNC;
+    }
+
+    /**
+     * バッファの現在位置から通知レコードを1件復号します。
+     *
+     * <p>バッファの位置はレコードの直後に移動します。
+     * @param source 復号元のバッファ
+     * @throws IllegalArgumentException 通知レコードでない場合
+     */
+    public void decode(ByteBuffer source){
+        decode(source.get() & 0xFF, source);
+    }
+
+    /**
+     * 読み出し済みの命令バイトに続く通知レコードの内容を復号します。
+     * @param opcode 命令バイト(0..255)
+     * @param source 命令バイトの直後に位置する復号元のバッファ
+     * @throws IllegalArgumentException 通知レコードでない場合
+     * @throws IllegalStateException 手牌の差分の基準となる手牌を復号していない場合
+     */
+    public void decode(int opcode, ByteBuffer source){
+        if(!isEvent(opcode)){
+            throw new IllegalArgumentException("unknown opcode: "+opcode);
+        }
+        this.source = source;
+        if((opcode & TYPE_MASK)==HAND_SYNC){
+            this.type = TableEvent.Type.SELF_HAND_UPDATED;
+            this.side = 0;
+            readHand(source);
+            return;
+        }
+        this.type = TYPES[opcode & TYPE_MASK];
+        this.side = opcode>>>SIDE_SHIFT & 3;
+        switch(type){
+            case SEAT_UPDATED:
+                wind = source.get();
+                values[0] = unZigZag(readVarInt(source));
+                readText(source);
+                return;
+            case ROUND_STARTED:
+                wind = side;
+                values[0] = readVarInt(source);
+                values[1] = readVarInt(source);
+                values[2] = readVarInt(source);
+                return;
+            case ROUND_SETTLED:
+                readText(source);
+                return;
+            case DICE_ROLLED:
+                int dices = source.get();
+                values[0] = dices>>>4;
+                values[1] = dices & 0xF;
+                return;
+            case WALL_TILE_REVEALED:
+                readWallPosition(source);
+                tile = source.get();
+                return;
+            case WALL_TILE_TAKEN:
+                readWallPosition(source);
+                return;
+            case SELF_TILE_DRAWN:
+            case TILE_DISCARDED:
+            case TILE_DISCARDED_AS_READY:
+                tile = source.get();
+                return;
+            case HAND_UPDATED:
+                values[0] = readVarInt(source);
+                return;
+            case HAND_REVEALED_WITH_DRAWN:
+                tile = source.get();
+                readTiles(source);
+                return;
+            case SELF_HAND_UPDATED:
+            case HAND_REVEALED:
+            case SELF_QUAD_ADDED:
+                readTiles(source);
+                return;
+            case TILT_MELD_ADDED:
+                tilt = source.get();
+                readTiles(source);
+                return;
+            case MELD_TILE_ADDED:
+                int packed = source.get() & 0xFF;
+                values[0] = packed>>>6;
+                tile = packed & 0x3F;
+                return;
+            case DECLARED:
+                declaration = source.get();
+                return;
+            default:
+        }
+    }
+
+    /**
+     * 現在の通知と, 手牌の差分の基準となる手牌を破棄します。
+     */
+    public void clear(){
+        type = null;
+        source = null;
+        handSize = -1;
+    }
+
+    private void readWallPosition(ByteBuffer source){
+        int position = source.get();
+        values[0] = position>>>1;
+        values[1] = position & 1;
+    }
+
+    private void readText(ByteBuffer source){
+        textLength = readVarInt(source);
+        textPosition = source.position();
+        source.position(textPosition + textLength);
+    }
+
+    /**
+     * 長さに続けて6ビットずつ詰めて格納された牌のリストを読み出し,
+     * 現在の牌のリストとします。
+     * @param source 復号元のバッファ
+     * @return 牌のリストの長さ
+     */
+    protected final int readTiles(ByteBuffer source){
+        tileCount = readVarInt(source);
+        if(tileCount>MAX_TILES){
+            throw new IllegalArgumentException("too many tiles: "+tileCount);
+        }
+        int bits = 0;
+        int bitCount = 0;
+        for(int i = 0; i<tileCount; i++){
+            if(bitCount<6){
+                bits = bits<<8 | source.get() & 0xFF;
+                bitCount += 8;
+            }
+            bitCount -= 6;
+            tiles[i] = bits>>>bitCount & 0x3F;
+        }
+        return tileCount;
+    }
+
+    /**
+     * 通番に続けてキーフレームもしくは差分として格納された自家の手牌を読み出し,
+     * 現在の牌のリストとします。
+     * @param source 復号元のバッファ
+     * @throws IllegalStateException 差分の基準となる直前の通番の手牌を復号していない場合
+     * @return 牌のリストの長さ
+     */
+    protected final int readHand(ByteBuffer source){
+        int header = source.get() & 0xFF;
+        int sequence = header>>>1;
+        if((header & 1)==0){
+            readTiles(source);
+        }else{
+            if(handSize<0 || sequence!=(handSequence + 1 & HAND_SEQUENCE_MASK)){
+                throw new IllegalStateException("hand delta out of sequence: "+sequence);
+            }
+            int counts = source.get() & 0xFF;
+            int removedCount = counts>>>4;
+            int addedCount = counts & 0xF;
+            if(removedCount>handSize || addedCount>MAX_TILES - handSize + removedCount){
+                throw new IllegalArgumentException("invalid hand delta");
+            }
+            long removedMask = 0;
+            int bits = 0;
+            int bitCount = 0;
+            for(int i = 0; i<removedCount + addedCount; i++){
+                int width = i<removedCount? 5:11;
+                while(bitCount<width){
+                    bits = bits<<8 | source.get() & 0xFF;
+                    bitCount += 8;
+                }
+                bitCount -= width;
+                int value = bits>>>bitCount & (1<<width) - 1;
+                if(i<removedCount){
+                    removedMask |= 1L<<value;
+                }else{
+                    addedIndices[i - removedCount] = value>>>6;
+                    addedTiles[i - removedCount] = value & 0x3F;
+                }
+            }
+            tileCount = handSize - removedCount + addedCount;
+            int kept = 0;
+            int next = 0;
+            for(int i = 0; i<tileCount; i++){
+                if(next<addedCount && addedIndices[next]==i){
+                    tiles[i] = addedTiles[next++];
+                }else{
+                    while((removedMask & 1L<<kept)!=0) kept++;
+                    tiles[i] = hand[kept++];
+                }
+            }
+        }
+        System.arraycopy(tiles, 0, hand, 0, tileCount);
+        handSize = tileCount;
+        handSequence = sequence;
+        return tileCount;
+    }
+
+    /**
+     * 可変長整数を読み出します。
+     * @param source 復号元のバッファ
+     * @return 整数
+     */
+    protected static int readVarInt(ByteBuffer source){
+        int value = 0;
+        for(int shift = 0; ; shift += 7){
+            int b = source.get();
+            value |= (b & 0x7F)<<shift;
+            if(b>=0) return value;
+        }
+    }
+
+    /**
+     * 可変長整数を64ビットの整数として読み出します。
+     * @param source 復号元のバッファ
+     * @return 整数
+     */
+    protected static long readVarLong(ByteBuffer source){
+        long value = 0;
+        for(int shift = 0; ; shift += 7){
+            int b = source.get();
+            value |= (long)(b & 0x7F)<<shift;
+            if(b>=0) return value;
+        }
+    }
+
+    /**
+     * 現在の通知の種別を取得します。
+     * @throws NoSuchElementException 通知を復号していない場合
+     * @return 通知の種別
+     */
+    public TableEvent.Type getType(){
+        if(type==null){
+            throw new NoSuchElementException("no current event");
+        }
+        return type;
+    }
+
+    /**
+     * 現在の通知の相対位置を取得します。
+     * @return 相対位置
+     */
+    public Side getSide(){
+        return SIDES[side];
+    }
+
+    /**
+     * 現在の通知の風を取得します。
+     *
+     * <p>{@link TableEvent.Type#SEAT_UPDATED}および{@link TableEvent.Type#ROUND_STARTED}でのみ有効です。
+     * @return 風
+     */
+    public Wind getWind(){
+        return WINDS[wind];
+    }
+
+    /**
+     * 現在の通知の副露の横向きの牌の相対位置を取得します。
+     *
+     * <p>{@link TableEvent.Type#TILT_MELD_ADDED}でのみ有効です。
+     * @return 相対位置
+     */
+    public Side getTilt(){
+        return SIDES[tilt];
+    }
+
+    /**
+     * 現在の通知の牌を取得します。
+     * @return 牌
+     */
+    public Tile getTile(){
+        return TILES[tile];
+    }
+
+    /**
+     * 現在の通知の整数の引数を取得します。
+     * @param index 引数の位置(0..2)
+     * @return 整数の引数
+     * @see TableEvent#getValue
+     */
+    public int getValue(int index){
+        return values[index];
+    }
+
+    /**
+     * 現在の通知の牌のリストの長さを取得します。
+     * @return 牌のリストの長さ
+     */
+    public int getTileCount(){
+        return tileCount;
+    }
+
+    /**
+     * 現在の通知の牌のリストの要素を取得します。
+     * @param index 牌のリストの位置
+     * @throws IndexOutOfBoundsException 位置が範囲外の場合
+     * @return 牌
+     */
+    public Tile getTile(int index){
+        if(index<0 || index>=tileCount){
+            throw new IndexOutOfBoundsException("index: "+index);
+        }
+        return TILES[tiles[index]];
+    }
+
+    /**
+     * 現在の通知の牌のリストを取得します。
+     *
+     * <p>このメソッドは呼び出しごとに新たなリストを生成します。
+     * @return 牌のリスト
+     */
+    public List<Tile> getTiles(){
+        var list = new ArrayList<Tile>(tileCount);
+        for(int i = 0; i<tileCount; i++){
+            list.add(TILES[tiles[i]]);
+        }
+        return list;
+    }
+
+    /**
+     * 現在の通知の文字列を取得します。
+     *
+     * <p>このメソッドは呼び出しごとに新たな文字列を生成します。
+     * @return 文字列
+     */
+    public String getText(){
+        var bytes = new byte[textLength];
+        for(int i = 0; i<textLength; i++){
+            bytes[i] = source.get(textPosition + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 現在の通知の宣言を取得します。
+     *
+     * <p>{@link TableEvent.Type#DECLARED}でのみ有効です。
+     * @return 宣言
+     */
+    public Declaration getDeclaration(){
+        return DECLARATIONS[declaration];
+    }
+
+    /**
+     * 現在の通知を観測者に配送します。
+     * @param observer 観測者
+     */
+    public void dispatchTo(TableObserver observer){
+        switch(getType()){
+            case SEAT_UPDATED: observer.seatUpdated(getSide(), getWind(), getText(), values[0]); return;
+            case ROUND_STARTED: observer.roundStarted(getWind(), values[0], values[1], values[2]); return;
+            case ROUND_SETTLED: observer.roundSettled(getText()); return;
+            case DICE_ROLLED: observer.diceRolled(getSide(), values[0], values[1]); return;
+            case WALL_GENERATED: observer.wallGenerated(); return;
+            case WALL_TILE_TAKEN: observer.wallTileTaken(getSide(), values[0], values[1]); return;
+            case WALL_TILE_REVEALED: observer.wallTileRevealed(getSide(), values[0], values[1], getTile()); return;
+            case TILE_DRAWN: observer.tileDrawn(getSide()); return;
+            case SELF_TILE_DRAWN: observer.tileDrawn(getTile()); return;
+            case HAND_UPDATED: observer.handUpdated(getSide(), values[0]); return;
+            case SELF_HAND_UPDATED: observer.handUpdated(getTiles()); return;
+            case HAND_REVEALED: observer.handRevealed(getSide(), getTiles()); return;
+            case HAND_REVEALED_WITH_DRAWN: observer.handRevealed(getSide(), getTiles(), getTile()); return;
+            case TILE_DISCARDED: observer.tileDiscarded(getSide(), getTile()); return;
+            case TILE_DISCARDED_AS_READY: observer.tileDiscardedAsReady(getSide(), getTile()); return;
+            case RIVER_TILE_TAKEN: observer.riverTileTaken(getSide()); return;
+            case TILT_MELD_ADDED: observer.tiltMeldAdded(getSide(), getTilt(), getTiles()); return;
+            case SELF_QUAD_ADDED: observer.selfQuadAdded(getSide(), getTiles()); return;
+            case MELD_TILE_ADDED: observer.meldTileAdded(getSide(), values[0], getTile()); return;
+            case READY_BONE_ADDED: observer.readyBoneAdded(getSide()); return;
+            case DECLARED: observer.declared(getSide(), getDeclaration()); return;
+        }
+        throw new AssertionError("implementation error");
+    }
+}
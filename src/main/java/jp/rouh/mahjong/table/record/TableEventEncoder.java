@@ -0,0 +1,467 @@
+package jp.rouh.mahjong.table.record;
+
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static jp.rouh.mahjong.table.record.GameRecordFormat.*;
+
+/**
+ * 卓上の変化の通知をバイナリ形式に符号化するクラス。
+ *
+ * <p>このクラスは観測者として局に登録でき, 通知を受け取るたびに
+ * {@link GameRecordFormat}の通知レコードの形式に符号化してバッファに追記します。
+ * 符号化の際に一時オブジェクトは生成しません。
+ * <p>通知レコードの前後でそれぞれ{@link #beforeRecord}と{@link #afterRecord}が呼び出されます。
+ * サブクラスはこれらを上書きして, バッファの空きの確保やレコードの区切りの書き込みを行います。
+ * バッファには少なくとも{@link #MAX_RECORD_SIZE}バイトの空きが必要です。
+ * <p>キーフレームの間隔を指定した場合, 自家の手牌の通知は直前に符号化した手牌との差分として符号化します。
+ * 差分は直前の手牌から除く牌と新たに加える牌のみを持ち, 指定した間隔ごと,
+ * もしくは差分が手牌の全体より大きくなる場合には手牌の全体をキーフレームとして符号化します。
+ * 差分の基準となる手牌は符号化器ごとに保持されるため, 符号化器は購読者ごとに用意してください。
+ * <p>このクラスはスレッドセーフではありません。
+ * @see TableEventDecoder
+ * @see GameRecordWriter
+ * @author Rouh
+ * @version 1.0
+ */
+public class TableEventEncoder implements TableObserver{
+
+    /** 通知レコード1件の最大バイト長 */
+    public static final int MAX_RECORD_SIZE = GameRecordFormat.MAX_RECORD_SIZE;
+
+    /** 自家の手牌のキーフレームの既定の間隔 */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+    /** 差分として符号化する手牌の編集の最大数 */
+    private static final int MAX_EDITS = 30;
+
+    private final ByteBuffer buffer;
+    private final int keyframeInterval;
+    private final int[] hand = new int[MAX_TILES];
+    private final int[] nextHand = new int[MAX_TILES];
+    private final int[] removed = new int[MAX_TILES];
+    private final int[] added = new int[MAX_TILES];
+    private final int[][] trace = new int[MAX_EDITS + 1][MAX_TILES*2 + 1];
+    private int handSize = -1;
+    private int handSequence = 0;
+    private int removedCount;
+    private int addedCount;
+
+    /**
+     * 自家の手牌を常に全体で符号化する符号化器を生成します。
+     * @param buffer 符号化先のバッファ
+     */
+    public TableEventEncoder(ByteBuffer buffer){
+        this(buffer, 0);
+    }
+
+    /**
+     * 自家の手牌を差分で符号化する符号化器を生成します。
+     * @param buffer 符号化先のバッファ
+     * @param keyframeInterval 自家の手牌のキーフレームの間隔(1..), 差分を用いない場合は0
+     * @throws IllegalArgumentException キーフレームの間隔が負の場合
+     */
+    public TableEventEncoder(ByteBuffer buffer, int keyframeInterval){
+        if(keyframeInterval<0){
+            throw new IllegalArgumentException("invalid keyframe interval: "+keyframeInterval);
+        }
+        this.buffer = buffer;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * 符号化先のバッファを取得します。
+     * @return バッファ
+     */
+    protected final ByteBuffer getBuffer(){
+        return buffer;
+    }
+
+    /**
+     * 通知イベントを符号化します。
+     * @param event 通知イベント
+     */
+    public void encode(TableEvent event){
+        event.dispatchTo(this);
+    }
+
+    /**
+     * 通知レコードを書き込む直前に呼び出されます。
+     */
+    protected void beforeRecord(){
+    }
+
+    /**
+     * 通知レコードを書き込んだ直後に呼び出されます。
+     */
+    protected void afterRecord(){
+    }
+
+    /**
+     * 次の自家の手牌をキーフレームとして符号化するよう要求します。
+     *
+     * <p>購読者が差分の基準となる手牌を失った場合や, 読み出し側が途中から読み出す区切りで利用します。
+     */
+    public void requestKeyframe(){
+        handSize = -1;
+    }
+
+    private void begin(TableEvent.Type type, int side){
+        begin(type.ordinal(), side);
+    }
+
+    private void begin(int type, int side){
+        beforeRecord();
+        buffer.put((byte)opcode(type, side));
+    }
+
+    private void begin(TableEvent.Type type, Side side){
+        begin(type, side.ordinal());
+    }
+
+    /**
+     * 可変長整数を書き込みます。
+     * @param value 0以上の整数
+     */
+    protected final void putVarInt(int value){
+        GameRecordFormat.putVarInt(buffer, value);
+    }
+
+    /**
+     * 64ビットの整数を可変長整数として書き込みます。
+     * @param value 整数
+     */
+    protected final void putVarLong(long value){
+        GameRecordFormat.putVarLong(buffer, value);
+    }
+
+    /**
+     * 牌を1バイトで書き込みます。
+     * @param tile 牌
+     */
+    protected final void putTile(Tile tile){
+        buffer.put((byte)tile.ordinal());
+    }
+
+    /**
+     * 牌のリストを長さに続けて6ビットずつ詰めて書き込みます。
+     * @param tiles 牌のリスト
+     * @throws IllegalArgumentException 牌の数が多すぎる場合
+     */
+    protected final void putTiles(List<Tile> tiles){
+        int size = tiles.size();
+        if(size>MAX_TILES){
+            throw new IllegalArgumentException("too many tiles: "+size);
+        }
+        putVarInt(size);
+        int bits = 0;
+        int bitCount = 0;
+        for(int i = 0; i<size; i++){
+            bits = bits<<6 | tiles.get(i).ordinal();
+            bitCount += 6;
+            if(bitCount>=8){
+                bitCount -= 8;
+                buffer.put((byte)(bits>>>bitCount));
+            }
+        }
+        if(bitCount>0){
+            buffer.put((byte)(bits<<(8 - bitCount)));
+        }
+    }
+
+    /**
+     * 自家の手牌を通番に続けてキーフレームもしくは直前の手牌との差分として書き込みます。
+     * @param tiles 手牌
+     * @throws IllegalArgumentException 牌の数が多すぎる場合
+     */
+    protected final void putHand(List<Tile> tiles){
+        int size = tiles.size();
+        if(size>MAX_TILES){
+            throw new IllegalArgumentException("too many tiles: "+size);
+        }
+        for(int i = 0; i<size; i++){
+            nextHand[i] = tiles.get(i).ordinal();
+        }
+        handSequence = handSequence + 1 & HAND_SEQUENCE_MASK;
+        boolean delta = keyframeInterval>0 && handSize>=0 && handSequence%keyframeInterval!=0
+                && diff(size) && 1 + (removedCount*5 + addedCount*11 + 7)/8<1 + (size*6 + 7)/8;
+        buffer.put((byte)(handSequence<<1 | (delta? 1:0)));
+        if(delta){
+            buffer.put((byte)(removedCount<<4 | addedCount));
+            int bits = 0;
+            int bitCount = 0;
+            for(int i = 0; i<removedCount + addedCount; i++){
+                if(i<removedCount){
+                    bits = bits<<5 | removed[i];
+                    bitCount += 5;
+                }else{
+                    int index = added[i - removedCount];
+                    bits = bits<<11 | index<<6 | nextHand[index];
+                    bitCount += 11;
+                }
+                while(bitCount>=8){
+                    bitCount -= 8;
+                    buffer.put((byte)(bits>>>bitCount));
+                }
+            }
+            if(bitCount>0){
+                buffer.put((byte)(bits<<(8 - bitCount)));
+            }
+        }else{
+            putTiles(tiles);
+        }
+        System.arraycopy(nextHand, 0, hand, 0, size);
+        handSize = size;
+    }
+
+    /**
+     * 直前の手牌から次の手牌への最短の編集を求め, 除く牌と加える牌の位置を算出します。
+     *
+     * <p>編集の数をDとしてO((N+M)D)で求まるMyersの差分アルゴリズムを用います。
+     * 手牌の更新では編集の数が数枚に留まるため, ほぼ手牌の長さに比例する時間で求まります。
+     * @param size 次の手牌の長さ
+     * @return true  除く牌と加える牌がそれぞれ15枚以下の場合
+     *         false 差分が大きすぎる場合
+     */
+    private boolean diff(int size){
+        int offset = MAX_TILES;
+        int found = -1;
+        for(int d = 0; d<=MAX_EDITS && found<0; d++){
+            int[] v = trace[d];
+            int[] previous = d==0? null:trace[d - 1];
+            for(int k = -d; k<=d; k += 2){
+                int x;
+                if(d==0){
+                    x = 0;
+                }else if(k==-d || k!=d && previous[offset + k - 1]<previous[offset + k + 1]){
+                    x = previous[offset + k + 1];
+                }else{
+                    x = previous[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while(x<handSize && y<size && hand[x]==nextHand[y]){
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if(x>=handSize && y>=size){
+                    found = d;
+                    break;
+                }
+            }
+        }
+        if(found<0){
+            return false;
+        }
+        removedCount = 0;
+        addedCount = 0;
+        int x = handSize;
+        int y = size;
+        for(int d = found; d>0; d--){
+            int[] previous = trace[d - 1];
+            int k = x - y;
+            boolean insertion = k==-d || k!=d && previous[offset + k - 1]<previous[offset + k + 1];
+            int previousX = insertion? previous[offset + k + 1]:previous[offset + k - 1];
+            if(insertion){
+                x = previousX;
+                y = previousX - k - 1;
+                added[addedCount++] = y;
+            }else{
+                x = previousX;
+                y = previousX - k + 1;
+                removed[removedCount++] = x;
+            }
+        }
+        if(removedCount>15 || addedCount>15){
+            return false;
+        }
+        reverse(removed, removedCount);
+        reverse(added, addedCount);
+        return true;
+    }
+
+    private static void reverse(int[] values, int count){
+        for(int i = 0, j = count - 1; i<j; i++, j--){
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+
+    /**
+     * 文字列をバイト長に続けてUTF-8で書き込みます。
+     * @param text 文字列
+     * @throws IllegalArgumentException 文字列が長すぎる場合
+     */
+    protected final void putText(String text){
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length>MAX_TEXT_BYTES){
+            throw new IllegalArgumentException("text too long: "+bytes.length+" bytes");
+        }
+        putVarInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    @Override
+    public void seatUpdated(Side side, Wind wind, String name, int score){
+        begin(TableEvent.Type.SEAT_UPDATED, side);
+        buffer.put((byte)wind.ordinal());
+        putVarInt(zigZag(score));
+        putText(name);
+        afterRecord();
+    }
+
+    @Override
+    public void roundStarted(Wind wind, int count, int streak, int deposit){
+        begin(TableEvent.Type.ROUND_STARTED, wind.ordinal());
+        putVarInt(count);
+        putVarInt(streak);
+        putVarInt(deposit);
+        afterRecord();
+    }
+
+    @Override
+    public void roundSettled(String expression){
+        begin(TableEvent.Type.ROUND_SETTLED, 0);
+        putText(expression);
+        afterRecord();
+    }
+
+    @Override
+    public void diceRolled(Side side, int dice1, int dice2){
+        begin(TableEvent.Type.DICE_ROLLED, side);
+        buffer.put((byte)(dice1<<4 | dice2));
+        afterRecord();
+    }
+
+    @Override
+    public void wallGenerated(){
+        begin(TableEvent.Type.WALL_GENERATED, 0);
+        afterRecord();
+    }
+
+    @Override
+    public void wallTileTaken(Side side, int column, int floor){
+        begin(TableEvent.Type.WALL_TILE_TAKEN, side);
+        buffer.put((byte)(column<<1 | floor));
+        afterRecord();
+    }
+
+    @Override
+    public void wallTileRevealed(Side side, int column, int floor, Tile tile){
+        begin(TableEvent.Type.WALL_TILE_REVEALED, side);
+        buffer.put((byte)(column<<1 | floor));
+        putTile(tile);
+        afterRecord();
+    }
+
+    @Override
+    public void tileDrawn(Side side){
+        begin(TableEvent.Type.TILE_DRAWN, side);
+        afterRecord();
+    }
+
+    @Override
+    public void tileDrawn(Tile tile){
+        begin(TableEvent.Type.SELF_TILE_DRAWN, 0);
+        putTile(tile);
+        afterRecord();
+    }
+
+    @Override
+    public void handUpdated(Side side, int size){
+        begin(TableEvent.Type.HAND_UPDATED, side);
+        putVarInt(size);
+        afterRecord();
+    }
+
+    @Override
+    public void handUpdated(List<Tile> handTiles){
+        if(keyframeInterval==0){
+            begin(TableEvent.Type.SELF_HAND_UPDATED, 0);
+            putTiles(handTiles);
+        }else{
+            begin(HAND_SYNC, 0);
+            putHand(handTiles);
+        }
+        afterRecord();
+    }
+
+    @Override
+    public void handRevealed(Side side, List<Tile> handTiles){
+        begin(TableEvent.Type.HAND_REVEALED, side);
+        putTiles(handTiles);
+        afterRecord();
+    }
+
+    @Override
+    public void handRevealed(Side side, List<Tile> handTiles, Tile drawnTile){
+        begin(TableEvent.Type.HAND_REVEALED_WITH_DRAWN, side);
+        putTile(drawnTile);
+        putTiles(handTiles);
+        afterRecord();
+    }
+
+    @Override
+    public void tileDiscarded(Side side, Tile tile){
+        begin(TableEvent.Type.TILE_DISCARDED, side);
+        putTile(tile);
+        afterRecord();
+    }
+
+    @Override
+    public void tileDiscardedAsReady(Side side, Tile tile){
+        begin(TableEvent.Type.TILE_DISCARDED_AS_READY, side);
+        putTile(tile);
+        afterRecord();
+    }
+
+    @Override
+    public void riverTileTaken(Side side){
+        begin(TableEvent.Type.RIVER_TILE_TAKEN, side);
+        afterRecord();
+    }
+
+    @Override
+    public void tiltMeldAdded(Side side, Side tilt, List<Tile> tiles){
+        begin(TableEvent.Type.TILT_MELD_ADDED, side);
+        buffer.put((byte)tilt.ordinal());
+        putTiles(tiles);
+        afterRecord();
+    }
+
+    @Override
+    public void selfQuadAdded(Side side, List<Tile> tiles){
+        begin(TableEvent.Type.SELF_QUAD_ADDED, side);
+        putTiles(tiles);
+        afterRecord();
+    }
+
+    @Override
+    public void meldTileAdded(Side side, int index, Tile added){
+        begin(TableEvent.Type.MELD_TILE_ADDED, side);
+        buffer.put((byte)(index<<6 | added.ordinal()));
+        afterRecord();
+    }
+
+    @Override
+    public void readyBoneAdded(Side side){
+        begin(TableEvent.Type.READY_BONE_ADDED, side);
+        afterRecord();
+    }
+
+    @Override
+    public void declared(Side side, Declaration declaration){
+        begin(TableEvent.Type.DECLARED, side);
+        buffer.put((byte)declaration.ordinal());
+        afterRecord();
+    }
+}
@@ -0,0 +1,204 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 鳴きの問い合わせを複数のプレイヤーに並行に行い, 採用する行動を決定するクラス。
+ *
+ * <p>可能な行動が存在するプレイヤーにのみ問い合わせを行い,
+ * 全員の応答が揃った時点で完了する段階を返します。
+ * 問い合わせは同時に発行されるため, 打牌ごとの待ち時間は各プレイヤーの
+ * 思考時間の合計ではなく最大値となります。
+ * <p>非同期のテーブル戦略を持つプレイヤーには非同期に問い合わせ,
+ * 同期的な局参加者には利用者が設定した実行器のスレッドで問い合わせます。
+ * スレッドの数は実行器の所有者が管理し, このクラスはスレッドを生成しません。
+ * 実行器が設定されていない場合, および問い合わせが必要な同期的なプレイヤーが一人で
+ * 期限が設定されていない場合は, スレッドを切り替えずに呼び出し元のスレッドで順に問い合わせます。
+ * 呼び出し元のスレッドで問い合わせた場合, 期限は適用されません。
+ * <p>プレイヤーごとに応答の期限を設定でき, 期限までに応答がない場合はパスとみなします。
+ * 期限の監視はスレッドを占有しません。期限後に届いた応答は破棄されます。
+ * 期限切れによる段階の完了は, 共有の期限監視スレッドで従属する処理が実行されないよう,
+ * 実行器のスレッド(実行器が設定されていない場合は共通プール)で行います。
+ * <p>期限切れとなった問い合わせは中断されず, 戦略の処理は続行します。
+ * 戦略は複数のスレッドから同時に呼び出されることを想定していないため,
+ * 前回の問い合わせから戻っていないプレイヤーには問い合わせを行わず, 自動的にパスとします。
+ * ターン時の行動の問い合わせなど, パスとみなせない問い合わせを行う前には
+ * {@link #awaitIdle}で前回の問い合わせから戻るのを待つ必要があります。
+ * これにより, 一人のプレイヤーの戦略が同時に複数の問い合わせを受けることはありません。
+ * @author Rouh
+ * @version 1.0
+ */
+final class CallPhaseArbiter{
+    private final long[] timeoutNanos = new long[4];
+    private final Map<Wind, CompletableFuture<CallAction>> asking = new EnumMap<>(Wind.class);
+    private Executor executor;
+
+    CallPhaseArbiter(){
+        Arrays.fill(timeoutNanos, Long.MAX_VALUE);
+    }
+
+    /**
+     * 同期的な局参加者への問い合わせを実行する実行器を設定します。
+     * @param executor 実行器, 呼び出し元のスレッドで順に問い合わせる場合はnull
+     */
+    void setExecutor(Executor executor){
+        this.executor = executor;
+    }
+
+    /**
+     * プレイヤーの応答の期限を設定します。
+     * @param seatWind プレイヤーの自風
+     * @param timeout 問い合わせの発行から応答までの期限
+     * @param unit 期限の単位
+     * @throws IllegalArgumentException 期限が負の場合
+     */
+    void setTimeout(Wind seatWind, long timeout, TimeUnit unit){
+        if(timeout<0){
+            throw new IllegalArgumentException("negative timeout: "+timeout);
+        }
+        timeoutNanos[seatWind.ordinal()] = unit.toNanos(timeout);
+    }
+
+    /**
+     * 鳴きの問い合わせを並行に行います。
+     *
+     * <p>問い合わせ内容がnullのプレイヤー, および前回の問い合わせから戻っていないプレイヤーは
+     * 自動的にパスとします。
+     * 結果は{@link RoundPlayer#settleCallPhase}で確定されていないため,
+     * 呼び出し元は段階の完了後に全てのプレイヤーの結果を確定させる必要があります。
+     * いずれかのプレイヤーへの問い合わせが例外的に完了した場合, 返される段階も例外的に完了します。
+     * @param callers 問い合わせ先のプレイヤーのリスト
+     * @param contexts プレイヤーごとの問い合わせ内容のリスト
+     * @return プレイヤーごとの行動のリストの完了段階
+     */
+    CompletableFuture<List<CallAction>> askAll(List<RoundPlayer> callers, List<CallPhaseContext> contexts){
+        int size = callers.size();
+        var asked = new boolean[size];
+        int synchronousAsking = 0;
+        for(int i = 0; i<size; i++){
+            asked[i] = contexts.get(i)!=null && isIdle(callers.get(i).getSeatWind());
+            if(asked[i] && !callers.get(i).isAsynchronous()) synchronousAsking++;
+        }
+        var futures = new ArrayList<CompletableFuture<CallAction>>(size);
+        for(int i = 0; i<size; i++){
+            var caller = callers.get(i);
+            var context = contexts.get(i);
+            long timeout = timeoutNanos[caller.getSeatWind().ordinal()];
+            CompletableFuture<CallAction> future;
+            if(!asked[i]){
+                future = CompletableFuture.completedFuture(CallAction.ofPass());
+            }else if(caller.isAsynchronous()){
+                future = caller.askCallActionAsync(context).toCompletableFuture();
+            }else if(executor==null || synchronousAsking==1 && timeout==Long.MAX_VALUE){
+                future = CompletableFuture.completedFuture(caller.askCallAction(context));
+            }else{
+                future = CompletableFuture.supplyAsync(()->caller.askCallAction(context), executor);
+            }
+            if(asked[i] && timeout!=Long.MAX_VALUE){
+                asking.put(caller.getSeatWind(), future);
+                // 問い合わせ中の段階を期限切れで完了させないよう, 従属する段階を作成します
+                future = future.thenApply(Function.identity());
+                expireOnTimeout(future, timeout);
+            }
+            futures.add(future);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored->futures.stream().map(CompletableFuture::join).collect(toList()));
+    }
+
+    /**
+     * 期限までに完了しなかった段階をパスで完了させます。
+     *
+     * <p>{@link CompletableFuture#completeOnTimeout}は期限監視スレッドで段階を完了させるため,
+     * 従属する局の進行がそのスレッドで実行されてしまいます。
+     * 期限監視スレッドでは完了処理の受け渡しのみを行います。
+     * 実行器が受け付けない場合は共通プールで完了させます。
+     * @param future 期限を適用する段階
+     * @param timeout 期限(ナノ秒)
+     */
+    private void expireOnTimeout(CompletableFuture<CallAction> future, long timeout){
+        var timeoutExecutor = executor==null? ForkJoinPool.commonPool():executor;
+        Runnable expiration = ()->future.complete(CallAction.ofPass());
+        CompletableFuture.delayedExecutor(timeout, TimeUnit.NANOSECONDS, Runnable::run).execute(()->{
+            if(future.isDone()) return;
+            try{
+                timeoutExecutor.execute(expiration);
+            }catch(RejectedExecutionException e){
+                ForkJoinPool.commonPool().execute(expiration);
+            }
+        });
+    }
+
+    /**
+     * プレイヤーが前回の鳴きの問い合わせから戻っているかを判定します。
+     * @param seatWind プレイヤーの自風
+     * @return true  戻っている場合
+     *         false 期限切れとなった問い合わせの処理が続行している場合
+     */
+    boolean isIdle(Wind seatWind){
+        var previous = asking.get(seatWind);
+        return previous==null || previous.isDone();
+    }
+
+    /**
+     * プレイヤーが前回の鳴きの問い合わせから戻った時点で完了する段階を返します。
+     *
+     * <p>期限切れとなった問い合わせの処理が続行している場合, その処理が戻るまで完了しません。
+     * 問い合わせの結果は問いません。
+     * @param seatWind プレイヤーの自風
+     * @return 完了段階
+     */
+    CompletableFuture<Void> awaitIdle(Wind seatWind){
+        var previous = asking.get(seatWind);
+        if(previous==null || previous.isDone()){
+            return CompletableFuture.completedFuture(null);
+        }
+        return previous.handle((action, error)->null);
+    }
+
+    /**
+     * 全てのプレイヤーが前回の鳴きの問い合わせから戻った時点で完了する段階を返します。
+     * @return 完了段階
+     */
+    CompletableFuture<Void> awaitAllIdle(){
+        return CompletableFuture.allOf(asking.values().toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, error)->null);
+    }
+
+    /**
+     * 採用する行動を決定します。
+     *
+     * <p>優先順位(ロン &gt; ポン/カン &gt; チー)の最も高い行動を採用します。
+     * 同じ優先順位の行動が複数ある場合は, リストの先頭に近い(打牌者の下家に近い)
+     * プレイヤーの行動を採用します。
+     * @param actions 打牌者の下家から順に並べたプレイヤーの行動のリスト
+     * @return 採用する行動の位置, 全員がパスの場合は-1
+     */
+    static int selectWinner(List<CallAction> actions){
+        int winner = -1;
+        int priority = CallAction.ofPass().getPriority();
+        for(int i = 0; i<actions.size(); i++){
+            if(actions.get(i).getPriority()>priority){
+                winner = i;
+                priority = actions.get(i).getPriority();
+            }
+        }
+        return winner;
+    }
+}
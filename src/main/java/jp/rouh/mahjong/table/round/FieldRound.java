@@ -1,171 +1,447 @@
 package jp.rouh.mahjong.table.round;
 
+import jp.rouh.mahjong.table.AsyncTableStrategy;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
 import jp.rouh.mahjong.table.TableSpectator;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
 import jp.rouh.mahjong.table.round.result.RoundResult;
-import jp.rouh.mahjong.tile.*;
+import jp.rouh.mahjong.tile.DiceTwin;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Stream;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.stream.Collectors.toList;
 
-public class FieldRound implements Round{
-    private final Wind roundWind;
-    private final int roundCount;
-    private final int streakCount;
-    private final int depositCount;
-    private Map<Wind, RoundPlayer> players = new HashMap<>();
-    private Wall wall;
-    private int turnCount = 0;
-    private int quadCount = 0;
+/**
+ * 観測者への通知を伴う局の実装クラス。
+ *
+ * <p>局は{@link RoundStage}で表される段階の間を遷移する状態機械として実装されます。
+ * 局の進行規則は{@link SimulationRound}および{@link RoundReplay}と共有する{@link RoundEngine}に実装されており,
+ * このクラスは行動の問い合わせと観戦者への通知を担います。
+ * 参加者には行動の適用に伴う卓上の変化が, 局を進行させているスレッドからその席から見た通知として配送されます。
+ * {@link #begin}で配牌を行った後, {@link #step}でプレイヤーの行動を一つずつ入力することで
+ * 局を進行させます。局の状態は{@link #getRecord}で取得できる記録によって完全に表され,
+ * 記録を直列化して保存した後, {@link #FieldRound(RoundRecord)}によって
+ * 別のプロセスで続きから進行させることができます。
+ * <p>{@link #start}および{@link #startAsync}は, 参加者に行動を問い合わせて
+ * 局を終局まで自動的に進行させます。
+ * <p>観戦者には局の開始と席の情報, サイコロの出目に続いて, 参加者と同じ卓上の全ての変化が
+ * 東家から見た通知として, 局を進行させているスレッドから{@link TableSpectator#tableEventPublished}で通知されます。
+ * 記録から生成された局では個々の出目が記録されていないため, サイコロの出目は通知されません。
+ * 記録から適用された行動による変化は, 参加者と同様に通知されます。
+ * 観戦者の処理は局の進行を止めるため, 多数の観戦者へは
+ * {@link jp.rouh.mahjong.table.server.SpectatorBroadcaster}を介して配信します。
+ * <p>このクラスはスレッドセーフではありません。
+ * 局の操作は同時に一つのスレッドから行う必要があります。
+ * @author Rouh
+ * @version 1.0
+ */
+public class FieldRound implements Round, RoundAccessor{
+    private final RoundEngine engine;
+    private final Random random;
+    private final RoundRecord restoredRecord;
+    private final CallPhaseArbiter arbiter = new CallPhaseArbiter();
+    private final CompletableFuture<RoundResult> completion = new CompletableFuture<>();
+    private final List<TableSpectator> spectators = new CopyOnWriteArrayList<>();
+    private CompletableFuture<List<RoundRecord.Step>> pendingSteps;
+    private final TableObserver spectatorPublisher = TableEvent.recorder(this::notifySpectators);
+    private Executor resumeExecutor = Runnable::run;
+
     public FieldRound(Wind roundWind, int roundCount, int streakCount, int depositCount){
-        this.roundWind = roundWind;
-        this.roundCount = roundCount;
-        this.streakCount = streakCount;
-        this.depositCount = depositCount;
+        this(roundWind, roundCount, streakCount, depositCount, new Random());
+    }
+
+    /**
+     * 乱数生成器を指定するコンストラクタ。
+     *
+     * <p>シード値を固定した乱数生成器を与えた場合, サイコロの出目と山は
+     * {@link RoundRecord#ofSeed}によって再生成できます。
+     * @param roundWind 場風
+     * @param roundCount 局数(1..4)
+     * @param streakCount 本場数(0..)
+     * @param depositCount 供託数(0..)
+     * @param random サイコロと山の生成に用いる乱数生成器
+     */
+    public FieldRound(Wind roundWind, int roundCount, int streakCount, int depositCount, Random random){
+        this.engine = new RoundEngine(roundWind, roundCount, streakCount, depositCount);
+        this.random = random;
+        this.restoredRecord = null;
+        engine.setIdleCheck(arbiter::isIdle);
+        engine.setSpectator(this::notifySpectators);
+    }
+
+    /**
+     * 記録された局の続きから進行する局を生成します。
+     *
+     * <p>{@link #begin}の呼び出し時に記録された山で配牌を行い,
+     * 記録された行動を参加者に問い合わせることなく適用します。
+     * 参加者には記録された行動による卓上の変化も通知されるため, 参加者は局の開始時点の状態から
+     * 通知を受け取ることで記録の時点の状態を復元できます。
+     * その後の局の進行は通常の局と同様です。
+     * <p>記録された行動に伴う供託の支払いは再び適用されるため,
+     * 参加者の点数は局の開始時点のものである必要があります。
+     * @param record 局の記録
+     */
+    public FieldRound(RoundRecord record){
+        this.engine = new RoundEngine(record.getRoundWind(), record.getRoundCount(),
+                record.getStreakCount(), record.getDepositCount());
+        this.random = null;
+        this.restoredRecord = record;
+        engine.setIdleCheck(arbiter::isIdle);
+        engine.setSpectator(this::notifySpectators);
     }
     @Override
     public void join(Wind seatWind, RoundParticipant participant){
-        if(players.containsKey(seatWind)){
-            throw new IllegalStateException();
-        }
-        var roundPlayer = new RoundPlayer(participant, this, seatWind);
-        players.put(seatWind, roundPlayer);
+        engine.join(seatWind, participant, null);
+    }
+
+    /**
+     * 行動の問い合わせに非同期に応答する参加者を指定した自風に登録します。
+     *
+     * <p>名前や点数の操作, 観測者への通知は局参加者に対して行い,
+     * 行動の問い合わせは非同期のテーブル戦略に対して行います。
+     * @param seatWind 自風
+     * @param participant 参加者
+     * @param strategy 行動の問い合わせ先
+     * @throws IllegalStateException 自風に既に参加者が登録されている場合
+     * @see #startAsync
+     */
+    public void join(Wind seatWind, RoundParticipant participant, AsyncTableStrategy strategy){
+        engine.join(seatWind, participant, strategy);
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>観戦者は局の進行中にも任意のスレッドから登録でき, 登録以降の変化が通知されます。
+     * 観戦者の処理で発生した例外は局を進行させているスレッドの
+     * {@link Thread.UncaughtExceptionHandler}に渡され, 局の進行は継続されます。
+     */
     @Override
     public void addSpectator(TableSpectator spectator){
-        //TODO: implements later
+        spectators.add(spectator);
+    }
+
+    /**
+     * 全ての観戦者に通知します。
+     * @param event 東家から見た通知
+     */
+    private void notifySpectators(TableEvent event){
+        for(var spectator:spectators){
+            try{
+                spectator.tableEventPublished(event);
+            }catch(RuntimeException e){
+                var thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
     }
 
-    private void initialize(){
-        if(!Stream.of(Wind.values()).allMatch(players::containsKey)){
+    /**
+     * 配牌を行い, 親のターン時の行動を待つ段階に遷移します。
+     *
+     * <p>記録から生成された局の場合は, 記録された行動を適用した段階に遷移します。
+     * @throws IllegalStateException 参加者が全員揃っていない場合, 局が既に開始されている場合
+     * @throws IllegalArgumentException 記録された行動が不正な場合
+     */
+    public void begin(){
+        if(engine.getStage()!=RoundStage.NOT_STARTED){
+            throw new IllegalStateException("round already started");
+        }
+        if(!engine.isFull()){
             throw new IllegalStateException("参加者が全員揃っていません");
         }
-        var dices = new DiceTwin();
-        wall = new IndexedWall(dices.getDiceSum());
+        spectatorPublisher.roundStarted(engine.getRoundWind(), engine.getRoundCount(),
+                engine.getStreakCount(), engine.getDepositCount());
         for(var wind:Wind.values()){
-            for(int i = 0; i<4; i++){
-                playerAt(wind).draw(wall.takeTile());
-            }
+            var participant = playerAt(wind).getParticipant();
+            spectatorPublisher.seatUpdated(wind.from(Wind.EAST), wind, participant.getName(), participant.getScore());
         }
-        for(var wind:Wind.values()){
-            playerAt(wind).draw(wall.takeTile());
+        if(restoredRecord==null){
+            var dices = new DiceTwin(random);
+            var diceSum = dices.getDiceSum();
+            spectatorPublisher.diceRolled(Side.SELF, dices.getDice1(), dices.getDice2());
+            engine.begin(diceSum, new IndexedWall(diceSum, random));
+        }else{
+            var diceSum = restoredRecord.getDiceSum();
+            engine.begin(diceSum, new IndexedWall(diceSum, restoredRecord.getWallTiles()));
+            engine.restore(restoredRecord.getSteps());
+            completeIfFinished();
         }
-
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>局は呼び出し元のスレッドで進行します。問い合わせの応答を待つ間は呼び出し元のスレッドで待機し,
+     * 応答が揃うと呼び出し元のスレッドで局の進行を再開します。
+     */
     @Override
     public RoundResult start(){
-        initialize();
-        var turnWind = Wind.EAST;
-        while(true){
-            var turnPlayer = playerAt(turnWind);
-            var turnAction = turnPlayer.moveTurnPhase();
-            if(turnAction.isNineTilesDrawDeclaration()){
-                return null;
+        var tasks = new LinkedBlockingQueue<Runnable>();
+        resumeExecutor = tasks::add;
+        var result = startAsync().toCompletableFuture();
+        result.whenComplete((ignored, error)->tasks.add(()->{}));
+        boolean interrupted = false;
+        while(!result.isDone()){
+            try{
+                tasks.take().run();
+            }catch(InterruptedException e){
+                interrupted = true;
             }
-            if(turnAction.isSelfDrawWinDeclaration()){
-                return null;
-            }
-            if(turnAction.isSelfQuadDeclaration()){
-                var quadTile = turnAction.getSelectedTile();
-                turnPlayer.makeSelfQuad(quadTile);
-                for(var callerWind:turnWind.others()){
-                    var callAction = playerAt(callerWind).moveSelfQuadCallPhase(quadTile);
-                    if(callAction.isRiverGrabWinDeclaration()){
-                        return null;
-                    }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+        try{
+            return result.join();
+        }catch(CompletionException e){
+            var cause = e.getCause();
+            if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if(cause instanceof Error) throw (Error)cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 局を開始し, 局の終了時に完了する段階を返します。
+     *
+     * <p>局は行動の問い合わせの応答が揃うたびに, 応答を完了させたスレッドで進行します。
+     * 応答を待つ間はスレッドを占有しないため, 非同期のテーブル戦略で参加する
+     * 多数の局を少数のスレッドで同時に進行させることができます。
+     * 同期的な局参加者への問い合わせは, 局を進行させているスレッドで行います。
+     * <p>鳴きの問い合わせが期限切れとなった場合, 局は期限監視スレッドではなく
+     * {@link #setCallExecutor}で設定した実行器のスレッド(設定していない場合は共通プール)で進行します。
+     * <p>鳴きの問い合わせが期限切れとなったプレイヤーには, その問い合わせから戻るまで
+     * 次の鳴きの問い合わせを行わず, ターン時の行動の問い合わせは戻るまで待機します。
+     * 局の終了も全ての問い合わせから戻るまで待機するため, 次の局で同じ戦略が
+     * 同時に複数の問い合わせを受けることはありません。
+     * <p>いずれかの問い合わせが例外的に完了した場合, 局の進行は中断され,
+     * 返される段階もその例外で完了します。
+     * @see #join(Wind, RoundParticipant, AsyncTableStrategy)
+     * @throws IllegalStateException 参加者が適切に登録されていない場合, 局が既に開始されている場合
+     * @return 局の結果の完了段階
+     */
+    public CompletionStage<RoundResult> startAsync(){
+        begin();
+        resume();
+        return completion.minimalCompletionStage();
+    }
+
+    /**
+     * 局を次の問い合わせの待機まで進行させます。
+     *
+     * <p>待機中の問い合わせが完了すると, その完了を契機に再びこのメソッドが呼ばれます。
+     * 既に完了している問い合わせは再帰せずにこのループ内で処理するため,
+     * 同期的な局参加者のみの局でもスタックは深くなりません。
+     * {@link #start}で開始した局では, 完了を契機とした呼び出しは呼び出し元のスレッドで行われます。
+     */
+    private void resume(){
+        try{
+            while(engine.getStage()!=RoundStage.FINISHED){
+                if(pendingSteps==null){
+                    pendingSteps = askPendingSteps();
                 }
-                turnPlayer.draw(wall.takeQuadTile());
-                continue;
-            }
-            if(turnAction.isAddQuadDeclaration()){
-                var quadTile = turnAction.getSelectedTile();
-                turnPlayer.makeAddQuad(quadTile);
-                for(var callerWind:turnWind.others()){
-                    var callAction = playerAt(callerWind).moveSelfQuadCallPhase(quadTile);
-                    if(callAction.isRiverGrabWinDeclaration()){
-                        return null;
-                    }
+                if(!pendingSteps.isDone()){
+                    pendingSteps.whenCompleteAsync((answered, error)->resume(), resumeExecutor);
+                    return;
                 }
-                turnPlayer.draw(wall.takeQuadTile());
-                continue;
-            }
-            var discardedTile = turnAction.getSelectedTile();
-            if(turnAction.isReadyDeclaration()){
-                turnPlayer.readyDiscard(discardedTile);
-            }else{
-                turnPlayer.discard(discardedTile);
+                var answered = pendingSteps.join();
+                pendingSteps = null;
+                answered.forEach(this::step);
             }
-            for(var callerWind:turnWind.others()){
-                var callAction = playerAt(callerWind).moveCallPhase(discardedTile, turnWind.from(callerWind));
-                if(callAction.isRiverGrabWinDeclaration()){
-                    return null;
-                }
-                if(callAction.isMeldCallDeclaration()){
-                    var caller = playerAt(callerWind);
-                    if(callAction.isStraightCallDeclaration()){
-                        caller.callStraight(discardedTile, callAction.getSelectedTiles());
-                    }
-                    if(callAction.isTripleCallDeclaration()){
-                        caller.callTriple(discardedTile, callAction.getSelectedTiles(), turnWind.from(callerWind));
-                    }
-                    if(callAction.isQuadCallDeclaration()){
-                        caller.callQuad(discardedTile, callAction.getSelectedTiles(), turnWind.from(callerWind));
-                    }
-                    turnWind = callerWind;
-                    continue;
-                }
-                // all pass
-                if(!wall.hasDrawableTile()){
-                    return null;
-                }
-                turnWind = turnWind.next();
-                playerAt(turnWind).draw(wall.takeTile());
+        }catch(Throwable e){
+            completion.completeExceptionally(e instanceof CompletionException && e.getCause()!=null? e.getCause():e);
+        }
+    }
+
+    /**
+     * 現在の段階で応答を待つ参加者に行動を問い合わせます。
+     * @return 行動の記録のリストの完了段階
+     */
+    private CompletableFuture<List<RoundRecord.Step>> askPendingSteps(){
+        if(engine.getStage()==RoundStage.TURN){
+            var wind = engine.getTurnWind();
+            // 問い合わせ内容は生成器で再利用されるため, 前回の問い合わせから戻った後に作成します
+            return arbiter.awaitIdle(wind)
+                    .thenCompose(ignored->playerAt(wind).askTurnActionAsync(engine.getTurnContext()))
+                    .thenApply(action->List.of(RoundRecord.Step.ofTurn(wind, action)));
+        }
+        var winds = getPendingCallWinds();
+        var callers = winds.stream().map(this::playerAt).collect(toList());
+        var contexts = winds.stream().map(this::getCallContext).collect(toList());
+        return arbiter.askAll(callers, contexts).thenApply(actions->{
+            var answered = new ArrayList<RoundRecord.Step>(actions.size());
+            for(int i = 0; i<actions.size(); i++){
+                answered.add(RoundRecord.Step.ofCall(winds.get(i), actions.get(i)));
             }
+            return answered;
+        });
+    }
+
+    /**
+     * プレイヤーの行動を入力し, 局を次の段階に進めます。
+     *
+     * <p>ターン時の行動は{@link RoundStage#TURN}の段階で手番のプレイヤーのみ入力できます。
+     * 鳴きの問い合わせに対する行動は, 鳴きの問い合わせの応答を待つ段階で
+     * 応答を待つプレイヤーが任意の順で入力できます。全員の応答が揃った時点で
+     * 優先順位に従って採用する行動が決定され, 次の段階に遷移します。
+     * <p>可能な行動がなく自動的にパスとなったプレイヤーのパスは無視されます。
+     * これにより, 局の記録の行動の列をそのまま入力することができます。
+     * @param step 行動の記録
+     * @throws IllegalStateException 行動を入力できる段階でない場合, 既に応答したプレイヤーの場合
+     * @throws IllegalArgumentException 行動を入力できるプレイヤーでない場合, 不正な行動の場合
+     */
+    public void step(RoundRecord.Step step){
+        engine.step(step);
+        completeIfFinished();
+    }
+
+    private void completeIfFinished(){
+        if(engine.getStage()==RoundStage.FINISHED){
+            var result = engine.getResult();
+            arbiter.awaitAllIdle().thenRun(()->completion.complete(result));
         }
     }
 
-    private RoundPlayer playerAt(Wind seatWind){
-        return players.get(seatWind);
+    /**
+     * 局の進行段階を取得します。
+     * @return 局の進行段階
+     */
+    public RoundStage getStage(){
+        return engine.getStage();
+    }
+
+    /**
+     * 手番のプレイヤーの自風を取得します。
+     *
+     * <p>鳴きの問い合わせの応答を待つ段階では, 鳴きの対象となった行動をしたプレイヤーの自風を返します。
+     * @return 手番のプレイヤーの自風, 局の開始前の場合はnull
+     */
+    public Wind getTurnWind(){
+        return engine.getTurnWind();
+    }
+
+    /**
+     * 手番のプレイヤーのターン時の行動の選択肢を取得します。
+     * @throws IllegalStateException {@link RoundStage#TURN}の段階でない場合
+     * @return ターン時の行動の選択肢
+     */
+    public TurnPhaseContext getTurnContext(){
+        return engine.getTurnContext();
+    }
+
+    /**
+     * 鳴きの問い合わせの応答を待つプレイヤーの自風のリストを取得します。
+     *
+     * <p>リストは手番のプレイヤーの下家から順に並びます。
+     * 自動的にパスとなったプレイヤーおよび既に応答したプレイヤーは含まれません。
+     * @return 応答を待つプレイヤーの自風のリスト, 鳴きの問い合わせの応答を待つ段階でない場合は空のリスト
+     */
+    public List<Wind> getPendingCallWinds(){
+        return engine.getPendingCallWinds();
+    }
+
+    /**
+     * 応答を待つプレイヤーの鳴きの行動の選択肢を取得します。
+     * @param seatWind プレイヤーの自風
+     * @return 鳴きの行動の選択肢, 応答を待つプレイヤーでない場合はnull
+     */
+    public CallPhaseContext getCallContext(Wind seatWind){
+        return engine.getCallContext(seatWind);
+    }
+
+    /**
+     * この局の記録を取得します。
+     *
+     * <p>局の進行中に呼び出した場合は, その時点までの行動の列を含む記録を返します。
+     * 鳴きの問い合わせの応答を待つ段階では, 既に受け付けた応答も手番のプレイヤーの下家から順に含みます。
+     * この記録から{@link #FieldRound(RoundRecord)}によって生成した局は,
+     * 呼び出し時点のこの局と同一の状態から進行します。
+     * @throws IllegalStateException 局が開始されていない場合
+     * @return 局の記録
+     */
+    public RoundRecord getRecord(){
+        return engine.getRecord();
+    }
+
+    /**
+     * 鳴きの問い合わせを実行する実行器を設定します。
+     *
+     * <p>設定しない場合は, 局を進行させているスレッドで順に問い合わせます。
+     * この場合, 同期的な局参加者には期限が適用されません。
+     * 実行器のスレッドの数は呼び出し元が管理します。
+     * @param executor 実行器, 局を進行させているスレッドで順に問い合わせる場合はnull
+     */
+    public void setCallExecutor(Executor executor){
+        arbiter.setExecutor(executor);
+    }
+
+    /**
+     * プレイヤーの鳴きの問い合わせに対する応答の期限を設定します。
+     *
+     * <p>期限までに応答がない場合はパスとみなします。
+     * 期限切れとなった問い合わせから戻るまで, そのプレイヤーの鳴きの問い合わせは自動的にパスとなります。
+     * 同期的な局参加者の期限は, {@link #setCallExecutor}で実行器を設定した場合にのみ適用されます。
+     * 設定しない場合, 期限はありません。
+     * @param seatWind プレイヤーの自風
+     * @param timeout 問い合わせの発行から応答までの期限
+     * @param unit 期限の単位
+     * @throws IllegalArgumentException 期限が負の場合
+     */
+    public void setCallTimeout(Wind seatWind, long timeout, TimeUnit unit){
+        arbiter.setTimeout(seatWind, timeout, unit);
+    }
+
+    RoundPlayer playerAt(Wind seatWind){
+        return engine.playerAt(seatWind);
     }
-    Wind getRoundWind(){
-        return roundWind;
+    @Override
+    public Wind getRoundWind(){
+        return engine.getRoundWind();
     }
     int getRoundCount(){
-        return roundCount;
+        return engine.getRoundCount();
     }
     int getStreakCount(){
-        return streakCount;
+        return engine.getStreakCount();
     }
     int getDepositCount(){
-        return depositCount;
+        return engine.getDepositCount();
     }
-    int getTurnCount(){
-        return turnCount;
-    }
-    int getTotalQuadCount(){
-        return quadCount;
-    }
-    int getRemainingTurnCount(){
-        return wall.getDrawableTileCount();
+    @Override
+    public int getTurnCount(){
+        return engine.getTurnCount();
     }
-    boolean isFirstAround(){
-        return getTurnCount()<4;
+    @Override
+    public int getTotalQuadCount(){
+        return engine.getTotalQuadCount();
     }
-    boolean isLastAround(){
-        return getRemainingTurnCount()<4;
+    @Override
+    public int getRemainingTurnCount(){
+        return engine.getRemainingTurnCount();
     }
-    boolean isLastTurn(){
-        return getRemainingTurnCount()==0;
+    @Override
+    public boolean isFirstAround(){
+        return engine.isFirstAround();
     }
-    List<Tile> getUpperPrisedTiles(){
-        return wall.getUpperIndicators().stream()
-                .map(Tile::indicates).collect(toList());
+    @Override
+    public List<Tile> getUpperPrisedTiles(){
+        return engine.getUpperPrisedTiles();
     }
-    List<Tile> getLowerPrisedTiles(){
-        return wall.getLowerIndicators().stream()
-                .map(Tile::indicates).collect(toList());
+    @Override
+    public List<Tile> getLowerPrisedTiles(){
+        return engine.getLowerPrisedTiles();
     }
 }
@@ -0,0 +1,131 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.table.round.result.RoundResult;
+import jp.rouh.mahjong.tile.Wind;
+
+/**
+ * 半荘戦の局の進行を管理するクラス。
+ *
+ * <p>局の結果から次の局の場風, 局数, 本場数, 供託数を決定し, 対局の終了を判定します。
+ * 対局は東一局から南四局まで行い, 南四局の終了時,
+ * もしくはいずれかの参加者の得点が0点を下回った時点で終了します。延長戦は行いません。
+ * <p>{@link jp.rouh.mahjong.table.Game}と{@link GameRunner}で同一の進行を共有します。
+ * <p>このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+public final class GameProgress{
+    private final Wind initialDealerOrderWind;
+    private Wind roundWind = Wind.EAST;
+    private int roundCount = 1;
+    private int streakCount = 0;
+    private int depositCount = 0;
+    private int playedRoundCount = 0;
+    private boolean finished = false;
+
+    /**
+     * コンストラクタ。
+     * @param initialDealerOrderWind 起家の席順
+     */
+    public GameProgress(Wind initialDealerOrderWind){
+        this.initialDealerOrderWind = initialDealerOrderWind;
+    }
+
+    /**
+     * 次の局に参加者を着席させます。
+     *
+     * <p>参加者は席順と現在の親の席順から決まる自風に登録されます。
+     * @param round 次の局
+     * @param participants 参加者
+     * @throws IllegalStateException 対局が既に終了している場合
+     */
+    public void seat(Round round, Iterable<? extends RoundParticipant> participants){
+        if(finished){
+            throw new IllegalStateException("game already finished");
+        }
+        var dealerOrderWind = initialDealerOrderWind.shift(roundCount - 1);
+        for(var participant:participants){
+            round.join(participant.getOrderWind().from(dealerOrderWind).of(Wind.EAST), participant);
+        }
+    }
+
+    /**
+     * 局の結果を反映し, 次の局に進みます。
+     * @param result 局の結果
+     * @param participants 参加者
+     * @throws IllegalStateException 対局が既に終了している場合
+     */
+    public void advance(RoundResult result, Iterable<? extends RoundParticipant> participants){
+        if(finished){
+            throw new IllegalStateException("game already finished");
+        }
+        playedRoundCount++;
+        depositCount = result.getDepositCount();
+        streakCount = result.isDealerContinued() || result.isDrawn()? streakCount + 1:0;
+        if(!result.isDealerContinued()){
+            if(roundCount==4){
+                roundWind = roundWind.next();
+                roundCount = 1;
+            }else{
+                roundCount++;
+            }
+        }
+        finished = roundWind==Wind.WEST || isBusted(participants);
+    }
+
+    private static boolean isBusted(Iterable<? extends RoundParticipant> participants){
+        for(var participant:participants){
+            if(participant.getScore()<0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 次の局の場風を取得します。
+     * @return 場風
+     */
+    public Wind getRoundWind(){
+        return roundWind;
+    }
+
+    /**
+     * 次の局の局数を取得します。
+     * @return 局数(1..4)
+     */
+    public int getRoundCount(){
+        return roundCount;
+    }
+
+    /**
+     * 次の局の本場数を取得します。
+     * @return 本場数(0..)
+     */
+    public int getStreakCount(){
+        return streakCount;
+    }
+
+    /**
+     * 次の局の開始時点の供託数を取得します。
+     * @return 供託数(0..)
+     */
+    public int getDepositCount(){
+        return depositCount;
+    }
+
+    /**
+     * 実施した局の数を取得します。
+     * @return 局の数
+     */
+    public int getPlayedRoundCount(){
+        return playedRoundCount;
+    }
+
+    /**
+     * 対局が終了したかどうか検査します。
+     * @return true  対局が終了した場合
+     *         false 対局が終了していない場合
+     */
+    public boolean isFinished(){
+        return finished;
+    }
+}
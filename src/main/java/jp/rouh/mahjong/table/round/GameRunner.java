@@ -0,0 +1,134 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 複数の対局を並行に実行するクラス。
+ *
+ * <p>各対局は{@link SimulationRound}を用いた半荘戦として, {@link jp.rouh.mahjong.table.Game}と同じく
+ * {@link GameProgress}に従って進行します。
+ * <p>対局ごとに独立した乱数生成器, 参加者, 局の状態を生成するため,
+ * 対局同士が状態を共有することはありません。
+ * 参加者の戦略は対局ごとに{@code strategyFactory}から新たに取得します。
+ * 全ての対局の結果はスレッドセーフな集計{@link GameStatistics}に逐次追加されます。
+ * <p>乱数生成器のシードはシード値と対局の通し番号から決定されるため,
+ * スレッド数に関わらず, 同一のシード値で同一の対局群が再現されます。
+ * @author Rouh
+ * @version 1.0
+ */
+public class GameRunner implements AutoCloseable{
+    private static final int INITIAL_SCORE = 25000;
+    private final ExecutorService executor;
+    private final int threadCount;
+
+    /**
+     * 指定したスレッド数で対局を実行するインスタンスを生成します。
+     * @param threadCount スレッド数(1..)
+     */
+    public GameRunner(int threadCount){
+        if(threadCount<1){
+            throw new IllegalArgumentException("invalid thread count: "+threadCount);
+        }
+        this.threadCount = threadCount;
+        this.executor = Executors.newFixedThreadPool(threadCount, runnable->{
+            var thread = new Thread(runnable, "game-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 指定した数の対局を実行し, 全ての対局が終了するまで待機します。
+     *
+     * <p>いずれかの対局で例外が発生した場合, 他のスレッドは実行中の対局を終えた時点で停止し,
+     * 全てのスレッドの停止を待ってから例外を送出します。
+     * @param gameCount 対局数
+     * @param seed シード値
+     * @param strategyFactory 席順から参加者の戦略を生成する関数
+     * @throws InterruptedException 待機中に割り込みが発生した場合
+     * @throws IllegalStateException 対局中に例外が発生した場合
+     * @return 集計結果
+     */
+    public GameStatistics run(int gameCount, long seed, Function<Wind, TableStrategy> strategyFactory)
+            throws InterruptedException{
+        var statistics = new GameStatistics();
+        var nextGame = new AtomicInteger();
+        var futures = new ArrayList<Future<?>>(threadCount);
+        for(int i = 0; i<threadCount; i++){
+            // 対局を一つずつキューに投入せず, 各スレッドが通し番号を取得して対局を消化します
+            futures.add(executor.submit(()->{
+                int gameIndex;
+                while((gameIndex = nextGame.getAndIncrement())<gameCount){
+                    try{
+                        playGame(new Random(seedOf(seed, gameIndex)), strategyFactory, statistics);
+                    }catch(RuntimeException | Error e){
+                        // 通し番号を使い切った状態にし, 他のスレッドを現在の対局の終了後に停止させます
+                        nextGame.getAndAccumulate(gameCount, Math::max);
+                        throw e;
+                    }
+                }
+            }));
+        }
+        ExecutionException failure = null;
+        for(var future:futures){
+            try{
+                future.get();
+            }catch(ExecutionException e){
+                if(failure==null) failure = e;
+            }
+        }
+        if(failure!=null){
+            throw new IllegalStateException("対局中に例外が発生しました", failure.getCause());
+        }
+        return statistics;
+    }
+
+    private static long seedOf(long seed, int gameIndex){
+        return seed ^ (gameIndex*0x9E3779B97F4A7C15L);
+    }
+
+    private static void playGame(Random random, Function<Wind, TableStrategy> strategyFactory, GameStatistics statistics){
+        var participants = new SimulationParticipant[4];
+        for(var orderWind:Wind.values()){
+            participants[orderWind.ordinal()] = new SimulationParticipant(orderWind.toString(), orderWind,
+                    INITIAL_SCORE, strategyFactory.apply(orderWind));
+        }
+        var seats = Arrays.asList(participants);
+        var progress = new GameProgress(Wind.EAST);
+        int wins = 0;
+        int draws = 0;
+        while(!progress.isFinished()){
+            var round = new SimulationRound(progress.getRoundWind(), progress.getRoundCount(),
+                    progress.getStreakCount(), progress.getDepositCount(), random);
+            progress.seat(round, seats);
+            var result = round.start();
+            if(result.isDrawn()){
+                draws++;
+            }else{
+                wins++;
+            }
+            progress.advance(result, seats);
+        }
+        var finalScores = new int[4];
+        for(var participant:participants){
+            finalScores[participant.getOrderWind().ordinal()] = participant.getScore();
+        }
+        statistics.accept(finalScores, progress.getPlayedRoundCount(), wins, draws);
+    }
+
+    /**
+     * スレッドプールを停止します。
+     */
+    @Override
+    public void close(){
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,114 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 複数の対局の結果を集計するクラス。
+ *
+ * <p>このクラスは複数のスレッドから同時に結果を追加されることを想定しており,
+ * 集計値の更新は全てロックを取らずに行われます。
+ * 集計の途中に取得した値は, 個々の値としては正確ですが,
+ * 値同士が同一時点のものであることは保証されません。
+ * @see GameRunner
+ * @author Rouh
+ * @version 1.0
+ */
+public class GameStatistics{
+    private final LongAdder gameCount = new LongAdder();
+    private final LongAdder roundCount = new LongAdder();
+    private final LongAdder winCount = new LongAdder();
+    private final LongAdder drawCount = new LongAdder();
+    private final AtomicLongArray totalScores = new AtomicLongArray(4);
+    private final AtomicLongArray rankCounts = new AtomicLongArray(16);
+
+    /**
+     * 対局の結果を追加します。
+     * @param finalScores 席順の序数をインデックスとした最終得点の配列(長さ4)
+     * @param rounds 対局中に実施した局の数
+     * @param wins 対局中の和了による終局の数
+     * @param draws 対局中の流局の数
+     */
+    void accept(int[] finalScores, int rounds, int wins, int draws){
+        gameCount.increment();
+        roundCount.add(rounds);
+        winCount.add(wins);
+        drawCount.add(draws);
+        for(int i = 0; i<4; i++){
+            totalScores.addAndGet(i, finalScores[i]);
+            int rank = 0;
+            for(int j = 0; j<4; j++){
+                // 同点の場合は席順の若い方を上位とします
+                if(finalScores[j]>finalScores[i] || (finalScores[j]==finalScores[i] && j<i)) rank++;
+            }
+            rankCounts.incrementAndGet(i*4 + rank);
+        }
+    }
+
+    /**
+     * 集計した対局数を取得します。
+     * @return 対局数
+     */
+    public long getGameCount(){
+        return gameCount.sum();
+    }
+
+    /**
+     * 集計した局数を取得します。
+     * @return 局数
+     */
+    public long getRoundCount(){
+        return roundCount.sum();
+    }
+
+    /**
+     * 和了による終局の数を取得します。
+     * @return 和了による終局の数
+     */
+    public long getWinCount(){
+        return winCount.sum();
+    }
+
+    /**
+     * 流局の数を取得します。
+     * @return 流局の数
+     */
+    public long getDrawCount(){
+        return drawCount.sum();
+    }
+
+    /**
+     * 指定した席順のプレイヤーの平均最終得点を取得します。
+     * @param orderWind 席順
+     * @return 平均最終得点
+     */
+    public double getAverageScore(Wind orderWind){
+        var games = getGameCount();
+        return games==0? 0:(double)totalScores.get(orderWind.ordinal())/games;
+    }
+
+    /**
+     * 指定した席順のプレイヤーが指定した順位となった回数を取得します。
+     * @param orderWind 席順
+     * @param rank 順位(1..4)
+     * @return 回数
+     */
+    public long getRankCount(Wind orderWind, int rank){
+        if(rank<1 || rank>4) throw new IllegalArgumentException("invalid rank: "+rank);
+        return rankCounts.get(orderWind.ordinal()*4 + rank - 1);
+    }
+
+    @Override
+    public String toString(){
+        var sb = new StringBuilder();
+        sb.append(String.format("games=%d rounds=%d wins=%d draws=%d%n",
+                getGameCount(), getRoundCount(), getWinCount(), getDrawCount()));
+        for(var wind:Wind.values()){
+            sb.append(String.format("%s: avg=%.0f ranks=[%d %d %d %d]%n", wind, getAverageScore(wind),
+                    getRankCount(wind, 1), getRankCount(wind, 2), getRankCount(wind, 3), getRankCount(wind, 4)));
+        }
+        return sb.toString();
+    }
+}
@@ -1,5 +1,6 @@
 package jp.rouh.mahjong.table.round;
 
+import jp.rouh.mahjong.table.TableObserver;
 import jp.rouh.mahjong.tile.Side;
 import jp.rouh.mahjong.tile.Tile;
 import jp.rouh.mahjong.tile.Tiles;
@@ -7,24 +8,82 @@ import jp.rouh.mahjong.tile.Wind;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 class IndexedWall implements Wall{
     private final List<Tile> values;
-    //TODO: view への連携は全てRound classで実装できるか検討
-//    private final Round round;
+    private TableObserver publisher;
     private int drawCount = 0;
     private int quadCount = 0;
     private int revealCount = 0;
     private final Address firstDrawAddress;
     IndexedWall(int diceSum){
-//        this.round = round;
+        this(diceSum, new Random());
+    }
+
+    /**
+     * 与えられた乱数生成器で牌をかき混ぜた山を生成します。
+     *
+     * <p>乱数生成器を共有しないことで, 複数の局を並行に実行した場合にも
+     * 互いの局の山が干渉しないことを保証します。
+     * 同一のシードを与えた場合, 同一の山が生成されます。
+     * @param diceSum 出目の合計
+     * @param random 乱数生成器
+     */
+    IndexedWall(int diceSum, Random random){
         var list = Tiles.fullSet();
-        Collections.shuffle(list);
+        Collections.shuffle(list, random);
         this.values = List.copyOf(list);
         this.firstDrawAddress = Address.of(diceSum);
-//        round.players().forEach(RoundPlayer::wallGenerated);
+    }
+
+    /**
+     * 牌の並びを指定して山を生成します。
+     *
+     * <p>記録された局を再現する際に利用します。
+     * @param diceSum サイコロの出目の合計
+     * @param tiles 山の牌の並び(長さ136)
+     * @throws IllegalArgumentException 牌の並びの長さが136でない場合
+     */
+    IndexedWall(int diceSum, List<Tile> tiles){
+        if(tiles.size()!=136){
+            throw new IllegalArgumentException("invalid size of wall tiles: "+tiles.size());
+        }
+        this.values = List.copyOf(tiles);
+        this.firstDrawAddress = Address.of(diceSum);
+    }
+
+    /**
+     * 山の状態を複製します。
+     * @param other 複製元の山
+     */
+    IndexedWall(IndexedWall other){
+        this.values = other.values;
+        this.firstDrawAddress = other.firstDrawAddress;
+        this.drawCount = other.drawCount;
+        this.quadCount = other.quadCount;
+        this.revealCount = other.revealCount;
+    }
+
+    /**
+     * 山からのツモとドラ表示牌をめくったことの通知先を設定します。
+     *
+     * <p>通知の相対位置は東家から見た山の位置を表します。
+     * 複製した山には引き継がれません。
+     * @param publisher 東家から見た通知の通知先, 通知しない場合はnull
+     */
+    void setPublisher(TableObserver publisher){
+        this.publisher = publisher;
+    }
+
+    /**
+     * 山の牌の並びを取得します。
+     * @return 山の牌の並び(長さ136)
+     */
+    List<Tile> getTiles(){
+        return values;
     }
 
     @Override
@@ -45,17 +104,17 @@ class IndexedWall implements Wall{
     }
 
     private Tile takeTileAt(int index){
-        var address = firstDrawAddress.shift(drawCount);
-//        round.players().forEach(player->{
-//            var side = address.wind().from(player.getSeatWind());
-//            player.wallTileTaken(side, address.column(), address.floor());
-//        });
+        if(publisher!=null){
+            var address = firstDrawAddress.shift(index);
+            publisher.wallTileTaken(address.wind().from(Wind.EAST), address.column(), address.floor());
+        }
         return values.get(index);
     }
 
     @Override
     public void revealIndicatorIfPresent(){
-        while(revealCount<quadCount){
+        // 配牌時にめくられる最初のドラ表示牌の分, カンの数より一枚多くめくられます
+        while(revealCount<=quadCount){
             revealIndicatorImmediately();
         }
     }
@@ -63,12 +122,10 @@ class IndexedWall implements Wall{
     @Override
     public void revealIndicatorImmediately(){
         var index = new int[]{130, 128, 126, 124, 122}[revealCount++];
-        var address = firstDrawAddress.shift(index);
-        var tile = values.get(index);
-//        round.players().forEach(player->{
-//            var side = address.wind().from(player.getSeatWind());
-//            player.wallTileRevealed(side, address.column(), address.floor(), tile);
-//        });
+        if(publisher!=null){
+            var address = firstDrawAddress.shift(index);
+            publisher.wallTileRevealed(address.wind().from(Wind.EAST), address.column(), address.floor(), values.get(index));
+        }
     }
 
     @Override
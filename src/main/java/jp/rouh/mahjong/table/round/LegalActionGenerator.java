@@ -0,0 +1,736 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.score.Meld;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Tiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 手牌に対して可能な行動の選択肢を生成するクラス。
+ *
+ * <p>手牌を牌番号ごとの枚数の配列に変換し, 立直宣言や暗槓, 加槓, 九種九牌,
+ * またチー, ポン, カンの選択肢を配列に対する走査のみで求めます。
+ * 選択肢は牌の序数をビット位置とするビットマスクとして,
+ * 生成器が所有する再利用可能な問い合わせ内容に書き込まれるため,
+ * 問い合わせ内容の作成ごとの一時オブジェクトの生成は発生しません。
+ * <p>局やプレイヤーの状態による選択肢の可否は呼び出し元で検査し,
+ * この生成器は手牌の形から可能な選択肢のみを求めます。
+ * <p>作成した問い合わせ内容は, 同じ生成器で次の問い合わせ内容を作成するまで有効です。
+ * 期限切れとなった問い合わせの処理は結果の確定後も続行するため, 結果の確定だけでは
+ * 次の問い合わせ内容を作成してよいことになりません。{@link RoundEngine}は前回の問い合わせから
+ * 戻っていないプレイヤーの鳴きの問い合わせ内容を作成せず, {@link FieldRound}はターン時の
+ * 問い合わせ内容を前回の問い合わせから戻った後に作成するため,
+ * プレイヤーごとに生成器を一つ保持すれば十分です。
+ * <p>このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+final class LegalActionGenerator{
+    private static final Tile[] TILES = Tile.values();
+
+    /** 牌番号ごとの牌の序数のビットマスク */
+    private static final long[] NUMBER_MASKS = new long[34];
+
+    /** 么九牌の牌番号 */
+    private static final int[] ORPHAN_NUMBERS = {0, 8, 9, 17, 18, 26, 27, 28, 29, 30, 31, 32, 33};
+
+    static{
+        for(var tile:TILES){
+            NUMBER_MASKS[tile.tileNumber()] |= 1L<<tile.ordinal();
+        }
+    }
+
+    /** 色ごとの分解の結果が未検査であることを表す値 */
+    private static final byte UNKNOWN = 0;
+    private static final byte SATISFIED = 1;
+    private static final byte UNSATISFIED = 2;
+
+    private final int[] counts = new int[34];
+    private final int[] work = new int[9];
+    private final int[] suitSums = new int[4];
+    private final byte[] suitCache = new byte[16];
+    private int changedSuit = -1;
+    private int pairs;
+    private int singles;
+    private int excesses;
+    private int orphanKinds;
+    private int nonOrphans;
+    private long isolated;
+    private final ReusableTurnPhaseContext turnPhase = new ReusableTurnPhaseContext();
+    private final ReusableCallPhaseContext callPhase = new ReusableCallPhaseContext();
+    private List<Tile> callHandTiles;
+    private int size = 0;
+    private long handMask = 0;
+
+    private static long bitOf(Tile tile){
+        return 1L<<tile.ordinal();
+    }
+
+    private void count(List<Tile> tiles){
+        for(int i = 0; i<34; i++){
+            counts[i] = 0;
+        }
+        size = 0;
+        handMask = 0;
+        for(int i = 0, n = tiles.size(); i<n; i++){
+            add(tiles.get(i));
+        }
+    }
+
+    /**
+     * 一時オブジェクトを生成せずに牌のリストを複製します。
+     */
+    private static void copy(List<Tile> tiles, List<Tile> copy){
+        copy.clear();
+        for(int i = 0, n = tiles.size(); i<n; i++){
+            copy.add(tiles.get(i));
+        }
+    }
+
+    private void add(Tile tile){
+        counts[tile.tileNumber()]++;
+        handMask |= bitOf(tile);
+        size++;
+    }
+
+    /**
+     * 手牌(長さ3n+1)が聴牌となり得るかどうかを簡易に検査します。
+     *
+     * <p>面子手の聴牌では孤立牌は単騎待ちの一枚に限られるため, 孤立牌を二枚以上含む手牌は,
+     * 七対子形もしくは国士無双形の聴牌となり得る場合を除き聴牌ではありません。
+     * この検査が偽となる手牌は聴牌ではありませんが, 真となる手牌が聴牌とは限りません。
+     * <p>作成済みの問い合わせ内容は変更しません。
+     * @param handTiles 手牌
+     * @return true  聴牌となり得る場合
+     *         false 聴牌でない場合
+     */
+    boolean mayBeReady(List<Tile> handTiles){
+        count(handTiles);
+        long present = 0;
+        long single = 0;
+        int pairCount = 0;
+        for(int number = 0; number<34; number++){
+            int count = counts[number];
+            if(count==0) continue;
+            present |= 1L<<number;
+            if(count==1) single |= 1L<<number;
+            else if(count==2) pairCount++;
+        }
+        if(Long.bitCount(isolatedNumbersOf(present, single))<=1 || pairCount>=6) return true;
+        int orphanCount = 0;
+        for(var number:ORPHAN_NUMBERS){
+            orphanCount += counts[number];
+        }
+        return orphanCount==size;
+    }
+
+    // AS TURN PHASE
+
+    /**
+     * ターン時の選択肢の生成を開始します。
+     *
+     * <p>手牌と自摸牌を読み込み, 手牌中の全ての牌を打牌可能とします。
+     * その他の選択肢は, 続けて呼び出す各メソッドで追加します。
+     * @param handTiles 手牌
+     * @param drawnTile 自摸牌
+     */
+    void startTurn(List<Tile> handTiles, Tile drawnTile){
+        turnPhase.clear();
+        count(handTiles);
+        add(drawnTile);
+        copy(handTiles, turnPhase.tiles);
+        turnPhase.tiles.add(drawnTile);
+        turnPhase.discardable = handMask;
+    }
+
+    /**
+     * 副露直後のターン時の問い合わせ内容を作成します。
+     *
+     * <p>手牌中の牌のうち, 喰い替えとなる牌を除いた牌のみ打牌可能とします。
+     * @param handTiles 手牌
+     * @param callShiftTiles 喰い替えとなる牌
+     * @return 問い合わせ内容
+     */
+    TurnPhaseContext generateAfterCall(List<Tile> handTiles, Set<Tile> callShiftTiles){
+        turnPhase.clear();
+        count(handTiles);
+        copy(handTiles, turnPhase.tiles);
+        long callShift = 0;
+        for(var tile:callShiftTiles){
+            callShift |= bitOf(tile);
+        }
+        turnPhase.discardable = handMask & ~callShift;
+        return turnPhase;
+    }
+
+    /**
+     * 打牌可能な牌を自摸牌のみに制限します。
+     *
+     * <p>立直後の手牌は自摸切りのみ可能です。
+     */
+    void restrictDiscardToDrawnTile(){
+        turnPhase.discardable = bitOf(turnPhase.tiles.get(turnPhase.tiles.size() - 1));
+    }
+
+    /**
+     * 打牌により聴牌となる牌を立直宣言可能牌として追加します。
+     *
+     * <p>手牌が門前であることを前提とします。
+     * 打牌の候補は牌番号ごとに検査し, 同じ牌番号の赤ドラ牌と非赤ドラ牌は共に追加されます。
+     * 七対子形と国士無双形は手牌の集計から打牌ごとに定数時間で判定し,
+     * 面子手の検査では打牌で変化しない色の分解の結果を候補の間で共有します。
+     * また, 面子手の聴牌では孤立牌は単騎待ちの一枚に限られるため,
+     * 孤立牌が打牌と合わせて二枚を超える手牌は分解を行わずに除外します。
+     */
+    void generateReadyTiles(){
+        summarize();
+        if(Long.bitCount(isolated)>2 && pairs<5 && nonOrphans>1){
+            // いずれの打牌でも面子手, 七対子形, 国士無双形の聴牌となりません
+            turnPhase.ready = 0;
+            return;
+        }
+        long ready = 0;
+        for(int number = 0; number<34; number++){
+            if(counts[number]==0) continue;
+            if(isReadyWithout(number)){
+                ready |= NUMBER_MASKS[number];
+            }
+        }
+        turnPhase.ready = ready & handMask;
+    }
+
+    /**
+     * 打牌の候補の検査で共有する手牌の集計を行います。
+     */
+    private void summarize(){
+        pairs = 0;
+        singles = 0;
+        excesses = 0;
+        orphanKinds = 0;
+        nonOrphans = size;
+        for(int suit = 0; suit<4; suit++){
+            suitSums[suit] = 0;
+        }
+        long present = 0;
+        long single = 0;
+        for(int number = 0; number<34; number++){
+            int count = counts[number];
+            if(count==0) continue;
+            present |= 1L<<number;
+            suitSums[number/9] += count;
+            if(count==1){
+                singles++;
+                single |= 1L<<number;
+            }
+            else if(count==2) pairs++;
+            else excesses++;
+        }
+        isolated = isolatedNumbersOf(present, single);
+        for(var number:ORPHAN_NUMBERS){
+            if(counts[number]>0) orphanKinds++;
+            nonOrphans -= counts[number];
+        }
+        for(int i = 0; i<suitCache.length; i++){
+            suitCache[i] = UNKNOWN;
+        }
+    }
+
+    /**
+     * 孤立牌の牌番号のビットマスクを求めます。
+     *
+     * <p>孤立牌は一枚のみの牌のうち, 同じ色の前後二つの牌番号の牌を含まない牌です。
+     * @param present 手牌に含まれる牌番号のビットマスク
+     * @param single 手牌に一枚のみ含まれる牌番号のビットマスク
+     * @return 孤立牌の牌番号のビットマスク
+     */
+    private static long isolatedNumbersOf(long present, long single){
+        long near = 0;
+        for(int offset = 0; offset<27; offset += 9){
+            long suit = present>>>offset & 0x1FF;
+            near |= ((suit<<1 | suit<<2 | suit>>>1 | suit>>>2) & 0x1FF)<<offset;
+        }
+        return single & ~near;
+    }
+
+    // READY CHECK
+
+    /**
+     * 指定した牌番号の牌を一枚除いた手牌(長さ3n+1)が聴牌かどうか検査します。
+     *
+     * <p>{@link jp.rouh.mahjong.score.HandTiles#isHandReady}と同じく,
+     * 手牌で4枚使用している牌を待つ形は聴牌とみなしません。
+     * @param number 除く牌の牌番号
+     */
+    private boolean isReadyWithout(int number){
+        if(size==14 && (isSevenPairsReadyWithout(number) || isThirteenOrphansReadyWithout(number))) return true;
+        int isolations = Long.bitCount(isolated);
+        if(isolations>2 || isolations==2 && (isolated & 1L<<number)==0) return false;
+        int suit = number/9;
+        counts[number]--;
+        suitSums[suit]--;
+        changedSuit = suit;
+        boolean ready = isMeldHandReady();
+        changedSuit = -1;
+        suitSums[suit]++;
+        counts[number]++;
+        return ready;
+    }
+
+    private boolean isSevenPairsReadyWithout(int number){
+        int count = counts[number];
+        int restPairs = pairs - (count==2? 1:0) + (count==3? 1:0);
+        int restSingles = singles - (count==1? 1:0) + (count==2? 1:0);
+        int restExcesses = excesses - (count==3? 1:0);
+        return restPairs==6 && restSingles==1 && restExcesses==0;
+    }
+
+    private boolean isThirteenOrphansReadyWithout(int number){
+        boolean orphan = TILES[Long.numberOfTrailingZeros(NUMBER_MASKS[number])].isOrphan();
+        if(!orphan) return nonOrphans==1 && orphanKinds>=12;
+        return nonOrphans==0 && orphanKinds - (counts[number]==1? 1:0)>=12;
+    }
+
+    /**
+     * 手牌に同種牌を含むポンの面子の牌を加槓可能牌として追加します。
+     * @param openMelds 副露面子
+     */
+    void generateAddQuadTiles(List<Meld> openMelds){
+        for(int i = 0, n = openMelds.size(); i<n; i++){
+            var meld = openMelds.get(i);
+            if(meld.isTriple() && counts[meld.getFirst().tileNumber()]>0){
+                turnPhase.addQuad |= bitOf(meld.getFirst());
+            }
+        }
+    }
+
+    /**
+     * 手牌に4枚揃った牌を暗槓可能牌として追加します。
+     */
+    void generateSelfQuadTiles(){
+        long selfQuad = 0;
+        for(int number = 0; number<34; number++){
+            if(counts[number]==4){
+                selfQuad |= NUMBER_MASKS[number];
+            }
+        }
+        turnPhase.selfQuad = selfQuad & handMask;
+    }
+
+    /**
+     * 指定した牌を暗槓可能牌として追加します。
+     * @param tile 暗槓可能牌
+     */
+    void allowSelfQuad(Tile tile){
+        turnPhase.selfQuad |= bitOf(tile);
+    }
+
+    /**
+     * 手牌が九種九牌形の場合, 九種九牌を宣言可能とします。
+     */
+    void generateNineTilesDraw(){
+        int kinds = 0;
+        for(var number:ORPHAN_NUMBERS){
+            if(counts[number]>0) kinds++;
+        }
+        turnPhase.draw = kinds>=9;
+    }
+
+    /**
+     * ツモ和了を宣言可能とします。
+     */
+    void allowSelfDrawWin(){
+        turnPhase.win = true;
+    }
+
+    /**
+     * 生成したターン時の問い合わせ内容を取得します。
+     * @return 問い合わせ内容
+     */
+    TurnPhaseContext getTurnPhase(){
+        return turnPhase;
+    }
+
+    // AS CALL PHASE
+
+    /**
+     * 鳴きの選択肢の生成を開始します。
+     * @param handTiles 手牌
+     * @param callTile 鳴きの対象牌
+     */
+    void startCall(List<Tile> handTiles, Tile callTile){
+        callPhase.clear();
+        count(handTiles);
+        callHandTiles = handTiles;
+        callPhase.callTile = callTile;
+    }
+
+    /**
+     * ロン和了を宣言可能とします。
+     */
+    void allowCallWin(){
+        callPhase.win = true;
+    }
+
+    /**
+     * 手牌に対象牌の同種牌が3枚ある場合, それらをカンの構成牌として追加します。
+     */
+    void generateQuadBases(){
+        int number = callPhase.callTile.tileNumber();
+        if(counts[number]==3){
+            callPhase.quad = NUMBER_MASKS[number] & handMask;
+        }
+    }
+
+    /**
+     * 手牌に対象牌の同種牌が2枚以上ある場合, それらをポンの構成牌として追加します。
+     */
+    void generateTripleBases(){
+        int number = callPhase.callTile.tileNumber();
+        if(counts[number]<2) return;
+        var baseTile = Tiles.baseTileOf(callPhase.callTile);
+        var redTile = Tiles.redTileOf(callPhase.callTile);
+        callPhase.triple = NUMBER_MASKS[number] & handMask;
+        int redCount = redTile!=baseTile && (handMask & bitOf(redTile))!=0? 1:0;
+        if(counts[number] - redCount>=2){
+            callPhase.tripleDuplicated = bitOf(baseTile);
+        }
+    }
+
+    /**
+     * 対象牌と順子を構成する手牌中の搭子をチーの構成牌として追加します。
+     *
+     * <p>チーの後の手牌が全て喰い替えとなる牌のみとなる搭子は除かれます。
+     */
+    void generateStraightBases(){
+        var callTile = callPhase.callTile;
+        if(callTile.isHonor()) return;
+        int number = callTile.tileNumber();
+        int rank = callTile.suitNumber();
+        if(rank>=3) addStraightBases(number - 2, number - 1);
+        if(rank>=2 && rank<=8) addStraightBases(number - 1, number + 1);
+        if(rank<=7) addStraightBases(number + 1, number + 2);
+    }
+
+    private void addStraightBases(int lower, int upper){
+        if(counts[lower]==0 || counts[upper]==0) return;
+        if(isCallShiftOnly(lower, upper)) return;
+        long lowerTiles = NUMBER_MASKS[lower] & handMask;
+        long upperTiles = NUMBER_MASKS[upper] & handMask;
+        for(long l = lowerTiles; l!=0; l &= l - 1){
+            for(long u = upperTiles; u!=0; u &= u - 1){
+                callPhase.addStraightBase(Long.numberOfTrailingZeros(l), Long.numberOfTrailingZeros(u));
+            }
+        }
+    }
+
+    /**
+     * 搭子によるチーの後の手牌が喰い替えとなる牌のみとなるかどうか検査します。
+     */
+    private boolean isCallShiftOnly(int lower, int upper){
+        int lowerRank = TILES[Long.numberOfTrailingZeros(NUMBER_MASKS[lower])].suitNumber();
+        int upperRank = lowerRank + upper - lower;
+        for(int number = 0; number<34; number++){
+            int rest = counts[number] - (number==lower? 1:0) - (number==upper? 1:0);
+            if(rest==0) continue;
+            boolean callShift = upper - lower==2? number==lower + 1:
+                    number==lower - 1 && lowerRank>1 || number==upper + 1 && upperRank<9;
+            if(!callShift) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 生成した鳴きの問い合わせ内容を取得します。
+     *
+     * <p>手牌の複製は, 可能な行動が存在する場合にのみ作成します。
+     * @return 問い合わせ内容, 可能な行動が存在しない場合はnull
+     */
+    CallPhaseContext getCallPhase(){
+        if(callPhase.isEmpty()) return null;
+        copy(callHandTiles, callPhase.tiles);
+        return callPhase;
+    }
+
+    /**
+     * 面子手の聴牌かどうか検査します。
+     *
+     * <p>和了形では雀頭を含む色の枚数のみ3で割って2余り, 他の色は割り切れます。
+     * この条件から和了牌を加える色と雀頭を含む色を絞り込み,
+     * 和了牌を加えない色は単独で, 加える色は候補の牌ごとに面子に分解できるか検査します。
+     */
+    private boolean isMeldHandReady(){
+        int oneSuit = -1;
+        int twoSuit = -1;
+        int otherTwoSuit = -1;
+        for(int suit = 0; suit<4; suit++){
+            switch(suitSums[suit]%3){
+                case 1:
+                    if(oneSuit>=0) return false;
+                    oneSuit = suit;
+                    break;
+                case 2:
+                    if(otherTwoSuit>=0) return false;
+                    if(twoSuit>=0) otherTwoSuit = suit;
+                    else twoSuit = suit;
+                    break;
+            }
+        }
+        if(oneSuit>=0){
+            if(twoSuit>=0) return false;
+            return isCompletedExcept(oneSuit, -1) && isReadySuitCached(oneSuit, true);
+        }
+        if(otherTwoSuit<0) return false;
+        return isCompletedExcept(twoSuit, otherTwoSuit) && isReadySuitCached(twoSuit, false)
+                || isCompletedExcept(otherTwoSuit, twoSuit) && isReadySuitCached(otherTwoSuit, false);
+    }
+
+    /**
+     * 和了牌を加える色を除く各色が, 単独で面子(と雀頭)に分解できるか検査します。
+     * @param waitingSuit 和了牌を加える色
+     * @param pairSuit 雀頭を含む色, 和了牌を加える色が雀頭を含む場合は-1
+     */
+    private boolean isCompletedExcept(int waitingSuit, int pairSuit){
+        for(int suit = 0; suit<4; suit++){
+            if(suit==waitingSuit) continue;
+            if(!isCompletedSuitCached(suit, suit==pairSuit)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 打牌で変化しない色の分解の結果を, 打牌の候補の間で共有して検査します。
+     */
+    private boolean isCompletedSuitCached(int suit, boolean pair){
+        if(suit==changedSuit) return isCompletedSuit(suit, pair);
+        int key = suit*4 + (pair? 1:0);
+        if(suitCache[key]==UNKNOWN){
+            suitCache[key] = isCompletedSuit(suit, pair)? SATISFIED:UNSATISFIED;
+        }
+        return suitCache[key]==SATISFIED;
+    }
+
+    private boolean isReadySuitCached(int suit, boolean pair){
+        if(suit==changedSuit) return isReadySuit(suit, pair);
+        int key = suit*4 + (pair? 3:2);
+        if(suitCache[key]==UNKNOWN){
+            suitCache[key] = isReadySuit(suit, pair)? SATISFIED:UNSATISFIED;
+        }
+        return suitCache[key]==SATISFIED;
+    }
+
+    private boolean isReadySuit(int suit, boolean pair){
+        for(int i = suit*9, end = suit==3? 34:i + 9; i<end; i++){
+            if(counts[i]==4) continue;
+            counts[i]++;
+            boolean completed = isCompletedSuit(suit, pair);
+            counts[i]--;
+            if(completed) return true;
+        }
+        return false;
+    }
+
+    private boolean isCompletedSuit(int suit, boolean pair){
+        int offset = suit*9;
+        int length = suit==3? 7:9;
+        if(!pair) return isMeldsOnly(offset, length, suit==3);
+        for(int i = offset; i<offset + length; i++){
+            if(counts[i]<2) continue;
+            counts[i] -= 2;
+            boolean completed = isMeldsOnly(offset, length, suit==3);
+            counts[i] += 2;
+            if(completed) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 一色の牌が全て面子に分解できるか検査します。
+     *
+     * <p>数牌は小さい牌から順に, 3で割った余りの枚数を順子として取り除きます。
+     * 順子を3つ重ねた形は刻子3つと同じであるため, この貪欲な分解で十分です。
+     */
+    private boolean isMeldsOnly(int offset, int length, boolean honor){
+        if(honor){
+            for(int i = offset; i<offset + length; i++){
+                if(counts[i]%3!=0) return false;
+            }
+            return true;
+        }
+        System.arraycopy(counts, offset, work, 0, 9);
+        for(int i = 0; i<9; i++){
+            int rest = work[i];
+            if(rest<0) return false;
+            rest %= 3;
+            if(rest==0) continue;
+            if(i>=7) return false;
+            work[i + 1] -= rest;
+            work[i + 2] -= rest;
+        }
+        return true;
+    }
+
+    /**
+     * 再利用可能なターン時の行動の選択肢のクラス。
+     *
+     * <p>牌ごとの選択肢を牌の序数をビット位置とするビットマスクで保持します。
+     */
+    private static final class ReusableTurnPhaseContext implements TurnPhaseContext{
+        private final List<Tile> tiles = new ArrayList<>(14);
+        private final List<Tile> view = Collections.unmodifiableList(tiles);
+        private long discardable;
+        private long ready;
+        private long addQuad;
+        private long selfQuad;
+        private boolean win;
+        private boolean draw;
+
+        private void clear(){
+            discardable = 0;
+            ready = 0;
+            addQuad = 0;
+            selfQuad = 0;
+            win = false;
+            draw = false;
+        }
+        @Override
+        public List<Tile> getTiles(){
+            return view;
+        }
+        @Override
+        public boolean canDeclareWin(){
+            return win;
+        }
+        @Override
+        public boolean canDeclareDraw(){
+            return draw;
+        }
+        @Override
+        public boolean canDeclareReady(){
+            return ready!=0;
+        }
+        @Override
+        public boolean canDeclareQuad(){
+            return (addQuad | selfQuad)!=0;
+        }
+        @Override
+        public boolean canDiscard(Tile tile){
+            return (discardable & bitOf(tile))!=0;
+        }
+        @Override
+        public boolean canDeclareReady(Tile tile){
+            return (ready & bitOf(tile))!=0;
+        }
+        @Override
+        public boolean canDeclareQuad(Tile tile){
+            return ((addQuad | selfQuad) & bitOf(tile))!=0;
+        }
+        @Override
+        public boolean canDeclareAddQuad(Tile tile){
+            return (addQuad & bitOf(tile))!=0;
+        }
+        @Override
+        public boolean canDeclareSelfQuad(Tile tile){
+            return (selfQuad & bitOf(tile))!=0;
+        }
+        @Override
+        public String toString(){
+            return "TurnPhaseContext"+tiles;
+        }
+    }
+
+    /**
+     * 再利用可能な鳴きの行動の選択肢のクラス。
+     *
+     * <p>ポンとカンの構成牌はビットマスクで, チーの構成牌は搭子ごとに
+     * 二つの牌の序数の組として保持します。
+     * 対象牌一枚に対するチーの搭子は赤ドラ牌の有無を含めても最大6通りです。
+     */
+    private static final class ReusableCallPhaseContext implements CallPhaseContext{
+        private final List<Tile> tiles = new ArrayList<>(14);
+        private final List<Tile> view = Collections.unmodifiableList(tiles);
+        private final int[] straightBases = new int[6];
+        private int straightCount;
+        private long straight;
+        private long triple;
+        private long tripleDuplicated;
+        private long quad;
+        private boolean win;
+        private Tile callTile;
+
+        private void clear(){
+            straightCount = 0;
+            straight = 0;
+            triple = 0;
+            tripleDuplicated = 0;
+            quad = 0;
+            win = false;
+        }
+        private boolean isEmpty(){
+            return !win && quad==0 && triple==0 && straightCount==0;
+        }
+        private void addStraightBase(int lower, int upper){
+            straightBases[straightCount++] = lower<<6 | upper;
+            straight |= 1L<<lower | 1L<<upper;
+        }
+        @Override
+        public List<Tile> getTiles(){
+            return view;
+        }
+        @Override
+        public Tile getCallTile(){
+            return callTile;
+        }
+        @Override
+        public boolean canCallWin(){
+            return win;
+        }
+        @Override
+        public boolean canCallQuad(){
+            return quad!=0;
+        }
+        @Override
+        public boolean canCallTriple(){
+            return triple!=0;
+        }
+        @Override
+        public boolean canCallStraight(){
+            return straightCount>0;
+        }
+        @Override
+        public boolean canCallStraight(Tile tile){
+            return (straight & bitOf(tile))!=0;
+        }
+        @Override
+        public boolean canCallTriple(Tile tile){
+            return (triple & bitOf(tile))!=0;
+        }
+        @Override
+        public boolean canCallQuad(Tile tile){
+            return (quad & bitOf(tile))!=0;
+        }
+        @Override
+        public boolean canCallStraight(Tile tile, Tile selected){
+            int forward = selected.ordinal()<<6 | tile.ordinal();
+            int backward = tile.ordinal()<<6 | selected.ordinal();
+            for(int i = 0; i<straightCount; i++){
+                if(straightBases[i]==forward || straightBases[i]==backward) return true;
+            }
+            return false;
+        }
+        @Override
+        public boolean canCallTriple(Tile tile, Tile selected){
+            if(tile==selected) return (tripleDuplicated & bitOf(tile))!=0;
+            return (triple & bitOf(tile))!=0 && (triple & bitOf(selected))!=0;
+        }
+        @Override
+        public String toString(){
+            return "CallPhaseContext"+tiles+"["+callTile+"]";
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.List;
+
+/**
+ * 局の進行状況を局参加者に公開するインターフェース。
+ *
+ * <p>{@link RoundPlayer}は行動の可否判定や和了時の勝利コンテキストの生成に
+ * 局の状況を必要とします。このインターフェースを介することで,
+ * 観測者への通知を伴う局の実装と, 通知を伴わない高速な局の実装の双方で
+ * 同一の判定処理を共有します。
+ * @author Rouh
+ * @version 1.0
+ */
+interface RoundAccessor{
+
+    /**
+     * 場風を取得します。
+     * @return 場風
+     */
+    Wind getRoundWind();
+
+    /**
+     * 局の開始から成立した打牌の数を取得します。
+     * @return 打牌の数
+     */
+    int getTurnCount();
+
+    /**
+     * 局中に宣言されたカンの合計数を取得します。
+     * @return カンの合計数(0..4)
+     */
+    int getTotalQuadCount();
+
+    /**
+     * 残りツモ可能枚数を取得します。
+     * @return 残りツモ可能枚数
+     */
+    int getRemainingTurnCount();
+
+    /**
+     * 鳴きを挟まない一巡目かどうか検査します。
+     * @return true  鳴きを挟まない一巡目の場合
+     *         false 一巡目を過ぎた場合, 鳴きが発生した場合
+     */
+    boolean isFirstAround();
+
+    /**
+     * 残りツモ可能枚数が4枚未満かどうか検査します。
+     * @return true  最後の一巡の場合
+     *         false 最後の一巡でない場合
+     */
+    default boolean isLastAround(){
+        return getRemainingTurnCount()<4;
+    }
+
+    /**
+     * 残りツモ可能枚数が0枚かどうか検査します。
+     * @return true  海底牌の場合
+     *         false 海底牌でない場合
+     */
+    default boolean isLastTurn(){
+        return getRemainingTurnCount()==0;
+    }
+
+    /**
+     * ドラのリストを取得します。
+     * @return ドラのリスト
+     */
+    List<Tile> getUpperPrisedTiles();
+
+    /**
+     * 裏ドラのリストを取得します。
+     * @return 裏ドラのリスト
+     */
+    List<Tile> getLowerPrisedTiles();
+}
@@ -0,0 +1,695 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.score.WinningType;
+import jp.rouh.mahjong.table.AsyncTableStrategy;
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.PerspectiveProjector;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.round.result.DrawType;
+import jp.rouh.mahjong.table.round.result.RoundResult;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 局の進行規則を実装するクラス。
+ *
+ * <p>配牌からプレイヤーの行動の適用, 鳴きの優先順位の裁定, 精算までの局の流れを
+ * {@link RoundStage}で表される段階の間を遷移する状態機械として実装します。
+ * プレイヤーへの行動の問い合わせは行わず, {@link #step}で入力された行動を適用するのみです。
+ * 問い合わせの方法は利用するクラスがそれぞれ決定します。
+ * <ul>
+ *   <li>{@link FieldRound} 同期的もしくは非同期に問い合わせ, 観戦者に通知します。</li>
+ *   <li>{@link SimulationRound} 観戦者への通知を行わず, 同期的に問い合わせます。</li>
+ *   <li>{@link RoundReplay} 問い合わせを行わず, 記録された行動を入力します。</li>
+ * </ul>
+ * 局の規則はこのクラスにのみ実装されるため, 規則の修正は全ての局に反映されます。
+ * <p>{@link #setSpectator}で通知を有効にした場合, 行動の適用に伴う卓上の変化を
+ * 各プレイヤーにはその席から見た通知として, 観戦者には東家から見た通知として配送します。
+ * 通知は行動を適用したスレッドで, 適用の途中に行われます。
+ * <p>このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+final class RoundEngine implements RoundAccessor{
+    private final Wind roundWind;
+    private final int roundCount;
+    private final int streakCount;
+    private final int depositCount;
+    private final Map<Wind, RoundPlayer> players = new EnumMap<>(Wind.class);
+    private final RoundSettlement settlement;
+    private final List<RoundRecord.Step> steps = new ArrayList<>();
+    private int diceSum;
+    private IndexedWall wall;
+    private int turnCount = 0;
+    private int quadCount = 0;
+    private boolean firstAroundInterrupted = false;
+    private RoundStage stage = RoundStage.NOT_STARTED;
+    private RoundResult result;
+    private Wind turnWind;
+    private TurnPhaseContext turnContext;
+    private CallKind callKind;
+    private Tile callTile;
+    private boolean readyDiscarded;
+    private List<Wind> callerWinds;
+    private final CallPhaseContext[] callContexts = new CallPhaseContext[3];
+    private final CallAction[] callActions = new CallAction[3];
+    private Predicate<Wind> idleCheck = seatWind->true;
+    private Consumer<TableEvent> spectator;
+    private TableObserver publisher;
+    private final TableObserver[] privatePublishers = new TableObserver[4];
+
+    /**
+     * 鳴きの問い合わせの対象となった行動の種別。
+     */
+    private enum CallKind{
+        SELF_QUAD,
+        ADD_QUAD,
+        DISCARD
+    }
+
+    /**
+     * コンストラクタ。
+     * @param roundWind 場風
+     * @param roundCount 局数(1..4)
+     * @param streakCount 本場数(0..)
+     * @param depositCount 供託数(0..)
+     */
+    RoundEngine(Wind roundWind, int roundCount, int streakCount, int depositCount){
+        this.roundWind = roundWind;
+        this.roundCount = roundCount;
+        this.streakCount = streakCount;
+        this.depositCount = depositCount;
+        this.settlement = new RoundSettlement(players, streakCount, depositCount);
+    }
+
+    /**
+     * 参加者を指定した自風に登録します。
+     * @param seatWind 自風
+     * @param participant 参加者
+     * @param asyncStrategy 行動の問い合わせ先, 局参加者に同期的に問い合わせる場合はnull
+     * @throws IllegalStateException 自風に既に参加者が登録されている場合
+     */
+    void join(Wind seatWind, RoundParticipant participant, AsyncTableStrategy asyncStrategy){
+        if(players.containsKey(seatWind)){
+            throw new IllegalStateException();
+        }
+        players.put(seatWind, new RoundPlayer(participant, this, seatWind, asyncStrategy));
+    }
+
+    /**
+     * 全ての参加者が登録されているかどうか検査します。
+     * @return true  全ての自風に参加者が登録されている場合
+     *         false 参加者が揃っていない場合
+     */
+    boolean isFull(){
+        return players.size()==4;
+    }
+
+    /**
+     * 配牌を行い, 親のターン時の行動を待つ段階に遷移します。
+     * @param diceSum 山の開門位置を決めたサイコロの出目の合計
+     * @param wall 山
+     * @throws IllegalStateException 参加者が全員揃っていない場合, 局が既に開始されている場合
+     */
+    void begin(int diceSum, IndexedWall wall){
+        if(stage!=RoundStage.NOT_STARTED){
+            throw new IllegalStateException("round already started");
+        }
+        if(!isFull()){
+            throw new IllegalStateException("参加者が全員揃っていません");
+        }
+        this.diceSum = diceSum;
+        this.wall = wall;
+        if(spectator!=null){
+            openPublishers();
+            publisher.wallGenerated();
+            wall.setPublisher(publisher);
+        }
+        var hands = new EnumMap<Wind, List<Tile>>(Wind.class);
+        for(var wind:Wind.values()){
+            hands.put(wind, new ArrayList<>(13));
+        }
+        for(int i = 0; i<3; i++){
+            for(var wind:Wind.values()){
+                hands.get(wind).addAll(wall.takeFourTiles());
+            }
+        }
+        for(var wind:Wind.values()){
+            hands.get(wind).add(wall.takeTile());
+        }
+        for(var wind:Wind.values()){
+            playerAt(wind).distribute(hands.get(wind));
+            notifyHandUpdated(wind);
+        }
+        wall.revealIndicatorImmediately();
+        turnWind = Wind.EAST;
+        playerAt(turnWind).draw(wall.takeTile());
+        notifyTileDrawn(turnWind);
+        enterTurn();
+    }
+
+    /**
+     * 通知を有効にし, 観戦者への配送先を設定します。
+     *
+     * <p>{@link #begin}の前に呼び出す必要があります。
+     * 設定しない場合, プレイヤーと観戦者のいずれにも通知しません。
+     * @param spectator 東家から見た通知の配送先
+     */
+    void setSpectator(Consumer<TableEvent> spectator){
+        this.spectator = spectator;
+    }
+
+    private void openPublishers(){
+        var seats = new EnumMap<Wind, Consumer<TableEvent>>(Wind.class);
+        for(var wind:Wind.values()){
+            seats.put(wind, PerspectiveProjector.dispatcherOf(playerAt(wind)));
+        }
+        var projector = new PerspectiveProjector(seats, spectator);
+        publisher = TableEvent.recorder(projector::project);
+        for(var wind:Wind.values()){
+            privatePublishers[wind.ordinal()] = TableEvent.recorder(event->projector.project(wind, event));
+        }
+    }
+
+    private static Side sideOf(Wind wind){
+        return PerspectiveProjector.sideOf(Wind.EAST, wind);
+    }
+
+    private void notifyHandUpdated(Wind wind){
+        if(publisher!=null){
+            privatePublishers[wind.ordinal()].handUpdated(playerAt(wind).getHandTiles());
+        }
+    }
+
+    private void notifyTileDrawn(Wind wind){
+        if(publisher!=null){
+            privatePublishers[wind.ordinal()].tileDrawn(playerAt(wind).getDrawnTile());
+        }
+    }
+
+    /**
+     * 和了者の手牌が倒されたことを通知します。
+     * @param wind 和了者の自風
+     * @param declaration ロン和了の場合は宣言, ツモ和了の場合はnull
+     */
+    private void notifyHandRevealed(Wind wind, Declaration declaration){
+        if(publisher==null) return;
+        var player = playerAt(wind);
+        if(declaration!=null){
+            publisher.declared(sideOf(wind), declaration);
+        }
+        var drawnTile = player.getDrawnTile();
+        if(drawnTile==null){
+            publisher.handRevealed(sideOf(wind), player.getHandTiles());
+            return;
+        }
+        var handTiles = new ArrayList<>(player.getHandTiles());
+        handTiles.remove(drawnTile);
+        publisher.handRevealed(sideOf(wind), handTiles, drawnTile);
+    }
+
+    /**
+     * 記録された行動の列を順に適用します。
+     *
+     * <p>全員が自動的にパスとなった鳴きの問い合わせは, 打牌の時点で記録済みのため読み飛ばします。
+     * @param recorded 局の開始からの行動の列
+     * @throws IllegalStateException 行動を入力できる段階でない場合
+     * @throws IllegalArgumentException 記録された行動が不正な場合
+     */
+    void restore(List<RoundRecord.Step> recorded){
+        for(int i = 0; i<recorded.size(); i++){
+            if(i<steps.size()) continue;
+            step(recorded.get(i));
+        }
+    }
+
+    /**
+     * プレイヤーの行動を入力し, 局を次の段階に進めます。
+     * @param step 行動の記録
+     * @throws IllegalStateException 行動を入力できる段階でない場合, 既に応答したプレイヤーの場合
+     * @throws IllegalArgumentException 行動を入力できるプレイヤーでない場合, 不正な行動の場合
+     * @see FieldRound#step
+     */
+    void step(RoundRecord.Step step){
+        if(step.isTurnAction()){
+            stepTurn(step.getWind(), step.getTurnAction());
+        }else{
+            stepCall(step.getWind(), step.getCallAction());
+        }
+    }
+
+    private void stepTurn(Wind wind, TurnAction turnAction){
+        if(stage!=RoundStage.TURN){
+            throw new IllegalStateException("turn action at stage "+stage);
+        }
+        if(wind!=turnWind){
+            throw new IllegalArgumentException("not a turn player: "+wind);
+        }
+        if(!isAcceptable(getTurnContext(), turnAction)){
+            throw new IllegalArgumentException("illegal turn action of "+wind);
+        }
+        steps.add(RoundRecord.Step.ofTurn(turnWind, turnAction));
+        turnContext = null;
+        applyTurnAction(turnAction);
+    }
+
+    private void stepCall(Wind wind, CallAction callAction){
+        if(!stage.isCallStage()){
+            throw new IllegalStateException("call action at stage "+stage);
+        }
+        int index = callerWinds.indexOf(wind);
+        if(index<0){
+            throw new IllegalArgumentException("not a caller: "+wind);
+        }
+        if(callContexts[index]==null){
+            if(callAction.isRiverGrabWinDeclaration() || callAction.isMeldCallDeclaration()){
+                throw new IllegalArgumentException("illegal call action of "+wind);
+            }
+            return;
+        }
+        if(callActions[index]!=null){
+            throw new IllegalStateException("already answered: "+wind);
+        }
+        if(!isAcceptable(callContexts[index], callAction)){
+            throw new IllegalArgumentException("illegal call action of "+wind);
+        }
+        callActions[index] = callAction;
+        for(var action:callActions){
+            if(action==null) return;
+        }
+        closeCallWindow();
+    }
+
+    private static boolean isAcceptable(TurnPhaseContext context, TurnAction action){
+        if(action.isNineTilesDrawDeclaration()) return context.canDeclareDraw();
+        if(action.isSelfDrawWinDeclaration()) return context.canDeclareWin();
+        if(action.isAddQuadDeclaration()) return context.canDeclareAddQuad(action.getSelectedTile());
+        if(action.isSelfQuadDeclaration()) return context.canDeclareSelfQuad(action.getSelectedTile());
+        if(action.isReadyDeclaration()) return context.canDeclareReady(action.getSelectedTile());
+        return context.canDiscard(action.getSelectedTile());
+    }
+
+    private static boolean isAcceptable(CallPhaseContext context, CallAction action){
+        if(action.isRiverGrabWinDeclaration()) return context.canCallWin();
+        if(action.isQuadCallDeclaration()) return context.canCallQuad();
+        if(action.isTripleCallDeclaration()) return context.canCallTriple();
+        if(action.isStraightCallDeclaration()) return context.canCallStraight();
+        return true;
+    }
+
+    private void enterTurn(){
+        stage = RoundStage.TURN;
+        turnContext = null;
+    }
+
+    private void applyTurnAction(TurnAction turnAction){
+        var turnPlayer = playerAt(turnWind);
+        if(turnAction.isNineTilesDrawDeclaration()){
+            notifyHandRevealed(turnWind, null);
+            finish(settlement.settleDraw(DrawType.NINE_TILES, true));
+            return;
+        }
+        if(turnAction.isSelfDrawWinDeclaration()){
+            notifyHandRevealed(turnWind, null);
+            finish(settlement.settleSelfDrawWin(turnWind));
+            return;
+        }
+        if(turnAction.isSelfQuadDeclaration()){
+            var quadTile = turnAction.getSelectedTile();
+            wall.revealIndicatorIfPresent();
+            turnPlayer.makeSelfQuad(quadTile);
+            quadCount++;
+            if(publisher!=null){
+                var melds = turnPlayer.getOpenMelds();
+                publisher.declared(sideOf(turnWind), Declaration.KAN);
+                publisher.selfQuadAdded(sideOf(turnWind), melds.get(melds.size() - 1).getTilesFormed());
+                notifyHandUpdated(turnWind);
+            }
+            interruptFirstAround();
+            openCallWindow(CallKind.SELF_QUAD, quadTile,
+                    callerWind->playerAt(callerWind).prepareSelfQuadCallPhase(quadTile));
+            return;
+        }
+        if(turnAction.isAddQuadDeclaration()){
+            var quadTile = turnAction.getSelectedTile();
+            wall.revealIndicatorIfPresent();
+            int meldIndex = turnPlayer.makeAddQuad(quadTile);
+            quadCount++;
+            if(publisher!=null){
+                publisher.declared(sideOf(turnWind), Declaration.KAN);
+                publisher.meldTileAdded(sideOf(turnWind), meldIndex, quadTile);
+                notifyHandUpdated(turnWind);
+            }
+            interruptFirstAround();
+            openCallWindow(CallKind.ADD_QUAD, quadTile,
+                    callerWind->playerAt(callerWind).prepareAddQuadCallPhase(quadTile));
+            return;
+        }
+        var discardedTile = turnAction.getSelectedTile();
+        readyDiscarded = turnAction.isReadyDeclaration();
+        if(readyDiscarded){
+            turnPlayer.readyDiscard(discardedTile);
+        }else{
+            turnPlayer.discard(discardedTile);
+        }
+        turnCount++;
+        if(publisher!=null){
+            if(readyDiscarded){
+                publisher.declared(sideOf(turnWind), Declaration.READY);
+                publisher.tileDiscardedAsReady(sideOf(turnWind), discardedTile);
+            }else{
+                publisher.tileDiscarded(sideOf(turnWind), discardedTile);
+            }
+            notifyHandUpdated(turnWind);
+        }
+        var discarderWind = turnWind;
+        openCallWindow(CallKind.DISCARD, discardedTile,
+                callerWind->playerAt(callerWind).prepareCallPhase(discardedTile, discarderWind.from(callerWind)));
+    }
+
+    /**
+     * 手番のプレイヤーの下家から順に鳴きの問い合わせ内容を作成し,
+     * 鳴きの問い合わせの応答を待つ段階に遷移します。
+     *
+     * <p>{@link #setIdleCheck}で前回の問い合わせから戻っていないとされたプレイヤーは,
+     * 問い合わせ内容を作成せずに自動的にパスとします。
+     * 問い合わせ内容は生成器で再利用されるため, 処理中の戦略が参照する内容を上書きしないためです。
+     * <p>全員が自動的にパスとなる場合は, 直ちに応答が揃ったものとして処理します。
+     * @param kind 鳴きの対象となった行動の種別
+     * @param tile 鳴きの対象牌
+     * @param preparer 問い合わせ内容の作成処理
+     */
+    private void openCallWindow(CallKind kind, Tile tile, Function<Wind, CallPhaseContext> preparer){
+        stage = kind==CallKind.DISCARD? RoundStage.DISCARD_CALL:RoundStage.QUAD_CALL;
+        callKind = kind;
+        callTile = tile;
+        callerWinds = orderFrom(turnWind);
+        boolean pending = false;
+        for(int i = 0; i<3; i++){
+            var callerWind = callerWinds.get(i);
+            callContexts[i] = idleCheck.test(callerWind)? preparer.apply(callerWind):null;
+            callActions[i] = callContexts[i]==null? CallAction.ofPass():null;
+            pending |= callContexts[i]!=null;
+        }
+        if(!pending){
+            closeCallWindow();
+        }
+    }
+
+    /**
+     * 鳴きの問い合わせの結果を確定して記録し, 採用された行動を適用します。
+     */
+    private void closeCallWindow(){
+        var actions = List.of(callActions);
+        for(int i = 0; i<3; i++){
+            playerAt(callerWinds.get(i)).settleCallPhase(callTile, actions.get(i));
+            steps.add(RoundRecord.Step.ofCall(callerWinds.get(i), actions.get(i)));
+            callContexts[i] = null;
+            callActions[i] = null;
+        }
+        var turnPlayer = playerAt(turnWind);
+        var winners = new ArrayList<Wind>(3);
+        for(int i = 0; i<3; i++){
+            if(actions.get(i).isRiverGrabWinDeclaration()) winners.add(callerWinds.get(i));
+        }
+        switch(callKind){
+            case SELF_QUAD:
+                if(!winners.isEmpty()){
+                    winners.forEach(winner->notifyHandRevealed(winner, Declaration.RON));
+                    finish(settlement.settleRiverGrabWin(winners, turnWind, callTile, WinningType.QUAD_GRAB));
+                    return;
+                }
+                wall.revealIndicatorImmediately();
+                turnPlayer.drawQuadTile(wall.takeQuadTile());
+                notifyTileDrawn(turnWind);
+                enterTurn();
+                return;
+            case ADD_QUAD:
+                if(!winners.isEmpty()){
+                    winners.forEach(winner->notifyHandRevealed(winner, Declaration.RON));
+                    finish(settlement.settleRiverGrabWin(winners, turnWind, callTile, WinningType.QUAD_GRAB));
+                    return;
+                }
+                turnPlayer.drawQuadTile(wall.takeQuadTile());
+                notifyTileDrawn(turnWind);
+                enterTurn();
+                return;
+            case DISCARD:
+                break;
+            default:
+                throw new AssertionError(callKind);
+        }
+        var discardedTile = callTile;
+        if(!winners.isEmpty()){
+            winners.forEach(winner->notifyHandRevealed(winner, Declaration.RON));
+            finish(settlement.settleRiverGrabWin(winners, turnWind, discardedTile, WinningType.RIVER_GRAB));
+            return;
+        }
+        if(readyDiscarded){
+            settlement.payReadyDeposit(turnWind);
+            if(publisher!=null) publisher.readyBoneAdded(sideOf(turnWind));
+        }
+        int winner = CallPhaseArbiter.selectWinner(actions);
+        wall.revealIndicatorIfPresent();
+        if(winner>=0){
+            var callerWind = callerWinds.get(winner);
+            var caller = playerAt(callerWind);
+            var meldCallAction = actions.get(winner);
+            interruptFirstAround();
+            if(meldCallAction.isStraightCallDeclaration()){
+                caller.callStraight(discardedTile, meldCallAction.getSelectedTiles());
+            }
+            if(meldCallAction.isTripleCallDeclaration()){
+                caller.callTriple(discardedTile, meldCallAction.getSelectedTiles(), turnWind.from(callerWind));
+            }
+            if(meldCallAction.isQuadCallDeclaration()){
+                caller.callQuad(discardedTile, meldCallAction.getSelectedTiles(), turnWind.from(callerWind));
+                quadCount++;
+            }
+            if(publisher!=null){
+                var melds = caller.getOpenMelds();
+                publisher.declared(sideOf(callerWind), declarationOf(meldCallAction));
+                publisher.riverTileTaken(sideOf(turnWind));
+                publisher.tiltMeldAdded(sideOf(callerWind), turnWind.from(callerWind),
+                        melds.get(melds.size() - 1).getTilesFormed());
+                notifyHandUpdated(callerWind);
+            }
+            if(meldCallAction.isQuadCallDeclaration()){
+                caller.drawQuadTile(wall.takeQuadTile());
+                notifyTileDrawn(callerWind);
+            }
+            turnWind = callerWind;
+            enterTurn();
+            return;
+        }
+        // all pass
+        if(!wall.hasDrawableTile()){
+            for(var wind:Wind.values()){
+                if(playerAt(wind).isHandReady()) notifyHandRevealed(wind, null);
+            }
+            finish(settlement.settleExhaustedDraw());
+            return;
+        }
+        turnWind = turnWind.next();
+        playerAt(turnWind).draw(wall.takeTile());
+        notifyTileDrawn(turnWind);
+        enterTurn();
+    }
+
+    private static Declaration declarationOf(CallAction meldCallAction){
+        if(meldCallAction.isStraightCallDeclaration()) return Declaration.CHI;
+        if(meldCallAction.isTripleCallDeclaration()) return Declaration.PON;
+        return Declaration.KAN;
+    }
+
+    private void interruptFirstAround(){
+        firstAroundInterrupted = true;
+        for(var player:players.values()){
+            player.interruptAround();
+        }
+    }
+
+    private void finish(RoundResult result){
+        stage = RoundStage.FINISHED;
+        this.result = result;
+        if(publisher!=null) publisher.roundSettled(result.getExpression());
+    }
+
+    /**
+     * 打牌者の下家から順に, 打牌者以外の自風のリストを取得します。
+     *
+     * <p>このリストの順序は, 同順位の副露宣言が競合した場合の優先順位
+     * および頭ハネの順序と一致します。
+     * @param turnWind 打牌者の自風
+     * @return 自風のリスト
+     */
+    private static List<Wind> orderFrom(Wind turnWind){
+        return List.of(turnWind.shift(1), turnWind.shift(2), turnWind.shift(3));
+    }
+
+    RoundStage getStage(){
+        return stage;
+    }
+
+    /**
+     * 局の結果を取得します。
+     * @return 局の結果, 局が終了していない場合はnull
+     */
+    RoundResult getResult(){
+        return result;
+    }
+
+    Wind getTurnWind(){
+        return turnWind;
+    }
+
+    /**
+     * 手番のプレイヤーのターン時の行動の選択肢を取得します。
+     *
+     * <p>選択肢は最初の取得時に作成されます。問い合わせ内容は生成器で再利用されるため,
+     * 前回の問い合わせから戻っていないプレイヤーの選択肢は, 戻った後に取得する必要があります。
+     * @throws IllegalStateException {@link RoundStage#TURN}の段階でない場合
+     * @return ターン時の行動の選択肢
+     */
+    TurnPhaseContext getTurnContext(){
+        if(stage!=RoundStage.TURN){
+            throw new IllegalStateException("not in turn stage: "+stage);
+        }
+        if(turnContext==null){
+            turnContext = playerAt(turnWind).prepareTurnPhase();
+        }
+        return turnContext;
+    }
+
+    /**
+     * プレイヤーが前回の問い合わせから戻っているかを判定する処理を設定します。
+     *
+     * <p>戻っていないプレイヤーは鳴きの問い合わせで自動的にパスとなります。
+     * 設定しない場合, 全てのプレイヤーが常に戻っているとみなします。
+     * @param idleCheck プレイヤーの自風を受け取り, 戻っている場合にtrueを返す判定処理
+     */
+    void setIdleCheck(Predicate<Wind> idleCheck){
+        this.idleCheck = idleCheck;
+    }
+
+    List<Wind> getPendingCallWinds(){
+        if(!stage.isCallStage()){
+            return List.of();
+        }
+        var winds = new ArrayList<Wind>(3);
+        for(int i = 0; i<3; i++){
+            if(callActions[i]==null) winds.add(callerWinds.get(i));
+        }
+        return winds;
+    }
+
+    CallPhaseContext getCallContext(Wind seatWind){
+        if(!stage.isCallStage()){
+            return null;
+        }
+        int index = callerWinds.indexOf(seatWind);
+        if(index<0 || callActions[index]!=null){
+            return null;
+        }
+        return callContexts[index];
+    }
+
+    /**
+     * 適用済みの行動の数を取得します。
+     *
+     * <p>自動的にパスとなった鳴きの問い合わせを含みます。
+     * 鳴きの問い合わせの応答を待つ段階で既に受け付けた応答は含みません。
+     * @return 行動の数
+     */
+    int getStepCount(){
+        return steps.size();
+    }
+
+    /**
+     * この局の記録を取得します。
+     * @throws IllegalStateException 局が開始されていない場合
+     * @return 局の記録
+     * @see FieldRound#getRecord
+     */
+    RoundRecord getRecord(){
+        if(wall==null){
+            throw new IllegalStateException("round not started");
+        }
+        if(!stage.isCallStage()){
+            return RoundRecord.of(roundWind, roundCount, streakCount, depositCount, diceSum, wall.getTiles(), steps);
+        }
+        var checkpoint = new ArrayList<>(steps);
+        for(int i = 0; i<3; i++){
+            if(callContexts[i]!=null && callActions[i]!=null){
+                checkpoint.add(RoundRecord.Step.ofCall(callerWinds.get(i), callActions[i]));
+            }
+        }
+        return RoundRecord.of(roundWind, roundCount, streakCount, depositCount, diceSum, wall.getTiles(), checkpoint);
+    }
+
+    IndexedWall getWall(){
+        return wall;
+    }
+
+    RoundPlayer playerAt(Wind seatWind){
+        return players.get(seatWind);
+    }
+
+    int getRoundCount(){
+        return roundCount;
+    }
+
+    int getStreakCount(){
+        return streakCount;
+    }
+
+    int getDepositCount(){
+        return settlement.getDepositCount();
+    }
+    @Override
+    public Wind getRoundWind(){
+        return roundWind;
+    }
+    @Override
+    public int getTurnCount(){
+        return turnCount;
+    }
+    @Override
+    public int getTotalQuadCount(){
+        return quadCount;
+    }
+    @Override
+    public int getRemainingTurnCount(){
+        return wall.getDrawableTileCount();
+    }
+    @Override
+    public boolean isFirstAround(){
+        return !firstAroundInterrupted && turnCount<4;
+    }
+    @Override
+    public List<Tile> getUpperPrisedTiles(){
+        return wall.getUpperIndicators().stream()
+                .map(Tile::indicates).collect(toList());
+    }
+    @Override
+    public List<Tile> getLowerPrisedTiles(){
+        return wall.getLowerIndicators().stream()
+                .map(Tile::indicates).collect(toList());
+    }
+}
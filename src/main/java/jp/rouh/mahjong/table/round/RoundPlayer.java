@@ -2,53 +2,59 @@ package jp.rouh.mahjong.table.round;
 
 import jp.rouh.mahjong.score.*;
 import jp.rouh.mahjong.score.type.TieredHandScoreCalculator;
+import jp.rouh.mahjong.table.AsyncTableStrategy;
 import jp.rouh.mahjong.table.TableStrategyAdaptor;
 import jp.rouh.mahjong.table.action.CallAction;
-import jp.rouh.mahjong.table.action.CallPhaseContextContainer;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
 import jp.rouh.mahjong.table.action.TurnAction;
-import jp.rouh.mahjong.table.action.TurnPhaseContextContainer;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
 import jp.rouh.mahjong.tile.*;
+import jp.rouh.util.OperableList;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
-import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toList;
 
 class RoundPlayer extends TableStrategyAdaptor{
     private final HandScoreCalculator calculator = new TieredHandScoreCalculator();
     private final RoundParticipant participant;
-    private final FieldRound round;
+    private final AsyncTableStrategy asyncStrategy;
+    private final RoundAccessor round;
     private final Wind seatWind;
     private final List<Tile> discardPile = new ArrayList<>(24);
     private final List<Meld> openMelds = new ArrayList<>(4);
-    private final List<Tile> handTiles = new ArrayList<>(13);
+    private final List<Tile> handTiles = new ArrayList<>(14);
     private final Set<Tile> callShiftTiles = new HashSet<>(2);
+    private final LegalActionGenerator legalActions = new LegalActionGenerator();
     private Tile drawnTile;
     private int quadCount = 0;
     private boolean concealed = true;
+    private boolean quadDrawn = false;
     private ReadyCache readyCache = null;
     private HandCache handCache = null;
     private TurnStatus status = TurnStatus.AFTER_PASS;
     private static class ReadyCache{
         private final Set<Tile> quadTiles;
         private final int readyTurnCount;
-        private ReadyCache(List<Tile> handTiles, int readyTurnCount){
+        private final boolean firstAround;
+        private boolean aroundInterrupted = false;
+        private ReadyCache(List<Tile> handTiles, int readyTurnCount, boolean firstAround){
             this.quadTiles = HandTiles.readyQuadTilesOf(handTiles);
             this.readyTurnCount = readyTurnCount;
+            this.firstAround = firstAround;
         }
     }
     private static class HandCache{
         private final Set<Tile> winningTiles;
         private final boolean thirteenOrphansHandReady;
-        private final boolean sacredDiscardCoolDown;
+        private boolean sacredDiscardCoolDown;
         private boolean aroundSacredDiscardCoolDown;
-        private HandCache(List<Tile> handTiles, List<Tile> discardPile){
-            this.winningTiles = HandTiles.winningTilesOf(handTiles);
-            this.thirteenOrphansHandReady = HandTiles.isThirteenOrphansHandReady(handTiles);
-            this.sacredDiscardCoolDown = winningTiles.stream().anyMatch(tile->
+        private HandCache(List<Tile> handTiles, List<Tile> discardPile, boolean mayBeReady){
+            this.winningTiles = mayBeReady? HandTiles.winningTilesOf(handTiles):Collections.emptySet();
+            this.thirteenOrphansHandReady = !winningTiles.isEmpty() && HandTiles.isThirteenOrphansHandReady(handTiles);
+            this.sacredDiscardCoolDown = !winningTiles.isEmpty() && winningTiles.stream().anyMatch(tile->
                     discardPile.stream().anyMatch(tile::equalsIgnoreRed));
         }
     }
@@ -57,33 +63,89 @@ class RoundPlayer extends TableStrategyAdaptor{
         AFTER_CALL,
         AFTER_QUAD
     }
-    RoundPlayer(RoundParticipant participant, FieldRound round, Wind seatWind){
+    RoundPlayer(RoundParticipant participant, RoundAccessor round, Wind seatWind){
+        this(participant, round, seatWind, null);
+    }
+
+    /**
+     * 非同期のテーブル戦略に行動を問い合わせるプレイヤーを生成します。
+     * @param participant 局参加者
+     * @param round 局
+     * @param seatWind 自風
+     * @param asyncStrategy 行動の問い合わせ先, 局参加者に同期的に問い合わせる場合はnull
+     */
+    RoundPlayer(RoundParticipant participant, RoundAccessor round, Wind seatWind, AsyncTableStrategy asyncStrategy){
         super(participant);
         this.participant = participant;
         this.round = round;
         this.seatWind = seatWind;
+        this.asyncStrategy = asyncStrategy;
     }
     public Wind getSeatWind(){
         return seatWind;
     }
+    RoundParticipant getParticipant(){
+        return participant;
+    }
+
+    /**
+     * 配牌を手牌に加えます。
+     * @param tiles 配牌(長さ13)
+     */
+    void distribute(List<Tile> tiles){
+        if(tiles.size()!=13){
+            throw new IllegalArgumentException("配牌の枚数が不正です: "+tiles);
+        }
+        handTiles.addAll(tiles);
+        handTiles.sort(Comparator.naturalOrder());
+        handCache = newHandCache();
+    }
     void draw(Tile tile){
         drawnTile = tile;
-//        round.tileDrawn(seatWind, tile);
+        quadDrawn = false;
+    }
+    void drawQuadTile(Tile tile){
+        drawnTile = tile;
+        quadDrawn = true;
     }
 
-    void makeAddQuad(Tile tile){
+    /**
+     * 自摸牌を理牌済みの手牌に挿入します。
+     */
+    private void mergeDrawnTile(){
+        if(drawnTile!=null){
+            insertSorted(drawnTile);
+            drawnTile = null;
+        }
+    }
+    private void insertSorted(Tile tile){
+        int index = Collections.binarySearch(handTiles, tile);
+        handTiles.add(index<0? -index - 1:index, tile);
+    }
+
+    /**
+     * 手牌の牌を刻子に加えて加槓します。
+     * @param tile 加槓牌
+     * @throws IllegalArgumentException 加槓に必要な刻子がない場合
+     * @return 加槓した刻子の副露の位置(0..3)
+     */
+    int makeAddQuad(Tile tile){
         for(var meld:openMelds){
             if(meld.isTriple() && meld.getFirst().equalsIgnoreRed(tile)){
+                mergeDrawnTile();
+                handTiles.remove(tile);
                 int index = openMelds.indexOf(meld);
-                var quad = Meld.makeAddQuad(meld, tile);
-                openMelds.remove(meld);
-                openMelds.add(index, quad);
-                return;
+                openMelds.set(index, Meld.makeAddQuad(meld, tile));
+                quadCount++;
+                status = TurnStatus.AFTER_QUAD;
+                updateHandCacheAfterQuad();
+                return index;
             }
         }
         throw new IllegalArgumentException("加槓に必要な刻子が見つかりません");
     }
     void makeSelfQuad(Tile tile){
+        mergeDrawnTile();
         var targets = handTiles.stream()
                 .filter(tile::equalsIgnoreRed)
                 .collect(toList());
@@ -93,21 +155,50 @@ class RoundPlayer extends TableStrategyAdaptor{
         targets.forEach(handTiles::remove);
         var quad = Meld.makeSelfQuad(targets);
         openMelds.add(quad);
+        quadCount++;
+        status = TurnStatus.AFTER_QUAD;
+        updateHandCacheAfterQuad();
     }
     void readyDiscard(Tile tile){
-
-
+        var readyTurnCount = round.getTurnCount();
+        var firstAround = round.isFirstAround();
+        discard(tile);
+        readyCache = new ReadyCache(handTiles, readyTurnCount, firstAround);
     }
     void discard(Tile tile){
-
+        // 自摸牌と同じ牌の打牌では, 打牌後の手牌は自摸前の手牌と一致します
+        boolean handUnchanged = drawnTile==tile;
+        mergeDrawnTile();
+        if(!handTiles.remove(tile)){
+            throw new IllegalArgumentException("打牌が手牌に見つかりません: "+tile);
+        }
+        discardPile.add(tile);
         callShiftTiles.clear();
-        handTiles.remove(tile);
-        handTiles.add(drawnTile);
-        drawnTile = null;
-
-
-
         status = TurnStatus.AFTER_PASS;
+        if(isReady()){
+            // 立直後は手牌が変化しないため, 和了牌の再計算は不要です。
+            // また立直後の見逃しによるフリテンは解除されません。
+            if(handCache.winningTiles.contains(tile)){
+                handCache.sacredDiscardCoolDown = true;
+            }
+        }else if(handUnchanged){
+            // 和了牌は変化しないため, フリテンの判定のみ更新します。
+            if(handCache.winningTiles.contains(tile)){
+                handCache.sacredDiscardCoolDown = true;
+            }
+            handCache.aroundSacredDiscardCoolDown = false;
+        }else{
+            handCache = newHandCache();
+        }
+    }
+    private HandCache newHandCache(){
+        return new HandCache(handTiles, discardPile, legalActions.mayBeReady(handTiles));
+    }
+    private void updateHandCacheAfterQuad(){
+        // 立直後のカンは待ちを変えないため, 和了牌の再計算は不要です。
+        if(!isReady()){
+            handCache = newHandCache();
+        }
     }
     void notifyTurnFinished(){
 //        if(round.getTurnCount()==readyTurnCount){
@@ -116,15 +207,21 @@ class RoundPlayer extends TableStrategyAdaptor{
 //        }
     }
 
+    /**
+     * 他家の副露によって一発および一巡目の状態が解消されたことを通知します。
+     */
+    void interruptAround(){
+        if(readyCache!=null){
+            readyCache.aroundInterrupted = true;
+        }
+    }
+
     void callStraight(Tile tile, List<Tile> base){
         concealed = false;
         base.forEach(handTiles::remove);
         openMelds.add(Meld.callStraight(base, tile));
         status = TurnStatus.AFTER_CALL;
         callShiftTiles.addAll(HandTiles.waitingTilesOf(base));
-
-//        round.leftTiltMeldAdded();
-
     }
     void callTriple(Tile tile, List<Tile> base, Side side){
         concealed = false;
@@ -137,98 +234,245 @@ class RoundPlayer extends TableStrategyAdaptor{
         concealed = false;
         base.forEach(handTiles::remove);
         openMelds.add(Meld.callQuad(base, tile, side));
+        quadCount++;
         status = TurnStatus.AFTER_QUAD;
     }
 
-    private WinningContext getWinningContext(){
-        return null;
-    }
-    private WinningHand getWinningHand(){
-        return null;
+    private WinningContext getWinningContext(WinningType winningType, Tile winningTile){
+        return new WinningContextFacade(this, round, winningType, winningTile);
+    }
+    private WinningHand getWinningHand(Tile winningTile, boolean selfDraw){
+        return selfDraw? WinningHand.ofDraw(winningTile, handTiles, openMelds):
+                WinningHand.ofGrab(winningTile, handTiles, openMelds);
+    }
+    private HandScore calculate(WinningHand hand, WinningContext context){
+        try{
+            return calculator.calculate(hand, context);
+        }catch(HandFormatException e){
+            throw new IllegalStateException("和了形でない手牌の得点を計算しました", e);
+        }
     }
 
     // AS TURN PLAYER
 
     TurnAction moveTurnPhase(){
+        return askTurnAction(prepareTurnPhase());
+    }
+
+    /**
+     * ターン時の行動の問い合わせ内容を作成します。
+     *
+     * <p>問い合わせ内容はこのプレイヤーの次の問い合わせ内容を作成するまで有効です。
+     * @return 問い合わせ内容
+     */
+    TurnPhaseContext prepareTurnPhase(){
         if(status==TurnStatus.AFTER_CALL)
-            return askTurnAction(TurnPhaseContextContainer.of(handTiles, callShiftTiles));
-        return askTurnAction(TurnPhaseContextContainer.of(handTiles,
-                readyTiles(), addQuadTiles(), selfQuadTiles(),
-                canDeclareSelfDrawWin(), canDeclareNineTilesDraw()));
+            return legalActions.generateAfterCall(handTiles, callShiftTiles);
+        legalActions.startTurn(handTiles, drawnTile);
+        if(isReady()) legalActions.restrictDiscardToDrawnTile();
+        if(canDeclareReady()) legalActions.generateReadyTiles();
+        if(canDeclareAddQuad()) legalActions.generateAddQuadTiles(openMelds);
+        if(canDeclareSelfQuad()){
+            if(!isReady()){
+                legalActions.generateSelfQuadTiles();
+            }else if(readyCache.quadTiles.contains(drawnTile)){
+                // 立直後は自摸牌による暗槓のみ可能です
+                legalActions.allowSelfQuad(drawnTile);
+            }
+        }
+        if(round.isFirstAround()) legalActions.generateNineTilesDraw();
+        if(canDeclareSelfDrawWin()) legalActions.allowSelfDrawWin();
+        return legalActions.getTurnPhase();
+    }
+
+    /**
+     * 行動の問い合わせ先が非同期のテーブル戦略かどうか検査します。
+     * @return true  非同期のテーブル戦略に問い合わせる場合
+     *         false 局参加者に同期的に問い合わせる場合
+     */
+    boolean isAsynchronous(){
+        return asyncStrategy!=null;
+    }
+
+    /**
+     * ターン時の行動を非同期に問い合わせます。
+     *
+     * <p>局参加者に同期的に問い合わせる場合は, 呼び出し元のスレッドで問い合わせを行い,
+     * 完了済みの段階を返します。
+     * @param context 問い合わせ内容
+     * @return ターン時の行動の完了段階
+     */
+    CompletionStage<TurnAction> askTurnActionAsync(TurnPhaseContext context){
+        if(asyncStrategy==null){
+            return CompletableFuture.completedFuture(askTurnAction(context));
+        }
+        return asyncStrategy.askTurnAction(context);
+    }
+
+    /**
+     * 鳴きの問い合わせに対する行動を非同期のテーブル戦略に問い合わせます。
+     * @param context 問い合わせ内容
+     * @throws IllegalStateException 非同期のテーブル戦略が設定されていない場合
+     * @return 鳴きの行動の完了段階
+     */
+    CompletionStage<CallAction> askCallActionAsync(CallPhaseContext context){
+        if(asyncStrategy==null){
+            throw new IllegalStateException("no asynchronous strategy");
+        }
+        return asyncStrategy.askCallAction(context);
+    }
+
+    /**
+     * ツモ和了の得点を計算します。
+     * @return 得点
+     */
+    HandScore getSelfDrawWinScore(){
+        var winningType = quadDrawn? WinningType.QUAD_DRAW:WinningType.WALL_DRAW;
+        return calculate(getWinningHand(drawnTile, true), getWinningContext(winningType, drawnTile));
     }
 
     private boolean canDeclareSelfDrawWin(){
-        if(isReady()) return handCache.winningTiles.contains(drawnTile);
-        return HandTiles.isCompleted(handTiles, drawnTile)
-                && calculator.checkIfScorePresent(getWinningHand(), getWinningContext());
-    }
-    private boolean canDeclareNineTilesDraw(){
-        if(!round.isFirstAround()) return false;
-        return HandTiles.isNineTiles(handTiles, drawnTile);
-    }
-    private Set<Tile> readyTiles(){
-        if(isReady()) return emptySet();
-        if(!concealed) return emptySet();
-        if(round.isLastAround()) return emptySet();
-        if(participant.getScore()<1000) return emptySet();
-        return HandTiles.readyTilesOf(handTiles, drawnTile);
-    }
-    private Set<Tile> addQuadTiles(){
-        if(isReady()) return emptySet();
-        if(round.isLastTurn()) return emptySet();
-        if(round.getTotalQuadCount()==4) return emptySet();
-        if(openMelds.size()==4) return emptySet();
-        return HandTiles.addQuadTilesOf(handTiles, drawnTile, openMelds);
-    }
-    private Set<Tile> selfQuadTiles(){
-        if(isReady()) return readyCache.quadTiles;
-        if(round.isLastTurn()) return emptySet();
-        if(round.getTotalQuadCount()==4) return emptySet();
-        if(openMelds.size()==4) return emptySet();
-        return HandTiles.selfQuadTilesOf(handTiles, drawnTile);
+        if(!handCache.winningTiles.contains(drawnTile)) return false;
+        if(isReady()) return true;
+        var winningType = quadDrawn? WinningType.QUAD_DRAW:WinningType.WALL_DRAW;
+        return calculator.checkIfScorePresent(getWinningHand(drawnTile, true), getWinningContext(winningType, drawnTile));
+    }
+    private boolean canDeclareReady(){
+        if(isReady()) return false;
+        if(!concealed) return false;
+        if(round.isLastAround()) return false;
+        return participant.getScore()>=1000;
+    }
+    private boolean canDeclareAddQuad(){
+        if(isReady()) return false;
+        if(round.isLastTurn()) return false;
+        return round.getTotalQuadCount()<4;
+    }
+    private boolean canDeclareSelfQuad(){
+        if(round.isLastTurn()) return false;
+        if(round.getTotalQuadCount()==4) return false;
+        return openMelds.size()<4;
     }
 
     // AS CALL PLAYER
 
     CallAction moveCallPhase(Tile discarded, Side side){
-        var win = canDeclareRiverGrabWin(discarded);
-        var quadBase = List.copyOf(quadBases(discarded)).get(0);
-        var tripleBases = tripleBases(discarded);
-        var straightBases = straightBases(discarded, side);
-        if(!win && quadBase.isEmpty() && tripleBases.isEmpty() && straightBases.isEmpty()){
-            // pass automatically
-            return CallAction.ofPass();
-        }
-        return askCallAction(CallPhaseContextContainer
-                .of(handTiles, discarded, straightBases, tripleBases, quadBase, win));
+        return moveCallPhase(discarded, prepareCallPhase(discarded, side));
     }
 
     CallAction moveAddQuadCallPhase(Tile addQuad){
+        return moveCallPhase(addQuad, prepareAddQuadCallPhase(addQuad));
+    }
+
+    CallAction moveSelfQuadCallPhase(Tile selfQuad){
+        return moveCallPhase(selfQuad, prepareSelfQuadCallPhase(selfQuad));
+    }
+
+    private CallAction moveCallPhase(Tile tile, CallPhaseContext context){
+        return settleCallPhase(tile, context==null? CallAction.ofPass():askCallAction(context));
+    }
+
+    /**
+     * 打牌に対する鳴きの問い合わせ内容を作成します。
+     *
+     * <p>鳴きの問い合わせは, 問い合わせ内容の作成, 戦略への問い合わせ,
+     * 結果の確定の三段階で行います。戦略への問い合わせのみを分離することで,
+     * 複数のプレイヤーへの問い合わせを並行に行うことができます。
+     * <p>問い合わせ内容はこのプレイヤーの次の問い合わせ内容を作成するまで有効です。
+     * @param discarded 打牌
+     * @param side 打牌したプレイヤーの相対位置
+     * @return 問い合わせ内容, 可能な行動がなく自動的にパスする場合はnull
+     * @see #settleCallPhase
+     */
+    CallPhaseContext prepareCallPhase(Tile discarded, Side side){
+        legalActions.startCall(handTiles, discarded);
+        if(canDeclareRiverGrabWin(discarded)) legalActions.allowCallWin();
+        if(canCallMeld()){
+            if(round.getTotalQuadCount()<4) legalActions.generateQuadBases();
+            legalActions.generateTripleBases();
+            if(side==Side.LEFT) legalActions.generateStraightBases();
+        }
+        return legalActions.getCallPhase();
+    }
+
+    /**
+     * 加槓に対する槍槓の問い合わせ内容を作成します。
+     * @param addQuad 加槓牌
+     * @return 問い合わせ内容, 槍槓できず自動的にパスする場合はnull
+     */
+    CallPhaseContext prepareAddQuadCallPhase(Tile addQuad){
         if(canAddQuadGrabWin(addQuad)){
-            return askCallAction(CallPhaseContextContainer.ofWinning(handTiles, addQuad));
+            legalActions.startCall(handTiles, addQuad);
+            legalActions.allowCallWin();
+            return legalActions.getCallPhase();
         }
-        // pass automatically
-        return CallAction.ofPass();
+        return null;
     }
 
-    CallAction moveSelfQuadCallPhase(Tile selfQuad){
+    /**
+     * 暗槓に対する国士無双の槍槓の問い合わせ内容を作成します。
+     * @param selfQuad 暗槓牌
+     * @return 問い合わせ内容, 槍槓できず自動的にパスする場合はnull
+     */
+    CallPhaseContext prepareSelfQuadCallPhase(Tile selfQuad){
         if(canSelfQuadGrabWin(selfQuad)){
-            return askCallAction(CallPhaseContextContainer.ofWinning(handTiles, selfQuad));
+            legalActions.startCall(handTiles, selfQuad);
+            legalActions.allowCallWin();
+            return legalActions.getCallPhase();
+        }
+        return null;
+    }
+
+    /**
+     * 鳴きの問い合わせの結果を確定します。
+     *
+     * <p>和了宣言以外の場合は和了牌の見逃しを記録します。
+     * 問い合わせが時間切れとなった場合や, 優先順位により宣言が採用されなかった場合も
+     * このメソッドで結果を確定させる必要があります。
+     * @param tile 鳴きの対象牌
+     * @param callAction 問い合わせの結果
+     * @return 問い合わせの結果
+     */
+    CallAction settleCallPhase(Tile tile, CallAction callAction){
+        if(!callAction.isRiverGrabWinDeclaration()){
+            passed(tile);
+        }
+        return callAction;
+    }
+
+    /**
+     * 和了牌の見逃しを記録し, パスを返します。
+     * @param tile 見逃した牌
+     * @return パス
+     */
+    private CallAction passed(Tile tile){
+        if(handCache.winningTiles.contains(tile)){
+            handCache.aroundSacredDiscardCoolDown = true;
         }
-        // pass automatically
         return CallAction.ofPass();
     }
 
+    /**
+     * ロン和了(槍槓を含む)の得点を計算します。
+     * @param winningTile 和了牌
+     * @param winningType 和了方法
+     * @return 得点
+     */
+    HandScore getRiverGrabWinScore(Tile winningTile, WinningType winningType){
+        return calculate(getWinningHand(winningTile, false), getWinningContext(winningType, winningTile));
+    }
+
     private boolean canDeclareRiverGrabWin(Tile discardedTile){
-        //TODO cache check
+        if(!handCache.winningTiles.contains(discardedTile)) return false;
         if(handCache.sacredDiscardCoolDown) return false;
         if(handCache.aroundSacredDiscardCoolDown) return false;
-        if(!handCache.winningTiles.contains(discardedTile)) return false;
-        return isReady() || HandTiles.isCompleted(handTiles, discardedTile)
-                && calculator.checkIfScorePresent(getWinningHand(), getWinningContext());
+        return isReady() || calculator.checkIfScorePresent(getWinningHand(discardedTile, false),
+                getWinningContext(WinningType.RIVER_GRAB, discardedTile));
     }
     private boolean canSelfQuadGrabWin(Tile selfQuadTile){
-        if(handCache.thirteenOrphansHandReady) return false;
+        if(!handCache.thirteenOrphansHandReady) return false;
+        if(handCache.sacredDiscardCoolDown) return false;
+        if(handCache.aroundSacredDiscardCoolDown) return false;
         return handCache.winningTiles.contains(selfQuadTile);
     }
     private boolean canAddQuadGrabWin(Tile addQuadTile){
@@ -236,25 +480,36 @@ class RoundPlayer extends TableStrategyAdaptor{
         if(handCache.aroundSacredDiscardCoolDown) return false;
         return handCache.winningTiles.contains(addQuadTile);
     }
-    private Set<List<Tile>> quadBases(Tile discardedTile){
-        if(isReady()) return emptySet();
-        if(round.isLastAround()) return emptySet();
-        if(round.getTotalQuadCount()==4) return emptySet();
-        if(openMelds.size()==4) return emptySet();
-        return HandTiles.quadBasesOf(handTiles, discardedTile);
+    private boolean canCallMeld(){
+        if(isReady()) return false;
+        if(round.isLastAround()) return false;
+        return openMelds.size()<4;
+    }
+
+    // AS ROUND SETTLEMENT
+
+    /**
+     * 手牌が聴牌かどうか検査します。
+     *
+     * <p>この検査は打牌後の手牌に対して行われることを想定します。
+     * @return true  聴牌の場合
+     *         false 聴牌でない場合
+     */
+    boolean isHandReady(){
+        return !handCache.winningTiles.isEmpty();
+    }
+    List<Tile> getHandTiles(){
+        return drawnTile==null? List.copyOf(handTiles):
+                OperableList.copyOf(handTiles).added(drawnTile).toUnmodifiable();
+    }
+    Tile getDrawnTile(){
+        return drawnTile;
     }
-    private Set<List<Tile>> tripleBases(Tile discardedTile){
-        if(isReady()) return emptySet();
-        if(round.isLastAround()) return emptySet();
-        if(openMelds.size()==4) return emptySet();
-        return HandTiles.tripleBasesOf(handTiles, discardedTile);
+    List<Meld> getOpenMelds(){
+        return List.copyOf(openMelds);
     }
-    private Set<List<Tile>> straightBases(Tile discardedTile, Side side){
-        if(side!=Side.LEFT) return emptySet();
-        if(isReady()) return emptySet();
-        if(round.isLastAround()) return emptySet();
-        if(openMelds.size()==4) return emptySet();
-        return HandTiles.straightBasesOf(handTiles, discardedTile);
+    List<Tile> getDiscardPile(){
+        return List.copyOf(discardPile);
     }
 
     // AS WINNING CONTEXT
@@ -266,10 +521,11 @@ class RoundPlayer extends TableStrategyAdaptor{
         return readyCache!=null;
     }
     public boolean isFirstAroundReady(){
-        return isReady() && readyCache.readyTurnCount<=4;
+        return isReady() && readyCache.firstAround;
     }
     public boolean isReadyAround(){
-        return isReady() && round.getTurnCount() - readyCache.readyTurnCount<=4;
+        return isReady() && !readyCache.aroundInterrupted
+                && round.getTurnCount() - readyCache.readyTurnCount<=4;
     }
     public int getQuadCount(){
         return quadCount;
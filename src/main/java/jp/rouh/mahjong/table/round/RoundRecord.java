@@ -0,0 +1,296 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.table.action.ActionCodes;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.tile.DiceTwin;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * 局の再現に必要な情報を記録するクラス。
+ *
+ * <p>局の進行は山の牌の並びとサイコロの出目, およびプレイヤーの行動の列によって
+ * 一意に決まります。このクラスはそれらを保持し, {@link RoundReplay}によって
+ * 戦略を呼び出すことなく任意の時点の局の状態を再構築するために利用します。
+ * <p>行動の列には, 局が各プレイヤーに問い合わせた順に全ての行動が含まれます。
+ * 鳴きの問い合わせに対するパスも省略されません。
+ * <p>このクラスは不変です。
+ * <p>このクラスは直列化可能です。直列化形式では山の牌および行動を牌番号の列として
+ * 保持するため, 一局分の記録は1KB未満になります。局の途中の記録を直列化して保存し,
+ * {@link FieldRound#FieldRound(RoundRecord)}によって局を続きから進行させることができます。
+ * @see FieldRound#getRecord
+ * @author Rouh
+ * @version 1.0
+ */
+public final class RoundRecord implements Serializable{
+    private static final long serialVersionUID = 1L;
+    private final Wind roundWind;
+    private final int roundCount;
+    private final int streakCount;
+    private final int depositCount;
+    private final int diceSum;
+    private final List<Tile> wallTiles;
+    private final List<Step> steps;
+
+    private RoundRecord(Wind roundWind, int roundCount, int streakCount, int depositCount,
+                        int diceSum, List<Tile> wallTiles, List<Step> steps){
+        if(wallTiles.size()!=136){
+            throw new IllegalArgumentException("invalid size of wall tiles: "+wallTiles.size());
+        }
+        this.roundWind = roundWind;
+        this.roundCount = roundCount;
+        this.streakCount = streakCount;
+        this.depositCount = depositCount;
+        this.diceSum = diceSum;
+        this.wallTiles = List.copyOf(wallTiles);
+        this.steps = List.copyOf(steps);
+    }
+
+    public Wind getRoundWind(){
+        return roundWind;
+    }
+
+    public int getRoundCount(){
+        return roundCount;
+    }
+
+    public int getStreakCount(){
+        return streakCount;
+    }
+
+    public int getDepositCount(){
+        return depositCount;
+    }
+
+    /**
+     * 山の開門位置を決めたサイコロの出目の合計を取得します。
+     * @return サイコロの出目の合計(2..12)
+     */
+    public int getDiceSum(){
+        return diceSum;
+    }
+
+    /**
+     * 山の牌の並びを取得します。
+     * @return 山の牌の並び(長さ136)
+     */
+    public List<Tile> getWallTiles(){
+        return wallTiles;
+    }
+
+    /**
+     * 行動の列を取得します。
+     * @return 行動の列
+     */
+    public List<Step> getSteps(){
+        return steps;
+    }
+
+    /**
+     * 局の記録を生成します。
+     * @param roundWind 場風
+     * @param roundCount 局数(1..4)
+     * @param streakCount 本場数(0..)
+     * @param depositCount 供託数(0..)
+     * @param diceSum サイコロの出目の合計(2..12)
+     * @param wallTiles 山の牌の並び(長さ136)
+     * @param steps 行動の列
+     * @throws IllegalArgumentException 山の牌の並びの長さが136でない場合
+     * @return 局の記録
+     */
+    public static RoundRecord of(Wind roundWind, int roundCount, int streakCount, int depositCount,
+                                 int diceSum, List<Tile> wallTiles, List<Step> steps){
+        return new RoundRecord(roundWind, roundCount, streakCount, depositCount, diceSum, wallTiles, steps);
+    }
+
+    /**
+     * シード値から山を再生成して局の記録を生成します。
+     *
+     * <p>{@code new FieldRound(roundWind, roundCount, streakCount, depositCount, new Random(seed))}
+     * によって進行した局と同一の山を生成します。
+     * @param roundWind 場風
+     * @param roundCount 局数(1..4)
+     * @param streakCount 本場数(0..)
+     * @param depositCount 供託数(0..)
+     * @param seed 局の乱数生成器のシード値
+     * @param steps 行動の列
+     * @return 局の記録
+     */
+    public static RoundRecord ofSeed(Wind roundWind, int roundCount, int streakCount, int depositCount,
+                                     long seed, List<Step> steps){
+        var random = new Random(seed);
+        int diceSum = new DiceTwin(random).getDiceSum();
+        var wall = new IndexedWall(diceSum, random);
+        return new RoundRecord(roundWind, roundCount, streakCount, depositCount, diceSum, wall.getTiles(), steps);
+    }
+
+    private Object writeReplace(){
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException{
+        throw new InvalidObjectException("serialization proxy required");
+    }
+
+    /**
+     * 局の記録の直列化形式を表すクラス。
+     *
+     * <p>行動一回分は, 自風と行動の種別を表す1バイトと, 選択した牌の牌番号の列で表します。
+     * 行動の種別と選択した牌の並びは{@link ActionCodes}の符号に従い,
+     * 選択した牌の枚数は行動の種別から一意に決まります。
+     */
+    private static final class SerializedForm implements Serializable{
+        private static final long serialVersionUID = 1L;
+        private static final Tile[] TILES = Tile.values();
+        private static final Wind[] WINDS = Wind.values();
+        private final byte roundWind;
+        private final int roundCount;
+        private final int streakCount;
+        private final int depositCount;
+        private final byte diceSum;
+        private final byte[] wallTiles;
+        private final byte[] steps;
+
+        private SerializedForm(RoundRecord record){
+            this.roundWind = (byte)record.roundWind.ordinal();
+            this.roundCount = record.roundCount;
+            this.streakCount = record.streakCount;
+            this.depositCount = record.depositCount;
+            this.diceSum = (byte)record.diceSum;
+            this.wallTiles = new byte[record.wallTiles.size()];
+            for(int i = 0; i<wallTiles.length; i++){
+                wallTiles[i] = (byte)record.wallTiles.get(i).ordinal();
+            }
+            var out = new ByteArrayOutputStream(record.steps.size()*2);
+            for(var step:record.steps){
+                int code = step.isTurnAction()?
+                        ActionCodes.encode(step.getTurnAction()):ActionCodes.encode(step.getCallAction());
+                out.write(step.getWind().ordinal()<<4 | ActionCodes.kindOf(code));
+                for(int i = 0; i<ActionCodes.tileCountOf(code); i++){
+                    out.write(ActionCodes.tileOf(code, i).ordinal());
+                }
+            }
+            this.steps = out.toByteArray();
+        }
+
+        private Object readResolve() throws InvalidObjectException{
+            try{
+                var tiles = new ArrayList<Tile>(wallTiles.length);
+                for(var b:wallTiles){
+                    tiles.add(TILES[b]);
+                }
+                var decoded = new ArrayList<Step>();
+                int position = 0;
+                while(position<steps.length){
+                    int header = steps[position++];
+                    var wind = WINDS[header>>4];
+                    int kind = header & 0xF;
+                    var selected = new Tile[ActionCodes.tileCountOf(kind)];
+                    for(int i = 0; i<selected.length; i++){
+                        selected[i] = TILES[steps[position++]];
+                    }
+                    int code = ActionCodes.codeOf(kind, selected);
+                    decoded.add(ActionCodes.isTurnAction(code)?
+                            Step.ofTurn(wind, ActionCodes.decodeTurnAction(code)):
+                            Step.ofCall(wind, ActionCodes.decodeCallAction(code)));
+                }
+                return new RoundRecord(WINDS[roundWind], roundCount, streakCount, depositCount,
+                        diceSum, tiles, decoded);
+            }catch(IndexOutOfBoundsException | IllegalArgumentException e){
+                var exception = new InvalidObjectException("corrupted round record");
+                exception.initCause(e);
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * 局の記録中のプレイヤーの行動一回分を表すクラス。
+     *
+     * <p>ターン時の行動もしくは鳴きの問い合わせに対する行動のいずれか一方を保持します。
+     * @author Rouh
+     * @version 1.0
+     */
+    public static final class Step{
+        private final Wind wind;
+        private final TurnAction turnAction;
+        private final CallAction callAction;
+
+        private Step(Wind wind, TurnAction turnAction, CallAction callAction){
+            this.wind = Objects.requireNonNull(wind);
+            this.turnAction = turnAction;
+            this.callAction = callAction;
+        }
+
+        /**
+         * 行動したプレイヤーの自風を取得します。
+         * @return 自風
+         */
+        public Wind getWind(){
+            return wind;
+        }
+
+        /**
+         * この行動がターン時の行動かどうか検査します。
+         * @return true  ターン時の行動の場合
+         *         false 鳴きの問い合わせに対する行動の場合
+         */
+        public boolean isTurnAction(){
+            return turnAction!=null;
+        }
+
+        /**
+         * ターン時の行動を取得します。
+         * @throws IllegalStateException 鳴きの問い合わせに対する行動の場合
+         * @return ターン時の行動
+         */
+        public TurnAction getTurnAction(){
+            if(turnAction==null){
+                throw new IllegalStateException("not a turn action");
+            }
+            return turnAction;
+        }
+
+        /**
+         * 鳴きの問い合わせに対する行動を取得します。
+         * @throws IllegalStateException ターン時の行動の場合
+         * @return 鳴きの問い合わせに対する行動
+         */
+        public CallAction getCallAction(){
+            if(callAction==null){
+                throw new IllegalStateException("not a call action");
+            }
+            return callAction;
+        }
+
+        /**
+         * ターン時の行動の記録を生成します。
+         * @param wind 行動したプレイヤーの自風
+         * @param action ターン時の行動
+         * @return 行動の記録
+         */
+        public static Step ofTurn(Wind wind, TurnAction action){
+            return new Step(wind, Objects.requireNonNull(action), null);
+        }
+
+        /**
+         * 鳴きの問い合わせに対する行動の記録を生成します。
+         * @param wind 行動したプレイヤーの自風
+         * @param action 鳴きの問い合わせに対する行動
+         * @return 行動の記録
+         */
+        public static Step ofCall(Wind wind, CallAction action){
+            return new Step(wind, null, Objects.requireNonNull(action));
+        }
+    }
+}
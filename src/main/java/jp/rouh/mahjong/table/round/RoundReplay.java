@@ -0,0 +1,305 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.score.Meld;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 局の記録から任意の時点の局の状態を再構築するクラス。
+ *
+ * <p>{@link RoundRecord}に記録された山と行動の列を, {@link FieldRound}と同一の
+ * {@link RoundEngine}に先頭から順に入力することで, 戦略を呼び出すことなく
+ * 手牌/副露/河/山の状態を再現します。記録された行動は局の規則に従って検証されるため,
+ * 規則に反する記録は生成時に拒否されます。
+ * <p>生成時に記録全体を一度だけ適用し, 各位置の状態を不変の複製として保存します。
+ * 変化のない席の状態は直前の位置の複製を共有します。
+ * {@link #seek}は保存済みの複製を参照するのみのため, 記録の長さによらず一定の時間で移動できます。
+ * <p>鳴きの問い合わせの途中の位置では, 手牌/副露/河は問い合わせの前の状態となります。
+ * <p>このクラスはスレッドセーフではありません。
+ * @author Rouh
+ * @version 1.0
+ */
+public class RoundReplay{
+    private static final int REPLAY_SCORE = 25000;
+    private final RoundRecord record;
+    private final List<Frame> frames;
+    private final int[] turnCounts;
+    private int position;
+
+    /**
+     * 局の記録から再構築を開始します。
+     * @param record 局の記録
+     * @throws IllegalArgumentException 記録された行動の列が山もしくは局の規則と矛盾する場合
+     */
+    public RoundReplay(RoundRecord record){
+        this.record = record;
+        var steps = record.getSteps();
+        var engine = new RoundEngine(record.getRoundWind(), record.getRoundCount(),
+                record.getStreakCount(), record.getDepositCount());
+        for(var wind:Wind.values()){
+            // 問い合わせも通知も行わないため, 戦略を持たない参加者を登録します
+            engine.join(wind, new SimulationParticipant(wind.toString(), wind, REPLAY_SCORE, null), null);
+        }
+        engine.begin(record.getDiceSum(), new IndexedWall(record.getDiceSum(), record.getWallTiles()));
+        this.frames = new ArrayList<>(steps.size() + 1);
+        this.turnCounts = new int[steps.size() + 1];
+        var frame = Frame.capture(engine, null, false);
+        frames.add(frame);
+        turnCounts[0] = frame.turnCount;
+        boolean winDeclared = false;
+        for(int i = 0; i<steps.size(); i++){
+            var step = steps.get(i);
+            try{
+                // 鳴きの問い合わせの後続の自動的なパスは, 問い合わせの確定時に適用済みです
+                if(i>=engine.getStepCount()){
+                    if(engine.getStage()==RoundStage.FINISHED){
+                        throw new IllegalStateException("round already finished");
+                    }
+                    engine.step(step);
+                }
+            }catch(RuntimeException e){
+                throw new IllegalArgumentException("inconsistent round record at step "+i+": "+e.getMessage(), e);
+            }
+            winDeclared |= !step.isTurnAction() && step.getCallAction().isRiverGrabWinDeclaration();
+            frame = Frame.capture(engine, frame, winDeclared);
+            frames.add(frame);
+            turnCounts[i + 1] = frame.turnCount;
+        }
+        this.position = steps.size();
+    }
+
+    /**
+     * 記録された行動の数を取得します。
+     * @return 行動の数
+     */
+    public int getStepCount(){
+        return record.getSteps().size();
+    }
+
+    /**
+     * 現在の位置を取得します。
+     *
+     * <p>位置は適用済みの行動の数を表します。
+     * 生成直後は記録の末尾に位置します。
+     * @return 現在の位置(0..行動の数)
+     */
+    public int getPosition(){
+        return position;
+    }
+
+    /**
+     * 指定した数の行動を適用した時点の状態へ移動します。
+     * @param position 適用する行動の数(0..行動の数)
+     * @throws IndexOutOfBoundsException 位置が範囲外の場合
+     */
+    public void seek(int position){
+        if(position<0 || position>=frames.size()){
+            throw new IndexOutOfBoundsException("position: "+position);
+        }
+        this.position = position;
+    }
+
+    /**
+     * 指定した数の打牌が成立した後, 次の打牌が行われる直前の状態へ移動します。
+     *
+     * <p>移動後の状態では, 手番のプレイヤーが自摸もしくは鳴きを終え,
+     * ターン時の行動を選択する直前となります。
+     * @param turnCount 打牌の数
+     * @throws IndexOutOfBoundsException 記録中の打牌の数を超える場合
+     */
+    public void seekTurn(int turnCount){
+        if(turnCount<0 || turnCount>turnCounts[turnCounts.length - 1]){
+            throw new IndexOutOfBoundsException("turn count: "+turnCount);
+        }
+        int low = 0;
+        int high = turnCounts.length - 1;
+        while(low<high){
+            int middle = (low + high + 1)>>>1;
+            if(turnCounts[middle]<=turnCount){
+                low = middle;
+            }else{
+                high = middle - 1;
+            }
+        }
+        seek(low);
+    }
+
+    private Frame frame(){
+        return frames.get(position);
+    }
+
+    /**
+     * 局が終了しているかどうか検査します。
+     * @return true  和了もしくは流局により局が終了している場合
+     *         false 局が継続している場合
+     */
+    public boolean isFinished(){
+        return frame().finished;
+    }
+
+    /**
+     * 手番のプレイヤーの自風を取得します。
+     * @return 手番のプレイヤーの自風
+     */
+    public Wind getTurnWind(){
+        return frame().turnWind;
+    }
+
+    /**
+     * 局の開始から成立した打牌の数を取得します。
+     * @return 打牌の数
+     */
+    public int getTurnCount(){
+        return frame().turnCount;
+    }
+
+    /**
+     * 残りツモ可能枚数を取得します。
+     * @return 残りツモ可能枚数
+     */
+    public int getRemainingTurnCount(){
+        return frame().remainingTurnCount;
+    }
+
+    /**
+     * めくられたドラ表示牌を取得します。
+     * @return ドラ表示牌のリスト
+     */
+    public List<Tile> getUpperIndicators(){
+        return frame().upperIndicators;
+    }
+
+    /**
+     * ドラ表示牌に対応する裏ドラ表示牌を取得します。
+     * @return 裏ドラ表示牌のリスト
+     */
+    public List<Tile> getLowerIndicators(){
+        return frame().lowerIndicators;
+    }
+
+    /**
+     * プレイヤーの手牌を取得します。
+     *
+     * <p>手牌は理牌済みで, 自摸牌が存在する場合は末尾に自摸牌が追加されます。
+     * @param wind プレイヤーの自風
+     * @return 手牌
+     */
+    public List<Tile> getHandTiles(Wind wind){
+        return frame().seats[wind.ordinal()].handTiles;
+    }
+
+    /**
+     * プレイヤーの自摸牌を取得します。
+     * @param wind プレイヤーの自風
+     * @return 自摸牌, 自摸牌が存在しない場合はnull
+     */
+    public Tile getDrawnTile(Wind wind){
+        return frame().seats[wind.ordinal()].drawnTile;
+    }
+
+    /**
+     * プレイヤーの副露(暗槓を含む)を取得します。
+     * @param wind プレイヤーの自風
+     * @return 副露のリスト
+     */
+    public List<Meld> getOpenMelds(Wind wind){
+        return frame().seats[wind.ordinal()].openMelds;
+    }
+
+    /**
+     * プレイヤーの河を取得します。
+     *
+     * <p>鳴かれた牌も含まれます。
+     * @param wind プレイヤーの自風
+     * @return 河の牌のリスト
+     */
+    public List<Tile> getDiscardPile(Wind wind){
+        return frame().seats[wind.ordinal()].discardPile;
+    }
+
+    /**
+     * プレイヤーが立直しているかどうか検査します。
+     * @param wind プレイヤーの自風
+     * @return true  立直している場合
+     *         false 立直していない場合
+     */
+    public boolean isReady(Wind wind){
+        return frame().seats[wind.ordinal()].ready;
+    }
+
+    /**
+     * ある位置におけるプレイヤーの状態の不変の複製。
+     */
+    private static final class SeatFrame{
+        private final List<Tile> handTiles;
+        private final Tile drawnTile;
+        private final List<Meld> openMelds;
+        private final List<Tile> discardPile;
+        private final boolean ready;
+
+        private SeatFrame(RoundPlayer player){
+            this.handTiles = player.getHandTiles();
+            this.drawnTile = player.getDrawnTile();
+            this.openMelds = player.getOpenMelds();
+            this.discardPile = player.getDiscardPile();
+            this.ready = player.isReady();
+        }
+
+        private boolean sameAs(SeatFrame other){
+            return ready==other.ready && drawnTile==other.drawnTile
+                    && handTiles.equals(other.handTiles)
+                    && openMelds.equals(other.openMelds)
+                    && discardPile.equals(other.discardPile);
+        }
+    }
+
+    /**
+     * ある位置における局の状態の不変の複製。
+     */
+    private static final class Frame{
+        private final SeatFrame[] seats = new SeatFrame[4];
+        private final Wind turnWind;
+        private final int turnCount;
+        private final int remainingTurnCount;
+        private final List<Tile> upperIndicators;
+        private final List<Tile> lowerIndicators;
+        private final boolean finished;
+
+        private Frame(RoundEngine engine, List<Tile> upperIndicators, List<Tile> lowerIndicators, boolean finished){
+            this.turnWind = engine.getTurnWind();
+            this.turnCount = engine.getTurnCount();
+            this.remainingTurnCount = engine.getRemainingTurnCount();
+            this.upperIndicators = upperIndicators;
+            this.lowerIndicators = lowerIndicators;
+            this.finished = finished;
+        }
+
+        /**
+         * 局の現在の状態を複製します。
+         * @param engine 局
+         * @param previous 直前の位置の複製, 存在しない場合はnull
+         * @param winDeclared ロンが宣言済みの場合
+         * @return 複製
+         */
+        private static Frame capture(RoundEngine engine, Frame previous, boolean winDeclared){
+            var wall = engine.getWall();
+            var upper = wall.getUpperIndicators();
+            var lower = wall.getLowerIndicators();
+            if(previous!=null && previous.upperIndicators.size()==upper.size()){
+                upper = previous.upperIndicators;
+                lower = previous.lowerIndicators;
+            }
+            var frame = new Frame(engine, List.copyOf(upper), List.copyOf(lower),
+                    winDeclared || engine.getStage()==RoundStage.FINISHED);
+            for(var wind:Wind.values()){
+                var seat = new SeatFrame(engine.playerAt(wind));
+                var shared = previous==null? null:previous.seats[wind.ordinal()];
+                frame.seats[wind.ordinal()] = shared!=null && shared.sameAs(seat)? shared:seat;
+            }
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.score.HandScore;
+import jp.rouh.mahjong.score.WinningType;
+import jp.rouh.mahjong.table.round.result.DrawResult;
+import jp.rouh.mahjong.table.round.result.DrawType;
+import jp.rouh.mahjong.table.round.result.RoundResult;
+import jp.rouh.mahjong.table.round.result.WinningResult;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 局の点数の移動を計算し, 局の結果を生成するクラス。
+ *
+ * <p>立直の供託, 和了時の支払い, 流局時の聴牌料を計算し, 局参加者の点数に適用します。
+ * {@link RoundEngine}を介して, 全ての局で同一の精算処理を共有します。
+ * @author Rouh
+ * @version 1.0
+ */
+final class RoundSettlement{
+    private final Map<Wind, RoundPlayer> players;
+    private final int streakCount;
+    private final int[] scoreChanges = new int[4];
+    private int depositCount;
+
+    /**
+     * コンストラクタ。
+     * @param players 自風と局のプレイヤーのマップ
+     * @param streakCount 本場数(0..)
+     * @param depositCount 局の開始時点の供託数(0..)
+     */
+    RoundSettlement(Map<Wind, RoundPlayer> players, int streakCount, int depositCount){
+        this.players = players;
+        this.streakCount = streakCount;
+        this.depositCount = depositCount;
+    }
+
+    /**
+     * 現在の供託数を取得します。
+     * @return 供託数(0..)
+     */
+    int getDepositCount(){
+        return depositCount;
+    }
+
+    /**
+     * 立直の成立に伴い, 供託を支払います。
+     * @param seatWind 立直したプレイヤーの自風
+     */
+    void payReadyDeposit(Wind seatWind){
+        applyScore(seatWind, -1000);
+        depositCount++;
+    }
+
+    private void applyScore(Wind seatWind, int score){
+        scoreChanges[seatWind.ordinal()] += score;
+        players.get(seatWind).getParticipant().applyScore(score);
+    }
+
+    private void transferScore(Wind from, Wind to, int score){
+        applyScore(from, -score);
+        applyScore(to, score);
+    }
+
+    private int takeDeposit(){
+        var deposit = depositCount*1000;
+        depositCount = 0;
+        return deposit;
+    }
+
+    private static int ceilHundred(int score){
+        return (score + 99)/100*100;
+    }
+
+    /**
+     * ツモ和了を精算します。
+     * @param winnerWind 和了者の自風
+     * @return 局の結果
+     */
+    RoundResult settleSelfDrawWin(Wind winnerWind){
+        var handScore = players.get(winnerWind).getSelfDrawWinScore();
+        var baseScore = handScore.getBaseScore();
+        for(var payerWind:winnerWind.others()){
+            var dealerInvolved = winnerWind==Wind.EAST || payerWind==Wind.EAST;
+            var payment = ceilHundred(dealerInvolved? baseScore*2:baseScore) + streakCount*100;
+            transferScore(payerWind, winnerWind, payment);
+        }
+        applyScore(winnerWind, takeDeposit());
+        return WinningResult.of(Map.of(winnerWind, handScore), scoreChanges);
+    }
+
+    /**
+     * ロン和了(槍槓を含む)を精算します。
+     * @param winnerWinds 放銃者の下家から順に並べた和了者の自風のリスト
+     * @param loserWind 放銃者の自風
+     * @param winningTile 和了牌
+     * @param winningType 和了方法
+     * @return 局の結果
+     */
+    RoundResult settleRiverGrabWin(List<Wind> winnerWinds, Wind loserWind, Tile winningTile, WinningType winningType){
+        var handScores = new EnumMap<Wind, HandScore>(Wind.class);
+        for(var winnerWind:winnerWinds){
+            var handScore = players.get(winnerWind).getRiverGrabWinScore(winningTile, winningType);
+            var baseScore = handScore.getBaseScore();
+            var payment = ceilHundred(baseScore*(winnerWind==Wind.EAST? 6:4)) + streakCount*300;
+            transferScore(loserWind, winnerWind, payment);
+            handScores.put(winnerWind, handScore);
+        }
+        // 供託は頭ハネにより放銃者から最も近い和了者が受け取ります
+        applyScore(winnerWinds.get(0), takeDeposit());
+        return WinningResult.of(handScores, scoreChanges);
+    }
+
+    /**
+     * 荒牌流局を精算します。
+     * @return 局の結果
+     */
+    RoundResult settleExhaustedDraw(){
+        var readyWinds = Arrays.stream(Wind.values())
+                .filter(wind->players.get(wind).isHandReady())
+                .collect(toList());
+        var readyCount = readyWinds.size();
+        if(readyCount!=0 && readyCount!=4){
+            for(var wind:Wind.values()){
+                if(readyWinds.contains(wind)){
+                    applyScore(wind, 3000/readyCount);
+                }else{
+                    applyScore(wind, -3000/(4 - readyCount));
+                }
+            }
+        }
+        return settleDraw(DrawType.EXHAUSTED, readyWinds.contains(Wind.EAST));
+    }
+
+    /**
+     * 流局の結果を生成します。
+     * @param drawType 流局の種別
+     * @param dealerContinued 親が連荘する場合true
+     * @return 局の結果
+     */
+    RoundResult settleDraw(DrawType drawType, boolean dealerContinued){
+        return DrawResult.of(drawType, dealerContinued, depositCount, scoreChanges);
+    }
+}
@@ -0,0 +1,46 @@
+package jp.rouh.mahjong.table.round;
+
+/**
+ * 局の進行段階を表す列挙型。
+ *
+ * <p>局はプレイヤーの行動の入力を待つ段階の間を遷移します。
+ * ツモや打牌, 鳴きの成立, 嶺上牌のツモなどの入力を必要としない処理は
+ * 段階の遷移の際に行われます。
+ * <pre>
+ *   NOT_STARTED → TURN ─(暗槓/加槓)→ QUAD_CALL ─(全員パス)→ TURN
+ *                  │                    └─(槍槓)→ FINISHED
+ *                  ├─(打牌)→ DISCARD_CALL ─(鳴き)→ TURN
+ *                  │            ├─(全員パス)→ TURN (次のプレイヤーのツモ)
+ *                  │            └─(ロン/流局)→ FINISHED
+ *                  └─(ツモ/九種九牌)→ FINISHED
+ * </pre>
+ * @see FieldRound#step
+ * @author Rouh
+ * @version 1.0
+ */
+public enum RoundStage{
+
+    /** 局の開始前 */
+    NOT_STARTED,
+
+    /** 手番のプレイヤーのターン時の行動を待つ段階 */
+    TURN,
+
+    /** 暗槓もしくは加槓に対する槍槓の問い合わせの応答を待つ段階 */
+    QUAD_CALL,
+
+    /** 打牌に対する鳴きの問い合わせの応答を待つ段階 */
+    DISCARD_CALL,
+
+    /** 終局 */
+    FINISHED;
+
+    /**
+     * 鳴きの問い合わせの応答を待つ段階かどうか検査します。
+     * @return true  鳴きの問い合わせの応答を待つ段階の場合
+     *         false それ以外の場合
+     */
+    public boolean isCallStage(){
+        return this==QUAD_CALL || this==DISCARD_CALL;
+    }
+}
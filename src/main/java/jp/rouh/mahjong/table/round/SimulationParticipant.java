@@ -0,0 +1,50 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.tile.Wind;
+
+/**
+ * シミュレーション用の局の参加者を表すクラス。
+ *
+ * <p>対局{@link jp.rouh.mahjong.table.Game}を介さずに,
+ * 任意のテーブル戦略を局に参加させるために利用します。
+ * @see SimulationRound
+ * @author Rouh
+ * @version 1.0
+ */
+public class SimulationParticipant extends TableStrategyAdaptor implements RoundParticipant{
+    private final String name;
+    private final Wind orderWind;
+    private int score;
+
+    /**
+     * コンストラクタ。
+     * @param name 名前
+     * @param orderWind 席順
+     * @param score 持ち点
+     * @param strategy テーブル戦略
+     */
+    public SimulationParticipant(String name, Wind orderWind, int score, TableStrategy strategy){
+        super(strategy);
+        this.name = name;
+        this.orderWind = orderWind;
+        this.score = score;
+    }
+    @Override
+    public String getName(){
+        return name;
+    }
+    @Override
+    public Wind getOrderWind(){
+        return orderWind;
+    }
+    @Override
+    public int getScore(){
+        return score;
+    }
+    @Override
+    public void applyScore(int score){
+        this.score += score;
+    }
+}
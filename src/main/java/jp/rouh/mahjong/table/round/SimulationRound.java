@@ -0,0 +1,140 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.table.TableSpectator;
+import jp.rouh.mahjong.table.round.result.RoundResult;
+import jp.rouh.mahjong.tile.DiceTwin;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 観戦者への通知を行わない局のクラス。
+ *
+ * <p>このクラスは局を配牌から終局まで最短経路で進行させ,
+ * 局の結果{@link RoundResult}を返します。
+ * 参加者には戦略の判断に必要な卓上の変化を通知しますが,
+ * 観戦者への通知やビュー向けの演出は一切行いません。
+ * 局の進行規則は{@link FieldRound}と共有する{@link RoundEngine}に委譲し,
+ * このクラスは参加者への行動の問い合わせを呼び出し元のスレッドで順に行うのみです。
+ * <p>主に戦略の評価や統計的な検証のために,
+ * 大量の局を高速に実行する用途を想定しています。
+ * 乱数生成器を局ごとに与えることで, 複数の局を並行に実行した場合も
+ * 互いに干渉しない山を生成します。
+ * @author Rouh
+ * @version 1.0
+ */
+public class SimulationRound implements Round, RoundAccessor{
+    private final RoundEngine engine;
+    private final Random random;
+
+    /**
+     * コンストラクタ。
+     * @param roundWind 場風
+     * @param roundCount 局数(1..4)
+     * @param streakCount 本場数(0..)
+     * @param depositCount 供託数(0..)
+     */
+    public SimulationRound(Wind roundWind, int roundCount, int streakCount, int depositCount){
+        this(roundWind, roundCount, streakCount, depositCount, new Random());
+    }
+
+    /**
+     * 乱数生成器を指定するコンストラクタ。
+     * @param roundWind 場風
+     * @param roundCount 局数(1..4)
+     * @param streakCount 本場数(0..)
+     * @param depositCount 供託数(0..)
+     * @param random 山の生成に用いる乱数生成器
+     */
+    public SimulationRound(Wind roundWind, int roundCount, int streakCount, int depositCount, Random random){
+        this.engine = new RoundEngine(roundWind, roundCount, streakCount, depositCount);
+        this.engine.setSpectator(event->{});
+        this.random = random;
+    }
+    @Override
+    public void join(Wind seatWind, RoundParticipant participant){
+        engine.join(seatWind, participant, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>シミュレーションでは観戦者への通知は行わないため, この操作は何もしません。
+     */
+    @Override
+    public void addSpectator(TableSpectator spectator){
+        // no-op
+    }
+
+    @Override
+    public RoundResult start(){
+        var dices = new DiceTwin(random);
+        engine.begin(dices.getDiceSum(), new IndexedWall(dices.getDiceSum(), random));
+        while(engine.getStage()!=RoundStage.FINISHED){
+            if(engine.getStage()==RoundStage.TURN){
+                var turnWind = engine.getTurnWind();
+                var turnAction = engine.playerAt(turnWind).askTurnAction(engine.getTurnContext());
+                engine.step(RoundRecord.Step.ofTurn(turnWind, turnAction));
+                continue;
+            }
+            for(var callerWind:engine.getPendingCallWinds()){
+                var callAction = engine.playerAt(callerWind).askCallAction(engine.getCallContext(callerWind));
+                engine.step(RoundRecord.Step.ofCall(callerWind, callAction));
+            }
+        }
+        return engine.getResult();
+    }
+
+    /**
+     * 局数を取得します。
+     * @return 局数(1..4)
+     */
+    public int getRoundCount(){
+        return engine.getRoundCount();
+    }
+
+    /**
+     * 本場数を取得します。
+     * @return 本場数(0..)
+     */
+    public int getStreakCount(){
+        return engine.getStreakCount();
+    }
+
+    /**
+     * 供託数を取得します。
+     * @return 供託数(0..)
+     */
+    public int getDepositCount(){
+        return engine.getDepositCount();
+    }
+    @Override
+    public Wind getRoundWind(){
+        return engine.getRoundWind();
+    }
+    @Override
+    public int getTurnCount(){
+        return engine.getTurnCount();
+    }
+    @Override
+    public int getTotalQuadCount(){
+        return engine.getTotalQuadCount();
+    }
+    @Override
+    public int getRemainingTurnCount(){
+        return engine.getRemainingTurnCount();
+    }
+    @Override
+    public boolean isFirstAround(){
+        return engine.isFirstAround();
+    }
+    @Override
+    public List<Tile> getUpperPrisedTiles(){
+        return engine.getUpperPrisedTiles();
+    }
+    @Override
+    public List<Tile> getLowerPrisedTiles(){
+        return engine.getLowerPrisedTiles();
+    }
+}
@@ -9,10 +9,10 @@ import java.util.List;
 
 class WinningContextFacade implements WinningContext{
     private final RoundPlayer player;
-    private final FieldRound round;
+    private final RoundAccessor round;
     private final WinningType winningType;
     private final Tile winningTile;
-    WinningContextFacade(RoundPlayer player, FieldRound round,
+    WinningContextFacade(RoundPlayer player, RoundAccessor round,
                          WinningType winningType, Tile winningTile){
         this.player = player;
         this.round = round;
@@ -0,0 +1,61 @@
+package jp.rouh.mahjong.table.round.result;
+
+import jp.rouh.mahjong.tile.Wind;
+
+/**
+ * 流局による局の結果を表すクラス。
+ * @author Rouh
+ * @version 1.0
+ */
+public class DrawResult implements RoundResult{
+    private final DrawType drawType;
+    private final boolean dealerContinued;
+    private final int depositCount;
+    private final int[] scoreChanges;
+    private DrawResult(DrawType drawType, boolean dealerContinued, int depositCount, int[] scoreChanges){
+        this.drawType = drawType;
+        this.dealerContinued = dealerContinued;
+        this.depositCount = depositCount;
+        this.scoreChanges = scoreChanges.clone();
+    }
+
+    /**
+     * 流局の種類を取得します。
+     * @return 流局の種類
+     */
+    public DrawType getDrawType(){
+        return drawType;
+    }
+    @Override
+    public boolean isDrawn(){
+        return true;
+    }
+    @Override
+    public boolean isDealerContinued(){
+        return dealerContinued;
+    }
+    @Override
+    public int getDepositCount(){
+        return depositCount;
+    }
+    @Override
+    public int getScoreChange(Wind seatWind){
+        return scoreChanges[seatWind.ordinal()];
+    }
+    @Override
+    public String getExpression(){
+        return drawType.toString();
+    }
+
+    /**
+     * 流局による結果を生成します。
+     * @param drawType 流局の種類
+     * @param dealerContinued 親が連荘するかどうか
+     * @param depositCount 次局に持ち越される供託数
+     * @param scoreChanges 自風の序数をインデックスとした局収支の配列(長さ4)
+     * @return 局の結果
+     */
+    public static DrawResult of(DrawType drawType, boolean dealerContinued, int depositCount, int[] scoreChanges){
+        return new DrawResult(drawType, dealerContinued, depositCount, scoreChanges);
+    }
+}
@@ -0,0 +1,24 @@
+package jp.rouh.mahjong.table.round.result;
+
+/**
+ * 流局の種類を表すクラス。
+ * @author Rouh
+ * @version 1.0
+ */
+public enum DrawType{
+    /** 荒牌流局 */
+    EXHAUSTED("流局"),
+
+    /** 九種九牌 */
+    NINE_TILES("九種九牌");
+
+    private final String string;
+    DrawType(String string){
+        this.string = string;
+    }
+
+    @Override
+    public String toString(){
+        return string;
+    }
+}
@@ -1,4 +1,50 @@
 package jp.rouh.mahjong.table.round.result;
 
+import jp.rouh.mahjong.tile.Wind;
+
+/**
+ * 局の結果を表すインターフェース。
+ *
+ * <p>局の結果は和了による終局{@link WinningResult}と,
+ * 流局による終局{@link DrawResult}のいずれかです。
+ * @author Rouh
+ * @version 1.0
+ */
 public interface RoundResult{
+
+    /**
+     * 流局かどうか検査します。
+     * @return true  流局の場合
+     *         false 和了による終局の場合
+     */
+    boolean isDrawn();
+
+    /**
+     * 親が連荘するかどうか検査します。
+     * @return true  親が連荘する場合
+     *         false 親が流れる場合
+     */
+    boolean isDealerContinued();
+
+    /**
+     * 次局に持ち越される供託数を取得します。
+     * @return 供託数(0..)
+     */
+    int getDepositCount();
+
+    /**
+     * 指定した自風の参加者の局収支を取得します。
+     *
+     * <p>局収支は和了および流局による点数移動に加え,
+     * 立直宣言による供託の支払いを含みます。
+     * @param seatWind 自風
+     * @return 局収支(負の数を含む)
+     */
+    int getScoreChange(Wind seatWind);
+
+    /**
+     * 結果の表現を取得します。
+     * @return 結果の表現
+     */
+    String getExpression();
 }
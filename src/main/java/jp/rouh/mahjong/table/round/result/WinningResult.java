@@ -0,0 +1,75 @@
+package jp.rouh.mahjong.table.round.result;
+
+import jp.rouh.mahjong.score.HandScore;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 和了による局の結果を表すクラス。
+ *
+ * <p>ダブロンおよびトリロンの場合は, 複数の和了者を持ちます。
+ * @author Rouh
+ * @version 1.0
+ */
+public class WinningResult implements RoundResult{
+    private final Map<Wind, HandScore> scores;
+    private final int[] scoreChanges;
+    private WinningResult(Map<Wind, HandScore> scores, int[] scoreChanges){
+        this.scores = Map.copyOf(scores);
+        this.scoreChanges = scoreChanges.clone();
+    }
+
+    /**
+     * 和了者の自風を取得します。
+     * @return 和了者の自風のリスト
+     */
+    public List<Wind> getWinners(){
+        return scores.keySet().stream().sorted().collect(toList());
+    }
+
+    /**
+     * 指定した和了者の手牌の得点を取得します。
+     * @param seatWind 和了者の自風
+     * @return 手牌の得点
+     */
+    public HandScore getHandScore(Wind seatWind){
+        return scores.get(seatWind);
+    }
+    @Override
+    public boolean isDrawn(){
+        return false;
+    }
+    @Override
+    public boolean isDealerContinued(){
+        return scores.containsKey(Wind.EAST);
+    }
+    @Override
+    public int getDepositCount(){
+        return 0;
+    }
+    @Override
+    public int getScoreChange(Wind seatWind){
+        return scoreChanges[seatWind.ordinal()];
+    }
+    @Override
+    public String getExpression(){
+        return getWinners().stream()
+                .map(wind->wind + "家 " + scores.get(wind).getScoreExpression())
+                .collect(joining(" / "));
+    }
+
+    /**
+     * 和了による結果を生成します。
+     * @param scores 和了者の自風と手牌の得点のマップ
+     * @param scoreChanges 自風の序数をインデックスとした局収支の配列(長さ4)
+     * @return 局の結果
+     */
+    public static WinningResult of(Map<Wind, HandScore> scores, int[] scoreChanges){
+        return new WinningResult(scores, scoreChanges);
+    }
+}
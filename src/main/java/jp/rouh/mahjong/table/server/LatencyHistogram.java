@@ -0,0 +1,85 @@
+package jp.rouh.mahjong.table.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 待ち時間の分布を記録するヒストグラムのクラス。
+ *
+ * <p>値は2の冪ごとの区間を16等分したバケットに分類されます。
+ * 16未満の値は正確に, それ以上の値は相対誤差1/16以内で記録されます。
+ * バケットの数は固定で, 記録の際にメモリを確保しません。
+ * <p>記録はロックを取らずに行われ, 複数のスレッドから同時に記録しても安全です。
+ * @author Rouh
+ * @version 1.0
+ */
+final class LatencyHistogram{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1<<SUB_BUCKET_BITS;
+    private final AtomicLongArray counts = new AtomicLongArray(64*SUB_BUCKET_COUNT);
+
+    /**
+     * 値を記録します。
+     * @param value 値(負の場合は0とみなします)
+     */
+    void record(long value){
+        counts.incrementAndGet(indexOf(Math.max(0, value)));
+    }
+
+    /**
+     * 記録された値の個数を取得します。
+     * @return 値の個数
+     */
+    long getCount(){
+        long total = 0;
+        for(int i = 0; i<counts.length(); i++){
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 指定したパーセンタイルの値を取得します。
+     *
+     * <p>値を含むバケットの上限を返します。
+     * @param percentile パーセンタイル(0..100)
+     * @return パーセンタイルの値, 値が記録されていない場合は0
+     */
+    long getPercentile(double percentile){
+        var snapshot = new long[counts.length()];
+        long total = 0;
+        for(int i = 0; i<snapshot.length; i++){
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if(total==0){
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(total*percentile/100));
+        long cumulative = 0;
+        for(int i = 0; i<snapshot.length; i++){
+            cumulative += snapshot[i];
+            if(cumulative>=rank){
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(snapshot.length - 1);
+    }
+
+    private static int indexOf(long value){
+        if(value<SUB_BUCKET_COUNT){
+            return (int)value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int)(value>>>shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1)*SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long upperBoundOf(int index){
+        if(index<SUB_BUCKET_COUNT){
+            return index;
+        }
+        int shift = index/SUB_BUCKET_COUNT - 1;
+        long subBucket = index%SUB_BUCKET_COUNT;
+        return ((SUB_BUCKET_COUNT + subBucket + 1)<<shift) - 1;
+    }
+}
@@ -0,0 +1,406 @@
+package jp.rouh.mahjong.table.server;
+
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.table.TableSpectator;
+import jp.rouh.mahjong.table.record.TableEventEncoder;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一つの卓の通知を多数の観戦者へ配信するクラス。
+ *
+ * <p>通知は通知元のスレッドで一度だけ{@link TableEventEncoder}の通知レコードに符号化され,
+ * 読み取り専用のレコードとして全ての観戦者で共有されます。
+ * 通知元のスレッドで行う処理は符号化と配信スレッドへの受け渡しのみであり, 観戦者の数に依存しません。
+ * <p>配信スレッドはレコードを観戦者ごとの固定長のキューに格納し, 送信用のスレッドプールが
+ * 観戦者ごとに格納された順にレコードを送信先へ渡します。観戦者の一覧はコピーオンライトのリストで保持するため,
+ * 配信中に観戦者を登録, 解除しても配信は妨げられません。
+ * <p>送信が追いつかずキューが満杯になった観戦者と, 送信先で例外が発生した観戦者は購読を解除されます。
+ * 送信先で発生した例外は送信スレッドの{@link Thread.UncaughtExceptionHandler}に渡されます。
+ * いずれの場合も他の観戦者への配信と対局の進行には影響しません。
+ * <p>遅延を指定した場合, 通知は指定した時間だけ遅れて配信されます。
+ * 観戦者を通じて対局中のプレイヤーに情報が伝わることを防ぐ目的で利用します。
+ * <p>途中から購読した観戦者には, 各プレイヤーの最新の席の情報と, 配信中の局の開始以降のレコードが先に送信されます。
+ * キューの容量はこれらを格納できる大きさとしてください。一局のレコードが容量を超えた場合,
+ * その局の途中から購読した観戦者には次の通知から送信されます。
+ * 自家の手牌は全ての観戦者に共通のレコードとするため, 差分を用いずに符号化されます。
+ * <p>通知は単一のスレッドから行う必要があります。{@link TableSpectator}として受け取った通知イベントは
+ * そのまま, 個別のメソッドで受け取った通知は東家を自家とする相対位置に変換して配信されます。
+ * <pre>{@code
+ *     try(var broadcaster = new SpectatorBroadcaster(2, 4096, 30, TimeUnit.SECONDS)){
+ *         table.addSpectator(broadcaster);
+ *         broadcaster.subscribe(connection::send);
+ *     }
+ * }</pre>
+ * @author Rouh
+ * @version 1.0
+ */
+public class SpectatorBroadcaster implements TableSpectator, AutoCloseable{
+    private static final int BATCH_SIZE = 256;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService sender;
+    private final int capacity;
+    private final long delayNanos;
+    private final RecordEncoder encoder = new RecordEncoder();
+    private final TableObserver publisher = TableEvent.recorder(this::publish);
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder disconnectedCount = new LongAdder();
+    /** 各プレイヤーの最新の席の情報(配信スレッドからのみ参照) */
+    private final ByteBuffer[] seatRecords = new ByteBuffer[4];
+    /** 配信中の局の開始以降のレコード(配信スレッドからのみ参照) */
+    private final List<ByteBuffer> roundRecords = new ArrayList<>();
+    private boolean roundRecordsOverflowed;
+    private volatile boolean closed;
+
+    /**
+     * 遅延なしで配信するインスタンスを生成します。
+     * @param senderThreadCount 送信用のスレッドの数(1..)
+     * @param capacity 観戦者ごとのキューの容量(1..)
+     * @throws IllegalArgumentException スレッドの数もしくは容量が正でない場合
+     */
+    public SpectatorBroadcaster(int senderThreadCount, int capacity){
+        this(senderThreadCount, capacity, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 指定した時間だけ遅れて配信するインスタンスを生成します。
+     * @param senderThreadCount 送信用のスレッドの数(1..)
+     * @param capacity 観戦者ごとのキューの容量(1..)
+     * @param delay 遅延(0..)
+     * @param unit 遅延の単位
+     * @throws IllegalArgumentException スレッドの数もしくは容量が正でない場合, 遅延が負の場合
+     */
+    public SpectatorBroadcaster(int senderThreadCount, int capacity, long delay, TimeUnit unit){
+        if(senderThreadCount<1){
+            throw new IllegalArgumentException("invalid thread count: "+senderThreadCount);
+        }
+        if(capacity<1){
+            throw new IllegalArgumentException("invalid capacity: "+capacity);
+        }
+        if(delay<0){
+            throw new IllegalArgumentException("invalid delay: "+delay);
+        }
+        int id = THREAD_COUNT.incrementAndGet();
+        this.capacity = capacity;
+        this.delayNanos = unit.toNanos(delay);
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable->
+                daemonThread(runnable, "spectator-dispatcher-"+id));
+        this.sender = Executors.newFixedThreadPool(senderThreadCount, runnable->
+                daemonThread(runnable, "spectator-sender-"+id));
+    }
+
+    private static Thread daemonThread(Runnable runnable, String name){
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 送信先を観戦者として登録します。
+     *
+     * <p>登録は配信スレッドで行われ, 配信済みの席の情報と局のレコードに続いて, 以降の通知が送信されます。
+     * @param sink 送信先
+     * @throws IllegalStateException 既に閉じられている場合
+     * @return 購読
+     */
+    public Subscription subscribe(SpectatorSink sink){
+        if(closed){
+            throw new IllegalStateException("broadcaster already closed");
+        }
+        var subscription = new Subscription(sink);
+        try{
+            dispatcher.execute(()->register(subscription));
+        }catch(RejectedExecutionException e){
+            throw new IllegalStateException("broadcaster already closed", e);
+        }
+        return subscription;
+    }
+
+    private void register(Subscription subscription){
+        for(var record:seatRecords){
+            if(record!=null) subscription.offer(record);
+        }
+        if(!roundRecordsOverflowed){
+            for(var record:roundRecords){
+                subscription.offer(record);
+            }
+        }
+        subscriptions.add(subscription);
+        // 登録までの間に解除された購読を取り除きます
+        if(subscription.cancelled){
+            subscriptions.remove(subscription);
+        }
+    }
+
+    /**
+     * 通知元が通知を行うための観測者を取得します。
+     *
+     * <p>この観測者に対する通知は全ての観戦者に配信されます。
+     * @return 観測者
+     */
+    public TableObserver getPublisher(){
+        return publisher;
+    }
+
+    /**
+     * 通知イベントを符号化し, 全ての観戦者に配信します。
+     *
+     * <p>既に閉じられている場合, 通知は破棄されます。
+     * @param event 通知イベント
+     */
+    public void publish(TableEvent event){
+        if(closed) return;
+        encoder.encode(event);
+        var record = encoder.record;
+        var type = event.getType();
+        int seat = type==TableEvent.Type.SEAT_UPDATED? event.getSide().ordinal():-1;
+        Runnable task = ()->broadcast(record, type, seat);
+        try{
+            if(delayNanos==0){
+                dispatcher.execute(task);
+            }else{
+                dispatcher.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+            }
+            publishedCount.increment();
+        }catch(RejectedExecutionException e){
+            // 閉じられた後の通知は破棄します
+        }
+    }
+
+    /**
+     * 配信スレッドでレコードを全ての観戦者のキューに格納します。
+     */
+    private void broadcast(ByteBuffer record, TableEvent.Type type, int seat){
+        if(seat>=0){
+            seatRecords[seat] = record;
+        }else{
+            if(type==TableEvent.Type.ROUND_STARTED){
+                roundRecords.clear();
+                roundRecordsOverflowed = false;
+            }
+            if(!roundRecordsOverflowed){
+                roundRecords.add(record);
+                if(roundRecords.size() + seatRecords.length>capacity){
+                    roundRecords.clear();
+                    roundRecordsOverflowed = true;
+                }
+            }
+        }
+        for(var subscription:subscriptions){
+            subscription.offer(record);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>全ての通知イベントを{@link #publish}で配信します。
+     */
+    @Override
+    public void tableEventPublished(TableEvent event){
+        publish(event);
+    }
+
+    @Override
+    public void roundStarted(Wind wind, int count, int streak, int deposit){
+        publisher.roundStarted(wind, count, streak, deposit);
+    }
+
+    @Override
+    public void diceRolled(Wind wind, int dice1, int dice2){
+        publisher.diceRolled(wind.from(Wind.EAST), dice1, dice2);
+    }
+
+    @Override
+    public void seatUpdated(Wind wind, String name, int score){
+        publisher.seatUpdated(wind.from(Wind.EAST), wind, name, score);
+    }
+
+    @Override
+    public void tileDiscarded(Wind wind, Tile tile){
+        publisher.tileDiscarded(wind.from(Wind.EAST), tile);
+    }
+
+    /**
+     * 購読中の観戦者の数を取得します。
+     * @return 観戦者の数
+     */
+    public int getSubscriberCount(){
+        return subscriptions.size();
+    }
+
+    /**
+     * 配信を受け付けた通知の数を取得します。
+     * @return 通知の数
+     */
+    public long getPublishedCount(){
+        return publishedCount.sum();
+    }
+
+    /**
+     * 送信が追いつかなかったため, もしくは送信先で例外が発生したために解除された購読の数を取得します。
+     * @return 解除された購読の数
+     */
+    public long getDisconnectedCount(){
+        return disconnectedCount.sum();
+    }
+
+    /**
+     * 配信を停止します。
+     *
+     * <p>遅延中の通知と未送信のレコードは破棄され, 全ての購読が解除されます。
+     */
+    @Override
+    public void close(){
+        closed = true;
+        dispatcher.shutdownNow();
+        sender.shutdownNow();
+        for(var subscription:subscriptions){
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * 通知を一件ずつ読み取り専用のレコードに符号化する符号化器。
+     */
+    private static final class RecordEncoder extends TableEventEncoder{
+        private ByteBuffer record;
+
+        private RecordEncoder(){
+            super(ByteBuffer.allocate(MAX_RECORD_SIZE));
+        }
+
+        @Override
+        protected void beforeRecord(){
+            getBuffer().clear();
+        }
+
+        @Override
+        protected void afterRecord(){
+            var buffer = getBuffer();
+            var bytes = new byte[buffer.position()];
+            buffer.flip();
+            buffer.get(bytes);
+            record = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * 観戦者の購読を表すクラス。
+     * @author Rouh
+     * @version 1.0
+     */
+    public final class Subscription{
+        private final SpectatorSink sink;
+        private final BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(capacity);
+        private final AtomicBoolean sendScheduled = new AtomicBoolean();
+        private final LongAdder sentCount = new LongAdder();
+        private final Runnable send = this::send;
+        private volatile boolean cancelled;
+
+        private Subscription(SpectatorSink sink){
+            this.sink = sink;
+        }
+
+        /**
+         * 配信スレッドでレコードをキューに格納し, 必要に応じて送信を予約します。
+         */
+        private void offer(ByteBuffer record){
+            if(cancelled) return;
+            if(!queue.offer(record)){
+                disconnectedCount.increment();
+                cancel();
+                return;
+            }
+            if(sendScheduled.compareAndSet(false, true)){
+                schedule();
+            }
+        }
+
+        private void schedule(){
+            try{
+                sender.execute(send);
+            }catch(RejectedExecutionException e){
+                cancel();
+            }
+        }
+
+        /**
+         * 送信スレッドでキューに格納されたレコードをまとめて送信先に渡します。
+         */
+        private void send(){
+            for(int i = 0; i<BATCH_SIZE && !cancelled; i++){
+                var record = queue.poll();
+                if(record==null) break;
+                try{
+                    sink.send(record.duplicate());
+                    sentCount.increment();
+                }catch(RuntimeException e){
+                    disconnectedCount.increment();
+                    cancel();
+                    var thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+            // 予約の解除後に格納されたレコードは, 格納した側が送信を予約します
+            sendScheduled.set(false);
+            if(!cancelled && !queue.isEmpty() && sendScheduled.compareAndSet(false, true)){
+                schedule();
+            }
+        }
+
+        /**
+         * 購読を解除します。
+         *
+         * <p>未送信のレコードは破棄されます。送信中のレコードがある場合,
+         * その送信の完了後に以降の送信が停止します。
+         */
+        public void cancel(){
+            cancelled = true;
+            subscriptions.remove(this);
+            queue.clear();
+        }
+
+        /**
+         * 送信先に渡したレコードの数を取得します。
+         * @return レコードの数
+         */
+        public long getSentCount(){
+            return sentCount.sum();
+        }
+
+        /**
+         * 未送信のレコードの数を取得します。
+         * @return レコードの数
+         */
+        public int getPendingCount(){
+            return queue.size();
+        }
+
+        /**
+         * 購読が解除済みかどうか検査します。
+         * @return true  解除済みの場合
+         *         false 購読中の場合
+         */
+        public boolean isCancelled(){
+            return cancelled;
+        }
+    }
+}
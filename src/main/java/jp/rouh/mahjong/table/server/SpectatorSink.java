@@ -0,0 +1,26 @@
+package jp.rouh.mahjong.table.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 観戦者への通知の送信先を表すインターフェース。
+ *
+ * <p>通知は{@link jp.rouh.mahjong.table.record.TableEventEncoder}で符号化された通知レコードとして渡され,
+ * {@link jp.rouh.mahjong.table.record.TableEventDecoder}で復号できます。
+ * @see SpectatorBroadcaster
+ * @author Rouh
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface SpectatorSink{
+
+    /**
+     * 通知レコードを送信します。
+     *
+     * <p>レコードの内容は全ての観戦者で共有されるため, 読み取り専用のバッファとして渡されます。
+     * バッファの位置とリミットは送信先ごとに独立しており, 送信先は自由に読み進めることができます。
+     * このメソッドは同一の送信先に対して同時に呼び出されることはありません。
+     * @param record 位置がレコードの先頭, リミットがレコードの末尾の読み取り専用のバッファ
+     */
+    void send(ByteBuffer record);
+}
@@ -0,0 +1,295 @@
+package jp.rouh.mahjong.table.server;
+
+import jp.rouh.mahjong.table.Game;
+import jp.rouh.mahjong.table.Player;
+import jp.rouh.mahjong.table.TableSpectator;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多数の対局を一つのプロセスで並行に進行させるサーバのクラス。
+ *
+ * <p>卓は固定数のスレッドのプールで一局ずつ進行します。局が終わるたびに卓の次の局を
+ * プールの待ち行列の末尾に投入するため, スレッド数を上回る数の卓が公平に交互に進行します。
+ * 待ち行列に同時に存在する卓の次の局は一つまでであるため, 待ち行列の長さは
+ * 同時に受け付ける卓の数の上限で抑えられます。
+ * <p>卓同士は状態を共有しません。ある卓の進行中に例外が発生した場合,
+ * その卓のみが中断され, 他の卓の進行には影響しません。
+ * <p>同時に受け付ける卓の数が上限に達している場合, および停止処理中の場合は,
+ * 新たな卓の受付を拒否します。{@link #drain}で受付を停止した後,
+ * 進行中の卓が全て終局するまで待機できます。
+ * <p>参加者への問い合わせは局を進行させているスレッドで行われるため,
+ * 応答に時間を要する参加者はその間スレッドを占有します。
+ * スレッド数は参加者の応答時間を考慮して決める必要があります。
+ * ただし鳴きの問い合わせは複数の参加者に並行に行うため, サーバが所有する
+ * 局を進行させるスレッドの3倍の数のスレッドのプールで実行します。
+ * 一人の参加者への問い合わせは同時に一つまでのため, このプールの待ち行列の長さは
+ * 同時に受け付ける卓の数の4倍で抑えられます。
+ * @author Rouh
+ * @version 1.0
+ */
+public class TableServer implements AutoCloseable{
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor callExecutor;
+    private final int maxTableCount;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger activeTableCount = new AtomicInteger();
+    private final AtomicLong nextTableId = new AtomicLong();
+    private final Set<Table> tables = ConcurrentHashMap.newKeySet();
+    private final CompletableFuture<Void> drained = new CompletableFuture<>();
+    private final LongAdder openedTableCount = new LongAdder();
+    private final LongAdder completedTableCount = new LongAdder();
+    private final LongAdder failedTableCount = new LongAdder();
+    private final LongAdder rejectedTableCount = new LongAdder();
+    private final LongAdder roundCount = new LongAdder();
+    private final LatencyHistogram decisionLatencies = new LatencyHistogram();
+    private volatile boolean draining = false;
+
+    /**
+     * コンストラクタ。
+     * @param threadCount 卓を進行させるスレッドの数(1..)
+     * @param maxTableCount 同時に受け付ける卓の数の上限(1..)
+     * @throws IllegalArgumentException スレッドの数もしくは卓の数の上限が1未満の場合
+     */
+    public TableServer(int threadCount, int maxTableCount){
+        if(threadCount<1){
+            throw new IllegalArgumentException("invalid thread count: "+threadCount);
+        }
+        if(maxTableCount<1){
+            throw new IllegalArgumentException("invalid max table count: "+maxTableCount);
+        }
+        this.maxTableCount = maxTableCount;
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxTableCount), runnable->{
+            var thread = new Thread(runnable, "table-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.callExecutor = new ThreadPoolExecutor(threadCount*3, threadCount*3, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxTableCount*4), runnable->{
+            var thread = new Thread(runnable, "table-server-call");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 卓を開き, 対局を開始します。
+     *
+     * <p>参加者の戦略は行動の問い合わせに要した時間を計測するために包まれます。
+     * @param p1 東側に着席したプレイヤー(仮東)
+     * @param p2 南側に着席したプレイヤー(仮南)
+     * @param p3 西側に着席したプレイヤー(仮西)
+     * @param p4 北側に着席したプレイヤー(仮北)
+     * @throws RejectedExecutionException 同時に受け付ける卓の数が上限に達している場合, 停止処理中の場合
+     * @return 卓
+     */
+    public Table open(Player p1, Player p2, Player p3, Player p4){
+        int active;
+        do{
+            active = activeTableCount.get();
+            if(active>=maxTableCount){
+                rejectedTableCount.increment();
+                throw new RejectedExecutionException("table limit reached: "+maxTableCount);
+            }
+        }while(!activeTableCount.compareAndSet(active, active + 1));
+        if(draining){
+            release();
+            rejectedTableCount.increment();
+            throw new RejectedExecutionException("server is draining");
+        }
+        var game = new Game(timed(p1), timed(p2), timed(p3), timed(p4));
+        game.setCallExecutor(callExecutor);
+        var table = new Table(nextTableId.getAndIncrement(), game);
+        tables.add(table);
+        openedTableCount.increment();
+        schedule(table);
+        return table;
+    }
+
+    private Player timed(Player player){
+        return new Player(player.getName(), new TimedTableStrategy(player.getViewer(), decisionLatencies));
+    }
+
+    private void schedule(Table table){
+        try{
+            executor.execute(()->playRound(table));
+        }catch(RejectedExecutionException e){
+            fail(table, new CancellationException("server closed"));
+        }
+    }
+
+    private void playRound(Table table){
+        if(table.cancelled){
+            fail(table, new CancellationException("table cancelled"));
+            return;
+        }
+        try{
+            table.game.playRound();
+        }catch(Throwable e){
+            fail(table, e);
+            return;
+        }
+        roundCount.increment();
+        if(table.game.isFinished()){
+            if(tables.remove(table)){
+                completedTableCount.increment();
+                release();
+                table.completion.complete(table.game);
+            }
+            return;
+        }
+        schedule(table);
+    }
+
+    private void fail(Table table, Throwable cause){
+        if(tables.remove(table)){
+            failedTableCount.increment();
+            release();
+            table.completion.completeExceptionally(cause);
+        }
+    }
+
+    private void release(){
+        if(activeTableCount.decrementAndGet()==0 && draining){
+            drained.complete(null);
+        }
+    }
+
+    /**
+     * 新たな卓の受付を停止します。
+     *
+     * <p>進行中の卓は終局まで進行します。
+     */
+    public void drain(){
+        draining = true;
+        if(activeTableCount.get()==0){
+            drained.complete(null);
+        }
+    }
+
+    /**
+     * 受付を停止し, 進行中の卓が全て終局するまで待機します。
+     * @param timeout 待機の期限
+     * @param unit 期限の単位
+     * @throws InterruptedException 待機中に割り込みが発生した場合
+     * @return true  全ての卓が終局した場合
+     *         false 期限までに終局しなかった卓がある場合
+     */
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException{
+        drain();
+        try{
+            drained.get(timeout, unit);
+            return true;
+        }catch(TimeoutException e){
+            return false;
+        }catch(ExecutionException e){
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * 現在の稼働状況を取得します。
+     * @return 稼働状況
+     */
+    public TableServerMetrics getMetrics(){
+        long now = System.nanoTime();
+        return new TableServerMetrics(now, now - startNanos, activeTableCount.get(),
+                openedTableCount.sum(), completedTableCount.sum(), failedTableCount.sum(),
+                rejectedTableCount.sum(), roundCount.sum(), decisionLatencies.getCount(),
+                decisionLatencies.getPercentile(50), decisionLatencies.getPercentile(99));
+    }
+
+    /**
+     * サーバを直ちに停止します。
+     *
+     * <p>進行中の卓は現在の局の終了後に中断され, その完了段階は
+     * {@link CancellationException}で例外的に完了します。
+     */
+    @Override
+    public void close(){
+        drain();
+        executor.shutdownNow();
+        callExecutor.shutdownNow();
+        for(var table:tables){
+            fail(table, new CancellationException("server closed"));
+        }
+    }
+
+    /**
+     * サーバで進行する卓のクラス。
+     * @author Rouh
+     * @version 1.0
+     */
+    public static final class Table{
+        private final long id;
+        private final Game game;
+        private final CompletableFuture<Game> completion = new CompletableFuture<>();
+        private volatile boolean cancelled = false;
+
+        private Table(long id, Game game){
+            this.id = id;
+            this.game = game;
+        }
+
+        /**
+         * 卓の通し番号を取得します。
+         * @return 通し番号
+         */
+        public long getId(){
+            return id;
+        }
+
+        /**
+         * 卓の終局時に完了する段階を取得します。
+         *
+         * <p>卓が中断された場合, 段階は中断の原因となった例外で完了します。
+         * @return 終局した対局の完了段階
+         */
+        public CompletionStage<Game> getCompletion(){
+            return completion.minimalCompletionStage();
+        }
+
+        /**
+         * 卓が終局もしくは中断されたかどうか検査します。
+         * @return true  卓が終局もしくは中断された場合
+         *         false 卓が進行中の場合
+         */
+        public boolean isDone(){
+            return completion.isDone();
+        }
+
+        /**
+         * 卓に観戦者を登録します。
+         *
+         * <p>観戦者は次の局の開始時から通知を受け取ります。観戦者への通知は卓を進行させているスレッドで行われるため,
+         * 多数の観戦者へは{@link SpectatorBroadcaster}を登録して配信します。
+         * @param spectator 観戦者
+         */
+        public void addSpectator(TableSpectator spectator){
+            game.addSpectator(spectator);
+        }
+
+        /**
+         * 卓の進行を取り消します。
+         *
+         * <p>進行中の局は中断されず, 局の終了後に卓が中断されます。
+         */
+        public void cancel(){
+            cancelled = true;
+        }
+    }
+}
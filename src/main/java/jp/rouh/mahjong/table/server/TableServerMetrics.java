@@ -0,0 +1,139 @@
+package jp.rouh.mahjong.table.server;
+
+/**
+ * ある時点の{@link TableServer}の稼働状況を表すクラス。
+ *
+ * <p>このクラスは不変です。各値は個々には正確ですが,
+ * 値同士が厳密に同一時点のものであることは保証されません。
+ * @see TableServer#getMetrics
+ * @author Rouh
+ * @version 1.0
+ */
+public final class TableServerMetrics{
+    private final long timestampNanos;
+    private final long uptimeNanos;
+    private final int activeTableCount;
+    private final long openedTableCount;
+    private final long completedTableCount;
+    private final long failedTableCount;
+    private final long rejectedTableCount;
+    private final long roundCount;
+    private final long decisionCount;
+    private final long decisionLatencyP50;
+    private final long decisionLatencyP99;
+
+    TableServerMetrics(long timestampNanos, long uptimeNanos, int activeTableCount,
+                       long openedTableCount, long completedTableCount, long failedTableCount,
+                       long rejectedTableCount, long roundCount, long decisionCount,
+                       long decisionLatencyP50, long decisionLatencyP99){
+        this.timestampNanos = timestampNanos;
+        this.uptimeNanos = uptimeNanos;
+        this.activeTableCount = activeTableCount;
+        this.openedTableCount = openedTableCount;
+        this.completedTableCount = completedTableCount;
+        this.failedTableCount = failedTableCount;
+        this.rejectedTableCount = rejectedTableCount;
+        this.roundCount = roundCount;
+        this.decisionCount = decisionCount;
+        this.decisionLatencyP50 = decisionLatencyP50;
+        this.decisionLatencyP99 = decisionLatencyP99;
+    }
+
+    /**
+     * 進行中の卓の数を取得します。
+     * @return 進行中の卓の数
+     */
+    public int getActiveTableCount(){
+        return activeTableCount;
+    }
+
+    /**
+     * 受け付けた卓の数を取得します。
+     * @return 受け付けた卓の数
+     */
+    public long getOpenedTableCount(){
+        return openedTableCount;
+    }
+
+    /**
+     * 終局まで進行した卓の数を取得します。
+     * @return 終局まで進行した卓の数
+     */
+    public long getCompletedTableCount(){
+        return completedTableCount;
+    }
+
+    /**
+     * 例外の発生もしくは取り消しにより中断された卓の数を取得します。
+     * @return 中断された卓の数
+     */
+    public long getFailedTableCount(){
+        return failedTableCount;
+    }
+
+    /**
+     * 受付を拒否した卓の数を取得します。
+     * @return 受付を拒否した卓の数
+     */
+    public long getRejectedTableCount(){
+        return rejectedTableCount;
+    }
+
+    /**
+     * 全ての卓で実施した局の数を取得します。
+     * @return 局の数
+     */
+    public long getRoundCount(){
+        return roundCount;
+    }
+
+    /**
+     * サーバの起動からの一秒あたりの局の数を取得します。
+     * @return 一秒あたりの局の数
+     */
+    public double getRoundsPerSecond(){
+        return uptimeNanos==0? 0:roundCount*1e9/uptimeNanos;
+    }
+
+    /**
+     * 指定した時点からの一秒あたりの局の数を取得します。
+     * @param earlier 同じサーバの過去の稼働状況
+     * @return 一秒あたりの局の数
+     */
+    public double getRoundsPerSecondSince(TableServerMetrics earlier){
+        long elapsed = timestampNanos - earlier.timestampNanos;
+        return elapsed<=0? 0:(roundCount - earlier.roundCount)*1e9/elapsed;
+    }
+
+    /**
+     * 参加者への行動の問い合わせの回数を取得します。
+     * @return 問い合わせの回数
+     */
+    public long getDecisionCount(){
+        return decisionCount;
+    }
+
+    /**
+     * 行動の問い合わせに要した時間の中央値を取得します。
+     * @return 問い合わせに要した時間の中央値(ナノ秒)
+     */
+    public long getDecisionLatencyP50(){
+        return decisionLatencyP50;
+    }
+
+    /**
+     * 行動の問い合わせに要した時間の99パーセンタイル値を取得します。
+     * @return 問い合わせに要した時間の99パーセンタイル値(ナノ秒)
+     */
+    public long getDecisionLatencyP99(){
+        return decisionLatencyP99;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("active=%d opened=%d completed=%d failed=%d rejected=%d rounds=%d (%.1f/s) "
+                        +"decisions=%d p50=%.1fus p99=%.1fus",
+                activeTableCount, openedTableCount, completedTableCount, failedTableCount, rejectedTableCount,
+                roundCount, getRoundsPerSecond(), decisionCount, decisionLatencyP50/1e3, decisionLatencyP99/1e3);
+    }
+}
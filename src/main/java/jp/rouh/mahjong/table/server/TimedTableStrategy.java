@@ -0,0 +1,43 @@
+package jp.rouh.mahjong.table.server;
+
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+
+/**
+ * 行動の問い合わせに要した時間を記録するテーブル戦略のクラス。
+ * @author Rouh
+ * @version 1.0
+ */
+final class TimedTableStrategy extends TableStrategyAdaptor{
+    private final LatencyHistogram latencies;
+
+    /**
+     * コンストラクタ。
+     * @param strategy 問い合わせ先のテーブル戦略
+     * @param latencies 問い合わせに要した時間(ナノ秒)の記録先
+     */
+    TimedTableStrategy(TableStrategy strategy, LatencyHistogram latencies){
+        super(strategy);
+        this.latencies = latencies;
+    }
+
+    @Override
+    public TurnAction askTurnAction(TurnPhaseContext context){
+        long start = System.nanoTime();
+        var action = super.askTurnAction(context);
+        latencies.record(System.nanoTime() - start);
+        return action;
+    }
+
+    @Override
+    public CallAction askCallAction(CallPhaseContext context){
+        long start = System.nanoTime();
+        var action = super.askCallAction(context);
+        latencies.record(System.nanoTime() - start);
+        return action;
+    }
+}
@@ -1,8 +1,18 @@
 package jp.rouh.mahjong.tile;
 
+import java.util.Random;
+
 public class DiceTwin{
-    private final int dice1 = Dices.rollDice();
-    private final int dice2 = Dices.rollDice();
+    private final int dice1;
+    private final int dice2;
+    public DiceTwin(){
+        this.dice1 = Dices.rollDice();
+        this.dice2 = Dices.rollDice();
+    }
+    public DiceTwin(Random random){
+        this.dice1 = Dices.rollDice(random);
+        this.dice2 = Dices.rollDice(random);
+    }
     public int getDice1(){
         return dice1;
     }
@@ -1,5 +1,6 @@
 package jp.rouh.mahjong.tile;
 
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -19,4 +20,13 @@ final class Dices{
     public static int rollDice(){
         return ThreadLocalRandom.current().nextInt(6) + 1;
     }
+
+    /**
+     * 与えられた乱数生成器を用いてサイコロの目として1..6の整数を取得します。
+     * @param random 乱数生成器
+     * @return サイコロの目(1..6)
+     */
+    public static int rollDice(Random random){
+        return random.nextInt(6) + 1;
+    }
 }
@@ -64,8 +64,8 @@ public class OperableList<E> extends ArrayList<E>{
      *         false 内包していない場合
      */
     public boolean containsWhole(Collection<? super E> collection){
-        var tmp = new OperableList<>(collection);
-        return stream().allMatch(tmp::remove);
+        var tmp = new OperableList<>(this);
+        return collection.stream().allMatch(tmp::remove);
     }
 
     /**
@@ -253,7 +253,8 @@ public class OperableList<E> extends ArrayList<E>{
                 container.clear();
             }
         }
-        if(!container.isEmpty()){
+        if(!isEmpty()){
+            container.add(get(size() - 1));
             result.add(new ArrayList<>(container));
         }
         return result;
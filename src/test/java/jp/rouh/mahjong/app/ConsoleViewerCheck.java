@@ -0,0 +1,173 @@
+package jp.rouh.mahjong.app;
+
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Tiles;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * {@link ConsoleViewer}の出力のまとめ方と入力の読み込みを確認します。
+ *
+ * <p>局を模した通知と打牌の問い合わせを, 全ての回答を先行入力した状態で
+ * 通常モードと高速モードのビューに与え, 出力の書き出し回数を行数(行ごとに書き出した場合の回数)と比較して出力します。
+ * 二つのモードの出力内容が一致すること, 誤った入力を挟んだ先行入力が失われずに
+ * 全ての問い合わせに正しく回答されることを確認します。
+ * 引数で局数を指定できます(既定値 20局)。
+ */
+public class ConsoleViewerCheck{
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):20;
+        String expectedOutput = null;
+        for(boolean fast:List.of(false, true)){
+            var out = new CountingWriter();
+            var random = new Random(0);
+            var input = new StringBuilder();
+            var expectedActions = new ArrayList<String>();
+            var scripts = new ArrayList<Consumer<ConsoleViewer>>();
+            var actions = new ArrayList<String>();
+            for(int round = 0; round<rounds; round++){
+                playRound(random, input, expectedActions, scripts, actions);
+            }
+            var viewer = new ConsoleViewer(new BufferedReader(new StringReader(input.toString())), out, fast);
+            scripts.forEach(script->script.accept(viewer));
+            if(!actions.equals(expectedActions)){
+                throw new AssertionError("actions mismatch: "+actions+" / "+expectedActions);
+            }
+            var output = out.text.toString();
+            long lines = output.chars().filter(c->c=='\n').count();
+            System.out.printf("%s: %d chars, %d lines, %d writes (%.1f lines/write), %d prompts answered%n",
+                    fast? "fast  ":"normal", output.length(), lines, out.flushes, (double)lines/out.flushes, actions.size());
+            if(expectedOutput!=null && !expectedOutput.equals(output)){
+                throw new AssertionError("output differs between modes");
+            }
+            expectedOutput = output;
+        }
+        System.out.println("verified console output and shared input");
+    }
+
+    /**
+     * 一局分の通知と問い合わせ, およびその回答を生成します。
+     */
+    private static void playRound(Random random, StringBuilder input, List<String> expectedActions,
+                                  List<Consumer<ConsoleViewer>> scripts, List<String> actions){
+        var deck = Tiles.fullSet();
+        Collections.shuffle(deck, random);
+        var hand = new ArrayList<>(deck.subList(0, 13));
+        Collections.sort(hand);
+        var initial = List.copyOf(hand);
+        scripts.add(v->{
+            for(var side:Side.values()){
+                v.seatUpdated(side, Wind.values()[side.ordinal()], "player"+side.ordinal(), 25000);
+            }
+            v.roundStarted(Wind.EAST, 1, 0, 0);
+            v.diceRolled(Side.SELF, 3, 4);
+            v.wallGenerated();
+            v.wallTileRevealed(Side.LEFT, 5, 0, deck.get(135));
+            v.handUpdated(initial);
+        });
+        for(int turn = 0; turn<70; turn++){
+            var side = Side.values()[turn%4];
+            var drawn = deck.get(13 + turn);
+            if(side!=Side.SELF){
+                scripts.add(v->{
+                    v.tileDrawn(side);
+                    v.handUpdated(side, 14);
+                    v.tileDiscarded(side, drawn);
+                    v.handUpdated(side, 13);
+                });
+                continue;
+            }
+            hand.add(drawn);
+            var tiles = List.copyOf(hand);
+            int index = random.nextInt(tiles.size());
+            // 範囲外の番号と不正なコマンドを挟んで回答します
+            input.append(tiles.size()).append('\n').append("Z\n").append(index).append('\n');
+            expectedActions.add(tiles.get(index).toString());
+            var discarded = hand.remove(index);
+            Collections.sort(hand);
+            var updated = List.copyOf(hand);
+            scripts.add(v->{
+                v.tileDrawn(drawn);
+                var action = v.askTurnAction(contextOf(tiles));
+                actions.add(action.getSelectedTile().toString());
+                v.tileDiscarded(Side.SELF, discarded);
+                v.handUpdated(updated);
+            });
+        }
+        scripts.add(v->v.roundSettled("流局"));
+    }
+
+    private static TurnPhaseContext contextOf(List<Tile> tiles){
+        return new TurnPhaseContext(){
+            @Override
+            public List<Tile> getTiles(){
+                return tiles;
+            }
+            @Override
+            public boolean canDeclareDraw(){
+                return false;
+            }
+            @Override
+            public boolean canDeclareWin(){
+                return false;
+            }
+            @Override
+            public boolean canDeclareReady(){
+                return false;
+            }
+            @Override
+            public boolean canDeclareQuad(){
+                return false;
+            }
+            @Override
+            public boolean canDiscard(Tile tile){
+                return true;
+            }
+            @Override
+            public boolean canDeclareReady(Tile tile){
+                return false;
+            }
+            @Override
+            public boolean canDeclareQuad(Tile tile){
+                return false;
+            }
+            @Override
+            public boolean canDeclareAddQuad(Tile tile){
+                return false;
+            }
+            @Override
+            public boolean canDeclareSelfQuad(Tile tile){
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 書き出し回数を数える出力。
+     */
+    private static final class CountingWriter extends Writer{
+        private final StringBuilder text = new StringBuilder();
+        private int flushes;
+        @Override
+        public void write(char[] buffer, int offset, int length){
+            text.append(buffer, offset, length);
+        }
+        @Override
+        public void flush(){
+            flushes++;
+        }
+        @Override
+        public void close(){
+        }
+    }
+}
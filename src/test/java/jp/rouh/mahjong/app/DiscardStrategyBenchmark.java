@@ -0,0 +1,155 @@
+package jp.rouh.mahjong.app;
+
+import jp.rouh.mahjong.score.HandEfficiency;
+import jp.rouh.mahjong.score.HandShanten;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.round.SimulationParticipant;
+import jp.rouh.mahjong.table.round.SimulationRound;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Tiles;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@link DiscardStrategy}の正しさと速度を計測します。
+ *
+ * <p>無作為な手牌について{@link HandEfficiency}の向聴数と受け入れ枚数が
+ * {@link HandShanten}で一枚ずつ計算した結果と一致することを確認した後,
+ * 四人の{@link DiscardStrategy}で局を繰り返し実行し, 行動の選択にかかる時間と局の結果を出力します。
+ * 局の実行中は, 戦略が数える見えていない牌に通知された自家の河とドラ表示牌が含まれていないことを確認します。
+ * 引数で局数を指定できます(既定値 5000)。
+ */
+public class DiscardStrategyBenchmark{
+    private static final int[] HAND_SIZES = {14, 11, 8, 5, 2};
+
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):5000;
+        verify(new Random(0), 50000);
+
+        var random = new Random(1);
+        var times = new long[2][];
+        var results = new int[4];
+        for(int i = 0; i<3; i++){
+            var turnTimes = new ArrayList<Long>();
+            var callTimes = new ArrayList<Long>();
+            Arrays.fill(results, 0);
+            long start = System.nanoTime();
+            for(int round = 0; round<rounds; round++){
+                playRound(random, turnTimes, callTimes, results);
+            }
+            long elapsed = System.nanoTime() - start;
+            times[0] = turnTimes.stream().mapToLong(Long::longValue).sorted().toArray();
+            times[1] = callTimes.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%d rounds in %.1f ms (win rate %.1f%%, ready %d, calls %d)%n",
+                    rounds, elapsed/1e6, results[0]*100.0/rounds, results[1], results[2]);
+            System.out.printf("turn: %.2f us/decision (p50 %.2f us, p99 %.2f us), "
+                            +"call: %.2f us/decision (p50 %.2f us, p99 %.2f us)%n",
+                    average(times[0])/1e3, percentile(times[0], 50)/1e3, percentile(times[0], 99)/1e3,
+                    average(times[1])/1e3, percentile(times[1], 50)/1e3, percentile(times[1], 99)/1e3);
+        }
+    }
+
+    private static void playRound(Random random, List<Long> turnTimes, List<Long> callTimes, int[] results){
+        var round = new SimulationRound(Wind.EAST, 1, 0, 0, random);
+        for(var wind:Wind.values()){
+            var discardStrategy = new DiscardStrategy();
+            var strategy = new TableStrategyAdaptor(discardStrategy){
+                @Override
+                public TurnAction askTurnAction(TurnPhaseContext context){
+                    verifyVisibility(discardStrategy, context.getTiles());
+                    long start = System.nanoTime();
+                    var action = super.askTurnAction(context);
+                    turnTimes.add(System.nanoTime() - start);
+                    if(action.isReadyDeclaration()) results[1]++;
+                    return action;
+                }
+                @Override
+                public CallAction askCallAction(CallPhaseContext context){
+                    long start = System.nanoTime();
+                    var action = super.askCallAction(context);
+                    callTimes.add(System.nanoTime() - start);
+                    if(action.isMeldCallDeclaration()) results[2]++;
+                    return action;
+                }
+            };
+            round.join(wind, new SimulationParticipant(wind.toString(), wind, 25000, strategy));
+        }
+        if(!round.start().isDrawn()) results[0]++;
+    }
+
+    /**
+     * 見えていない牌の枚数が, 手牌と自家の過去の打牌, ドラ表示牌を除いた枚数以下であることを確認します。
+     *
+     * <p>自家の打牌は鳴かれた場合も副露として見えているため, ターン数だけ見えている牌が増えます。
+     */
+    private static void verifyVisibility(DiscardStrategy strategy, List<Tile> handTiles){
+        int unseen = Arrays.stream(strategy.remainingOf(handTiles)).sum();
+        int limit = 136 - handTiles.size() - strategy.getTurnCount() - 1;
+        if(unseen>limit){
+            throw new AssertionError("visible tiles not counted: "+unseen+" unseen, at most "+limit+" expected");
+        }
+    }
+
+    /**
+     * 無作為な手牌の打牌候補ごとの評価を, 打牌と自摸を一枚ずつ行った手牌の向聴数と比較します。
+     */
+    private static void verify(Random random, int count){
+        var efficiency = new HandEfficiency();
+        var remaining = new int[34];
+        int improving = 0;
+        for(int i = 0; i<count; i++){
+            var deck = Tiles.fullSet();
+            Collections.shuffle(deck, random);
+            var hand = new ArrayList<>(deck.subList(0, HAND_SIZES[random.nextInt(HAND_SIZES.length)]));
+            Arrays.fill(remaining, 0);
+            for(var tile:deck.subList(hand.size(), hand.size() + 60)){
+                remaining[tile.tileNumber()]++;
+            }
+            efficiency.evaluate(hand, remaining);
+            int minShanten = Integer.MAX_VALUE;
+            for(var discard:hand){
+                minShanten = Math.min(minShanten, efficiency.shantenAfter(discard));
+            }
+            for(var discard:hand){
+                var discarded = new ArrayList<>(hand);
+                discarded.remove(discard);
+                int shanten = HandShanten.shantenOf(discarded);
+                int effective = 0;
+                for(var tile:Tile.values()){
+                    if(tile.isPrisedRed() || remaining[tile.tileNumber()]==0) continue;
+                    discarded.add(tile);
+                    if(HandShanten.shantenOf(discarded)<shanten) effective += remaining[tile.tileNumber()];
+                    discarded.remove(discarded.size() - 1);
+                }
+                int expected = shanten==minShanten? effective:0;
+                if(efficiency.shantenAfter(discard)!=shanten || efficiency.effectiveCountAfter(discard)!=expected){
+                    throw new AssertionError("mismatch: "+hand+" discard "+discard+" expected "+shanten+"/"+effective
+                            +" ("+expected+") but "+efficiency.shantenAfter(discard)+"/"+efficiency.effectiveCountAfter(discard));
+                }
+                if(effective>0) improving++;
+                if(efficiency.effectiveCountOf(discarded, remaining)!=effective){
+                    throw new AssertionError("effective count mismatch: "+discarded);
+                }
+                efficiency.evaluate(hand, remaining);
+            }
+        }
+        System.out.printf("verified %d hands (%d discards with effective tiles)%n", count, improving);
+    }
+
+    private static double average(long[] values){
+        return Arrays.stream(values).average().orElse(0);
+    }
+
+    private static double percentile(long[] sorted, int percent){
+        return sorted.length==0? 0:sorted[Math.min(sorted.length - 1, sorted.length*percent/100)];
+    }
+}
@@ -0,0 +1,91 @@
+package jp.rouh.mahjong.app;
+
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.round.SimulationParticipant;
+import jp.rouh.mahjong.table.round.SimulationRound;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MonteCarloStrategy}のプレイアウトの速度と成績を計測します。
+ *
+ * <p>一人の{@link MonteCarloStrategy}と三人の{@link DiscardStrategy}で局を繰り返し実行し,
+ * 一秒あたりのプレイアウト回数, 判断ごとの平均時間, 席ごとの和了率と平均収支を出力します。
+ * {@link MonteCarloStrategy}の席は局ごとに入れ替えます。
+ * 判断のたびに, プレイアウトで標本化する見えていない牌に自家の河とドラ表示牌が含まれていないことを確認します。
+ * 引数で局数と判断ごとの持ち時間(ミリ秒)を指定できます(既定値 200局, 10ミリ秒)。
+ */
+public class MonteCarloStrategyBenchmark{
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):200;
+        int budget = args.length>1? Integer.parseInt(args[1]):10;
+        var pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        var random = new Random(1);
+        int[] wins = new int[2];
+        long[] scores = new long[2];
+        long playouts = 0;
+        long decisions = 0;
+        double nanos = 0;
+        long start = System.nanoTime();
+        for(int round = 0; round<rounds; round++){
+            var winds = Wind.values();
+            var montecarloWind = winds[round%winds.length];
+            var visibility = new DiscardStrategy();
+            var montecarlo = new MonteCarloStrategy(visibility, pool, budget, TimeUnit.MILLISECONDS, 1000);
+            var verified = new TableStrategyAdaptor(montecarlo){
+                @Override
+                public TurnAction askTurnAction(TurnPhaseContext context){
+                    verifyVisibility(visibility, context.getTiles());
+                    return super.askTurnAction(context);
+                }
+            };
+            var simulation = new SimulationRound(Wind.EAST, 1, 0, 0, random);
+            for(var wind:winds){
+                TableStrategy strategy = wind==montecarloWind? verified:new DiscardStrategy();
+                simulation.join(wind, new SimulationParticipant(wind.toString(), wind, 25000, strategy));
+            }
+            var result = simulation.start();
+            for(var wind:winds){
+                int index = wind==montecarloWind? 0:1;
+                int change = result.getScoreChange(wind);
+                if(!result.isDrawn() && change>0) wins[index]++;
+                scores[index] += change;
+            }
+            playouts += montecarlo.getPlayoutCount();
+            decisions += montecarlo.getDecisionCount();
+            if(montecarlo.getPlayoutCount()>0){
+                nanos += montecarlo.getPlayoutCount()*1e9/montecarlo.getPlayoutsPerSecond();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%d rounds in %.1f s (parallelism %d, budget %d ms)%n",
+                rounds, elapsed/1e9, pool.getParallelism(), budget);
+        System.out.printf("%d playouts in %d decisions: %.0f playouts/s, %.2f ms/decision, %.0f playouts/decision%n",
+                playouts, decisions, playouts*1e9/nanos, nanos/1e6/decisions, (double)playouts/decisions);
+        System.out.printf("monte carlo: win rate %.1f%%, %+.0f points/round%n",
+                wins[0]*100.0/rounds, (double)scores[0]/rounds);
+        System.out.printf("discard:     win rate %.1f%%, %+.0f points/round%n",
+                wins[1]*100.0/rounds/3, (double)scores[1]/rounds/3);
+        pool.shutdown();
+    }
+
+    /**
+     * 見えていない牌の枚数が, 手牌と自家の過去の打牌, ドラ表示牌を除いた枚数以下であることを確認します。
+     */
+    private static void verifyVisibility(DiscardStrategy strategy, List<Tile> handTiles){
+        int unseen = Arrays.stream(strategy.remainingOf(handTiles)).sum();
+        int limit = 136 - handTiles.size() - strategy.getTurnCount() - 1;
+        if(unseen>limit){
+            throw new AssertionError("visible tiles not counted: "+unseen+" unseen, at most "+limit+" expected");
+        }
+    }
+}
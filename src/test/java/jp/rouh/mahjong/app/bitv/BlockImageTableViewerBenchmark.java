@@ -0,0 +1,108 @@
+package jp.rouh.mahjong.app.bitv;
+
+import jp.rouh.mahjong.app.bitv.table.BlockImageTableViewer;
+import jp.rouh.mahjong.app.bitv.table.Direction;
+import jp.rouh.mahjong.tile.Tiles;
+import jp.rouh.mahjong.tile.Wind;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * {@link BlockImageTableViewer}の更新と描画の速度を計測します。
+ *
+ * <p>配牌, 山からの自摸, 打牌, 手牌の更新からなる局の再生を模した更新列を
+ * イベントディスパッチスレッド上で繰り返し適用し, 更新あたりの時間と,
+ * 一定数の更新ごとに画面を描画した場合の描画あたりの時間を出力します。
+ * 描画は画面外の画像に対して行うため, {@code -Djava.awt.headless=true}で実行できます。
+ * 引数で局数と描画の間隔(更新数)を指定できます(既定値 200局, 10更新)。
+ */
+public class BlockImageTableViewerBenchmark{
+    public static void main(String[] args) throws Exception{
+        int rounds = args.length>0? Integer.parseInt(args[0]):200;
+        int interval = args.length>1? Integer.parseInt(args[1]):10;
+        var viewer = new BlockImageTableViewer[1];
+        SwingUtilities.invokeAndWait(()->{
+            viewer[0] = new BlockImageTableViewer();
+            for(var d:Direction.values()){
+                viewer[0].updatePlayerName(d, "player");
+                viewer[0].updatePlayerScore(d, 25000);
+                viewer[0].updatePlayerWind(d, Wind.values()[d.ordinal()]);
+            }
+        });
+        var screen = new BufferedImage(viewer[0].getWidth(), viewer[0].getHeight(), BufferedImage.TYPE_INT_ARGB);
+        var random = new Random(0);
+        for(int pass = 0; pass<3; pass++){
+            var counts = new long[4];
+            for(int round = 0; round<rounds; round++){
+                var script = scriptOf(random);
+                SwingUtilities.invokeAndWait(()->play(viewer[0], script, screen, interval, counts));
+            }
+            System.out.printf("%d updates: %.2f us/update, %d frames: %.2f us/frame%n",
+                    counts[0], counts[1]/1e3/counts[0], counts[2], counts[3]/1e3/counts[2]);
+        }
+    }
+
+    private static void play(BlockImageTableViewer viewer, List<Consumer<BlockImageTableViewer>> script,
+                             BufferedImage screen, int interval, long[] counts){
+        for(int i = 0; i<script.size(); i++){
+            long start = System.nanoTime();
+            script.get(i).accept(viewer);
+            counts[1] += System.nanoTime() - start;
+            counts[0]++;
+            if(i%interval==interval - 1 || i==script.size() - 1){
+                start = System.nanoTime();
+                var g = screen.createGraphics();
+                viewer.paint(g);
+                g.dispose();
+                counts[3] += System.nanoTime() - start;
+                counts[2]++;
+            }
+        }
+    }
+
+    /**
+     * 一局分の更新列を生成します。
+     */
+    private static List<Consumer<BlockImageTableViewer>> scriptOf(Random random){
+        var deck = Tiles.fullSet();
+        Collections.shuffle(deck, random);
+        var script = new ArrayList<Consumer<BlockImageTableViewer>>();
+        script.add(BlockImageTableViewer::clear);
+        script.add(BlockImageTableViewer::putAllWallTiles);
+        var hand = new ArrayList<>(deck.subList(0, 13));
+        Collections.sort(hand);
+        int wall = 0;
+        for(int turn = 0; turn<70; turn++){
+            var d = Direction.values()[turn%4];
+            var wallDirection = Direction.values()[wall/34];
+            int column = wall%34/2;
+            int floor = 1 - wall%2;
+            wall++;
+            script.add(v->v.removeWallTile(wallDirection, column, floor));
+            var drawn = deck.get(13 + turn);
+            if(d==Direction.BOTTOM){
+                var drawnHand = new ArrayList<>(hand);
+                drawnHand.add(drawn);
+                var drawnTiles = List.copyOf(drawnHand);
+                script.add(v->v.updateHandTiles(drawnTiles, true));
+                var discarded = drawnHand.remove(random.nextInt(drawnHand.size()));
+                Collections.sort(drawnHand);
+                hand = drawnHand;
+                var updated = hand;
+                script.add(v->v.updateHandTiles(updated, false));
+                script.add(v->v.appendRiverTile(d, discarded));
+            }else{
+                script.add(v->v.updateHandTiles(d, 14, true));
+                script.add(v->v.updateHandTiles(d, 13, false));
+                script.add(v->v.appendRiverTile(d, drawn));
+            }
+        }
+        return script;
+    }
+}
@@ -0,0 +1,200 @@
+package jp.rouh.mahjong.app.bitv;
+
+import jp.rouh.mahjong.app.bitv.table.BlockImageTableViewer;
+import jp.rouh.mahjong.app.bitv.table.Direction;
+import jp.rouh.mahjong.app.bitv.table.SwingTableViewerBridge;
+import jp.rouh.mahjong.app.bitv.table.TableViewer;
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.tile.Tiles;
+import jp.rouh.mahjong.tile.Wind;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link SwingTableViewerBridge}が描画操作を順序通りに適用し, 呼び出し元を待機させないことを確認します。
+ *
+ * <p>対局のスレッドを模したスレッドから局の再生を模した描画操作をブリッジ経由で呼び出し,
+ * イベントディスパッチスレッド上で直接適用したビューと描画結果が一致することを確認します。
+ * 呼び出しの時間と全ての操作が適用されるまでの時間を出力し, イベントディスパッチスレッドが
+ * 停止している間も一局分の呼び出しが待機せずに完了することを確認します。
+ * また, キューが満杯の状態でイベントディスパッチスレッドから呼び出しても待機しないことを確認します。
+ * {@code -Djava.awt.headless=true}で実行できます。
+ * 引数で局数を指定できます(既定値 200局)。
+ */
+public class SwingTableViewerBridgeCheck{
+    private static final long STALL_MILLIS = 500;
+
+    public static void main(String[] args) throws Exception{
+        int rounds = args.length>0? Integer.parseInt(args[0]):200;
+        var random = new Random(0);
+        var script = new ArrayList<Consumer<TableViewer>>();
+        for(int round = 0; round<rounds; round++){
+            script.addAll(scriptOf(random));
+        }
+        var viewers = new BlockImageTableViewer[3];
+        SwingUtilities.invokeAndWait(()->{
+            for(int i = 0; i<viewers.length; i++){
+                viewers[i] = new BlockImageTableViewer();
+            }
+        });
+        var bridge = new SwingTableViewerBridge(viewers[0]);
+        for(int pass = 0; pass<2; pass++){
+            long start = System.nanoTime();
+            for(var operation:script){
+                operation.accept(bridge);
+            }
+            double calls = (System.nanoTime() - start)/1e3/script.size();
+            int pending = bridge.getPendingCount();
+            awaitDrained(bridge);
+            double elapsed = (System.nanoTime() - start)/1e6;
+            System.out.printf("%d calls: %.2f us/call, %d pending after calls, all applied in %.1f ms%n",
+                    script.size(), calls, pending, elapsed);
+        }
+
+        // イベントディスパッチスレッドを停止させ, 一局分の呼び出しで呼び出し元が待機しないことを確認します
+        var burst = scriptOf(random);
+        var stalled = new CountDownLatch(1);
+        SwingUtilities.invokeLater(()->{
+            stalled.countDown();
+            sleep(STALL_MILLIS);
+        });
+        stalled.await();
+        long max = 0;
+        long start = System.nanoTime();
+        for(var operation:burst){
+            long callStart = System.nanoTime();
+            operation.accept(bridge);
+            max = Math.max(max, System.nanoTime() - callStart);
+        }
+        double burstMillis = (System.nanoTime() - start)/1e6;
+        int pending = bridge.getPendingCount();
+        System.out.printf("(EDT stalled %d ms) %d calls in %.2f ms, max %.1f us/call, %d pending%n",
+                STALL_MILLIS, burst.size(), burstMillis, max/1e3, pending);
+        if(burstMillis>=STALL_MILLIS || pending!=burst.size()){
+            throw new AssertionError("caller waited for stalled event dispatch thread");
+        }
+        awaitDrained(bridge);
+
+        // キューを満杯にした後, イベントディスパッチスレッドから呼び出しても待機せず順序通り適用されることを確認します
+        var small = new SwingTableViewerBridge(viewers[2], 16);
+        var edtBurst = scriptOf(random);
+        var edtDone = new CountDownLatch(1);
+        SwingUtilities.invokeLater(()->{
+            edtBurst.forEach(operation->operation.accept(small));
+            edtDone.countDown();
+        });
+        if(!edtDone.await(STALL_MILLIS, TimeUnit.MILLISECONDS)){
+            throw new AssertionError("event dispatch thread waited for its own viewer queue");
+        }
+        awaitDrained(small);
+        SwingUtilities.invokeAndWait(()->{
+            edtBurst.forEach(operation->operation.accept(viewers[1]));
+            assertSame(paint(viewers[2]), paint(viewers[1]));
+        });
+        System.out.printf("(EDT caller, capacity 16) %d calls applied without waiting%n", edtBurst.size());
+
+        // 呼び出し後に変更された引数のリストが適用に影響しないことを確認します
+        var tiles = new ArrayList<>(Tiles.fullSet().subList(0, 13));
+        bridge.updateHandTiles(tiles, false);
+        tiles.clear();
+        var expectedTiles = Tiles.fullSet().subList(0, 13);
+        SwingUtilities.invokeAndWait(()->{
+            for(int pass = 0; pass<2; pass++){
+                script.forEach(operation->operation.accept(viewers[1]));
+            }
+            burst.forEach(operation->operation.accept(viewers[1]));
+            viewers[1].updateHandTiles(expectedTiles, false);
+
+            assertSame(paint(viewers[0]), paint(viewers[1]));
+        });
+        System.out.println("verified bridged viewer");
+    }
+
+    private static void awaitDrained(SwingTableViewerBridge bridge) throws Exception{
+        do{
+            SwingUtilities.invokeAndWait(()->{});
+        }while(bridge.getPendingCount()>0);
+    }
+
+    private static BufferedImage paint(BlockImageTableViewer viewer){
+        var image = new BufferedImage(viewer.getWidth(), viewer.getHeight(), BufferedImage.TYPE_INT_RGB);
+        var g = image.createGraphics();
+        viewer.paint(g);
+        g.dispose();
+        return image;
+    }
+
+    private static void sleep(long millis){
+        try{
+            Thread.sleep(millis);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 一局分の描画操作を生成します。
+     */
+    private static List<Consumer<TableViewer>> scriptOf(Random random){
+        var deck = Tiles.fullSet();
+        Collections.shuffle(deck, random);
+        var script = new ArrayList<Consumer<TableViewer>>();
+        script.add(TableViewer::clear);
+        script.add(TableViewer::putAllWallTiles);
+        int streak = random.nextInt(3);
+        script.add(v->v.updateRoundInfo(Wind.EAST, 1));
+        script.add(v->v.updateStreakCount(streak));
+        for(var d:Direction.values()){
+            int score = 25000 + random.nextInt(100)*100;
+            script.add(v->v.updatePlayerScore(d, score));
+        }
+        var hand = new ArrayList<>(deck.subList(0, 13));
+        Collections.sort(hand);
+        int wall = 0;
+        for(int turn = 0; turn<70; turn++){
+            var d = Direction.values()[turn%4];
+            var wallDirection = Direction.values()[wall/34];
+            int column = wall%34/2;
+            int floor = 1 - wall%2;
+            wall++;
+            script.add(v->v.removeWallTile(wallDirection, column, floor));
+            var drawn = deck.get(13 + turn);
+            if(d==Direction.BOTTOM){
+                hand.add(drawn);
+                var drawnTiles = List.copyOf(hand);
+                script.add(v->v.updateHandTiles(drawnTiles, true));
+                var discarded = hand.remove(random.nextInt(hand.size()));
+                Collections.sort(hand);
+                var updated = List.copyOf(hand);
+                script.add(v->v.updateHandTiles(updated, false));
+                script.add(v->v.appendRiverTile(d, discarded));
+            }else{
+                script.add(v->v.updateHandTiles(d, 14, true));
+                script.add(v->v.updateHandTiles(d, 13, false));
+                script.add(v->v.appendRiverTile(d, drawn));
+            }
+            if(random.nextInt(40)==0){
+                script.add(v->v.showDeclaration(d, Declaration.PON));
+            }
+        }
+        return script;
+    }
+
+    private static void assertSame(BufferedImage image, BufferedImage expected){
+        for(int y = 0; y<image.getHeight(); y++){
+            for(int x = 0; x<image.getWidth(); x++){
+                if(image.getRGB(x, y)!=expected.getRGB(x, y)){
+                    throw new AssertionError("pixel mismatch at ("+x+", "+y+")");
+                }
+            }
+        }
+    }
+}
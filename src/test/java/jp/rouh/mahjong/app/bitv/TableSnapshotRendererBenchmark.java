@@ -0,0 +1,208 @@
+package jp.rouh.mahjong.app.bitv;
+
+import jp.rouh.mahjong.app.bitv.table.BlockImageTableViewer;
+import jp.rouh.mahjong.app.bitv.table.TableSnapshotRenderer;
+import jp.rouh.mahjong.app.bitv.table.TableViewerAdaptor;
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.table.record.GameRecordWriter;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Tiles;
+import jp.rouh.mahjong.tile.Wind;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@link TableSnapshotRenderer}の描画の正しさと速度を計測します。
+ *
+ * <p>乱数で生成した局相当の通知列を牌譜ファイルに書き込み,
+ * スナップショットとアニメーションとして書き出す速度をスレッド数ごとに出力します。
+ * 画面外での描画がイベントディスパッチスレッド上でのビューの描画と一致すること,
+ * アニメーションの最後の画像がスナップショットと一致すること,
+ * スレッド数に関わらず同一の画像が書き出されることを確認します。
+ * {@code -Djava.awt.headless=true}で実行できます。
+ * 引数で対局数とアニメーションとして書き出す対局数を指定できます(既定値 200対局, 4対局)。
+ */
+public class TableSnapshotRendererBenchmark{
+    public static void main(String[] args) throws Exception{
+        int games = args.length>0? Integer.parseInt(args[0]):200;
+        int animatedGames = args.length>1? Integer.parseInt(args[1]):4;
+        var directory = Files.createTempDirectory("table-snapshot");
+        try{
+            var random = new Random(0);
+            var first = new ArrayList<TableEvent>();
+            var record = directory.resolve("record.bin");
+            var animatedRecord = directory.resolve("animated.bin");
+            try(var writer = new GameRecordWriter(record);
+                var animatedWriter = new GameRecordWriter(animatedRecord)){
+                for(int game = 0; game<games; game++){
+                    var events = new ArrayList<TableEvent>();
+                    generateGame(TableEvent.recorder(events::add), random);
+                    if(game==0) first.addAll(events);
+                    writer.startGame(game);
+                    events.forEach(writer::write);
+                    writer.endGame();
+                    if(game<animatedGames){
+                        animatedWriter.startGame(game);
+                        events.forEach(animatedWriter::write);
+                        animatedWriter.endGame();
+                    }
+                }
+            }
+
+            var snapshot = TableSnapshotRenderer.renderSnapshot(first);
+            var expected = new BufferedImage[1];
+            SwingUtilities.invokeAndWait(()->{
+                var viewer = new BlockImageTableViewer();
+                var adaptor = new TableViewerAdaptor(viewer);
+                first.forEach(event->event.dispatchTo(adaptor));
+                expected[0] = new BufferedImage(viewer.getWidth(), viewer.getHeight(), BufferedImage.TYPE_INT_RGB);
+                var g = expected[0].createGraphics();
+                viewer.paint(g);
+                g.dispose();
+            });
+            assertSame(snapshot, expected[0], "snapshot / event dispatch thread");
+
+            int processors = Runtime.getRuntime().availableProcessors();
+            var threadCounts = processors>1? List.of(1, processors):List.of(1, 2);
+            for(int threadCount:threadCounts){
+                try(var renderer = new TableSnapshotRenderer(threadCount)){
+                    var output = directory.resolve("snapshot-"+threadCount);
+                    long start = System.nanoTime();
+                    int images = renderer.renderRecord(record, output, false);
+                    double elapsed = (System.nanoTime() - start)/1e9;
+                    System.out.printf("snapshot  %d threads: %d images, %.0f images/min%n",
+                            threadCount, images, images/elapsed*60);
+
+                    output = directory.resolve("animation-"+threadCount);
+                    start = System.nanoTime();
+                    images = renderer.renderRecord(animatedRecord, output, true);
+                    elapsed = (System.nanoTime() - start)/1e9;
+                    System.out.printf("animation %d threads: %d images, %.0f images/min%n",
+                            threadCount, images, images/elapsed*60);
+                }
+            }
+            assertSame(ImageIO.read(directory.resolve("snapshot-1/game-0.png").toFile()), snapshot, "written snapshot");
+            var frames = directory.resolve("animation-1/game-0");
+            try(var files = Files.list(frames)){
+                var last = files.max(Comparator.naturalOrder()).orElseThrow();
+                assertSame(ImageIO.read(last.toFile()), snapshot, "last frame");
+            }
+            for(var kind:List.of("snapshot-", "animation-")){
+                var base = directory.resolve(kind+threadCounts.get(0));
+                var other = directory.resolve(kind+threadCounts.get(1));
+                try(var files = Files.walk(base)){
+                    for(var file:(Iterable<Path>)files.filter(Files::isRegularFile)::iterator){
+                        var otherFile = other.resolve(base.relativize(file));
+                        if(!Arrays.equals(Files.readAllBytes(file), Files.readAllBytes(otherFile))){
+                            throw new AssertionError("thread count mismatch: "+otherFile);
+                        }
+                    }
+                }
+            }
+            System.out.println("verified snapshots and animations");
+        }finally{
+            try(var files = Files.walk(directory)){
+                files.sorted(Comparator.reverseOrder()).forEach(path->path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * 一局分の通知を生成します。
+     */
+    private static void generateGame(TableObserver observer, Random random){
+        var sides = Side.values();
+        var deck = Tiles.fullSet();
+        Collections.shuffle(deck, random);
+        for(var side:sides){
+            observer.seatUpdated(side, Wind.values()[side.ordinal()], "player"+side.ordinal(), 25000);
+        }
+        observer.roundStarted(Wind.EAST, random.nextInt(4) + 1, random.nextInt(3), random.nextInt(2));
+        observer.diceRolled(Side.SELF, random.nextInt(6) + 1, random.nextInt(6) + 1);
+        observer.wallGenerated();
+        observer.wallTileRevealed(Side.LEFT, 15, 0, deck.get(135));
+        int wall = 0;
+        for(int i = 0; i<52; i++, wall++){
+            observer.wallTileTaken(sides[wall/34], wall%34/2, wall%2);
+        }
+        var hand = new ArrayList<>(deck.subList(0, 13));
+        Collections.sort(hand);
+        observer.handUpdated(hand);
+        var sizes = new int[]{13, 13, 13, 13};
+        var melds = new int[4];
+        boolean[] ready = new boolean[4];
+        for(var side:sides){
+            if(side!=Side.SELF) observer.handUpdated(side, 13);
+        }
+        for(int turn = 0; turn<70; turn++, wall++){
+            var side = sides[turn%4];
+            var drawn = deck.get(52 + turn);
+            observer.wallTileTaken(sides[wall/34], wall%34/2, wall%2);
+            Tile discarded;
+            if(side==Side.SELF){
+                observer.tileDrawn(drawn);
+                hand.add(drawn);
+                discarded = hand.remove(random.nextInt(hand.size()));
+                Collections.sort(hand);
+            }else{
+                observer.tileDrawn(side);
+                discarded = drawn;
+            }
+            if(!ready[side.ordinal()] && turn>=20 && random.nextInt(20)==0){
+                ready[side.ordinal()] = true;
+                observer.declared(side, Declaration.READY);
+                observer.tileDiscardedAsReady(side, discarded);
+                observer.readyBoneAdded(side);
+            }else{
+                observer.tileDiscarded(side, discarded);
+            }
+            if(side==Side.SELF){
+                observer.handUpdated(hand);
+            }else{
+                observer.handUpdated(side, sizes[side.ordinal()]);
+            }
+            var caller = sides[1 + random.nextInt(3)];
+            if(caller!=side && !ready[caller.ordinal()] && melds[caller.ordinal()]<4 && random.nextInt(15)==0){
+                observer.declared(caller, Declaration.PON);
+                observer.riverTileTaken(side);
+                var tilt = Wind.values()[side.ordinal()].from(Wind.values()[caller.ordinal()]);
+                observer.tiltMeldAdded(caller, tilt, List.of(discarded, discarded, discarded));
+                melds[caller.ordinal()]++;
+                sizes[caller.ordinal()] -= 3;
+                observer.handUpdated(caller, sizes[caller.ordinal()]);
+            }
+        }
+        var winner = sides[random.nextInt(4)];
+        var revealed = new ArrayList<>(deck.subList(13, 13 + sizes[winner.ordinal()]));
+        Collections.sort(revealed);
+        observer.declared(winner, Declaration.RON);
+        observer.handRevealed(winner, revealed, deck.get(134));
+        observer.roundSettled("ロン");
+    }
+
+    private static void assertSame(BufferedImage image, BufferedImage expected, String message){
+        if(image.getWidth()!=expected.getWidth() || image.getHeight()!=expected.getHeight()){
+            throw new AssertionError("size mismatch: "+message);
+        }
+        for(int y = 0; y<image.getHeight(); y++){
+            for(int x = 0; x<image.getWidth(); x++){
+                if(image.getRGB(x, y)!=expected.getRGB(x, y)){
+                    throw new AssertionError("pixel mismatch at ("+x+", "+y+"): "+message);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package jp.rouh.mahjong.app.bitv.image;
+
+import jp.rouh.mahjong.app.bitv.table.Direction;
+import jp.rouh.mahjong.tile.Tile;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * {@link BlockImages}の遅延描画の正しさと, 起動時間およびヒープ使用量を計測します。
+ *
+ * <p>最初の画像の取得にかかる時間とヒープの増分を, 全ての向きと牌の組を描画した場合と比較して出力します。
+ * アトラスから取得した表面画像と回転後の画像が, リソースから直接読み込んだ画像から
+ * 生成した画像と画素単位で一致すること, 二度目以降の取得でキャッシュされた画像が返されることを確認します。
+ * ビルド時に作成されたアトラス画像がクラスパス上にある場合は, 読み込んだアトラスが
+ * 表面画像から作成したアトラスと一致することも確認します。
+ * {@code -Djava.awt.headless=true}で実行できます。
+ */
+public class BlockImagesCheck{
+    public static void main(String[] args){
+        long heap = usedHeap();
+        long start = System.nanoTime();
+        BlockImages.ofFaceUp(Direction.TOP, Tile.M1);
+        long first = System.nanoTime() - start;
+        long firstHeap = usedHeap() - heap;
+
+        start = System.nanoTime();
+        int count = 0;
+        for(var d:Direction.values()){
+            BlockImages.ofFaceDown(d);
+            count++;
+            if(d!=Direction.TOP){
+                BlockImages.ofOpponentHand(d);
+                count++;
+            }
+            for(var t:Tile.values()){
+                BlockImages.ofFaceUp(d, t);
+                count++;
+            }
+        }
+        for(var t:Tile.values()){
+            BlockImages.ofPlayerHand(t);
+            count++;
+        }
+        long all = System.nanoTime() - start + first;
+        long allHeap = usedHeap() - heap;
+        System.out.printf("first image: %.1f ms, heap %+d KB%n", first/1e6, firstHeap/1024);
+        System.out.printf("all %d images: %.1f ms, heap %+d KB%n", count, all/1e6, allHeap/1024);
+
+        assertSame(TileFaceAtlas.atlas(), TileFaceAtlas.render(), "atlas");
+        for(var t:Tile.values()){
+            var face = TileFaceAtlas.faceOf(t);
+            var expected = BlockImageFactory.readTileFaceImage(t.toString());
+            assertSame(face, expected, "face "+t);
+            for(var d:Direction.values()){
+                assertSame(ImageFunctions.rotate(face, d), ImageFunctions.rotate(expected, d), "rotated "+d+" "+t);
+                if(BlockImages.ofFaceUp(d, t)!=BlockImages.ofFaceUp(d, t)){
+                    throw new AssertionError("not cached: "+d+" "+t);
+                }
+            }
+        }
+        System.out.println("verified "+Tile.values().length+" faces in "+Direction.values().length+" directions");
+    }
+
+    private static void assertSame(BufferedImage image, BufferedImage expected, String message){
+        if(image.getWidth()!=expected.getWidth() || image.getHeight()!=expected.getHeight()){
+            throw new AssertionError("size mismatch: "+message);
+        }
+        for(int y = 0; y<image.getHeight(); y++){
+            for(int x = 0; x<image.getWidth(); x++){
+                if(image.getRGB(x, y)!=expected.getRGB(x, y)){
+                    throw new AssertionError("pixel mismatch at ("+x+", "+y+"): "+message);
+                }
+            }
+        }
+    }
+
+    private static long usedHeap(){
+        var runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
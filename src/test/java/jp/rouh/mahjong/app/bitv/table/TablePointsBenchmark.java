@@ -0,0 +1,182 @@
+package jp.rouh.mahjong.app.bitv.table;
+
+import java.awt.*;
+
+/**
+ * {@link TablePoints}の座標表の正しさと, 麻雀卓全体の配置の計算速度を計測します。
+ *
+ * <p>全ての山牌, 河の牌, 手牌, 副露面子の座標が座標表を用いない従来の計算と一致することを確認した上で,
+ * 全ての牌を配置し直す一画面分の座標の取得にかかる時間を, 従来の計算と比較して出力します。
+ * 引数で計測する画面数を指定できます(既定値 200000画面)。
+ */
+public class TablePointsBenchmark{
+    private static final int RIVER_SIZE = 21;
+    private static final int READY_INDEX = 8;
+    private static final int MELD_OFFSETS = 4*3*20;
+
+    public static void main(String[] args){
+        int frames = args.length>0? Integer.parseInt(args[0]):200000;
+        verify();
+        for(int pass = 0; pass<3; pass++){
+            long start = System.nanoTime();
+            long sum = 0;
+            for(int i = 0; i<frames; i++){
+                sum += layout();
+            }
+            double table = (System.nanoTime() - start)/1e3/frames;
+            start = System.nanoTime();
+            for(int i = 0; i<frames; i++){
+                sum -= layoutByWalker();
+            }
+            double walker = (System.nanoTime() - start)/1e3/frames;
+            if(sum!=0) throw new AssertionError("checksum mismatch");
+            System.out.printf("%d blocks/frame: table %.2f us/frame, walker %.2f us/frame (x%.1f)%n",
+                    blocksPerFrame(), table, walker, walker/table);
+        }
+        System.out.println("verified table points");
+    }
+
+    private static int blocksPerFrame(){
+        return 4*(17*2 + RIVER_SIZE + 14 + MELD_OFFSETS/20);
+    }
+
+    /**
+     * 座標表から一画面分の座標を取得し, 座標の総和を返します。
+     */
+    private static long layout(){
+        long sum = 0;
+        for(var d:Direction.values()){
+            for(int col = 0; col<17; col++){
+                for(int floor = 0; floor<2; floor++){
+                    sum += sumOf(TablePoints.ofWallBlock(d, col, floor));
+                }
+            }
+            for(int index = 0; index<RIVER_SIZE; index++){
+                sum += sumOf(TablePoints.ofRiverBlock(d, index, READY_INDEX));
+            }
+            for(int index = 0; index<14; index++){
+                sum += sumOf(TablePoints.ofHandBlock(d, index, index==13));
+            }
+            for(int offset = 0; offset<MELD_OFFSETS; offset += 20){
+                sum += sumOf(TablePoints.ofMeldBlock(d, offset, offset%60==0, false));
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 従来の計算で一画面分の座標を取得し, 座標の総和を返します。
+     */
+    private static long layoutByWalker(){
+        long sum = 0;
+        for(var d:Direction.values()){
+            for(int col = 0; col<17; col++){
+                for(int floor = 0; floor<2; floor++){
+                    sum += sumOf(Reference.ofWallBlock(d, col, floor));
+                }
+            }
+            for(int index = 0; index<RIVER_SIZE; index++){
+                sum += sumOf(Reference.ofRiverBlock(d, index, READY_INDEX));
+            }
+            for(int index = 0; index<14; index++){
+                sum += sumOf(Reference.ofHandBlock(d, index, index==13));
+            }
+            for(int offset = 0; offset<MELD_OFFSETS; offset += 20){
+                sum += sumOf(Reference.ofMeldBlock(d, offset, offset%60==0, false));
+            }
+        }
+        return sum;
+    }
+
+    private static long sumOf(int point){
+        return TablePoints.xOf(point)*1000L + TablePoints.yOf(point);
+    }
+
+    private static long sumOf(Point point){
+        return point.x*1000L + point.y;
+    }
+
+    private static void verify(){
+        for(var d:Direction.values()){
+            for(int col = 0; col<17; col++){
+                for(int floor = 0; floor<2; floor++){
+                    assertSame(TablePoints.ofWallBlock(d, col, floor), Reference.ofWallBlock(d, col, floor));
+                }
+            }
+            for(int readyIndex = -1; readyIndex<30; readyIndex++){
+                for(int index = 0; index<30; index++){
+                    assertSame(TablePoints.ofRiverBlock(d, index, readyIndex), Reference.ofRiverBlock(d, index, readyIndex));
+                }
+            }
+            for(int index = 0; index<14; index++){
+                assertSame(TablePoints.ofHandBlock(d, index, false), Reference.ofHandBlock(d, index, false));
+                assertSame(TablePoints.ofHandBlock(d, index, true), Reference.ofHandBlock(d, index, true));
+            }
+            for(int offset = 0; offset<=200; offset += 5){
+                for(int flags = 0; flags<4; flags++){
+                    boolean rotated = flags/2==1;
+                    boolean added = flags%2==1;
+                    assertSame(TablePoints.ofMeldBlock(d, offset, rotated, added),
+                            Reference.ofMeldBlock(d, offset, rotated, added));
+                }
+            }
+        }
+    }
+
+    private static void assertSame(int point, Point expected){
+        if(TablePoints.xOf(point)!=expected.x || TablePoints.yOf(point)!=expected.y){
+            throw new AssertionError("point mismatch: ("+TablePoints.xOf(point)+", "+TablePoints.yOf(point)+") / "+expected);
+        }
+    }
+
+    /**
+     * 座標表を用いない従来の座標の計算。
+     */
+    private static final class Reference{
+        private static Point ofHandBlock(Direction dir, int index, boolean isolated){
+            return walk(dir, 260, 220 - index*20 - (isolated? 10:0));
+        }
+
+        private static Point ofMeldBlock(Direction dir, int offset, boolean rotated, boolean added){
+            return walk(dir, 260 + (rotated? 5:0) - (added? 20:0), -230 + offset + (rotated? 5:0));
+        }
+
+        private static Point ofRiverBlock(Direction dir, int index, int readyIndex){
+            int row = index/6;
+            int col = index%6;
+            boolean rr = readyIndex!=-1 && index==readyIndex;
+            boolean rt = readyIndex!=-1 && row==readyIndex/6 && readyIndex<index;
+            return walk(dir, 75 + row*30 + (rr? 5:0), 50 - col*20 - (rr? 5:0) - (rt? 10:0));
+        }
+
+        private static Point ofWallBlock(Direction dir, int col, int floor){
+            var point = walk(dir, 205, 160 - col*20);
+            point.y -= floor*10;
+            return point;
+        }
+
+        private static Point walk(Direction dir, int straight, int right){
+            var point = new Point(TablePoints.CENTER);
+            move(point, dir, straight);
+            move(point, dir.turnRight(), right);
+            return point;
+        }
+
+        private static void move(Point point, Direction d, int k){
+            switch(d){
+                case TOP:
+                    point.y -= k;
+                    break;
+                case RIGHT:
+                    point.x += k;
+                    break;
+                case BOTTOM:
+                    point.y += k;
+                    break;
+                case LEFT:
+                    point.x -= k;
+                    break;
+            }
+        }
+    }
+}
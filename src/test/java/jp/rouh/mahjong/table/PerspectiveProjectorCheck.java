@@ -0,0 +1,264 @@
+package jp.rouh.mahjong.table;
+
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Tiles;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * {@link PerspectiveProjector}の射影の正しさと, 射影にかかる時間を計測します。
+ *
+ * <p>局を模した通知の列を, 射影器と, 席ごとに相対位置を求め直して通知を生成する従来の方法の両方で配送し,
+ * 四人のプレイヤーと観戦者が受け取る通知の内容が一致することを確認します。
+ * その上で一件の通知から生成された通知の数と, 一件の通知の配送にかかる時間を比較して出力します。
+ * 時間は二つの方法を交互に先に計測した複数回の結果のうち, 暖機の回を除いた中央値で比較します。
+ * 引数で局数を指定できます(既定値 2000局)。
+ */
+public class PerspectiveProjectorCheck{
+    private static final int PASSES = 9;
+    private static final int WARM_UP_PASSES = 2;
+
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):2000;
+        var random = new Random(0);
+        var steps = new ArrayList<Step>();
+        for(int round = 0; round<rounds; round++){
+            playRound(random, steps);
+        }
+        verify(steps);
+        var inputs = new ArrayList<TableEvent>(steps.size());
+        for(var step:steps){
+            step.emit(TableEvent.recorder(inputs::add), step.owner==null? Wind.EAST:step.owner, false);
+        }
+        // 計測の順序による偏りを避けるため, 二つの方法を交互に先に計測し, 暖機後の中央値を比較します
+        var projectedTimes = new double[PASSES];
+        var recomputedTimes = new double[PASSES];
+        for(int pass = 0; pass<PASSES; pass++){
+            var projected = new Counter();
+            var naive = new Counter();
+            if(pass%2==0){
+                projectedTimes[pass] = timeProjected(steps, inputs, projected);
+                recomputedTimes[pass] = timeRecomputed(steps, naive);
+            }else{
+                recomputedTimes[pass] = timeRecomputed(steps, naive);
+                projectedTimes[pass] = timeProjected(steps, inputs, projected);
+            }
+            if(projected.count!=naive.count) throw new AssertionError("delivery count mismatch");
+            System.out.printf("%d events: projector %.1f ns/event, recomputed %.1f ns/event (x%.1f)%n",
+                    steps.size(), projectedTimes[pass], recomputedTimes[pass], recomputedTimes[pass]/projectedTimes[pass]);
+        }
+        double projected = medianAfterWarmUp(projectedTimes);
+        double recomputed = medianAfterWarmUp(recomputedTimes);
+        System.out.printf("median of passes %d..%d: projector %.1f ns/event, recomputed %.1f ns/event (x%.1f)%n",
+                WARM_UP_PASSES + 1, PASSES, projected, recomputed, recomputed/projected);
+        System.out.println("verified perspective projection");
+    }
+
+    /**
+     * 射影器で全ての通知を配送し, 一件あたりの時間を計測します。
+     */
+    private static double timeProjected(List<Step> steps, List<TableEvent> inputs, Counter counter){
+        var seats = new EnumMap<Wind, Consumer<TableEvent>>(Wind.class);
+        for(var wind:Wind.values()){
+            seats.put(wind, counter);
+        }
+        var projector = new PerspectiveProjector(seats, counter);
+        long start = System.nanoTime();
+        for(int i = 0; i<steps.size(); i++){
+            var owner = steps.get(i).owner;
+            if(owner==null){
+                projector.project(inputs.get(i));
+            }else{
+                projector.project(owner, inputs.get(i));
+            }
+        }
+        return (double)(System.nanoTime() - start)/steps.size();
+    }
+
+    /**
+     * 席ごとに相対位置を求め直して全ての通知を生成し, 一件あたりの時間を計測します。
+     */
+    private static double timeRecomputed(List<Step> steps, Counter counter){
+        long start = System.nanoTime();
+        for(var step:steps){
+            for(var wind:Wind.values()){
+                step.emit(TableEvent.recorder(counter), wind, false);
+            }
+            step.emit(TableEvent.recorder(counter), Wind.EAST, true);
+        }
+        return (double)(System.nanoTime() - start)/steps.size();
+    }
+
+    private static double medianAfterWarmUp(double[] times){
+        var measured = Arrays.copyOfRange(times, WARM_UP_PASSES, times.length);
+        Arrays.sort(measured);
+        return measured[measured.length/2];
+    }
+
+    /**
+     * 射影した通知と従来の方法で生成した通知を比較し, 生成された通知の数を出力します。
+     */
+    private static void verify(List<Step> steps){
+        var projected = new EnumMap<Wind, List<TableEvent>>(Wind.class);
+        var seats = new EnumMap<Wind, Consumer<TableEvent>>(Wind.class);
+        for(var wind:Wind.values()){
+            var events = new ArrayList<TableEvent>();
+            projected.put(wind, events);
+            seats.put(wind, events::add);
+        }
+        var spectated = new ArrayList<TableEvent>();
+        var projector = new PerspectiveProjector(seats, spectated::add);
+        var publisher = TableEvent.recorder(projector::project);
+        for(var step:steps){
+            if(step.owner==null){
+                step.emit(publisher, Wind.EAST, false);
+            }else{
+                step.emit(TableEvent.recorder(event->projector.project(step.owner, event)), step.owner, false);
+            }
+        }
+        for(var wind:Wind.values()){
+            var expected = new ArrayList<TableEvent>();
+            var recorder = TableEvent.recorder(expected::add);
+            steps.forEach(step->step.emit(recorder, wind, false));
+            assertSame(projected.get(wind), expected, wind.name());
+        }
+        var expected = new ArrayList<TableEvent>();
+        var recorder = TableEvent.recorder(expected::add);
+        steps.forEach(step->step.emit(recorder, Wind.EAST, true));
+        assertSame(spectated, expected, "spectator");
+        long instances = 0;
+        for(int i = 0; i<steps.size(); i++){
+            var identities = new IdentityHashMap<TableEvent, Boolean>();
+            for(var wind:Wind.values()){
+                identities.put(projected.get(wind).get(i), true);
+            }
+            identities.put(spectated.get(i), true);
+            instances += identities.size();
+        }
+        System.out.printf("%d events: %.2f instances/event for 5 receivers%n",
+                steps.size(), (double)instances/steps.size());
+    }
+
+    private static void assertSame(List<TableEvent> actual, List<TableEvent> expected, String receiver){
+        if(actual.size()!=expected.size()){
+            throw new AssertionError(receiver+": size mismatch: "+actual.size()+" / "+expected.size());
+        }
+        for(int i = 0; i<actual.size(); i++){
+            if(!actual.get(i).toString().equals(expected.get(i).toString())){
+                throw new AssertionError(receiver+": event mismatch at "+i+": "+actual.get(i)+" / "+expected.get(i));
+            }
+        }
+    }
+
+    /**
+     * 一局分の通知を生成します。
+     */
+    private static void playRound(Random random, List<Step> steps){
+        var deck = Tiles.fullSet();
+        Collections.shuffle(deck, random);
+        var hands = new EnumMap<Wind, List<Tile>>(Wind.class);
+        for(var wind:Wind.values()){
+            var hand = new ArrayList<>(deck.subList(wind.ordinal()*13, wind.ordinal()*13 + 13));
+            Collections.sort(hand);
+            hands.put(wind, hand);
+        }
+        for(var wind:Wind.values()){
+            steps.add(Step.of((o, s)->o.seatUpdated(wind.from(s), wind, "player"+wind.ordinal(), 25000)));
+        }
+        steps.add(Step.of((o, s)->o.roundStarted(Wind.EAST, 1, 0, 0)));
+        steps.add(Step.of((o, s)->o.diceRolled(Wind.EAST.from(s), 3, 4)));
+        steps.add(Step.of((o, s)->o.wallGenerated()));
+        for(var wind:Wind.values()){
+            var tiles = List.copyOf(hands.get(wind));
+            steps.add(Step.ofPrivate(wind, o->o.handUpdated(tiles), (o, s)->o.handUpdated(s, tiles.size())));
+        }
+        var turn = Wind.EAST;
+        for(int i = 0; i<70; i++){
+            var wind = turn;
+            var drawn = deck.get(52 + i);
+            int column = i/2%17;
+            int floor = i%2;
+            steps.add(Step.of((o, s)->o.wallTileTaken(Wind.SOUTH.from(s), column, floor)));
+            steps.add(Step.ofPrivate(wind, o->o.tileDrawn(drawn), (o, s)->o.tileDrawn(s)));
+            var hand = hands.get(wind);
+            var discarded = hand.set(random.nextInt(hand.size()), drawn);
+            Collections.sort(hand);
+            var tiles = List.copyOf(hand);
+            steps.add(Step.of((o, s)->o.tileDiscarded(wind.from(s), discarded)));
+            steps.add(Step.ofPrivate(wind, o->o.handUpdated(tiles), (o, s)->o.handUpdated(s, tiles.size())));
+            if(random.nextInt(8)==0){
+                var caller = wind.next();
+                var meld = List.of(discarded, discarded, discarded);
+                steps.add(Step.of((o, s)->o.declared(caller.from(s), Declaration.PON)));
+                steps.add(Step.of((o, s)->o.riverTileTaken(wind.from(s))));
+                steps.add(Step.of((o, s)->o.tiltMeldAdded(caller.from(s), Side.LEFT, meld)));
+            }
+            turn = turn.next();
+        }
+        steps.add(Step.of((o, s)->o.roundSettled("流局")));
+    }
+
+    /**
+     * 通知を観測者の自風から見た形で生成する手続き。
+     */
+    private static final class Step{
+        private final Wind owner;
+        private final Emitter revealed;
+        private final Emitter masked;
+
+        private Step(Wind owner, Emitter revealed, Emitter masked){
+            this.owner = owner;
+            this.revealed = revealed;
+            this.masked = masked;
+        }
+
+        private static Step of(Emitter emitter){
+            return new Step(null, emitter, emitter);
+        }
+
+        private static Step ofPrivate(Wind owner, Consumer<TableObserver> revealed, BiConsumer<TableObserver, Side> masked){
+            return new Step(owner, (o, s)->revealed.accept(o), (o, s)->masked.accept(o, owner.from(s)));
+        }
+
+        /**
+         * 観測者の自風から見た通知を生成します。
+         * @param observer 通知の生成先
+         * @param viewer 観測者の自風
+         * @param spectator 観戦者として見る場合
+         */
+        private void emit(TableObserver observer, Wind viewer, boolean spectator){
+            if(owner==null){
+                revealed.emit(observer, viewer);
+            }else if(viewer==owner && !spectator){
+                revealed.emit(observer, viewer);
+            }else{
+                masked.emit(observer, viewer);
+            }
+        }
+    }
+
+    private interface Emitter{
+        void emit(TableObserver observer, Wind viewer);
+    }
+
+    /**
+     * 受け取った通知を数える配送先。
+     */
+    private static final class Counter implements Consumer<TableEvent>{
+        private long count;
+        @Override
+        public void accept(TableEvent event){
+            count++;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package jp.rouh.mahjong.table;
+
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link TableEventBus}の配送性能と各{@link BackpressurePolicy}の振る舞いを計測します。
+ *
+ * <p>打牌の通知一件ごとに, 四人の手牌の長さの通知を九件発行し, 通知元の発行速度と
+ * 購読者ごとの配送数/破棄数を出力します。通知の発行は次の三通りで行います。
+ * <ul>
+ *     <li>paced: 容量の半分の通知を発行するごとに購読者が配送し終えるのを待ちます。
+ *         購読者が追いついているため, いずれの振る舞いでも破棄数は0となります。</li>
+ *     <li>flood: 待たずに発行し続けます。購読者は何もしませんが,
+ *         単一のCPUでは通知元が購読者より先に進むため満杯時の振る舞いの差が現れます。</li>
+ *     <li>slow: 待たずに発行し続け, 購読者は100件ごとに1ms停止します。</li>
+ * </ul>
+ * 引数で発行する通知の数を指定できます(既定値 1000000)。
+ */
+public class TableEventBusBenchmark{
+    private static final int CAPACITY = 1024;
+    public static void main(String[] args){
+        int events = args.length>0? Integer.parseInt(args[0]):1_000_000;
+        for(var policy:BackpressurePolicy.values()){
+            for(var mode:Mode.values()){
+                run(policy, mode, events/10);
+            }
+        }
+        for(var policy:BackpressurePolicy.values()){
+            for(var mode:Mode.values()){
+                run(policy, mode, events);
+            }
+        }
+    }
+
+    private enum Mode{
+        PACED, FLOOD, SLOW
+    }
+
+    private static void run(BackpressurePolicy policy, Mode mode, int events){
+        var bus = new TableEventBus(CAPACITY);
+        var received = new AtomicLong();
+        var subscription = bus.subscribe(observer(received, mode==Mode.SLOW), policy);
+        var publisher = bus.getPublisher();
+        var sides = Side.values();
+        var tiles = Tile.values();
+        long start = System.nanoTime();
+        for(int i = 0; i<events; i++){
+            var side = sides[i & 3];
+            if(i%10==0){
+                publisher.tileDiscarded(side, tiles[i%tiles.length]);
+            }else{
+                publisher.handUpdated(side, 13);
+            }
+            if(mode==Mode.PACED && (i + 1)%(CAPACITY/2)==0){
+                while(subscription.getDeliveredCount() + subscription.getDroppedCount()<i + 1){
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(20));
+                }
+            }
+        }
+        double published = (System.nanoTime() - start)/1e9;
+        bus.close();
+        double elapsed = (System.nanoTime() - start)/1e9;
+        System.out.printf("%-11s %-5s: publish %.2f M events/sec, drained in %.3f sec, delivered=%d dropped=%d%n",
+                policy, mode.name().toLowerCase(), events/published/1e6, elapsed,
+                subscription.getDeliveredCount(), subscription.getDroppedCount());
+    }
+
+    private static TableObserver observer(AtomicLong received, boolean slow){
+        return (TableObserver)Proxy.newProxyInstance(TableObserver.class.getClassLoader(),
+                new Class<?>[]{TableObserver.class}, (proxy, method, arguments)->{
+                    if(slow && received.incrementAndGet()%100==0){
+                        Thread.sleep(1);
+                    }
+                    return null;
+                });
+    }
+}
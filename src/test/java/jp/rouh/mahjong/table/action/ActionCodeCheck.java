@@ -0,0 +1,253 @@
+package jp.rouh.mahjong.table.action;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.round.FieldRound;
+import jp.rouh.mahjong.table.round.SimulationParticipant;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * {@link ActionCodes}の正しさと速度を計測します。
+ *
+ * <p>選択肢から列挙した符号を無作為に選んで応答するプレイヤーで局を進行させ,
+ * 列挙した符号が問い合わせ内容の全ての選択肢と一致すること,
+ * 符号から復号した行動を再度符号化すると元の符号に戻ることを確認します。
+ * その後, 収集した問い合わせ内容について選択肢の列挙と復号にかかる時間を出力します。
+ * 引数で局数を指定できます(既定値 2000)。
+ */
+public class ActionCodeCheck{
+    private static final Tile[] TILES = Tile.values();
+    private static final int[] TURN_KINDS = {
+            ActionCodes.TURN_ADD_QUAD, ActionCodes.TURN_SELF_QUAD, ActionCodes.TURN_READY, ActionCodes.TURN_DISCARD};
+
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):2000;
+        var turnContexts = new ArrayList<TurnPhaseContext>();
+        var callContexts = new ArrayList<CallPhaseContext>();
+        var counts = new int[16];
+        for(int round = 0; round<rounds; round++){
+            var fieldRound = new FieldRound(Wind.EAST, 1, 0, 0, new Random(round));
+            for(var wind:Wind.values()){
+                var random = new Random(round*4L + wind.ordinal());
+                var strategy = checkingStrategy(wind, random, turnContexts, callContexts, counts);
+                fieldRound.join(wind, new SimulationParticipant(wind.name(), wind, 25000, strategy));
+            }
+            fieldRound.start();
+        }
+        System.out.printf("verified %d turn prompts, %d call prompts%n", turnContexts.size(), callContexts.size());
+        System.out.printf("selected: discard %d, ready %d, self quad %d, add quad %d, win %d, draw %d,"
+                        +" straight %d, triple %d, quad %d, call win %d%n",
+                counts[ActionCodes.TURN_DISCARD], counts[ActionCodes.TURN_READY], counts[ActionCodes.TURN_SELF_QUAD],
+                counts[ActionCodes.TURN_ADD_QUAD], counts[ActionCodes.TURN_WIN], counts[ActionCodes.TURN_DRAW],
+                counts[ActionCodes.CALL_STRAIGHT], counts[ActionCodes.CALL_TRIPLE], counts[ActionCodes.CALL_QUAD],
+                counts[ActionCodes.CALL_WIN]);
+
+        for(int i = 0; i<5; i++){
+            var codes = new int[ActionCodes.MAX_TURN_ACTIONS];
+            long options = 0;
+            long start = System.nanoTime();
+            for(var context:turnContexts){
+                int count = ActionCodes.legalActionsOf(context, codes);
+                for(int j = 0; j<count; j++){
+                    if(ActionCodes.decodeTurnAction(codes[j])!=null) options++;
+                }
+            }
+            for(var context:callContexts){
+                int count = ActionCodes.legalActionsOf(context, codes);
+                for(int j = 0; j<count; j++){
+                    if(ActionCodes.decodeCallAction(codes[j])!=null) options++;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("enumerate and decode: %.0f ns/prompt, %.1f options/prompt%n",
+                    (double)elapsed/(turnContexts.size() + callContexts.size()),
+                    (double)options/(turnContexts.size() + callContexts.size()));
+        }
+    }
+
+    /**
+     * 問い合わせごとに符号を検査し, 列挙した符号から無作為に選んだ行動を応答するテーブル戦略を生成します。
+     */
+    private static TableStrategy checkingStrategy(Wind wind, Random random, List<TurnPhaseContext> turnContexts,
+                                                  List<CallPhaseContext> callContexts, int[] counts){
+        var codes = new int[ActionCodes.MAX_TURN_ACTIONS];
+        return new TableStrategyAdaptor(new Bot(wind.toString()).getViewer()){
+            @Override
+            public TurnAction askTurnAction(TurnPhaseContext context){
+                var copied = copyOf(context);
+                turnContexts.add(copied);
+                int count = ActionCodes.legalActionsOf(copied, codes);
+                verifyTurnPhase(copied, Arrays.copyOf(codes, count));
+                int code = codes[random.nextInt(count)];
+                counts[ActionCodes.kindOf(code)]++;
+                return ActionCodes.decodeTurnAction(code);
+            }
+
+            @Override
+            public CallAction askCallAction(CallPhaseContext context){
+                var copied = copyOf(context);
+                callContexts.add(copied);
+                int count = ActionCodes.legalActionsOf(copied, codes);
+                verifyCallPhase(copied, Arrays.copyOf(codes, count));
+                int code = count>1 && random.nextInt(4)==0? codes[1 + random.nextInt(count - 1)]:codes[0];
+                counts[ActionCodes.kindOf(code)]++;
+                return ActionCodes.decodeCallAction(code);
+            }
+        };
+    }
+
+    private static void verifyTurnPhase(TurnPhaseContext context, int[] codes){
+        var expected = new HashSet<Integer>();
+        if(context.canDeclareDraw()) expected.add(ActionCodes.TURN_DRAW);
+        if(context.canDeclareWin()) expected.add(ActionCodes.TURN_WIN);
+        for(var tile:context.getTiles()){
+            if(context.canDeclareQuad() && context.canDeclareAddQuad(tile)) expected.add(ActionCodes.codeOf(ActionCodes.TURN_ADD_QUAD, tile));
+            if(context.canDeclareQuad() && context.canDeclareSelfQuad(tile)) expected.add(ActionCodes.codeOf(ActionCodes.TURN_SELF_QUAD, tile));
+            if(context.canDeclareReady() && context.canDeclareReady(tile)) expected.add(ActionCodes.codeOf(ActionCodes.TURN_READY, tile));
+            if(context.canDiscard(tile)) expected.add(ActionCodes.codeOf(ActionCodes.TURN_DISCARD, tile));
+        }
+        check(context.getTiles(), "turn codes", codes.length==expected.size() && toSet(codes).equals(expected));
+        for(var code:codes){
+            var action = ActionCodes.decodeTurnAction(code);
+            check(context.getTiles(), "turn round trip "+code, ActionCodes.encode(action)==code);
+            check(context.getTiles(), "turn legal "+code, ActionCodes.isLegal(context, code));
+        }
+        for(int kind:TURN_KINDS){
+            for(var tile:TILES){
+                int code = ActionCodes.codeOf(kind, tile);
+                check(context.getTiles(), "turn illegal "+code, ActionCodes.isLegal(context, code)==expected.contains(code));
+            }
+        }
+    }
+
+    private static void verifyCallPhase(CallPhaseContext context, int[] codes){
+        var tiles = context.getTiles();
+        var expected = new HashSet<Integer>();
+        expected.add(ActionCodes.CALL_PASS);
+        if(context.canCallWin()) expected.add(ActionCodes.CALL_WIN);
+        if(context.canCallQuad()){
+            var quad = tiles.stream().filter(context::canCallQuad).toArray(Tile[]::new);
+            expected.add(ActionCodes.codeOf(ActionCodes.CALL_QUAD, quad));
+        }
+        for(var tile:TILES){
+            for(var selected:TILES){
+                if(!containsBoth(tiles, tile, selected)) continue;
+                if(context.canCallTriple() && context.canCallTriple(tile, selected)){
+                    expected.add(ActionCodes.codeOf(ActionCodes.CALL_TRIPLE, tile, selected));
+                }
+                if(context.canCallStraight() && context.canCallStraight(tile, selected)){
+                    expected.add(ActionCodes.codeOf(ActionCodes.CALL_STRAIGHT, tile, selected));
+                }
+            }
+        }
+        check(tiles, "call codes", codes.length==expected.size() && toSet(codes).equals(expected));
+        for(var code:codes){
+            var action = ActionCodes.decodeCallAction(code);
+            check(tiles, "call round trip "+code, ActionCodes.encode(action)==code);
+            check(tiles, "call legal "+code, ActionCodes.isLegal(context, code));
+            if(action.isMeldCallDeclaration()){
+                var reversed = new ArrayList<>(action.getSelectedTiles());
+                Collections.reverse(reversed);
+                int reversedCode = ActionCodes.encode(action.isStraightCallDeclaration()? CallAction.ofStraight(reversed):
+                        action.isTripleCallDeclaration()? CallAction.ofTriple(reversed):CallAction.ofQuad(reversed));
+                check(tiles, "call canonical "+code, reversedCode==code);
+            }
+        }
+    }
+
+    private static boolean containsBoth(List<Tile> tiles, Tile first, Tile second){
+        var remaining = new ArrayList<>(tiles);
+        return remaining.remove(first) && remaining.remove(second);
+    }
+
+    private static Set<Integer> toSet(int[] codes){
+        var set = new HashSet<Integer>();
+        for(var code:codes) set.add(code);
+        return set;
+    }
+
+    private static void check(List<Tile> tiles, String item, boolean matched){
+        if(!matched){
+            throw new AssertionError(item+" mismatch: "+tiles);
+        }
+    }
+
+    /**
+     * 問い合わせ内容を牌の種類ごとの結果として複製します。
+     *
+     * <p>局の進行中に再利用される問い合わせ内容を, 計測のために保持するために用います。
+     */
+    private static TurnPhaseContext copyOf(TurnPhaseContext context){
+        var tiles = List.copyOf(context.getTiles());
+        boolean[][] flags = new boolean[4][TILES.length];
+        for(var tile:TILES){
+            flags[0][tile.ordinal()] = context.canDiscard(tile);
+            flags[1][tile.ordinal()] = context.canDeclareReady(tile);
+            flags[2][tile.ordinal()] = context.canDeclareAddQuad(tile);
+            flags[3][tile.ordinal()] = context.canDeclareSelfQuad(tile);
+        }
+        boolean draw = context.canDeclareDraw();
+        boolean win = context.canDeclareWin();
+        boolean ready = context.canDeclareReady();
+        boolean quad = context.canDeclareQuad();
+        return new TurnPhaseContext(){
+            @Override public List<Tile> getTiles(){ return tiles; }
+            @Override public boolean canDeclareDraw(){ return draw; }
+            @Override public boolean canDeclareWin(){ return win; }
+            @Override public boolean canDeclareReady(){ return ready; }
+            @Override public boolean canDeclareQuad(){ return quad; }
+            @Override public boolean canDiscard(Tile tile){ return flags[0][tile.ordinal()]; }
+            @Override public boolean canDeclareReady(Tile tile){ return flags[1][tile.ordinal()]; }
+            @Override public boolean canDeclareQuad(Tile tile){ return canDeclareAddQuad(tile) || canDeclareSelfQuad(tile); }
+            @Override public boolean canDeclareAddQuad(Tile tile){ return flags[2][tile.ordinal()]; }
+            @Override public boolean canDeclareSelfQuad(Tile tile){ return flags[3][tile.ordinal()]; }
+        };
+    }
+
+    private static CallPhaseContext copyOf(CallPhaseContext context){
+        var tiles = List.copyOf(context.getTiles());
+        var callTile = context.getCallTile();
+        boolean[][] flags = new boolean[3][TILES.length];
+        boolean[][] pairs = new boolean[2][TILES.length*TILES.length];
+        for(var tile:TILES){
+            flags[0][tile.ordinal()] = context.canCallStraight(tile);
+            flags[1][tile.ordinal()] = context.canCallTriple(tile);
+            flags[2][tile.ordinal()] = context.canCallQuad(tile);
+            for(var selected:TILES){
+                pairs[0][tile.ordinal()*TILES.length + selected.ordinal()] = context.canCallStraight(tile, selected);
+                pairs[1][tile.ordinal()*TILES.length + selected.ordinal()] = context.canCallTriple(tile, selected);
+            }
+        }
+        boolean straight = context.canCallStraight();
+        boolean triple = context.canCallTriple();
+        boolean quad = context.canCallQuad();
+        boolean win = context.canCallWin();
+        return new CallPhaseContext(){
+            @Override public List<Tile> getTiles(){ return tiles; }
+            @Override public Tile getCallTile(){ return callTile; }
+            @Override public boolean canCallStraight(){ return straight; }
+            @Override public boolean canCallTriple(){ return triple; }
+            @Override public boolean canCallQuad(){ return quad; }
+            @Override public boolean canCallWin(){ return win; }
+            @Override public boolean canCallStraight(Tile tile){ return flags[0][tile.ordinal()]; }
+            @Override public boolean canCallTriple(Tile tile){ return flags[1][tile.ordinal()]; }
+            @Override public boolean canCallQuad(Tile tile){ return flags[2][tile.ordinal()]; }
+            @Override public boolean canCallStraight(Tile tile, Tile selected){
+                return pairs[0][tile.ordinal()*TILES.length + selected.ordinal()];
+            }
+            @Override public boolean canCallTriple(Tile tile, Tile selected){
+                return pairs[1][tile.ordinal()*TILES.length + selected.ordinal()];
+            }
+        };
+    }
+}
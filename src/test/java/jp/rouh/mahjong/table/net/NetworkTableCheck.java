@@ -0,0 +1,290 @@
+package jp.rouh.mahjong.table.net;
+
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.record.TableEventEncoder;
+import jp.rouh.mahjong.table.round.FieldRound;
+import jp.rouh.mahjong.table.round.RoundRecord;
+import jp.rouh.mahjong.table.round.SimulationParticipant;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.zip.CRC32;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link TableNetworkServer}と{@link TableNetworkClient}による遠隔の卓の進行を確認します。
+ *
+ * <p>ループバックアドレスで待ち受けるサーバに多数のクライアントを接続し,
+ * 4接続ずつの卓で{@link FieldRound#startAsync}により局を進行させます。
+ * サーバの入出力スレッドとクライアントのチャネルグループのスレッドはそれぞれ2本です。
+ * 各クライアントは受信した通知と問い合わせの選択肢から要約値を計算しながら,
+ * 問い合わせの回数から一意に決まる行動を応答します。
+ * 同じ戦略を同一プロセス内で直接参加させた局と, 局の記録および各席の要約値が
+ * 一致することを検証し, 処理速度と局あたりの通信量を出力します。
+ * 引数で接続数(既定値 1000)と卓あたりの局数(既定値 2)を指定できます。
+ */
+public class NetworkTableCheck{
+    public static void main(String[] args) throws Exception{
+        int connectionCount = args.length>0? Integer.parseInt(args[0]):1000;
+        int roundsPerTable = args.length>1? Integer.parseInt(args[1]):2;
+        int tables = connectionCount/4;
+        var remotes = new ConcurrentHashMap<String, RemoteTableStrategy>();
+        var helloReceived = new CountDownLatch(tables*4);
+        var group = AsynchronousChannelGroup.withFixedThreadPool(2, runnable->{
+            var thread = new Thread(runnable, "table-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try(var server = new TableNetworkServer(address, 2, remote->{
+            remotes.put(remote.getName(), remote);
+            helloReceived.countDown();
+        })){
+            var clientStrategies = new SeededStrategy[tables][4];
+            var clients = new ArrayList<TableNetworkClient>();
+            var connected = new ArrayList<CompletableFuture<Void>>();
+            for(int table = 0; table<tables; table++){
+                for(int seat = 0; seat<4; seat++){
+                    clientStrategies[table][seat] = new SeededStrategy(table*4L + seat);
+                    var client = new TableNetworkClient(nameOf(table, seat), clientStrategies[table][seat], group);
+                    connected.add(client.connect(server.getLocalAddress()).toCompletableFuture());
+                    clients.add(client);
+                }
+            }
+            CompletableFuture.allOf(connected.toArray(new CompletableFuture<?>[0])).join();
+            if(!helloReceived.await(1, TimeUnit.MINUTES)){
+                throw new AssertionError("connections not established: "+remotes.size());
+            }
+            System.out.printf("%d connections established (%d open on server)%n", remotes.size(), server.getConnectionCount());
+            long start = System.nanoTime();
+            long sentBefore = server.getSentByteCount();
+            long receivedBefore = server.getReceivedByteCount();
+            var records = new RoundRecord[tables][roundsPerTable];
+            var progress = new ArrayList<CompletableFuture<Void>>();
+            for(int table = 0; table<tables; table++){
+                var stage = CompletableFuture.<Void>completedFuture(null);
+                for(int round = 0; round<roundsPerTable; round++){
+                    int t = table;
+                    int r = round;
+                    stage = stage.thenCompose(ignored->playRemote(t, r, remotes, records));
+                }
+                progress.add(stage);
+            }
+            CompletableFuture.allOf(progress.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+            long sent = server.getSentByteCount() - sentBefore;
+            long received = server.getReceivedByteCount() - receivedBefore;
+            for(var remote:remotes.values()){
+                remote.close();
+            }
+            for(var client:clients){
+                client.getClosed().toCompletableFuture().get(1, TimeUnit.MINUTES);
+            }
+            int rounds = tables*roundsPerTable;
+            System.out.printf("%d rounds on %d tables in %.2f s (%.1f rounds/s)%n",
+                    rounds, tables, elapsed/1e9, rounds*1e9/elapsed);
+            System.out.printf("traffic per round: %.0f bytes sent, %.0f bytes received%n",
+                    (double)sent/rounds, (double)received/rounds);
+            verify(tables, roundsPerTable, records, clientStrategies);
+        }finally{
+            group.shutdownNow();
+        }
+    }
+
+    private static String nameOf(int table, int seat){
+        return table+"-"+seat;
+    }
+
+    private static CompletableFuture<Void> playRemote(int table, int round, Map<String, RemoteTableStrategy> remotes,
+                                                      RoundRecord[][] records){
+        var fieldRound = new FieldRound(Wind.EAST, 1, 0, 0, new Random(table*1000L + round));
+        for(var wind:Wind.values()){
+            var remote = remotes.get(nameOf(table, wind.ordinal()));
+            remote.asTableStrategy().roundStarted(Wind.EAST, 1, round, 0);
+            fieldRound.join(wind, new SimulationParticipant(remote.getName(), wind, 25000, remote.asTableStrategy()), remote);
+        }
+        return fieldRound.startAsync().thenAccept(result->records[table][round] = fieldRound.getRecord())
+                .toCompletableFuture();
+    }
+
+    private static void verify(int tables, int roundsPerTable, RoundRecord[][] records, SeededStrategy[][] remoteStrategies){
+        long events = 0;
+        long prompts = 0;
+        for(int table = 0; table<tables; table++){
+            var localStrategies = new SeededStrategy[4];
+            for(int seat = 0; seat<4; seat++){
+                localStrategies[seat] = new SeededStrategy(table*4L + seat);
+            }
+            for(int round = 0; round<roundsPerTable; round++){
+                var fieldRound = new FieldRound(Wind.EAST, 1, 0, 0, new Random(table*1000L + round));
+                for(var wind:Wind.values()){
+                    localStrategies[wind.ordinal()].roundStarted(Wind.EAST, 1, round, 0);
+                    fieldRound.join(wind, new SimulationParticipant(nameOf(table, wind.ordinal()), wind, 25000,
+                            localStrategies[wind.ordinal()]));
+                }
+                fieldRound.start();
+                if(!Arrays.equals(serialize(fieldRound.getRecord()), serialize(records[table][round]))){
+                    throw new AssertionError("remote round diverged: table="+table+" round="+round);
+                }
+            }
+            for(int seat = 0; seat<4; seat++){
+                var local = localStrategies[seat];
+                var remote = remoteStrategies[table][seat];
+                if(local.digest.getValue()!=remote.digest.getValue()
+                        || local.eventCount!=remote.eventCount || local.promptCount!=remote.promptCount){
+                    throw new AssertionError("remote observation diverged: table="+table+" seat="+seat
+                            +" events="+remote.eventCount+"/"+local.eventCount
+                            +" prompts="+remote.promptCount+"/"+local.promptCount);
+                }
+                events += local.eventCount;
+                prompts += local.promptCount;
+            }
+        }
+        System.out.printf("verified against local play: %d events, %d prompts%n", events, prompts);
+    }
+
+    private static byte[] serialize(Object object){
+        var bytes = new ByteArrayOutputStream();
+        try(var out = new ObjectOutputStream(bytes)){
+            out.writeObject(object);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 受け取った通知と問い合わせの選択肢の要約値を計算しながら,
+     * 問い合わせの回数から一意に決まる行動を選択するテーブル戦略。
+     */
+    private static class SeededStrategy extends TableEventEncoder implements TableStrategy{
+        private final long seed;
+        private final CRC32 digest = new CRC32();
+        private int eventCount;
+        private int promptCount;
+
+        SeededStrategy(long seed){
+            super(ByteBuffer.allocate(MAX_RECORD_SIZE));
+            this.seed = seed;
+        }
+
+        @Override
+        protected void beforeRecord(){
+            getBuffer().clear();
+        }
+
+        @Override
+        protected void afterRecord(){
+            digest.update(getBuffer().array(), 0, getBuffer().position());
+            eventCount++;
+        }
+
+        private Random nextRandom(){
+            return new Random(seed*1_000_003L + promptCount++);
+        }
+
+        private void digest(boolean value){
+            digest.update(value? 1:0);
+        }
+
+        @Override
+        public TurnAction askTurnAction(TurnPhaseContext context){
+            var random = nextRandom();
+            var tiles = context.getTiles();
+            digest(context.canDeclareWin());
+            digest(context.canDeclareDraw());
+            digest(context.canDeclareReady());
+            digest(context.canDeclareQuad());
+            for(var tile:tiles){
+                digest.update(tile.ordinal());
+                digest(context.canDiscard(tile));
+                digest(context.canDeclareReady(tile));
+                digest(context.canDeclareAddQuad(tile));
+                digest(context.canDeclareSelfQuad(tile));
+            }
+            if(context.canDeclareWin() && random.nextInt(4)==0) return TurnAction.ofWin();
+            if(context.canDeclareDraw() && random.nextBoolean()) return TurnAction.ofDraw();
+            if(context.canDeclareQuad() && random.nextBoolean()){
+                for(var tile:tiles){
+                    if(context.canDeclareSelfQuad(tile)) return TurnAction.ofSelfQuad(tile);
+                    if(context.canDeclareAddQuad(tile)) return TurnAction.ofAddQuad(tile);
+                }
+            }
+            var readyTiles = tiles.stream().filter(context::canDeclareReady).collect(toList());
+            if(!readyTiles.isEmpty() && random.nextBoolean()){
+                return TurnAction.ofReady(readyTiles.get(random.nextInt(readyTiles.size())));
+            }
+            var discardable = tiles.stream().filter(context::canDiscard).collect(toList());
+            return TurnAction.ofDiscard(discardable.get(random.nextInt(discardable.size())));
+        }
+
+        @Override
+        public CallAction askCallAction(CallPhaseContext context){
+            var random = nextRandom();
+            var tiles = context.getTiles();
+            var callTile = context.getCallTile();
+            digest.update(callTile.ordinal());
+            digest(context.canCallWin());
+            digest(context.canCallQuad());
+            digest(context.canCallTriple());
+            digest(context.canCallStraight());
+            for(var tile:tiles){
+                digest.update(tile.ordinal());
+                digest(context.canCallQuad(tile));
+                digest(context.canCallTriple(tile));
+                digest(context.canCallStraight(tile));
+                for(var selected:tiles){
+                    digest(context.canCallTriple(tile, selected));
+                    digest(context.canCallStraight(tile, selected));
+                }
+            }
+            if(context.canCallWin() && random.nextInt(4)==0) return CallAction.ofWin();
+            if(context.canCallQuad() && random.nextBoolean()){
+                return CallAction.ofQuad(tiles.stream().filter(callTile::equalsIgnoreRed).collect(toList()));
+            }
+            if(context.canCallTriple() && random.nextBoolean()){
+                var pair = selectPair(tiles, context::canCallTriple);
+                if(pair!=null) return CallAction.ofTriple(pair);
+            }
+            if(context.canCallStraight() && random.nextBoolean()){
+                var pair = selectPair(tiles, context::canCallStraight);
+                if(pair!=null) return CallAction.ofStraight(pair);
+            }
+            return CallAction.ofPass();
+        }
+
+        private static List<Tile> selectPair(List<Tile> tiles, BiPredicate<Tile, Tile> predicate){
+            for(int i = 0; i<tiles.size(); i++){
+                for(int j = i + 1; j<tiles.size(); j++){
+                    if(predicate.test(tiles.get(j), tiles.get(i))){
+                        return List.of(tiles.get(i), tiles.get(j));
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package jp.rouh.mahjong.table.record;
+
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 牌譜ファイルの書き込み/読み出しの正しさと速度を計測します。
+ *
+ * <p>乱数で生成した対局相当の通知列を書き込み, 先頭の対局について
+ * 読み出した通知が書き込んだ通知と一致すること, 開始していない対局の終了が
+ * 牌譜を壊さずに拒否されることを確認した後,
+ * 全通知の走査と対局単位の読み飛ばしの速度を出力します。
+ * 引数で対局数を指定できます(既定値 20000)。
+ */
+public class GameRecordBenchmark{
+    public static void main(String[] args) throws Exception{
+        int games = args.length>0? Integer.parseInt(args[0]):20000;
+        var path = Files.createTempFile("game-record", ".bin");
+        try{
+            var written = new ArrayList<TableEvent>();
+            var random = new Random(0);
+            long start = System.nanoTime();
+            long eventCount = 0;
+            try(var writer = new GameRecordWriter(path)){
+                for(int game = 0; game<games; game++){
+                    writer.startGame(game);
+                    TableObserver observer = game<10? tee(writer, written):writer;
+                    eventCount += generateGame(observer, random);
+                    writer.endGame();
+                }
+                try{
+                    writer.endGame();
+                    throw new AssertionError("endGame accepted without startGame");
+                }catch(IllegalStateException expected){
+                    // 開始していない対局の終了は何も書き込まずに拒否されます
+                }
+            }
+            double writeSec = (System.nanoTime() - start)/1e9;
+            long size = Files.size(path);
+            System.out.printf("write: %d games, %d events, %.1f bytes/event, %.0f games/sec%n",
+                    games, eventCount, (double)size/eventCount, games/writeSec);
+
+            var read = new ArrayList<TableEvent>();
+            try(var reader = new GameRecordReader(path)){
+                var recorder = TableEvent.recorder(read::add);
+                for(int game = 0; game<10 && reader.nextGame(); game++){
+                    while(reader.nextEvent()){
+                        reader.dispatchTo(recorder);
+                    }
+                }
+            }
+            for(int i = 0; i<written.size(); i++){
+                if(!written.get(i).toString().equals(read.get(i).toString())){
+                    throw new AssertionError("mismatch at "+i+": "+written.get(i)+" / "+read.get(i));
+                }
+            }
+            System.out.printf("round trip: %d events verified%n", written.size());
+
+            for(int i = 0; i<5; i++){
+                start = System.nanoTime();
+                long discards = 0;
+                int scanned = 0;
+                try(var reader = new GameRecordReader(path)){
+                    while(reader.nextGame()){
+                        scanned++;
+                        while(reader.nextEvent()){
+                            if(reader.getType()==TableEvent.Type.TILE_DISCARDED) discards++;
+                        }
+                    }
+                }
+                double scanSec = (System.nanoTime() - start)/1e9;
+                start = System.nanoTime();
+                int skipped = 0;
+                try(var reader = new GameRecordReader(path)){
+                    while(reader.nextGame()) skipped++;
+                }
+                double skipSec = (System.nanoTime() - start)/1e9;
+                System.out.printf("scan: %.0f games/min (%.1f M events/sec, discards=%d), skip: %.0f games/min (%d games)%n",
+                        scanned/scanSec*60, eventCount/scanSec/1e6, discards, skipped/skipSec*60, skipped);
+            }
+        }finally{
+            Files.delete(path);
+        }
+    }
+
+    private static int generateGame(TableObserver observer, Random random){
+        var sides = Side.values();
+        var tiles = Tile.values();
+        int events = 0;
+        for(var side:sides){
+            observer.seatUpdated(side, Wind.values()[side.ordinal()], "player"+side.ordinal(), 25000 - random.nextInt(50000));
+            events++;
+        }
+        for(int round = 0; round<8; round++){
+            observer.roundStarted(Wind.values()[round/4], round%4 + 1, random.nextInt(3), random.nextInt(2));
+            observer.diceRolled(sides[random.nextInt(4)], random.nextInt(6) + 1, random.nextInt(6) + 1);
+            observer.wallGenerated();
+            observer.wallTileRevealed(sides[random.nextInt(4)], random.nextInt(17), random.nextInt(2), tiles[random.nextInt(tiles.length)]);
+            events += 4;
+            var hand = new ArrayList<Tile>();
+            for(int i = 0; i<13; i++) hand.add(tiles[random.nextInt(tiles.length)]);
+            observer.handUpdated(hand);
+            events++;
+            for(int turn = 0; turn<70; turn++){
+                var side = sides[turn%4];
+                observer.wallTileTaken(side, random.nextInt(17), random.nextInt(2));
+                observer.tileDrawn(side);
+                observer.handUpdated(side, 14);
+                var tile = tiles[random.nextInt(tiles.length)];
+                observer.tileDiscarded(side, tile);
+                observer.handUpdated(side, 13);
+                events += 5;
+                if(random.nextInt(30)==0){
+                    observer.declared(sides[random.nextInt(4)], Declaration.PON);
+                    observer.riverTileTaken(side);
+                    observer.tiltMeldAdded(sides[random.nextInt(4)], side, List.of(tile, tile, tile));
+                    observer.meldTileAdded(side, random.nextInt(4), tile);
+                    events += 4;
+                }
+            }
+            observer.handRevealed(sides[random.nextInt(4)], hand, tiles[random.nextInt(tiles.length)]);
+            observer.roundSettled("流局");
+            events += 2;
+        }
+        return events;
+    }
+
+    private static TableObserver tee(GameRecordWriter writer, List<TableEvent> events){
+        var recorder = TableEvent.recorder(event->{
+            events.add(event);
+            writer.write(event);
+        });
+        return recorder;
+    }
+}
@@ -0,0 +1,139 @@
+package jp.rouh.mahjong.table.record;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.round.FieldRound;
+import jp.rouh.mahjong.table.round.SimulationParticipant;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 自家の手牌の差分符号化の正しさと効果を計測します。
+ *
+ * <p>局を進行させて問い合わせ時の手牌の列を席ごとに収集し,
+ * 差分で符号化した通知を復号した手牌が元の手牌と一致することを確認した後,
+ * 手牌の全体を符号化する場合とのバイト長と符号化の速度を比較して出力します。
+ * 引数で局数を指定できます(既定値 2000)。
+ */
+public class HandDeltaCheck{
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):2000;
+        var sequences = collect(rounds);
+        long hands = sequences.stream().mapToLong(List::size).sum();
+
+        var buffer = ByteBuffer.allocate(TableEventEncoder.MAX_RECORD_SIZE);
+        var decoder = new TableEventDecoder();
+        var encoder = new TableEventEncoder(buffer, TableEventEncoder.DEFAULT_KEYFRAME_INTERVAL);
+        for(var sequence:sequences){
+            encoder.requestKeyframe();
+            decoder.clear();
+            for(var hand:sequence){
+                buffer.clear();
+                encoder.handUpdated(hand);
+                buffer.flip();
+                decoder.decode(buffer);
+                if(decoder.getType()!=TableEvent.Type.SELF_HAND_UPDATED || !decoder.getTiles().equals(hand)){
+                    throw new AssertionError("hand mismatch: "+hand+" / "+decoder.getTiles());
+                }
+            }
+        }
+        System.out.printf("round trip: %d hands in %d sequences verified%n", hands, sequences.size());
+
+        var first = sequences.get(0);
+        encoder.requestKeyframe();
+        buffer.clear();
+        encoder.handUpdated(first.get(0));
+        buffer.clear();
+        encoder.handUpdated(first.get(1));
+        buffer.flip();
+        try{
+            new TableEventDecoder().decode(buffer);
+            throw new AssertionError("delta decoded without keyframe");
+        }catch(IllegalStateException e){
+            System.out.println("delta without keyframe rejected: "+e.getMessage());
+        }
+
+        for(int i = 0; i<5; i++){
+            long full = measure(sequences, 0, buffer);
+            long delta = measure(sequences, TableEventEncoder.DEFAULT_KEYFRAME_INTERVAL, buffer);
+            System.out.printf("full: %.1f bytes/hand %.0f ns/hand, delta: %.1f bytes/hand %.0f ns/hand%n",
+                    (double)(full>>>32)/hands, (double)(full & 0xFFFFFFFFL)/hands,
+                    (double)(delta>>>32)/hands, (double)(delta & 0xFFFFFFFFL)/hands);
+        }
+    }
+
+    /**
+     * 指定したキーフレームの間隔で全ての手牌を符号化します。
+     * @return 上位32ビットにバイト長, 下位32ビットに経過時間(ナノ秒)
+     */
+    private static long measure(List<List<List<Tile>>> sequences, int keyframeInterval, ByteBuffer buffer){
+        long bytes = 0;
+        var encoder = new TableEventEncoder(buffer, keyframeInterval);
+        long start = System.nanoTime();
+        for(var sequence:sequences){
+            encoder.requestKeyframe();
+            for(var hand:sequence){
+                buffer.clear();
+                encoder.handUpdated(hand);
+                bytes += buffer.position();
+            }
+        }
+        return bytes<<32 | (System.nanoTime() - start);
+    }
+
+    private static List<List<List<Tile>>> collect(int rounds){
+        var sequences = new ArrayList<List<List<Tile>>>();
+        for(int round = 0; round<rounds; round++){
+            var fieldRound = new FieldRound(Wind.EAST, 1, 0, 0, new Random(round));
+            for(var wind:Wind.values()){
+                var sequence = new ArrayList<List<Tile>>();
+                sequences.add(sequence);
+                var strategy = recordingStrategy(wind, new Random(round*4L + wind.ordinal()), sequence);
+                fieldRound.join(wind, new SimulationParticipant(wind.name(), wind, 25000, strategy));
+            }
+            fieldRound.start();
+        }
+        sequences.removeIf(sequence->sequence.size()<2);
+        return sequences;
+    }
+
+    /**
+     * 問い合わせ時の手牌を記録し, 乱数で打牌とポンを選択するテーブル戦略を生成します。
+     */
+    private static TableStrategy recordingStrategy(Wind wind, Random random, List<List<Tile>> sequence){
+        return new TableStrategyAdaptor(new Bot(wind.toString()).getViewer()){
+            @Override
+            public TurnAction askTurnAction(TurnPhaseContext context){
+                sequence.add(List.copyOf(context.getTiles()));
+                var discardable = context.getTiles().stream().filter(context::canDiscard).collect(toList());
+                return TurnAction.ofDiscard(discardable.get(random.nextInt(discardable.size())));
+            }
+            @Override
+            public CallAction askCallAction(CallPhaseContext context){
+                var tiles = context.getTiles();
+                sequence.add(List.copyOf(tiles));
+                if(context.canCallTriple() && random.nextInt(3)==0){
+                    for(var tile:tiles){
+                        for(var selected:tiles){
+                            if(context.canCallTriple(tile, selected)) return CallAction.ofTriple(List.of(tile, selected));
+                        }
+                    }
+                }
+                return CallAction.ofPass();
+            }
+        };
+    }
+}
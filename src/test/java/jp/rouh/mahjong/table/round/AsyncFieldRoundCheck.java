@@ -0,0 +1,90 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.table.AsyncTableStrategy;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 非同期のテーブル戦略による{@link FieldRound#startAsync}の進行を確認します。
+ *
+ * <p>全ての問い合わせに一定時間後に応答する戦略で多数の局を同時に進行させ,
+ * 局の経過が同期的に進行させた同一のシード値の局と一致することを検証します。
+ * 応答は単一のスレッドで完了させるため, 局の数に関わらずスレッド数は増加しません。
+ * 引数で同時に進行させる局の数(既定値 2000)と応答までの時間(ミリ秒, 既定値 2)を指定できます。
+ */
+public class AsyncFieldRoundCheck{
+    public static void main(String[] args){
+        int tables = args.length>0? Integer.parseInt(args[0]):2000;
+        long delayMillis = args.length>1? Long.parseLong(args[1]):2;
+        var worker = Executors.newSingleThreadExecutor(runnable->{
+            var thread = new Thread(runnable, "strategy-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var delayed = CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, worker);
+        var rounds = new ArrayList<FieldRound>(tables);
+        var completions = new ArrayList<CompletableFuture<?>>(tables);
+        long start = System.nanoTime();
+        for(int seed = 0; seed<tables; seed++){
+            var round = new FieldRound(Wind.EAST, 1, 0, 0, new Random(seed));
+            for(var wind:Wind.values()){
+                var strategy = randomStrategy(wind, new Random(seed*4L + wind.ordinal()));
+                round.join(wind, new SimulationParticipant(wind.toString(), wind, 25000, strategy),
+                        AsyncTableStrategy.of(strategy, delayed));
+            }
+            rounds.add(round);
+            completions.add(round.startAsync().toCompletableFuture());
+        }
+        int startedThreads = Thread.activeCount();
+        CompletableFuture.allOf(completions.toArray(new CompletableFuture<?>[0])).join();
+        double elapsedMillis = (System.nanoTime() - start)/1e6;
+        long steps = 0;
+        for(int seed = 0; seed<tables; seed++){
+            var expected = new FieldRound(Wind.EAST, 1, 0, 0, new Random(seed));
+            for(var wind:Wind.values()){
+                var strategy = randomStrategy(wind, new Random(seed*4L + wind.ordinal()));
+                expected.join(wind, new SimulationParticipant(wind.toString(), wind, 25000, strategy));
+            }
+            expected.start();
+            var actualSteps = rounds.get(seed).getRecord().getSteps();
+            var expectedSteps = expected.getRecord().getSteps();
+            if(actualSteps.size()!=expectedSteps.size()
+                    || rounds.get(seed).getTurnCount()!=expected.getTurnCount()){
+                throw new AssertionError("async round diverged: seed="+seed);
+            }
+            steps += actualSteps.size();
+        }
+        System.out.printf("%d tables, %d steps, %.0f ms total, %d live threads while waiting, peak %d threads%n",
+                tables, steps, elapsedMillis, startedThreads,
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    private static TableStrategy randomStrategy(Wind wind, Random random){
+        return new TableStrategyAdaptor(new Bot(wind.toString()).getViewer()){
+            @Override
+            public TurnAction askTurnAction(TurnPhaseContext context){
+                var discardable = context.getTiles().stream().filter(context::canDiscard).collect(toList());
+                return TurnAction.ofDiscard(discardable.get(random.nextInt(discardable.size())));
+            }
+            @Override
+            public CallAction askCallAction(CallPhaseContext context){
+                return CallAction.ofPass();
+            }
+        };
+    }
+}
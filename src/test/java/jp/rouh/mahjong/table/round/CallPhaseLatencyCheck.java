@@ -0,0 +1,157 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link FieldRound}の鳴きの問い合わせの並行化と応答期限の効果を確認します。
+ *
+ * <p>無作為に打牌し, 鳴きの問い合わせのたびに一定時間考えてからパスする戦略で
+ * 同一のシード値の局を進行させます。呼び出し元のスレッドで順に問い合わせる場合と
+ * 並行に問い合わせる場合, および一人のプレイヤーに短い期限を設定した場合について,
+ * 打牌から次のターン時の行動の問い合わせまでの待ち時間を, その間に鳴きの問い合わせを
+ * 受けたプレイヤーの数ごとに平均して出力します。二人以上が問い合わせを受けた打牌では,
+ * 順に問い合わせる場合は思考時間の合計, 並行に問い合わせる場合は最大値が待ち時間となります。
+ * <p>また, 一人のプレイヤーの戦略が同時に複数の問い合わせを受けていないこと,
+ * 問い合わせ内容が処理中に書き換えられていないこと,
+ * 期限切れの後の局の進行が期限監視スレッドで行われていないことを確認します。
+ * 引数で思考時間(ミリ秒)を指定できます(既定値 20)。
+ */
+public class CallPhaseLatencyCheck{
+    private static final int ROUNDS = 40;
+
+    public static void main(String[] args){
+        long thinkMillis = args.length>0? Long.parseLong(args[0]):20;
+        var executor = Executors.newFixedThreadPool(3, runnable->{
+            var thread = new Thread(runnable, "call-phase");
+            thread.setDaemon(true);
+            return thread;
+        });
+        run("sequential", thinkMillis, null, false);
+        run("concurrent", thinkMillis, executor, false);
+        run("concurrent, 1ms deadline for south", thinkMillis, executor, true);
+        executor.shutdown();
+    }
+
+    private static void run(String label, long thinkMillis, Executor executor, boolean deadline){
+        var timeline = new Timeline();
+        int discards = 0;
+        long start = System.nanoTime();
+        for(int seed = 0; seed<ROUNDS; seed++){
+            var round = new FieldRound(Wind.EAST, 1, 0, 0, new Random(seed));
+            for(var wind:Wind.values()){
+                var random = new Random(seed*4 + wind.ordinal());
+                round.join(wind, new SimulationParticipant(wind.toString(), wind, 25000,
+                        thinkingStrategy(wind, thinkMillis, timeline, random)));
+            }
+            round.setCallExecutor(executor);
+            if(deadline){
+                round.setCallTimeout(Wind.SOUTH, 1, TimeUnit.MILLISECONDS);
+            }
+            timeline.lastDiscarded = 0;
+            round.start();
+            discards += round.getTurnCount();
+        }
+        double elapsedMillis = (System.nanoTime() - start)/1e6;
+        if(timeline.overlaps.get()>0){
+            throw new AssertionError(label+": "+timeline.overlaps.get()+" overlapping asks");
+        }
+        if(timeline.overwrites.get()>0){
+            throw new AssertionError(label+": "+timeline.overwrites.get()+" contexts overwritten while asked");
+        }
+        if(timeline.delayerTurns.get()>0){
+            throw new AssertionError(label+": "+timeline.delayerTurns.get()+" turns on the timeout thread");
+        }
+        var sb = new StringBuilder();
+        for(int asked = 0; asked<4; asked++){
+            if(timeline.counts[asked]==0) continue;
+            sb.append(String.format(" %d asked: %.1f ms x%d,", asked,
+                    timeline.waitNanos[asked]/1e6/timeline.counts[asked], timeline.counts[asked]));
+        }
+        System.out.printf("%-36s: %d discards, %.0f ms total,%s no overlapping asks%n",
+                label, discards, elapsedMillis, sb);
+    }
+
+    /**
+     * 打牌から次のターン時の行動の問い合わせまでの待ち時間の集計。
+     */
+    private static final class Timeline{
+        private final AtomicInteger askedSinceDiscard = new AtomicInteger();
+        private final AtomicInteger overlaps = new AtomicInteger();
+        private final AtomicInteger overwrites = new AtomicInteger();
+        private final AtomicInteger delayerTurns = new AtomicInteger();
+        private final long[] waitNanos = new long[4];
+        private final int[] counts = new int[4];
+        private long lastDiscarded;
+
+        private void turnAsked(){
+            if(Thread.currentThread().getName().startsWith("CompletableFutureDelayScheduler")){
+                delayerTurns.incrementAndGet();
+            }
+            if(lastDiscarded!=0){
+                int asked = Math.min(askedSinceDiscard.get(), 3);
+                waitNanos[asked] += System.nanoTime() - lastDiscarded;
+                counts[asked]++;
+            }
+        }
+
+        private void discarded(){
+            askedSinceDiscard.set(0);
+            lastDiscarded = System.nanoTime();
+        }
+    }
+
+    private static TableStrategy thinkingStrategy(Wind wind, long thinkMillis, Timeline timeline, Random random){
+        var busy = new AtomicBoolean();
+        return new TableStrategyAdaptor(new Bot(wind.toString()).getViewer()){
+            @Override
+            public TurnAction askTurnAction(TurnPhaseContext context){
+                enter();
+                timeline.turnAsked();
+                var discardable = context.getTiles().stream().filter(context::canDiscard).collect(toList());
+                var action = TurnAction.ofDiscard(discardable.get(random.nextInt(discardable.size())));
+                timeline.discarded();
+                busy.set(false);
+                return action;
+            }
+            @Override
+            public CallAction askCallAction(CallPhaseContext context){
+                enter();
+                timeline.askedSinceDiscard.incrementAndGet();
+                var callTile = context.getCallTile();
+                var tiles = List.copyOf(context.getTiles());
+                try{
+                    Thread.sleep(thinkMillis);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+                if(context.getCallTile()!=callTile || !context.getTiles().equals(tiles)){
+                    timeline.overwrites.incrementAndGet();
+                }
+                busy.set(false);
+                return CallAction.ofPass();
+            }
+            private void enter(){
+                if(!busy.compareAndSet(false, true)){
+                    timeline.overlaps.incrementAndGet();
+                }
+            }
+        };
+    }
+}
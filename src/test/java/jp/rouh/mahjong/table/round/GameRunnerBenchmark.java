@@ -0,0 +1,68 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link GameRunner}のスレッド数ごとのスループットを計測します。
+ *
+ * <p>スレッド数を1から利用可能なプロセッサ数まで倍々に増やしながら,
+ * 同一のシード値で同数の対局を実行し, 1スレッドに対する速度比を出力します。
+ * 最後に一つの対局で例外を発生させ, 他のスレッドが残りの対局を消化せずに停止することを確認します。
+ * 引数で計測する対局数を指定できます(既定値 200)。
+ */
+public class GameRunnerBenchmark{
+    public static void main(String[] args) throws InterruptedException{
+        int games = args.length>0? Integer.parseInt(args[0]):200;
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("available processors: %d%n", processors);
+        try(var warmUp = new GameRunner(processors)){
+            warmUp.run(games/4 + 1, 1L, wind->SimulationRoundBenchmark.winningStrategy(wind.toString()));
+        }
+        double baseline = 0;
+        for(int threads = 1; ; threads = Math.min(threads*2, processors)){
+            try(var runner = new GameRunner(threads)){
+                long start = System.nanoTime();
+                var statistics = runner.run(games, 0L, wind->SimulationRoundBenchmark.winningStrategy(wind.toString()));
+                double elapsed = (System.nanoTime() - start)/1e9;
+                double gamesPerSec = statistics.getGameCount()/elapsed;
+                if(threads==1) baseline = gamesPerSec;
+                System.out.printf("threads=%d: %.1f games/sec, %.0f rounds/sec, speedup x%.2f%n",
+                        threads, gamesPerSec, statistics.getRoundCount()/elapsed, gamesPerSec/baseline);
+                if(threads==processors) System.out.print(statistics);
+            }
+            if(threads==processors) break;
+        }
+        checkFailure(games, Math.max(processors, 2));
+    }
+
+    private static void checkFailure(int games, int threads) throws InterruptedException{
+        var started = new AtomicInteger();
+        try(var runner = new GameRunner(threads)){
+            runner.run(games, 0L, wind->{
+                // 東家の戦略は対局ごとに一つ生成されるため, 二つ目の対局の東家で例外を発生させます
+                if(wind!=Wind.EAST || started.getAndIncrement()!=1){
+                    return SimulationRoundBenchmark.winningStrategy(wind.toString());
+                }
+                return new TableStrategyAdaptor(SimulationRoundBenchmark.winningStrategy(wind.toString())){
+                    @Override
+                    public TurnAction askTurnAction(TurnPhaseContext context){
+                        throw new IllegalStateException("failure injected");
+                    }
+                };
+            });
+            throw new AssertionError("failure not propagated");
+        }catch(IllegalStateException e){
+            int startedGames = started.get();
+            if(startedGames>games/2){
+                throw new AssertionError("workers kept running after failure: "+startedGames+" games started");
+            }
+            System.out.printf("failure in game 1 of %d on %d threads: %d games started (%s)%n",
+                    games, threads, startedGames, e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.score.HandTiles;
+import jp.rouh.mahjong.score.Meld;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.CallPhaseContextContainer;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.action.TurnPhaseContextContainer;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Tiles;
+import jp.rouh.util.OperableList;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * {@link LegalActionGenerator}の正しさと速度を計測します。
+ *
+ * <p>無作為な手牌と和了形から一枚入れ替えた手牌を生成し,
+ * ターン時と鳴きの選択肢が{@link HandTiles}から作成した問い合わせ内容と一致することを確認した後,
+ * 問い合わせ内容の作成にかかる時間とメモリの割り当て量を比較して出力します。
+ * 引数で手牌の数を指定できます(既定値 200000)。
+ */
+public class LegalActionCheck{
+    private static final Tile[] TILES = Tile.values();
+
+    public static void main(String[] args){
+        int count = args.length>0? Integer.parseInt(args[0]):200000;
+        var random = new Random(0);
+        var samples = new ArrayList<Sample>(count);
+        for(int i = 0; i<count; i++){
+            samples.add(Sample.of(random, i%2==0));
+        }
+
+        var generator = new LegalActionGenerator();
+        int ready = 0;
+        int straight = 0;
+        for(var sample:samples){
+            var expected = referenceTurnPhase(sample);
+            var actual = generateTurnPhase(generator, sample);
+            verifyTurnPhase(sample, expected, actual);
+            if(actual.canDeclareReady()) ready++;
+            var expectedCall = referenceCallPhase(sample);
+            var actualCall = generateCallPhase(generator, sample);
+            verifyCallPhase(sample, expectedCall, actualCall);
+            if(actualCall!=null && actualCall.canCallStraight()) straight++;
+        }
+        System.out.printf("verified %d hands (ready %d, straight %d)%n", samples.size(), ready, straight);
+
+        for(int i = 0; i<5; i++){
+            long[] reference = measure(samples, null);
+            long[] generated = measure(samples, generator);
+            System.out.printf("reference: %.0f ns/hand %.0f bytes/hand, generator: %.0f ns/hand %.0f bytes/hand%n",
+                    (double)reference[0]/samples.size(), (double)reference[1]/samples.size(),
+                    (double)generated[0]/samples.size(), (double)generated[1]/samples.size());
+        }
+    }
+
+    /**
+     * 全ての手牌について選択肢を作成し, 経過時間(ナノ秒)とメモリの割り当て量(バイト)を計測します。
+     * @param generator 選択肢の生成器, {@link HandTiles}から作成する場合はnull
+     */
+    private static long[] measure(List<Sample> samples, LegalActionGenerator generator){
+        var bean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int options = 0;
+        long allocated = bean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for(var sample:samples){
+            var turnPhase = generator==null? referenceTurnPhase(sample):generateTurnPhase(generator, sample);
+            var callPhase = generator==null? referenceCallPhase(sample):generateCallPhase(generator, sample);
+            if(turnPhase.canDeclareReady()) options++;
+            if(callPhase!=null) options++;
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = bean.getThreadAllocatedBytes(threadId) - allocated;
+        if(options<0) throw new AssertionError();
+        return new long[]{elapsed, allocated};
+    }
+
+    private static TurnPhaseContext referenceTurnPhase(Sample sample){
+        return TurnPhaseContextContainer.of(OperableList.copyOf(sample.hand).added(sample.drawn),
+                sample.melds.isEmpty()? HandTiles.readyTilesOf(sample.hand, sample.drawn):Set.of(),
+                HandTiles.addQuadTilesOf(sample.hand, sample.drawn, sample.melds),
+                HandTiles.selfQuadTilesOf(sample.hand, sample.drawn),
+                false, HandTiles.isNineTiles(sample.hand, sample.drawn));
+    }
+
+    private static TurnPhaseContext generateTurnPhase(LegalActionGenerator generator, Sample sample){
+        generator.startTurn(sample.hand, sample.drawn);
+        if(sample.melds.isEmpty()) generator.generateReadyTiles();
+        generator.generateAddQuadTiles(sample.melds);
+        generator.generateSelfQuadTiles();
+        generator.generateNineTilesDraw();
+        return generator.getTurnPhase();
+    }
+
+    private static CallPhaseContext referenceCallPhase(Sample sample){
+        var quadBases = HandTiles.quadBasesOf(sample.hand, sample.drawn);
+        var tripleBases = HandTiles.tripleBasesOf(sample.hand, sample.drawn);
+        var straightBases = HandTiles.straightBasesOf(sample.hand, sample.drawn);
+        if(quadBases.isEmpty() && tripleBases.isEmpty() && straightBases.isEmpty()) return null;
+        return CallPhaseContextContainer.of(sample.hand, sample.drawn, straightBases, tripleBases,
+                quadBases.isEmpty()? List.of():quadBases.iterator().next(), false);
+    }
+
+    private static CallPhaseContext generateCallPhase(LegalActionGenerator generator, Sample sample){
+        generator.startCall(sample.hand, sample.drawn);
+        generator.generateQuadBases();
+        generator.generateTripleBases();
+        generator.generateStraightBases();
+        return generator.getCallPhase();
+    }
+
+    private static void verifyTurnPhase(Sample sample, TurnPhaseContext expected, TurnPhaseContext actual){
+        check(sample, "tiles", expected.getTiles().equals(actual.getTiles()));
+        check(sample, "ready", expected.canDeclareReady()==actual.canDeclareReady());
+        check(sample, "quad", expected.canDeclareQuad()==actual.canDeclareQuad());
+        check(sample, "draw", expected.canDeclareDraw()==actual.canDeclareDraw());
+        for(var tile:TILES){
+            check(sample, "discard "+tile, actual.canDiscard(tile)==expected.getTiles().contains(tile));
+            check(sample, "ready "+tile, expected.canDeclareReady(tile)==actual.canDeclareReady(tile));
+            check(sample, "add quad "+tile, expected.canDeclareAddQuad(tile)==actual.canDeclareAddQuad(tile));
+            check(sample, "self quad "+tile, expected.canDeclareSelfQuad(tile)==actual.canDeclareSelfQuad(tile));
+        }
+    }
+
+    private static void verifyCallPhase(Sample sample, CallPhaseContext expected, CallPhaseContext actual){
+        check(sample, "call", (expected==null)==(actual==null));
+        if(expected==null) return;
+        check(sample, "call tiles", expected.getTiles().equals(actual.getTiles()));
+        check(sample, "call quad", expected.canCallQuad()==actual.canCallQuad());
+        check(sample, "call triple", expected.canCallTriple()==actual.canCallTriple());
+        check(sample, "call straight", expected.canCallStraight()==actual.canCallStraight());
+        for(var tile:TILES){
+            check(sample, "call quad "+tile, expected.canCallQuad(tile)==actual.canCallQuad(tile));
+            check(sample, "call triple "+tile, expected.canCallTriple(tile)==actual.canCallTriple(tile));
+            check(sample, "call straight "+tile, expected.canCallStraight(tile)==actual.canCallStraight(tile));
+            for(var selected:TILES){
+                check(sample, "call triple "+tile+" "+selected,
+                        expected.canCallTriple(tile, selected)==actual.canCallTriple(tile, selected));
+                check(sample, "call straight "+tile+" "+selected,
+                        expected.canCallStraight(tile, selected)==actual.canCallStraight(tile, selected));
+            }
+        }
+    }
+
+    private static void check(Sample sample, String item, boolean matched){
+        if(!matched){
+            throw new AssertionError(item+" mismatch: "+sample.hand+" "+sample.drawn+" "+sample.melds);
+        }
+    }
+
+    /**
+     * 検査に用いる手牌, 自摸牌(鳴きの対象牌を兼ねる)と副露面子の組。
+     */
+    private static final class Sample{
+        private final List<Tile> hand;
+        private final Tile drawn;
+        private final List<Meld> melds;
+
+        private Sample(List<Tile> hand, Tile drawn, List<Meld> melds){
+            this.hand = hand;
+            this.drawn = drawn;
+            this.melds = melds;
+        }
+
+        /**
+         * 手牌を生成します。
+         * @param random 乱数生成器
+         * @param shaped 和了形から一枚入れ替えた手牌を生成する場合はtrue, 無作為な手牌の場合はfalse
+         */
+        private static Sample of(Random random, boolean shaped){
+            var deck = Tiles.fullSet();
+            Collections.shuffle(deck, random);
+            var tiles = shaped? shapedTiles(deck, random):new ArrayList<>(deck.subList(0, 14));
+            var melds = new ArrayList<Meld>();
+            if(random.nextInt(4)==0){
+                // 同種牌を3枚含む場合は, その3枚をポンの面子として副露します
+                for(var tile:List.copyOf(tiles)){
+                    var same = new ArrayList<Tile>();
+                    for(var t:tiles) if(t.equalsIgnoreRed(tile)) same.add(t);
+                    if(same.size()==3){
+                        same.forEach(tiles::remove);
+                        melds.add(Meld.callTriple(same.subList(0, 2), same.get(2), Side.ACROSS));
+                        break;
+                    }
+                }
+            }
+            var drawn = tiles.remove(random.nextInt(tiles.size()));
+            tiles.sort(null);
+            return new Sample(List.copyOf(tiles), drawn, List.copyOf(melds));
+        }
+
+        /**
+         * 和了形(面子手もしくは七対子形)を作成し, 一枚を山の牌と入れ替えます。
+         */
+        private static List<Tile> shapedTiles(List<Tile> deck, Random random){
+            var tiles = new ArrayList<Tile>(14);
+            boolean pairs = random.nextInt(8)==0;
+            while(tiles.size()<14){
+                int sets = pairs? 2:tiles.isEmpty()? 2:3;
+                var first = deck.get(random.nextInt(deck.size()));
+                var meld = new ArrayList<Tile>(3);
+                boolean sequence = !pairs && sets==3 && random.nextBoolean()
+                        && !first.isHonor() && first.suitNumber()<=7;
+                var tile = first;
+                for(int i = 0; i<sets; i++){
+                    if(sequence && i>0) tile = tile.next();
+                    Tile taken = null;
+                    for(var candidate:deck){
+                        if(candidate.equalsIgnoreRed(tile)){
+                            taken = candidate;
+                            break;
+                        }
+                    }
+                    if(taken==null) break;
+                    deck.remove(taken);
+                    meld.add(taken);
+                }
+                if(meld.size()==sets){
+                    tiles.addAll(meld);
+                }else{
+                    deck.addAll(meld);
+                }
+            }
+            tiles.set(random.nextInt(14), deck.remove(deck.size() - 1));
+            return tiles;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link FieldRound#step}による局の進行と, 局の記録による中断/再開を確認します。
+ *
+ * <p>単一のスレッドで多数の局を一手ずつ交互に進行させ, 各局を無作為な時点で
+ * 直列化した記録から復元した局に置き換えます。最終的な局の記録が,
+ * 同じ行動を選択して{@link FieldRound#start}で中断なく進行させた局の記録と
+ * 一致することを検証し, 記録の直列化後の大きさと復元に要する時間を出力します。
+ * 引数で局数を指定できます(既定値 1000)。
+ */
+public class RoundCheckpointCheck{
+    public static void main(String[] args){
+        int tables = args.length>0? Integer.parseInt(args[0]):1000;
+        var rounds = new FieldRound[tables];
+        var checkpointAt = new int[tables];
+        var random = new Random(0);
+        for(int seed = 0; seed<tables; seed++){
+            rounds[seed] = new FieldRound(Wind.EAST, 1, 0, 0, new Random(seed));
+            for(var wind:Wind.values()){
+                rounds[seed].join(wind, idleParticipant(wind));
+            }
+            rounds[seed].begin();
+            checkpointAt[seed] = random.nextInt(300);
+        }
+        int checkpoints = 0;
+        int checkpointsInCallWindow = 0;
+        long checkpointBytes = 0;
+        long restoreNanos = 0;
+        int active = tables;
+        while(active>0){
+            active = 0;
+            for(int seed = 0; seed<tables; seed++){
+                var round = rounds[seed];
+                if(round.getStage()==RoundStage.FINISHED) continue;
+                active++;
+                if(round.getRecord().getSteps().size()==checkpointAt[seed]){
+                    var bytes = serialize(round.getRecord());
+                    long start = System.nanoTime();
+                    var restored = new FieldRound((RoundRecord)deserialize(bytes));
+                    for(var wind:Wind.values()){
+                        restored.join(wind, idleParticipant(wind));
+                    }
+                    restored.begin();
+                    restoreNanos += System.nanoTime() - start;
+                    if(restored.getStage()!=round.getStage() || restored.getTurnWind()!=round.getTurnWind()
+                            || !restored.getPendingCallWinds().equals(round.getPendingCallWinds())){
+                        throw new AssertionError("restored stage mismatch: seed="+seed);
+                    }
+                    if(round.getStage().isCallStage() && round.getPendingCallWinds().size()<3) checkpointsInCallWindow++;
+                    checkpointBytes += bytes.length;
+                    checkpoints++;
+                    rounds[seed] = round = restored;
+                }
+                if(round.getStage()==RoundStage.TURN){
+                    var wind = round.getTurnWind();
+                    round.step(RoundRecord.Step.ofTurn(wind, selectTurnAction(round, seed, wind, round.getTurnContext())));
+                }else{
+                    var wind = round.getPendingCallWinds().get(0);
+                    round.step(RoundRecord.Step.ofCall(wind, selectCallAction(round, seed, wind, round.getCallContext(wind))));
+                }
+            }
+        }
+        long steps = 0;
+        for(int seed = 0; seed<tables; seed++){
+            var expected = new FieldRound(Wind.EAST, 1, 0, 0, new Random(seed));
+            for(var wind:Wind.values()){
+                expected.join(wind, new SimulationParticipant(wind.toString(), wind, 25000,
+                        deterministicStrategy(expected, seed, wind)));
+            }
+            expected.start();
+            if(!Arrays.equals(serialize(expected.getRecord()), serialize(rounds[seed].getRecord()))){
+                throw new AssertionError("checkpointed round diverged: seed="+seed);
+            }
+            steps += expected.getRecord().getSteps().size();
+        }
+        System.out.printf("%d rounds (%d steps) multiplexed on one thread, %d checkpoints (%d inside call windows)%n",
+                tables, steps, checkpoints, checkpointsInCallWindow);
+        System.out.printf("average checkpoint %.0f bytes, restore %.1f us%n",
+                (double)checkpointBytes/checkpoints, restoreNanos/1e3/checkpoints);
+    }
+
+    private static byte[] serialize(Object object){
+        var bytes = new ByteArrayOutputStream();
+        try(var out = new ObjectOutputStream(bytes)){
+            out.writeObject(object);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes){
+        try(var in = new ObjectInputStream(new ByteArrayInputStream(bytes))){
+            return in.readObject();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }catch(ClassNotFoundException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SimulationParticipant idleParticipant(Wind wind){
+        return new SimulationParticipant(wind.toString(), wind, 25000, new Bot(wind.toString()).getViewer());
+    }
+
+    private static TableStrategy deterministicStrategy(FieldRound round, long seed, Wind wind){
+        return new TableStrategyAdaptor(new Bot(wind.toString()).getViewer()){
+            @Override
+            public TurnAction askTurnAction(TurnPhaseContext context){
+                return selectTurnAction(round, seed, wind, context);
+            }
+            @Override
+            public CallAction askCallAction(CallPhaseContext context){
+                return selectCallAction(round, seed, wind, context);
+            }
+        };
+    }
+
+    /**
+     * 局の進行状況から一意に決まる乱数生成器を生成します。
+     *
+     * <p>中断の有無や問い合わせの順序に関わらず同じ行動を選択するために利用します。
+     */
+    private static Random randomAt(FieldRound round, long seed, Wind wind, boolean turn){
+        return new Random(seed*1_000_003L + round.getTurnCount()*64L + round.getTotalQuadCount()*8L
+                + wind.ordinal()*2L + (turn? 1:0));
+    }
+
+    private static TurnAction selectTurnAction(FieldRound round, long seed, Wind wind, TurnPhaseContext context){
+        var random = randomAt(round, seed, wind, true);
+        var tiles = context.getTiles();
+        if(context.canDeclareWin() && random.nextInt(4)==0) return TurnAction.ofWin();
+        if(context.canDeclareDraw() && random.nextBoolean()) return TurnAction.ofDraw();
+        if(context.canDeclareQuad() && random.nextBoolean()){
+            for(var tile:tiles){
+                if(context.canDeclareSelfQuad(tile)) return TurnAction.ofSelfQuad(tile);
+                if(context.canDeclareAddQuad(tile)) return TurnAction.ofAddQuad(tile);
+            }
+        }
+        var readyTiles = tiles.stream().filter(context::canDeclareReady).collect(toList());
+        if(!readyTiles.isEmpty() && random.nextBoolean()){
+            return TurnAction.ofReady(readyTiles.get(random.nextInt(readyTiles.size())));
+        }
+        var discardable = tiles.stream().filter(context::canDiscard).collect(toList());
+        return TurnAction.ofDiscard(discardable.get(random.nextInt(discardable.size())));
+    }
+
+    private static CallAction selectCallAction(FieldRound round, long seed, Wind wind, CallPhaseContext context){
+        var random = randomAt(round, seed, wind, false);
+        var tiles = context.getTiles();
+        var callTile = context.getCallTile();
+        if(context.canCallWin() && random.nextInt(4)==0) return CallAction.ofWin();
+        if(context.canCallQuad() && random.nextBoolean()){
+            return CallAction.ofQuad(tiles.stream().filter(callTile::equalsIgnoreRed).collect(toList()));
+        }
+        if(context.canCallTriple() && random.nextBoolean()){
+            for(int i = 0; i<tiles.size(); i++){
+                for(int j = i + 1; j<tiles.size(); j++){
+                    if(context.canCallTriple(tiles.get(j), tiles.get(i))){
+                        return CallAction.ofTriple(List.of(tiles.get(i), tiles.get(j)));
+                    }
+                }
+            }
+        }
+        if(context.canCallStraight() && random.nextBoolean()){
+            for(int i = 0; i<tiles.size(); i++){
+                for(int j = i + 1; j<tiles.size(); j++){
+                    if(context.canCallStraight(tiles.get(j), tiles.get(i))){
+                        return CallAction.ofStraight(List.of(tiles.get(i), tiles.get(j)));
+                    }
+                }
+            }
+        }
+        return CallAction.ofPass();
+    }
+}
@@ -0,0 +1,227 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.table.PerspectiveProjector;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link FieldRound}の参加者への通知から, 各席で卓上の状態を再構築できることを確認します。
+ *
+ * <p>{@link Bot}の選択に無作為な打牌や鳴き, カンを混ぜた戦略で局を進行させ, 各ターンの行動の選択時点で
+ * 全ての席が通知から再構築した手牌/手牌の枚数, 副露, 河, ドラ表示牌を局の状態と比較します。
+ * 引数で検証する局数を指定できます(既定値 300)。
+ */
+public class RoundNotificationCheck{
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):300;
+        long checked = 0;
+        int melds = 0;
+        int quads = 0;
+        int readies = 0;
+        for(long seed = 0; seed<rounds; seed++){
+            var round = new FieldRound(Wind.EAST, 1, 0, 0, new Random(seed));
+            var views = new ArrayList<SeatView>(4);
+            var random = new Random(~seed);
+            for(var wind:Wind.values()){
+                var view = new SeatView(wind, random, round, views);
+                views.add(view);
+                round.join(wind, new SimulationParticipant(wind.toString(), wind, 25000, view));
+            }
+            round.start();
+            for(var view:views){
+                if(!view.settled){
+                    throw new AssertionError("round settlement not notified: seed="+seed+" wind="+view.seatWind);
+                }
+                checked += view.checked;
+            }
+            var east = views.get(0);
+            for(var side:Side.values()){
+                melds += east.melds.get(side.ordinal()).size();
+            }
+            quads += east.quads;
+            readies += east.readies;
+        }
+        System.out.printf("verified %d views in %d rounds (%d melds, %d quads, %d ready declarations)%n",
+                checked, rounds, melds, quads, readies);
+    }
+
+    /**
+     * 通知から一つの席から見た卓上の状態を再構築し, {@link Bot}の選択に無作為な行動を混ぜるテーブル戦略。
+     */
+    private static final class SeatView extends TableStrategyAdaptor{
+        private final Wind seatWind;
+        private final Random random;
+        private final FieldRound round;
+        private final List<SeatView> views;
+        private final List<Tile> hand = new ArrayList<>();
+        private final int[] handSizes = new int[4];
+        private final List<List<Tile>> discards = new ArrayList<>();
+        private final List<List<List<Tile>>> melds = new ArrayList<>();
+        private final List<Tile> indicators = new ArrayList<>();
+        private int quads;
+        private int readies;
+        private boolean settled;
+        private long checked;
+
+        private SeatView(Wind seatWind, Random random, FieldRound round, List<SeatView> views){
+            super(new Bot(seatWind.toString()).getViewer());
+            this.seatWind = seatWind;
+            this.random = random;
+            this.round = round;
+            this.views = views;
+            for(int i = 0; i<4; i++){
+                discards.add(new ArrayList<>());
+                melds.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * 再構築した状態を局の状態と比較します。
+         */
+        private void verify(){
+            for(var wind:Wind.values()){
+                var player = round.playerAt(wind);
+                int side = PerspectiveProjector.sideOf(seatWind, wind).ordinal();
+                if(wind==seatWind){
+                    assertEquals("hand", sorted(player.getHandTiles()), sorted(hand));
+                }else if(handSizes[side]!=player.getHandTiles().size()){
+                    throw new AssertionError(seatWind+" sees hand size "+handSizes[side]+" of "+wind
+                            +" but "+player.getHandTiles().size());
+                }
+                assertEquals("discards of "+wind, player.getDiscardPile(), discards.get(side));
+                var expectedMelds = player.getOpenMelds().stream().map(meld->meld.getTilesFormed()).collect(toList());
+                assertEquals("melds of "+wind, expectedMelds, melds.get(side));
+            }
+            var prised = indicators.stream().map(Tile::indicates).collect(toList());
+            assertEquals("indicators", round.getUpperPrisedTiles(), prised);
+            checked++;
+        }
+
+        private void assertEquals(String label, Object expected, Object actual){
+            if(!expected.equals(actual)){
+                throw new AssertionError(seatWind+" "+label+" mismatch\n expected: "+expected+"\n actual:   "+actual);
+            }
+        }
+
+        private static List<Tile> sorted(List<Tile> tiles){
+            return tiles.stream().sorted().collect(toList());
+        }
+
+        @Override
+        public TurnAction askTurnAction(TurnPhaseContext context){
+            views.forEach(SeatView::verify);
+            var tiles = context.getTiles();
+            if(context.canDeclareQuad() && random.nextBoolean()){
+                for(var tile:tiles){
+                    if(context.canDeclareSelfQuad(tile)) return TurnAction.ofSelfQuad(tile);
+                    if(context.canDeclareAddQuad(tile)) return TurnAction.ofAddQuad(tile);
+                }
+            }
+            if(random.nextInt(4)>0) return super.askTurnAction(context);
+            var discardable = tiles.stream().filter(context::canDiscard).collect(toList());
+            return TurnAction.ofDiscard(discardable.get(random.nextInt(discardable.size())));
+        }
+
+        @Override
+        public CallAction askCallAction(CallPhaseContext context){
+            var tiles = context.getTiles();
+            var callTile = context.getCallTile();
+            if(context.canCallQuad() && random.nextBoolean()){
+                return CallAction.ofQuad(tiles.stream().filter(callTile::equalsIgnoreRed).collect(toList()));
+            }
+            if(random.nextInt(4)>0) return super.askCallAction(context);
+            for(int i = 0; i<tiles.size(); i++){
+                for(int j = i + 1; j<tiles.size(); j++){
+                    var base = List.of(tiles.get(i), tiles.get(j));
+                    if(context.canCallTriple() && context.canCallTriple(tiles.get(j), tiles.get(i))) return CallAction.ofTriple(base);
+                    if(context.canCallStraight() && context.canCallStraight(tiles.get(j), tiles.get(i))) return CallAction.ofStraight(base);
+                }
+            }
+            return CallAction.ofPass();
+        }
+
+        @Override
+        public void wallTileRevealed(Side side, int column, int floor, Tile tile){
+            super.wallTileRevealed(side, column, floor, tile);
+            indicators.add(tile);
+        }
+
+        @Override
+        public void tileDrawn(Side side){
+            super.tileDrawn(side);
+            handSizes[side.ordinal()]++;
+        }
+
+        @Override
+        public void tileDrawn(Tile tile){
+            super.tileDrawn(tile);
+            hand.add(tile);
+        }
+
+        @Override
+        public void handUpdated(Side side, int size){
+            super.handUpdated(side, size);
+            handSizes[side.ordinal()] = size;
+        }
+
+        @Override
+        public void handUpdated(List<Tile> handTiles){
+            super.handUpdated(handTiles);
+            hand.clear();
+            hand.addAll(handTiles);
+        }
+
+        @Override
+        public void tileDiscarded(Side side, Tile tile){
+            super.tileDiscarded(side, tile);
+            discards.get(side.ordinal()).add(tile);
+        }
+
+        @Override
+        public void tileDiscardedAsReady(Side side, Tile tile){
+            super.tileDiscardedAsReady(side, tile);
+            discards.get(side.ordinal()).add(tile);
+            readies++;
+        }
+
+        @Override
+        public void tiltMeldAdded(Side side, Side tilt, List<Tile> tiles){
+            super.tiltMeldAdded(side, tilt, tiles);
+            melds.get(side.ordinal()).add(new ArrayList<>(tiles));
+            if(tiles.size()==4) quads++;
+        }
+
+        @Override
+        public void selfQuadAdded(Side side, List<Tile> tiles){
+            super.selfQuadAdded(side, tiles);
+            melds.get(side.ordinal()).add(new ArrayList<>(tiles));
+            quads++;
+        }
+
+        @Override
+        public void meldTileAdded(Side side, int index, Tile added){
+            super.meldTileAdded(side, index, added);
+            melds.get(side.ordinal()).get(index).add(added);
+            quads++;
+        }
+
+        @Override
+        public void roundSettled(String expression){
+            super.roundSettled(expression);
+            settled = true;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.score.Meld;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link RoundReplay}が{@link FieldRound}の状態を正しく再現することを確認します。
+ *
+ * <p>鳴きやカンを無作為に選択する戦略で局を進行させ, 各ターンの行動の選択時点の
+ * 全プレイヤーの手牌/副露/河を記録します。その後, 局の記録から再構築した状態と比較し,
+ * 無作為な位置への移動の速度を出力します。
+ * 引数で検証する局数を指定できます(既定値 300)。
+ */
+public class RoundReplayCheck{
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):300;
+        long checked = 0;
+        long steps = 0;
+        var replays = new ArrayList<RoundReplay>();
+        for(long seed = 0; seed<rounds; seed++){
+            var round = new FieldRound(Wind.EAST, 1, 0, 0, new Random(seed));
+            var expected = new ArrayList<Observation>();
+            var random = new Random(~seed);
+            for(var wind:Wind.values()){
+                var strategy = randomStrategy(wind, random, round, expected);
+                round.join(wind, new SimulationParticipant(wind.toString(), wind, 25000, strategy));
+            }
+            round.start();
+            var record = round.getRecord();
+            var seeded = RoundRecord.ofSeed(Wind.EAST, 1, 0, 0, seed, record.getSteps());
+            if(!seeded.getWallTiles().equals(record.getWallTiles()) || seeded.getDiceSum()!=record.getDiceSum()){
+                throw new AssertionError("seeded wall mismatch: seed="+seed);
+            }
+            var replay = new RoundReplay(seeded);
+            if(!replay.isFinished()){
+                throw new AssertionError("replay not finished: seed="+seed);
+            }
+            for(var observation:expected){
+                replay.seek(observation.position);
+                for(var wind:Wind.values()){
+                    var actual = stateOf(replay.getHandTiles(wind), replay.getOpenMelds(wind), replay.getDiscardPile(wind));
+                    if(!actual.equals(observation.states.get(wind.ordinal()))){
+                        throw new AssertionError("state mismatch: seed="+seed+" position="+observation.position
+                                +" wind="+wind+"\n expected: "+observation.states.get(wind.ordinal())+"\n actual:   "+actual);
+                    }
+                }
+                checked++;
+            }
+            steps += record.getSteps().size();
+            replays.add(replay);
+        }
+        System.out.printf("verified %d decision points in %d rounds (%d steps)%n", checked, rounds, steps);
+        var random = new Random(0);
+        for(int i = 0; i<5; i++){
+            int seeks = 1_000_000;
+            long start = System.nanoTime();
+            long sum = 0;
+            for(int j = 0; j<seeks; j++){
+                var replay = replays.get(random.nextInt(replays.size()));
+                replay.seek(random.nextInt(replay.getStepCount() + 1));
+                sum += replay.getTurnCount();
+            }
+            double elapsed = (System.nanoTime() - start)/1e9;
+            System.out.printf("random seek: %.2f us/seek (checksum %d)%n", elapsed/seeks*1e6, sum);
+        }
+    }
+
+    private static final class Observation{
+        private final int position;
+        private final List<String> states;
+        private Observation(int position, List<String> states){
+            this.position = position;
+            this.states = states;
+        }
+    }
+
+    private static String stateOf(List<Tile> hand, List<Meld> melds, List<Tile> discards){
+        var meldTiles = melds.stream().map(meld->meld.getTilesFormed()+"@"+meld.getSourceSide()).collect(toList());
+        return hand+" "+meldTiles+" "+discards;
+    }
+
+    private static TableStrategy randomStrategy(Wind wind, Random random, FieldRound round, List<Observation> observations){
+        return new TableStrategyAdaptor(new Bot(wind.toString()).getViewer()){
+            @Override
+            public TurnAction askTurnAction(TurnPhaseContext context){
+                var states = new ArrayList<String>();
+                for(var w:Wind.values()){
+                    var player = round.playerAt(w);
+                    states.add(stateOf(player.getHandTiles(), player.getOpenMelds(), player.getDiscardPile()));
+                }
+                observations.add(new Observation(round.getRecord().getSteps().size(), states));
+                var tiles = context.getTiles();
+                if(context.canDeclareWin() && random.nextInt(4)==0) return TurnAction.ofWin();
+                if(context.canDeclareDraw() && random.nextBoolean()) return TurnAction.ofDraw();
+                if(context.canDeclareQuad() && random.nextBoolean()){
+                    for(var tile:tiles){
+                        if(context.canDeclareSelfQuad(tile)) return TurnAction.ofSelfQuad(tile);
+                        if(context.canDeclareAddQuad(tile)) return TurnAction.ofAddQuad(tile);
+                    }
+                }
+                var readyTiles = tiles.stream().filter(context::canDeclareReady).collect(toList());
+                if(!readyTiles.isEmpty() && random.nextBoolean()){
+                    return TurnAction.ofReady(readyTiles.get(random.nextInt(readyTiles.size())));
+                }
+                var discardable = tiles.stream().filter(context::canDiscard).collect(toList());
+                return TurnAction.ofDiscard(discardable.get(random.nextInt(discardable.size())));
+            }
+            @Override
+            public CallAction askCallAction(CallPhaseContext context){
+                var tiles = context.getTiles();
+                var callTile = context.getCallTile();
+                if(context.canCallWin() && random.nextInt(4)==0) return CallAction.ofWin();
+                if(context.canCallQuad() && random.nextBoolean()){
+                    return CallAction.ofQuad(tiles.stream().filter(callTile::equalsIgnoreRed).collect(toList()));
+                }
+                if(context.canCallTriple() && random.nextBoolean()){
+                    for(int i = 0; i<tiles.size(); i++){
+                        for(int j = i + 1; j<tiles.size(); j++){
+                            if(context.canCallTriple(tiles.get(j), tiles.get(i))){
+                                return CallAction.ofTriple(List.of(tiles.get(i), tiles.get(j)));
+                            }
+                        }
+                    }
+                }
+                if(context.canCallStraight() && random.nextBoolean()){
+                    for(int i = 0; i<tiles.size(); i++){
+                        for(int j = i + 1; j<tiles.size(); j++){
+                            if(context.canCallStraight(tiles.get(j), tiles.get(i))){
+                                return CallAction.ofStraight(List.of(tiles.get(i), tiles.get(j)));
+                            }
+                        }
+                    }
+                }
+                return CallAction.ofPass();
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package jp.rouh.mahjong.table.round;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.table.Declaration;
+import jp.rouh.mahjong.table.TableStrategy;
+import jp.rouh.mahjong.table.TableStrategyAdaptor;
+import jp.rouh.mahjong.table.action.CallAction;
+import jp.rouh.mahjong.table.action.CallPhaseContext;
+import jp.rouh.mahjong.table.action.TurnAction;
+import jp.rouh.mahjong.table.action.TurnPhaseContext;
+import jp.rouh.mahjong.table.round.result.RoundResult;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@link SimulationRound}の単一スレッドでのスループットを計測します。
+ *
+ * <p>局の進行規則そのもののコストを分離するため, まず常にツモ切りしパスする
+ * 定数戦略で局を繰り返し実行します。続いて{@link Bot}の戦略で打牌し,
+ * 和了可能であれば必ず和了する戦略で局を繰り返し実行します。
+ * 単一のCPUでは計測中のJITコンパイルが結果を大きく下げるため, 一定時間局を実行してから計測します。
+ * 共有された環境での揺らぎを除くため, 経過時間に加えて計測スレッドのCPU時間あたりの局数も出力します。
+ * 引数で計測する局数を指定できます(既定値 10000, 定数戦略ではその5倍)。
+ */
+public class SimulationRoundBenchmark{
+    private static final long WARM_UP_NANOS = TimeUnit.SECONDS.toNanos(5);
+    public static void main(String[] args){
+        int rounds = args.length>0? Integer.parseInt(args[0]):10000;
+        measure("engine (draw-and-discard)", rounds*5, name->constantStrategy());
+        measure("bot", rounds, SimulationRoundBenchmark::winningStrategy);
+    }
+
+    private static void measure(String label, int rounds, Function<String, TableStrategy> strategies){
+        var random = new Random(0);
+        long warmUpStart = System.nanoTime();
+        while(System.nanoTime() - warmUpStart<WARM_UP_NANOS){
+            playRound(random, strategies);
+        }
+        var threads = ManagementFactory.getThreadMXBean();
+        int wins = 0;
+        long start = System.nanoTime();
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        for(int i = 0; i<rounds; i++){
+            if(!playRound(random, strategies).isDrawn()) wins++;
+        }
+        long cpuElapsed = threads.getCurrentThreadCpuTime() - cpuStart;
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s: %d rounds in %.1f ms: %.0f rounds/sec, %.0f rounds/cpu-sec (win rate %.1f%%)%n",
+                label, rounds, elapsed/1e6, rounds/(elapsed/1e9), rounds/(cpuElapsed/1e9), wins*100.0/rounds);
+    }
+
+    private static RoundResult playRound(Random random, Function<String, TableStrategy> strategies){
+        var round = new SimulationRound(Wind.EAST, 1, 0, 0, random);
+        for(var wind:Wind.values()){
+            round.join(wind, new SimulationParticipant(wind.toString(), wind, 25000, strategies.apply(wind.toString())));
+        }
+        return round.start();
+    }
+
+    /**
+     * 常にツモ切りし, 鳴きの問い合わせには常にパスする戦略を生成します。
+     *
+     * <p>通知は全て無視します。
+     * @return 戦略
+     */
+    static TableStrategy constantStrategy(){
+        return new ConstantStrategy();
+    }
+
+    private static final class ConstantStrategy implements TableStrategy{
+        @Override
+        public TurnAction askTurnAction(TurnPhaseContext context){
+            var tiles = context.getTiles();
+            return TurnAction.ofDiscard(tiles.get(tiles.size() - 1));
+        }
+        @Override
+        public CallAction askCallAction(CallPhaseContext context){
+            return CallAction.ofPass();
+        }
+        @Override public void seatUpdated(Side side, Wind wind, String name, int score){}
+        @Override public void roundStarted(Wind wind, int count, int streak, int deposit){}
+        @Override public void roundSettled(String expression){}
+        @Override public void diceRolled(Side side, int dice1, int dice2){}
+        @Override public void wallGenerated(){}
+        @Override public void wallTileTaken(Side side, int column, int floor){}
+        @Override public void wallTileRevealed(Side side, int column, int floor, Tile tile){}
+        @Override public void tileDrawn(Side side){}
+        @Override public void tileDrawn(Tile tile){}
+        @Override public void handUpdated(Side side, int size){}
+        @Override public void handUpdated(List<Tile> handTiles){}
+        @Override public void handRevealed(Side side, List<Tile> handTiles){}
+        @Override public void handRevealed(Side side, List<Tile> handTiles, Tile drawnTile){}
+        @Override public void tileDiscarded(Side side, Tile tile){}
+        @Override public void tileDiscardedAsReady(Side side, Tile tile){}
+        @Override public void riverTileTaken(Side side){}
+        @Override public void tiltMeldAdded(Side side, Side tilt, List<Tile> tiles){}
+        @Override public void selfQuadAdded(Side side, List<Tile> tiles){}
+        @Override public void meldTileAdded(Side side, int index, Tile added){}
+        @Override public void readyBoneAdded(Side side){}
+        @Override public void declared(Side side, Declaration declaration){}
+    }
+
+    static TableStrategy winningStrategy(String name){
+        return new TableStrategyAdaptor(new Bot(name).getViewer()){
+            @Override
+            public TurnAction askTurnAction(TurnPhaseContext context){
+                if(context.canDeclareWin()) return TurnAction.ofWin();
+                return super.askTurnAction(context);
+            }
+            @Override
+            public CallAction askCallAction(CallPhaseContext context){
+                if(context.canCallWin()) return CallAction.ofWin();
+                return super.askCallAction(context);
+            }
+        };
+    }
+}
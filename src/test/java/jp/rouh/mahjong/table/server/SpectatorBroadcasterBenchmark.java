@@ -0,0 +1,338 @@
+package jp.rouh.mahjong.table.server;
+
+import jp.rouh.mahjong.app.Bot;
+import jp.rouh.mahjong.table.TableEvent;
+import jp.rouh.mahjong.table.TableObserver;
+import jp.rouh.mahjong.table.TableSpectator;
+import jp.rouh.mahjong.table.record.TableEventDecoder;
+import jp.rouh.mahjong.table.round.FieldRound;
+import jp.rouh.mahjong.table.round.SimulationParticipant;
+import jp.rouh.mahjong.tile.Side;
+import jp.rouh.mahjong.tile.Tile;
+import jp.rouh.mahjong.tile.Tiles;
+import jp.rouh.mahjong.tile.Wind;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link SpectatorBroadcaster}の配信の正しさと, 観戦者の数に対する通知元の負荷を計測します。
+ *
+ * <p>局を模した通知列を観戦者の数を変えて配信し, 通知元のスレッドでの通知あたりのCPU時間と,
+ * 全ての観戦者への送信が完了するまでの時間を出力します。
+ * 全ての観戦者が同一のレコード列を受け取り, 復号した通知が元の通知列と一致することを確認します。
+ * また, 送信の遅い観戦者のみが購読を解除されること, 遅延を指定した配信が遅れて届くこと,
+ * 途中から購読した観戦者が席の情報と局の開始以降の通知を受け取ること,
+ * 局に登録した観戦者に打牌が通知されることを確認します。
+ * 引数で局数と最大の観戦者の数を指定できます(既定値 8局, 5000人)。
+ */
+public class SpectatorBroadcasterBenchmark{
+    private static final int CAPACITY = 4096;
+
+    public static void main(String[] args) throws Exception{
+        int rounds = args.length>0? Integer.parseInt(args[0]):8;
+        int maxSpectators = args.length>1? Integer.parseInt(args[1]):5000;
+        var random = new Random(0);
+        var events = new ArrayList<TableEvent>();
+        var recorder = TableEvent.recorder(events::add);
+        for(int round = 0; round<rounds; round++){
+            generateRound(recorder, random, round);
+        }
+        var expected = events.stream().map(TableEvent::toString).collect(toList());
+        for(int pass = 0; pass<2; pass++){
+            for(int spectators:List.of(0, 1, 100, maxSpectators)){
+                broadcast(events, expected, spectators);
+            }
+        }
+        checkSlowSpectator(events);
+        checkDelay(events);
+        checkLateSubscriber(events, expected);
+        checkFieldRound();
+        System.out.println("verified spectator broadcast");
+    }
+
+    /**
+     * 指定した数の観戦者に通知列を配信し, 通知元のCPU時間と送信の完了までの時間を出力します。
+     */
+    private static void broadcast(List<TableEvent> events, List<String> expected, int spectators) throws InterruptedException{
+        var threadBean = ManagementFactory.getThreadMXBean();
+        int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+        try(var broadcaster = new SpectatorBroadcaster(threadCount, CAPACITY)){
+            var sinks = new ArrayList<CountingSink>();
+            for(int i = 0; i<spectators; i++){
+                var sink = new CountingSink(i==0);
+                sinks.add(sink);
+                broadcaster.subscribe(sink);
+            }
+            awaitSubscribers(broadcaster, spectators);
+            long start = System.nanoTime();
+            long cpuStart = threadBean.getCurrentThreadCpuTime();
+            for(var event:events){
+                broadcaster.publish(event);
+            }
+            double publish = (threadBean.getCurrentThreadCpuTime() - cpuStart)/1e3/events.size();
+            for(var sink:sinks){
+                sink.await(events.size());
+            }
+            double elapsed = (System.nanoTime() - start)/1e6;
+            System.out.printf("%5d spectators: publisher cpu %.2f us/event, %d records sent in %.1f ms%n",
+                    spectators, publish, (long)spectators*events.size(), elapsed);
+            if(!sinks.isEmpty()){
+                if(!sinks.get(0).decoded.equals(expected)){
+                    throw new AssertionError("decoded events mismatch");
+                }
+                long checksum = sinks.get(0).checksum.get();
+                for(var sink:sinks){
+                    if(sink.checksum.get()!=checksum) throw new AssertionError("record mismatch");
+                }
+            }
+            if(broadcaster.getDisconnectedCount()!=0){
+                throw new AssertionError("unexpected disconnection");
+            }
+        }
+    }
+
+    private static void awaitSubscribers(SpectatorBroadcaster broadcaster, int count) throws InterruptedException{
+        while(broadcaster.getSubscriberCount()<count){
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * 送信の遅い観戦者のみが購読を解除されることを確認します。
+     */
+    private static void checkSlowSpectator(List<TableEvent> events) throws InterruptedException{
+        try(var broadcaster = new SpectatorBroadcaster(2, 512)){
+            var fast = new CountingSink(false);
+            broadcaster.subscribe(fast);
+            var slow = broadcaster.subscribe(record->sleep(10));
+            awaitSubscribers(broadcaster, 2);
+            // 一局ずつ間隔を空けて通知します
+            for(var event:events){
+                if(event.getType()==TableEvent.Type.ROUND_STARTED) Thread.sleep(50);
+                broadcaster.publish(event);
+            }
+            fast.await(events.size());
+            if(!slow.isCancelled() || broadcaster.getDisconnectedCount()!=1 || broadcaster.getSubscriberCount()!=1){
+                throw new AssertionError("slow spectator not disconnected");
+            }
+            System.out.printf("slow spectator disconnected after %d records, others received all %d%n",
+                    slow.getSentCount(), events.size());
+        }
+    }
+
+    /**
+     * 遅延を指定した配信が遅れて届くことを確認します。
+     */
+    private static void checkDelay(List<TableEvent> events) throws InterruptedException{
+        long delayMillis = 200;
+        try(var broadcaster = new SpectatorBroadcaster(1, CAPACITY, delayMillis, TimeUnit.MILLISECONDS)){
+            var sink = new CountingSink(false);
+            broadcaster.subscribe(sink);
+            awaitSubscribers(broadcaster, 1);
+            long start = System.nanoTime();
+            for(var event:events){
+                broadcaster.publish(event);
+            }
+            double publish = (System.nanoTime() - start)/1e6;
+            while(sink.count.get()==0){
+                Thread.sleep(1);
+            }
+            double first = (System.nanoTime() - start)/1e6;
+            sink.await(events.size());
+            if(first<delayMillis){
+                throw new AssertionError("delivered before delay: "+first+" ms");
+            }
+            System.out.printf("delayed %d ms: published in %.1f ms, first record after %.1f ms%n",
+                    delayMillis, publish, first);
+        }
+    }
+
+    /**
+     * 途中から購読した観戦者が席の情報と局の開始以降の通知を受け取ることを確認します。
+     */
+    private static void checkLateSubscriber(List<TableEvent> events, List<String> expected) throws InterruptedException{
+        int lastRound = 0;
+        for(int i = 0; i<events.size(); i++){
+            if(events.get(i).getType()==TableEvent.Type.ROUND_STARTED) lastRound = i;
+        }
+        int joinAt = lastRound + (events.size() - lastRound)/2;
+        try(var broadcaster = new SpectatorBroadcaster(1, CAPACITY)){
+            for(var event:events.subList(0, joinAt)){
+                broadcaster.publish(event);
+            }
+            var sink = new CountingSink(true);
+            broadcaster.subscribe(sink);
+            for(var event:events.subList(joinAt, events.size())){
+                broadcaster.publish(event);
+            }
+            var catchUp = new ArrayList<String>();
+            for(int i = 0; i<lastRound; i++){
+                if(events.get(i).getType()==TableEvent.Type.SEAT_UPDATED) catchUp.add(expected.get(i));
+            }
+            catchUp = new ArrayList<>(catchUp.subList(catchUp.size() - 4, catchUp.size()));
+            catchUp.addAll(expected.subList(lastRound, expected.size()));
+            sink.await(catchUp.size());
+            if(!sink.decoded.equals(catchUp)){
+                throw new AssertionError("late subscriber mismatch");
+            }
+            System.out.printf("late subscriber received %d seat and %d round records%n",
+                    4, catchUp.size() - 4);
+        }
+    }
+
+    /**
+     * 局に登録した観戦者に卓上の全ての変化が通知され, 配信したレコードが通知と一致することを確認します。
+     */
+    private static void checkFieldRound() throws InterruptedException{
+        var round = new FieldRound(Wind.EAST, 1, 0, 0, new Random(0));
+        for(var wind:Wind.values()){
+            var bot = new Bot(wind.toString());
+            round.join(wind, new SimulationParticipant(bot.getName(), wind, 25000, bot.getViewer()));
+        }
+        var discards = new AtomicLong();
+        var published = Collections.synchronizedList(new ArrayList<String>());
+        round.addSpectator(new TableSpectator(){
+            @Override
+            public void roundStarted(Wind wind, int count, int streak, int deposit){
+            }
+            @Override
+            public void diceRolled(Wind wind, int dice1, int dice2){
+            }
+            @Override
+            public void seatUpdated(Wind wind, String name, int score){
+            }
+            @Override
+            public void tileDiscarded(Wind wind, Tile tile){
+                discards.incrementAndGet();
+            }
+            @Override
+            public void tableEventPublished(TableEvent event){
+                published.add(event.toString());
+                TableSpectator.super.tableEventPublished(event);
+            }
+        });
+        try(var broadcaster = new SpectatorBroadcaster(1, CAPACITY)){
+            var sink = new CountingSink(true);
+            broadcaster.subscribe(sink);
+            awaitSubscribers(broadcaster, 1);
+            round.addSpectator(broadcaster);
+            round.start();
+            sink.await(published.size());
+            if(!sink.decoded.equals(published)){
+                throw new AssertionError("field round spectator mismatch:\n expected: "+published+"\n actual:   "+sink.decoded);
+            }
+            // 局の開始, 席の情報(4件), サイコロの出目に続いて局の進行が通知されます
+            if(!published.get(0).startsWith("ROUND_STARTED") || !published.get(5).startsWith("DICE_ROLLED")){
+                throw new AssertionError("field round spectator order mismatch: "+published);
+            }
+            var types = sink.decoded.stream().map(event->event.split(" ")[0]).collect(toList());
+            long discarded = types.stream().filter(type->type.startsWith("TILE_DISCARDED")).count();
+            for(var type:List.of("WALL_TILE_REVEALED", "TILE_DRAWN", "HAND_UPDATED", "TILE_DISCARDED", "ROUND_SETTLED")){
+                if(!types.contains(type)){
+                    throw new AssertionError("field round spectator missing "+type+": "+published);
+                }
+            }
+            if(discards.get()==0 || discarded!=discards.get()){
+                throw new AssertionError("discards not routed to spectator: "+discards.get()+"/"+discarded);
+            }
+            System.out.printf("field round spectator received %d records (%d discards, %d draws)%n",
+                    sink.decoded.size(), discarded, types.stream().filter("TILE_DRAWN"::equals).count());
+        }
+    }
+
+    private static void sleep(long millis){
+        try{
+            Thread.sleep(millis);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 受け取ったレコードの数とチェックサムを記録する送信先。
+     */
+    private static final class CountingSink implements SpectatorSink{
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong checksum = new AtomicLong();
+        private final List<String> decoded;
+        private final TableEventDecoder decoder;
+        private final TableObserver collector;
+
+        private CountingSink(boolean decode){
+            this.decoded = decode? Collections.synchronizedList(new ArrayList<>()):null;
+            this.decoder = decode? new TableEventDecoder():null;
+            this.collector = decode? TableEvent.recorder(event->decoded.add(event.toString())):null;
+        }
+
+        @Override
+        public void send(ByteBuffer record){
+            long sum = checksum.get();
+            while(record.hasRemaining()){
+                sum = sum*31 + record.get();
+            }
+            checksum.set(sum);
+            if(decoder!=null){
+                record.rewind();
+                decoder.decode(record);
+                decoder.dispatchTo(collector);
+            }
+            count.incrementAndGet();
+        }
+
+        private void await(long expected) throws InterruptedException{
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while(count.get()<expected){
+                if(System.nanoTime()>deadline){
+                    throw new AssertionError("records not delivered: "+count.get()+"/"+expected);
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    /**
+     * 一局分の通知を生成します。
+     */
+    private static void generateRound(TableObserver observer, Random random, int round){
+        var sides = Side.values();
+        var deck = Tiles.fullSet();
+        Collections.shuffle(deck, random);
+        for(var side:sides){
+            observer.seatUpdated(side, Wind.values()[side.ordinal()], "player"+side.ordinal(), 25000 + round*100);
+        }
+        observer.roundStarted(Wind.EAST, round%4 + 1, 0, 0);
+        observer.diceRolled(Side.SELF, random.nextInt(6) + 1, random.nextInt(6) + 1);
+        observer.wallGenerated();
+        var hand = new ArrayList<>(deck.subList(0, 13));
+        Collections.sort(hand);
+        observer.handUpdated(hand);
+        for(int turn = 0; turn<70; turn++){
+            var side = sides[turn%4];
+            var drawn = deck.get(52 + turn);
+            observer.wallTileTaken(sides[turn/34], turn%34/2, turn%2);
+            if(side==Side.SELF){
+                observer.tileDrawn(drawn);
+                hand.add(drawn);
+                var discarded = hand.remove(random.nextInt(hand.size()));
+                Collections.sort(hand);
+                observer.tileDiscarded(side, discarded);
+                observer.handUpdated(hand);
+            }else{
+                observer.tileDrawn(side);
+                observer.handUpdated(side, 14);
+                observer.tileDiscarded(side, drawn);
+                observer.handUpdated(side, 13);
+            }
+        }
+        observer.roundSettled("流局");
+    }
+}
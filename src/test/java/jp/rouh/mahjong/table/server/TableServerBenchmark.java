@@ -0,0 +1,58 @@
+package jp.rouh.mahjong.table.server;
+
+import jp.rouh.mahjong.app.Bot;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TableServer}の処理能力と受付制御を確認します。
+ *
+ * <p>ボットのみの卓を上限を超えて開こうとし続け, 受付を拒否された場合は
+ * 卓の終局を待って再試行します。一秒ごとに稼働状況を出力し,
+ * 全ての卓を開いた後に受付を停止して終局を待ちます。
+ * 引数で卓の数(既定値 400), スレッド数(既定値 プロセッサ数), 卓の数の上限(既定値 64)を指定できます。
+ */
+public class TableServerBenchmark{
+    public static void main(String[] args) throws InterruptedException{
+        int tableCount = args.length>0? Integer.parseInt(args[0]):400;
+        int threadCount = args.length>1? Integer.parseInt(args[1]):Runtime.getRuntime().availableProcessors();
+        int maxTableCount = args.length>2? Integer.parseInt(args[2]):64;
+        try(var server = new TableServer(threadCount, maxTableCount)){
+            var finished = new Semaphore(0);
+            var previous = server.getMetrics();
+            long nextReport = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            int opened = 0;
+            while(opened<tableCount){
+                try{
+                    var table = server.open(new Bot("A"), new Bot("B"), new Bot("C"), new Bot("D"));
+                    table.getCompletion().whenComplete((game, error)->finished.release());
+                    opened++;
+                }catch(RejectedExecutionException e){
+                    finished.tryAcquire(100, TimeUnit.MILLISECONDS);
+                }
+                if(System.nanoTime()>nextReport){
+                    var metrics = server.getMetrics();
+                    System.out.printf("%s, last second %.1f rounds/s%n", metrics, metrics.getRoundsPerSecondSince(previous));
+                    previous = metrics;
+                    nextReport += TimeUnit.SECONDS.toNanos(1);
+                }
+            }
+            if(!server.awaitDrained(10, TimeUnit.MINUTES)){
+                throw new AssertionError("tables not drained");
+            }
+            try{
+                server.open(new Bot("A"), new Bot("B"), new Bot("C"), new Bot("D"));
+                throw new AssertionError("drained server accepted a table");
+            }catch(RejectedExecutionException expected){
+                // 停止処理中の受付は拒否されます
+            }
+            var metrics = server.getMetrics();
+            if(metrics.getCompletedTableCount()!=tableCount || metrics.getActiveTableCount()!=0){
+                throw new AssertionError("unexpected metrics: "+metrics);
+            }
+            System.out.println("final: "+metrics);
+        }
+    }
+}